@@ -0,0 +1,51 @@
+package com.wsj.benchmarks;
+
+import com.valdir.jsonconsumer.model.Payment;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.kafka.support.converter.JsonMessageConverter;
+import org.springframework.kafka.support.converter.MessagingMessageConverter;
+import org.springframework.messaging.Message;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo da conversão feita pelo container do json-consumer antes de chamar o listener:
+ * JSON em String para {@link Payment} com o {@link JsonMessageConverter}, comparado ao
+ * repasse de um {@link Payment} já desserializado com o {@link MessagingMessageConverter}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonMessageConverterBenchmark {
+
+    private final JsonMessageConverter jsonConverter = new JsonMessageConverter();
+    private final MessagingMessageConverter passThroughConverter = new MessagingMessageConverter();
+
+    private final ConsumerRecord<String, Object> jsonRecord = new ConsumerRecord<>("payment-topic", 0, 0L, null,
+            "{\"id\":1234567,\"idUser\":98765,\"idProduct\":4321,\"cardNumber\":\"4111111111111111\"}");
+
+    private final ConsumerRecord<String, Object> decodedRecord = new ConsumerRecord<>("payment-topic", 0, 0L, null,
+            new Payment(1234567L, 98765L, 4321L, "4111111111111111"));
+
+    @Benchmark
+    public Message<?> jsonConverter() {
+        return jsonConverter.toMessage(jsonRecord, null, null, Payment.class);
+    }
+
+    @Benchmark
+    public Message<?> passThroughConverter() {
+        return passThroughConverter.toMessage(decodedRecord, null, null, Payment.class);
+    }
+}
@@ -0,0 +1,104 @@
+package com.wsj.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wsj.paymentservice.codec.PaymentBinarySerializer;
+import com.wsj.paymentservice.model.Payment;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.util.concurrent.ListenableFuture;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo do {@link KafkaTemplate#send} usado pelo str-producer e pelo payment-service,
+ * contra um {@link MockProducer} que confirma na hora (sem rede), isolando o overhead do template,
+ * da serialização e dos callbacks.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KafkaTemplateSendBenchmark {
+
+    private ReusableMockProducer<String> stringProducer;
+    private ReusableMockProducer<Payment> jsonProducer;
+    private ReusableMockProducer<Payment> binaryProducer;
+
+    private KafkaTemplate<String, String> stringTemplate;
+    private KafkaTemplate<String, Payment> jsonTemplate;
+    private KafkaTemplate<String, Payment> binaryTemplate;
+
+    private Payment payment;
+
+    @Setup
+    public void setup() throws Exception {
+        payment = new ObjectMapper().readValue(
+                "{\"id\":1234567,\"idUser\":98765,\"idProduct\":4321,\"cardNumber\":\"4111111111111111\"}",
+                Payment.class);
+
+        stringProducer = new ReusableMockProducer<>(new StringSerializer());
+        jsonProducer = new ReusableMockProducer<>(new JsonSerializer<>());
+        binaryProducer = new ReusableMockProducer<>(new PaymentBinarySerializer());
+
+        stringTemplate = new KafkaTemplate<>(() -> stringProducer);
+        jsonTemplate = new KafkaTemplate<>(() -> jsonProducer);
+        binaryTemplate = new KafkaTemplate<>(() -> binaryProducer);
+    }
+
+    // O MockProducer guarda todos os registros enviados; limpa a cada iteração para não medir o crescimento da lista
+    @TearDown(Level.Iteration)
+    public void clear() {
+        stringProducer.clear();
+        jsonProducer.clear();
+        binaryProducer.clear();
+    }
+
+    @Benchmark
+    public ListenableFuture<?> sendString() {
+        return stringTemplate.send("str-topic", "Mensagem enviada pelo str-producer");
+    }
+
+    @Benchmark
+    public ListenableFuture<?> sendJsonPayment() {
+        return jsonTemplate.send("payment-topic", payment);
+    }
+
+    @Benchmark
+    public ListenableFuture<?> sendBinaryPayment() {
+        return binaryTemplate.send("payment-topic", payment);
+    }
+
+    // O KafkaTemplate fecha o producer depois de cada envio; a fábrica real devolve um producer que ignora o close
+    private static class ReusableMockProducer<V> extends MockProducer<String, V> {
+
+        ReusableMockProducer(Serializer<V> valueSerializer) {
+            super(true, new StringSerializer(), valueSerializer);
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public void close(Duration timeout) {
+        }
+    }
+}
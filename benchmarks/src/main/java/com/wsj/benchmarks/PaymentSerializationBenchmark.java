@@ -0,0 +1,74 @@
+package com.wsj.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.valdir.jsonconsumer.codec.PaymentBinaryDeserializer;
+import com.wsj.paymentservice.codec.PaymentBinarySerializer;
+import com.wsj.paymentservice.model.Payment;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo de serializar (payment-service) e desserializar (json-consumer) um pagamento
+ * com o {@link JsonSerializer} e com o codec binário.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaymentSerializationBenchmark {
+
+    private static final String TOPIC = "payment-topic";
+
+    private final JsonSerializer<Payment> jsonSerializer = new JsonSerializer<>();
+    private final PaymentBinarySerializer binarySerializer = new PaymentBinarySerializer();
+    private final PaymentBinaryDeserializer deserializer = new PaymentBinaryDeserializer();
+
+    private Payment payment;
+    private byte[] json;
+    private byte[] binary;
+    private RecordHeaders binaryHeaders;
+
+    @Setup
+    public void setup() throws Exception {
+        payment = new ObjectMapper().readValue(
+                "{\"id\":1234567,\"idUser\":98765,\"idProduct\":4321,\"cardNumber\":\"4111111111111111\"}",
+                Payment.class);
+        json = jsonSerializer.serialize(TOPIC, new RecordHeaders(), payment);
+        binaryHeaders = new RecordHeaders();
+        binary = binarySerializer.serialize(TOPIC, binaryHeaders, payment);
+    }
+
+    @Benchmark
+    public byte[] jsonSerialize() {
+        return jsonSerializer.serialize(TOPIC, new RecordHeaders(), payment);
+    }
+
+    @Benchmark
+    public byte[] binarySerialize() {
+        return binarySerializer.serialize(TOPIC, new RecordHeaders(), payment);
+    }
+
+    @Benchmark
+    public Object jsonDeserialize() {
+        return deserializer.deserialize(TOPIC, new RecordHeaders(), json);
+    }
+
+    @Benchmark
+    public Object binaryDeserialize() {
+        return deserializer.deserialize(TOPIC, binaryHeaders, binary);
+    }
+}
@@ -0,0 +1,123 @@
+package com.wsj.benchmarks;
+
+import com.wsj.str_consumer.claimcheck.BlobReader;
+import com.wsj.str_consumer.claimcheck.ClaimCheckArgumentResolver;
+import com.wsj.str_consumer.matcher.ContentMatchingProperties;
+import com.wsj.str_consumer.matcher.ContentMatchingRecordInterceptor;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.internals.RecordHeader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo do {@link ContentMatchingRecordInterceptor} aplicado pelo {@code validMessageContainerFactory}
+ * em cada registro do str-topic, com e sem palavra encontrada, para quantidades diferentes de regras.
+ * O custo da varredura não deve crescer com {@code rules}.
+ * O log do interceptor fica desligado pelo logback.xml do módulo para medir só a verificação.
+ *
+ * <p>{@code claimCheck} varre um blob de 256KB mapeado pelo {@link BlobReader} (registro com a referência e os
+ * cabeçalhos do claim check); {@code largeInline} varre os mesmos bytes já no heap, para comparação.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RecordInterceptorBenchmark {
+
+    @Param({"1", "50"})
+    private int rules;
+
+    private ContentMatchingRecordInterceptor interceptor;
+
+    private final byte[] matching = "Mensagem de Teste enviada pelo str-producer para o str-consumer"
+            .getBytes(StandardCharsets.UTF_8);
+
+    private final byte[] notMatching = "Mensagem comum enviada pelo str-producer para o str-consumer"
+            .getBytes(StandardCharsets.UTF_8);
+
+    private byte[] large;
+    private String largeDigest;
+    private Path blobs;
+
+    @Setup
+    public void setup() throws IOException, NoSuchAlgorithmException {
+        var properties = new ContentMatchingProperties();
+        var configured = new ArrayList<ContentMatchingProperties.Rule>();
+        for (int i = 0; i < rules; i++) {
+            var rule = new ContentMatchingProperties.Rule();
+            rule.setName("regra-" + i);
+            rule.setKeywords(i == 0 ? List.of("Teste") : List.of("palavra" + i, "termo" + i));
+            configured.add(rule);
+        }
+        properties.setRules(configured);
+
+        // Blob com a palavra da primeira regra só no final, gravado como o str-producer grava
+        large = ("x".repeat(256 * 1024 - 6) + " Teste").getBytes(StandardCharsets.UTF_8);
+        largeDigest = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(large));
+        blobs = Files.createTempDirectory("blobs");
+        var blob = blobs.resolve(largeDigest.substring(0, 2)).resolve(largeDigest);
+        Files.createDirectories(blob.getParent());
+        Files.write(blob, large);
+
+        interceptor = new ContentMatchingRecordInterceptor(properties, new BlobReader(blobs));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (var files = Files.walk(blobs)) {
+            for (var file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    // Um registro novo por operação, já que o interceptor adiciona cabeçalhos a ele
+    @Benchmark
+    public ConsumerRecord<String, byte[]> matching() {
+        return interceptor.intercept(new ConsumerRecord<>("str-topic", 0, 0L, null, matching), null);
+    }
+
+    @Benchmark
+    public ConsumerRecord<String, byte[]> notMatching() {
+        return interceptor.intercept(new ConsumerRecord<>("str-topic", 0, 0L, null, notMatching), null);
+    }
+
+    @Benchmark
+    public ConsumerRecord<String, byte[]> claimCheck() {
+        var record = new ConsumerRecord<String, byte[]>("str-topic", 0, 0L, null,
+                ("sha256:" + largeDigest).getBytes(StandardCharsets.UTF_8));
+        record.headers().add(new RecordHeader(ClaimCheckArgumentResolver.HEADER, largeDigest.getBytes(StandardCharsets.UTF_8)));
+        record.headers().add(new RecordHeader(ClaimCheckArgumentResolver.SIZE_HEADER,
+                Integer.toString(large.length).getBytes(StandardCharsets.UTF_8)));
+        return interceptor.intercept(record, null);
+    }
+
+    @Benchmark
+    public ConsumerRecord<String, byte[]> largeInline() {
+        return interceptor.intercept(new ConsumerRecord<>("str-topic", 0, 0L, null, large), null);
+    }
+}
@@ -0,0 +1,59 @@
+package com.valdir.jsonconsumer.changelog;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.core.ConsumerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Lê um tópico de changelog do início até os offsets finais do momento da chamada, com {@code assign},
+ * sem grupo de consumidores e sem commit. Usado para reconstruir estado local ao iniciar.
+ */
+public final class ChangelogReader {
+
+    private ChangelogReader() {
+    }
+
+    /**
+     * Entrega cada registro ao {@code handler} e devolve quantos foram lidos.
+     * Se o {@code timeout} esgotar antes do fim, devolve o que foi lido até ali; erros de conexão são propagados.
+     */
+    public static <K, V> int replay(ConsumerFactory<K, V> consumerFactory, String topic, Duration timeout,
+                                    java.util.function.Consumer<ConsumerRecord<K, V>> handler) {
+        long deadline = System.currentTimeMillis() + timeout.toMillis();
+        int read = 0;
+
+        try (Consumer<K, V> consumer = consumerFactory.createConsumer()) {
+            var partitions = consumer.partitionsFor(topic, timeout)
+                    .stream()
+                    .map(info -> new TopicPartition(info.topic(), info.partition()))
+                    .collect(Collectors.toList());
+            consumer.assign(partitions);
+            consumer.seekToBeginning(partitions);
+            var endOffsets = consumer.endOffsets(partitions, timeout);
+
+            while (!reachedEnd(consumer, partitions, endOffsets) && System.currentTimeMillis() < deadline) {
+                for (var record : consumer.poll(Duration.ofMillis(200))) {
+                    handler.accept(record);
+                    read++;
+                }
+            }
+        }
+        return read;
+    }
+
+    private static boolean reachedEnd(Consumer<?, ?> consumer, List<TopicPartition> partitions,
+                                      Map<TopicPartition, Long> endOffsets) {
+        for (var partition : partitions) {
+            if (consumer.position(partition) < endOffsets.get(partition)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
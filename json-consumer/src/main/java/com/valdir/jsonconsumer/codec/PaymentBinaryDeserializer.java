@@ -0,0 +1,82 @@
+package com.valdir.jsonconsumer.codec;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.valdir.jsonconsumer.model.Payment;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Desserializador do layout binário de {@link Payment} escrito pelo {@code PaymentBinarySerializer}
+ * do payment-service. A versão do layout vem no cabeçalho {@value #SCHEMA_VERSION_HEADER};
+ * registros sem esse cabeçalho são tratados como JSON, então o consumidor pode ser atualizado
+ * antes do produtor trocar de formato.
+ */
+public class PaymentBinaryDeserializer implements Deserializer<Payment> {
+
+    public static final String SCHEMA_VERSION_HEADER = "payment-schema-version";
+
+    private static final int PRESENT_ID = 1;
+    private static final int PRESENT_ID_USER = 1 << 1;
+    private static final int PRESENT_ID_PRODUCT = 1 << 2;
+    private static final int PRESENT_CARD_NUMBER = 1 << 3;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    @Override
+    public Payment deserialize(String topic, Headers headers, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        var version = headers.lastHeader(SCHEMA_VERSION_HEADER);
+        if (version == null) {
+            return fromJson(data);
+        }
+        if (version.value().length != 1 || version.value()[0] != 1) {
+            throw new SerializationException("Versão de layout de pagamento não suportada no tópico " + topic);
+        }
+        return fromV1(data);
+    }
+
+    @Override
+    public Payment deserialize(String topic, byte[] data) {
+        return data == null ? null : fromJson(data);
+    }
+
+    private Payment fromV1(byte[] data) {
+        try {
+            var buffer = ByteBuffer.wrap(data);
+            int presence = buffer.get();
+            long id = buffer.getLong();
+            long idUser = buffer.getLong();
+            long idProduct = buffer.getLong();
+            int cardLength = buffer.getShort();
+            String cardNumber = null;
+            if ((presence & PRESENT_CARD_NUMBER) != 0) {
+                cardNumber = new String(data, buffer.position(), cardLength, StandardCharsets.UTF_8);
+            }
+            return new Payment(
+                    (presence & PRESENT_ID) != 0 ? id : null,
+                    (presence & PRESENT_ID_USER) != 0 ? idUser : null,
+                    (presence & PRESENT_ID_PRODUCT) != 0 ? idProduct : null,
+                    cardNumber
+            );
+        } catch (RuntimeException e) {
+            throw new SerializationException("Pagamento binário inválido", e);
+        }
+    }
+
+    private Payment fromJson(byte[] data) {
+        try {
+            return objectMapper.readValue(data, Payment.class);
+        } catch (IOException e) {
+            throw new SerializationException("Pagamento JSON inválido", e);
+        }
+    }
+}
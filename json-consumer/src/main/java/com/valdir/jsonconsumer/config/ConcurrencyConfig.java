@@ -0,0 +1,50 @@
+package com.valdir.jsonconsumer.config;
+
+import com.wsj.kafka.support.partitions.AutoscalingProperties;
+import com.wsj.kafka.support.partitions.LagAutoscaler;
+import com.wsj.kafka.support.partitions.PartitionConcurrency;
+import com.wsj.kafka.support.partitions.PartitionConcurrencyProperties;
+import com.wsj.kafka.support.rebalance.RebalanceSupport;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+
+/**
+ * Concorrência dos listeners: um consumidor por partição na criação de cada container e, se ligado, o ajuste
+ * pelo lag, desligado por padrão porque cada mudança reinicia o container. Numa redução, os membros estáticos
+ * que deixaram de existir são removidos do grupo pelo {@link RebalanceSupport}.
+ */
+@Configuration
+public class ConcurrencyConfig {
+
+    @Bean
+    @ConfigurationProperties(prefix = "payment.listener.concurrency")
+    public PartitionConcurrencyProperties partitionConcurrencyProperties() {
+        return new PartitionConcurrencyProperties();
+    }
+
+    @Bean
+    public PartitionConcurrency partitionConcurrency(KafkaProperties kafkaProperties,
+                                                     PartitionConcurrencyProperties properties) {
+        return new PartitionConcurrency(kafkaProperties.getBootstrapServers(), properties);
+    }
+
+    @Bean
+    @ConfigurationProperties(prefix = "payment.listener.concurrency.autoscaling")
+    public AutoscalingProperties autoscalingProperties() {
+        return new AutoscalingProperties();
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "payment.listener.concurrency.autoscaling", name = "enabled", havingValue = "true")
+    public LagAutoscaler lagAutoscaler(KafkaListenerEndpointRegistry registry, PartitionConcurrency partitionConcurrency,
+                                       AutoscalingProperties properties, MeterRegistry meterRegistry,
+                                       RebalanceSupport rebalanceSupport) {
+        return new LagAutoscaler(registry, partitionConcurrency::concurrencyFor, properties, meterRegistry,
+                (container, previous, next) -> rebalanceSupport.removeMembers(container, next, previous));
+    }
+}
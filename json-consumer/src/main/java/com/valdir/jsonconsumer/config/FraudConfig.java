@@ -0,0 +1,143 @@
+package com.valdir.jsonconsumer.config;
+
+import com.valdir.jsonconsumer.fraud.FraudProperties;
+import com.valdir.jsonconsumer.model.Payment;
+import com.wsj.kafka.support.rebalance.RebalanceProperties;
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.config.TopicConfig;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.LongDeserializer;
+import org.apache.kafka.common.serialization.LongSerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.support.serializer.DelegatingByTopicSerializer;
+import org.springframework.kafka.support.serializer.DelegatingByTypeSerializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+@RequiredArgsConstructor
+@Configuration
+@EnableConfigurationProperties(FraudProperties.class)
+public class FraudConfig {
+
+    private final KafkaProperties properties;
+
+    /**
+     * O changelog é compactado pelo id do pagamento e expira com a janela, já que eventos mais antigos
+     * não contam mais para nenhum contador.
+     */
+    @Bean
+    public KafkaAdmin.NewTopics fraudTopics(FraudProperties fraudProperties) {
+        return new KafkaAdmin.NewTopics(
+                TopicBuilder.name(fraudProperties.getApprovedTopic()).build(),
+                TopicBuilder.name(fraudProperties.getRejectedTopic()).build(),
+                TopicBuilder.name(fraudProperties.getChangelogTopic())
+                        .partitions(1)
+                        .config(TopicConfig.CLEANUP_POLICY_CONFIG,
+                                TopicConfig.CLEANUP_POLICY_COMPACT + "," + TopicConfig.CLEANUP_POLICY_DELETE)
+                        .config(TopicConfig.RETENTION_MS_CONFIG, String.valueOf(fraudProperties.getWindow().toMillis()))
+                        .build(),
+                TopicBuilder.name(fraudProperties.getTransactional().getDeadLetterTopic()).build()
+        );
+    }
+
+    @Bean
+    public KafkaTemplate<String, Object> fraudDecisionTemplate() {
+        var configs = new HashMap<String, Object>();
+        configs.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, properties.getBootstrapServers());
+        configs.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        configs.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        configs.put(JsonSerializer.ADD_TYPE_INFO_HEADERS, false);
+        configs.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        configs.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, 1000);
+        return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(configs));
+    }
+
+    /**
+     * Produtor transacional da etapa exactly-once. O {@code transactional.id} precisa ser único entre as instâncias,
+     * então leva o id estático da instância ou, sem ele, um id aleatório: com o modo EOS V2 do spring-kafka os
+     * produtores zumbis são barrados pelos metadados do grupo de consumidores, e não pelo {@code transactional.id}.
+     * Decisões, changelog e dead letter vão na mesma transação, então os serializadores são escolhidos pelo tópico:
+     * o changelog leva chave {@code Long} e valor binário, e o dead letter repete o valor lido do {@code payment-topic}.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "payment.fraud.transactional.enabled", havingValue = "true")
+    public ProducerFactory<Object, Object> fraudTransactionalProducerFactory(FraudProperties fraudProperties,
+                                                                             RebalanceProperties rebalanceProperties) {
+        var configs = new HashMap<String, Object>();
+        configs.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, properties.getBootstrapServers());
+        configs.put(JsonSerializer.ADD_TYPE_INFO_HEADERS, false);
+        configs.put(ProducerConfig.LINGER_MS_CONFIG, 5);
+        // Logo após um commit o coordenador ainda grava os marcadores e responde CONCURRENT_TRANSACTIONS
+        // à próxima transação; o backoff padrão de 100ms entre essas tentativas segurava cada lote
+        configs.put(ProducerConfig.RETRY_BACKOFF_MS_CONFIG, 10);
+
+        var changelog = Pattern.compile(Pattern.quote(fraudProperties.getChangelogTopic()));
+        var deadLetter = Pattern.compile(Pattern.quote(fraudProperties.getTransactional().getDeadLetterTopic()));
+        var keySerializer = new DelegatingByTopicSerializer(Map.of(changelog, new LongSerializer()), new StringSerializer());
+        var valueSerializer = new DelegatingByTopicSerializer(Map.of(
+                changelog, new ByteArraySerializer(),
+                deadLetter, new DelegatingByTypeSerializer(Map.of(
+                        String.class, new StringSerializer(),
+                        Payment.class, new JsonSerializer<>()))),
+                new JsonSerializer<>());
+
+        var instance = rebalanceProperties.getInstanceId() != null && !rebalanceProperties.getInstanceId().isBlank()
+                ? rebalanceProperties.getInstanceId()
+                : UUID.randomUUID().toString();
+        var factory = new DefaultKafkaProducerFactory<Object, Object>(configs, keySerializer, valueSerializer);
+        factory.setTransactionIdPrefix(fraudProperties.getTransactional().getTransactionIdPrefix() + instance + "-");
+        return factory;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "payment.fraud.transactional.enabled", havingValue = "true")
+    public KafkaTemplate<Object, Object> fraudTransactionalTemplate(ProducerFactory<Object, Object> fraudTransactionalProducerFactory) {
+        return new KafkaTemplate<>(fraudTransactionalProducerFactory);
+    }
+
+    @Bean
+    public KafkaTemplate<Long, byte[]> fraudChangelogTemplate() {
+        var configs = new HashMap<String, Object>();
+        configs.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, properties.getBootstrapServers());
+        configs.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, LongSerializer.class);
+        configs.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        configs.put(ProducerConfig.LINGER_MS_CONFIG, 50);
+        configs.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, 1000);
+        return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(configs));
+    }
+
+    @Bean
+    public ConsumerFactory<Long, byte[]> fraudChangelogConsumerFactory() {
+        var configs = new HashMap<String, Object>();
+        configs.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, properties.getBootstrapServers());
+        configs.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, LongDeserializer.class);
+        configs.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+        configs.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        configs.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 5000);
+        // A etapa transacional grava o changelog na transação do lote; registros de lotes abortados não contam
+        configs.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed");
+        // O changelog é criado pelo KafkaAdmin em fraudTopics; a releitura não deve criá-lo com os padrões do broker
+        configs.put(ConsumerConfig.ALLOW_AUTO_CREATE_TOPICS_CONFIG, false);
+        return new DefaultKafkaConsumerFactory<>(configs);
+    }
+}
@@ -1,40 +1,242 @@
 package com.valdir.jsonconsumer.config;
 
+import com.valdir.jsonconsumer.codec.PaymentBinaryDeserializer;
+import com.valdir.jsonconsumer.email.EmailProperties;
+import com.valdir.jsonconsumer.fraud.DeadLetterBatchRollbackProcessor;
+import com.valdir.jsonconsumer.fraud.FraudProperties;
+import com.valdir.jsonconsumer.receipt.ReceiptProperties;
+import com.wsj.kafka.support.metrics.ConsumerMetricsInterceptor;
+import com.wsj.kafka.support.partitions.PartitionConcurrency;
+import com.wsj.kafka.support.rebalance.RebalanceSupport;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.ContainerCustomizer;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.converter.BatchMessagingMessageConverter;
 import org.springframework.kafka.support.converter.JsonMessageConverter;
+import org.springframework.kafka.support.converter.MessagingMessageConverter;
+import org.springframework.kafka.support.converter.RecordMessageConverter;
+import org.springframework.kafka.transaction.KafkaTransactionManager;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.util.backoff.FixedBackOff;
 
 import java.util.HashMap;
+import java.util.Properties;
 
 @RequiredArgsConstructor
 @Configuration
+@EnableConfigurationProperties({ReceiptProperties.class, EmailProperties.class})
 public class JsonConsumerConfig {
 
     private final KafkaProperties properties;
+    private final PartitionConcurrency partitionConcurrency;
+    private final RebalanceSupport rebalanceSupport;
 
+    @Value("${payment.codec:json}")
+    private String codec;
+
+    /**
+     * Com {@code payment.codec=binary} o valor é desserializado direto para {@code Payment} pelo
+     * {@link PaymentBinaryDeserializer}, que também aceita JSON sem cabeçalho de versão.
+     */
     @Bean
     public ConsumerFactory<String, Object> jsonConsumerFactory() {
         var configs = new HashMap<String, Object>();
         configs.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, properties.getBootstrapServers());
         configs.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        configs.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        configs.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG,
+                isBinary() ? PaymentBinaryDeserializer.class : StringDeserializer.class);
+        rebalanceSupport.configure(configs);
         return new DefaultKafkaConsumerFactory<>(configs);
     }
 
+    @Bean
+    public ConsumerMetricsInterceptor<String, Object> consumerMetricsInterceptor(MeterRegistry meterRegistry) {
+        return new ConsumerMetricsInterceptor<>(meterRegistry);
+    }
+
     @Bean
     public ConcurrentKafkaListenerContainerFactory jsonContainerFactory(
-            ConsumerFactory<String, Object> jsonConsumerFactory
+            ConsumerFactory<String, Object> jsonConsumerFactory,
+            ConsumerMetricsInterceptor<String, Object> consumerMetricsInterceptor
+    ) {
+        var factory = new ConcurrentKafkaListenerContainerFactory<String, Object>();
+        factory.setConsumerFactory(jsonConsumerFactory);
+        factory.setMessageConverter(recordConverter());
+        factory.setRecordInterceptor(consumerMetricsInterceptor);
+        factory.setContainerCustomizer(containerCustomizer());
+        return factory;
+    }
+
+    /**
+     * Container que entrega ao listener todos os pagamentos de um poll como {@code List<Payment>},
+     * com um único commit de offset por lote.
+     * Quando o listener lança {@link org.springframework.kafka.listener.BatchListenerFailedException}
+     * com o índice do pagamento que falhou, o {@link DefaultErrorHandler} commita os pagamentos anteriores
+     * e reposiciona o consumidor para que apenas o restante do lote seja reentregue.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "payment.listener.mode", havingValue = "batch")
+    public ConcurrentKafkaListenerContainerFactory<String, Object> jsonBatchContainerFactory(
+            ConsumerFactory<String, Object> jsonConsumerFactory,
+            ConsumerMetricsInterceptor<String, Object> consumerMetricsInterceptor,
+            @Value("${payment.listener.batch.max-poll-records:500}") int maxPollRecords,
+            @Value("${payment.listener.batch.retry-interval-ms:1000}") long retryInterval,
+            @Value("${payment.listener.batch.max-retries:2}") long maxRetries
+    ) {
+        var factory = new ConcurrentKafkaListenerContainerFactory<String, Object>();
+        factory.setConsumerFactory(jsonConsumerFactory);
+        factory.setBatchListener(true);
+        factory.setMessageConverter(new BatchMessagingMessageConverter(recordConverter()));
+        factory.setBatchInterceptor(consumerMetricsInterceptor);
+        factory.setContainerCustomizer(containerCustomizer());
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+
+        var consumerProperties = new Properties();
+        consumerProperties.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+        factory.getContainerProperties().setKafkaConsumerProperties(consumerProperties);
+
+        factory.setCommonErrorHandler(new DefaultErrorHandler(new FixedBackOff(retryInterval, maxRetries)));
+        return factory;
+    }
+
+    /**
+     * Container da etapa exactly-once do antifraude: cada lote de um poll é processado numa transação do
+     * {@link KafkaTransactionManager}, que também envia os offsets do lote para a transação antes do commit.
+     * Se o lote falhar, a transação é abortada e o {@link DeadLetterBatchRollbackProcessor} reposiciona o consumidor
+     * para reprocessá-lo, até {@code max-retries} vezes; depois disso o lote vai para o {@code dead-letter-topic}.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "payment.fraud.transactional.enabled", havingValue = "true")
+    public ConcurrentKafkaListenerContainerFactory<String, Object> fraudTransactionalContainerFactory(
+            ConsumerFactory<String, Object> jsonConsumerFactory,
+            ConsumerMetricsInterceptor<String, Object> consumerMetricsInterceptor,
+            ProducerFactory<Object, Object> fraudTransactionalProducerFactory,
+            KafkaTemplate<Object, Object> fraudTransactionalTemplate,
+            FraudProperties fraudProperties
+    ) {
+        var stage = fraudProperties.getTransactional();
+        var factory = new ConcurrentKafkaListenerContainerFactory<String, Object>();
+        factory.setConsumerFactory(jsonConsumerFactory);
+        factory.setBatchListener(true);
+        factory.setMessageConverter(new BatchMessagingMessageConverter(recordConverter()));
+        factory.setBatchInterceptor(consumerMetricsInterceptor);
+        factory.setContainerCustomizer(containerCustomizer());
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        var transactionManager = new KafkaTransactionManager<>(fraudTransactionalProducerFactory);
+        // O KafkaTransactionManager desliga a sincronização por padrão; o listener e o dead letter dependem dela
+        // para desfazer a contagem do lote abortado e só avançar a posição depois do commit
+        transactionManager.setTransactionSynchronization(AbstractPlatformTransactionManager.SYNCHRONIZATION_ON_ACTUAL_TRANSACTION);
+        factory.getContainerProperties().setTransactionManager(transactionManager);
+        // O commit inicial da posição também vai numa transação; o padrão (NO_TX) mistura commits do consumidor
+        // e do produtor no mesmo grupo, o que o broker desaconselha
+        factory.getContainerProperties().setAssignmentCommitOption(ContainerProperties.AssignmentCommitOption.LATEST_ONLY);
+
+        var consumerProperties = new Properties();
+        consumerProperties.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, stage.getMaxPollRecords());
+        consumerProperties.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, stage.getFetchMinBytes());
+        consumerProperties.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, (int) stage.getFetchMaxWait().toMillis());
+        factory.getContainerProperties().setKafkaConsumerProperties(consumerProperties);
+
+        // Partição -1: o dead letter não precisa ter tantas partições quanto o payment-topic
+        var deadLetter = new DeadLetterPublishingRecoverer(fraudTransactionalTemplate,
+                (record, e) -> new TopicPartition(stage.getDeadLetterTopic(), -1));
+        factory.setAfterRollbackProcessor(new DeadLetterBatchRollbackProcessor<>(deadLetter, fraudTransactionalTemplate,
+                new FixedBackOff(stage.getRetryInterval().toMillis(), stage.getMaxRetries())));
+        return factory;
+    }
+
+    /**
+     * Container para o modo paralelo: cada pagamento é entregue a um pool de workers e confirmado
+     * manualmente quando termina. Com {@code asyncAcks} as confirmações podem chegar fora de ordem e o
+     * container só commita até o maior offset contíguo já concluído.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "payment.listener.mode", havingValue = "parallel")
+    public ConcurrentKafkaListenerContainerFactory<String, Object> jsonParallelContainerFactory(
+            ConsumerFactory<String, Object> jsonConsumerFactory,
+            ConsumerMetricsInterceptor<String, Object> consumerMetricsInterceptor
+    ) {
+        return asyncAckFactory(jsonConsumerFactory, consumerMetricsInterceptor);
+    }
+
+    /**
+     * Container do {@code sendEmail} no modo por registro: o listener só enfileira o email e o
+     * offset é confirmado fora de ordem quando o envio termina, como no modo paralelo.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "payment.listener.mode", havingValue = "record", matchIfMissing = true)
+    public ConcurrentKafkaListenerContainerFactory<String, Object> jsonEmailContainerFactory(
+            ConsumerFactory<String, Object> jsonConsumerFactory,
+            ConsumerMetricsInterceptor<String, Object> consumerMetricsInterceptor
+    ) {
+        return asyncAckFactory(jsonConsumerFactory, consumerMetricsInterceptor);
+    }
+
+    /**
+     * Container do modo fan-out: um único consumidor para todos os handlers, com a mesma confirmação
+     * manual fora de ordem do modo paralelo. O offset de um pagamento só é confirmado depois que
+     * todos os handlers o processaram com sucesso.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "payment.listener.mode", havingValue = "fanout")
+    public ConcurrentKafkaListenerContainerFactory<String, Object> jsonFanOutContainerFactory(
+            ConsumerFactory<String, Object> jsonConsumerFactory,
+            ConsumerMetricsInterceptor<String, Object> consumerMetricsInterceptor
+    ) {
+        return asyncAckFactory(jsonConsumerFactory, consumerMetricsInterceptor);
+    }
+
+    private ConcurrentKafkaListenerContainerFactory<String, Object> asyncAckFactory(
+            ConsumerFactory<String, Object> jsonConsumerFactory,
+            ConsumerMetricsInterceptor<String, Object> consumerMetricsInterceptor
     ) {
         var factory = new ConcurrentKafkaListenerContainerFactory<String, Object>();
         factory.setConsumerFactory(jsonConsumerFactory);
-        factory.setMessageConverter(new JsonMessageConverter());
+        factory.setMessageConverter(recordConverter());
+        factory.setRecordInterceptor(consumerMetricsInterceptor);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.getContainerProperties().setAsyncAcks(true);
+        factory.setContainerCustomizer(containerCustomizer());
         return factory;
     }
+
+    /** Concorrência pelo número de partições, membro estático e espera dos registros em andamento na revogação. */
+    private ContainerCustomizer<String, Object, ConcurrentMessageListenerContainer<String, Object>> containerCustomizer() {
+        ContainerCustomizer<String, Object, ConcurrentMessageListenerContainer<String, Object>> concurrency =
+                partitionConcurrency.customizer();
+        return container -> {
+            concurrency.configure(container);
+            rebalanceSupport.configure(container);
+        };
+    }
+
+    /**
+     * No formato JSON o valor chega como String e é convertido pelo {@link JsonMessageConverter};
+     * no binário ele já chega como {@code Payment} e só precisa ser repassado.
+     */
+    private RecordMessageConverter recordConverter() {
+        return isBinary() ? new MessagingMessageConverter() : new JsonMessageConverter();
+    }
+
+    private boolean isBinary() {
+        return "binary".equalsIgnoreCase(codec);
+    }
 }
@@ -0,0 +1,72 @@
+package com.valdir.jsonconsumer.config;
+
+import com.valdir.jsonconsumer.dedup.PaymentDedupProperties;
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.config.TopicConfig;
+import org.apache.kafka.common.serialization.LongDeserializer;
+import org.apache.kafka.common.serialization.LongSerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.util.HashMap;
+
+@RequiredArgsConstructor
+@Configuration
+@EnableConfigurationProperties(PaymentDedupProperties.class)
+public class PaymentDedupConfig {
+
+    private final KafkaProperties properties;
+
+    /**
+     * Compactado para manter só o registro mais recente de cada {@code grupo:id}, e com retenção igual
+     * à janela de deduplicação para que ids antigos também sejam descartados.
+     */
+    @Bean
+    public NewTopic dedupChangelogTopic(PaymentDedupProperties dedupProperties) {
+        return TopicBuilder.name(dedupProperties.getChangelogTopic())
+                .partitions(1)
+                .config(TopicConfig.CLEANUP_POLICY_CONFIG,
+                        TopicConfig.CLEANUP_POLICY_COMPACT + "," + TopicConfig.CLEANUP_POLICY_DELETE)
+                .config(TopicConfig.RETENTION_MS_CONFIG, String.valueOf(dedupProperties.getWindow().toMillis()))
+                .build();
+    }
+
+    @Bean
+    public KafkaTemplate<String, Long> dedupChangelogTemplate() {
+        var configs = new HashMap<String, Object>();
+        configs.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, properties.getBootstrapServers());
+        configs.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        configs.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, LongSerializer.class);
+        configs.put(ProducerConfig.LINGER_MS_CONFIG, 50);
+        configs.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, 1000);
+        return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(configs));
+    }
+
+    /**
+     * Usado só na reconstrução: lê o changelog com {@code assign}, sem grupo e sem commit de offsets.
+     * Não cria o tópico ao buscar as partições; quem o cria é o {@code KafkaAdmin}, a partir de {@link #dedupChangelogTopic}.
+     */
+    @Bean
+    public ConsumerFactory<String, Long> dedupChangelogConsumerFactory() {
+        var configs = new HashMap<String, Object>();
+        configs.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, properties.getBootstrapServers());
+        configs.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        configs.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, LongDeserializer.class);
+        configs.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        configs.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 5000);
+        configs.put(ConsumerConfig.ALLOW_AUTO_CREATE_TOPICS_CONFIG, false);
+        return new DefaultKafkaConsumerFactory<>(configs);
+    }
+}
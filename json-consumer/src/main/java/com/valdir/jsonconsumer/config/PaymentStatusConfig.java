@@ -0,0 +1,40 @@
+package com.valdir.jsonconsumer.config;
+
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.HashMap;
+
+@RequiredArgsConstructor
+@Configuration
+public class PaymentStatusConfig {
+
+    private final KafkaProperties properties;
+
+    @Bean
+    public NewTopic paymentStatusTopic(@Value("${payment.status.topic:payment-status}") String topic) {
+        return TopicBuilder.name(topic).build();
+    }
+
+    @Bean
+    public KafkaTemplate<String, Object> paymentStatusTemplate() {
+        var configs = new HashMap<String, Object>();
+        configs.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, properties.getBootstrapServers());
+        configs.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        configs.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        configs.put(JsonSerializer.ADD_TYPE_INFO_HEADERS, false);
+        configs.put(ProducerConfig.LINGER_MS_CONFIG, 50);
+        configs.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, 1000);
+        return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(configs));
+    }
+}
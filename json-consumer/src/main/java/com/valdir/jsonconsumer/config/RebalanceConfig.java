@@ -0,0 +1,35 @@
+package com.valdir.jsonconsumer.config;
+
+import com.valdir.jsonconsumer.rebalance.DrainingRebalanceListener;
+import com.valdir.jsonconsumer.rebalance.DrainingRebalanceProperties;
+import com.valdir.jsonconsumer.rebalance.InFlightRecords;
+import com.valdir.jsonconsumer.rebalance.StalledPartitions;
+import com.wsj.kafka.support.rebalance.RebalanceSupport;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Rebalanceamento dos grupos dos listeners: atribuição cooperativa, membros estáticos e o
+ * {@link DrainingRebalanceListener} na revogação. Ao parar, o consumidor também espera os pagamentos em
+ * andamento, então o {@code stop()} de cada container espera o {@code drain-timeout} além da margem padrão.
+ */
+@Configuration
+public class RebalanceConfig {
+
+    @Bean
+    @ConfigurationProperties(prefix = "payment.listener.rebalance")
+    public DrainingRebalanceProperties rebalanceProperties() {
+        return new DrainingRebalanceProperties();
+    }
+
+    @Bean
+    public RebalanceSupport rebalanceSupport(KafkaProperties kafkaProperties, DrainingRebalanceProperties properties,
+                                             InFlightRecords inFlight, StalledPartitions stalled,
+                                             MeterRegistry meterRegistry) {
+        var listener = new DrainingRebalanceListener(inFlight, stalled, properties.getDrainTimeout(), meterRegistry);
+        return new RebalanceSupport(kafkaProperties.getBootstrapServers(), properties, listener, properties.getDrainTimeout());
+    }
+}
@@ -0,0 +1,134 @@
+package com.valdir.jsonconsumer.dedup;
+
+import java.util.Arrays;
+
+/**
+ * Conjunto de {@code long} com janela de tempo e capacidade máxima, sem boxing.
+ * Os valores ficam em uma tabela de endereçamento aberto (sondagem linear) e em uma fila circular
+ * na ordem de inserção; ao inserir, os valores mais antigos que a janela, ou o mais antigo de todos
+ * quando a capacidade está cheia, são removidos. Consulta, inserção e remoção são O(1).
+ * Não é thread-safe.
+ */
+public class LongTimeWindowSet {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private final long windowMillis;
+    private final int capacity;
+
+    private final long[] table;
+    private final int mask;
+    // Long.MIN_VALUE é o marcador de posição vazia, então a presença dele é guardada à parte
+    private boolean containsEmptyMarker;
+
+    private final long[] queueValues;
+    private final long[] queueTimestamps;
+    private int queueHead;
+    private int size;
+
+    public LongTimeWindowSet(int capacity, long windowMillis) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be >= 1");
+        }
+        this.capacity = capacity;
+        this.windowMillis = windowMillis;
+        int tableSize = Integer.highestOneBit(Math.max(2, capacity * 2 - 1)) << 1;
+        this.table = new long[tableSize];
+        this.mask = tableSize - 1;
+        Arrays.fill(table, EMPTY);
+        this.queueValues = new long[capacity];
+        this.queueTimestamps = new long[capacity];
+    }
+
+    /**
+     * Indica se o valor foi inserido há menos de {@code windowMillis} de {@code now}.
+     */
+    public boolean contains(long value, long now) {
+        expire(now);
+        return value == EMPTY ? containsEmptyMarker : indexOf(value) >= 0;
+    }
+
+    /**
+     * Insere o valor com o instante {@code timestamp}. Devolve {@code false} se ele já estava presente.
+     */
+    public boolean add(long value, long timestamp) {
+        expire(timestamp);
+        if (value == EMPTY ? containsEmptyMarker : indexOf(value) >= 0) {
+            return false;
+        }
+        if (size == capacity) {
+            removeOldest();
+        }
+        if (value == EMPTY) {
+            containsEmptyMarker = true;
+        } else {
+            int i = slot(value);
+            while (table[i] != EMPTY) {
+                i = (i + 1) & mask;
+            }
+            table[i] = value;
+        }
+        int tail = (queueHead + size) % capacity;
+        queueValues[tail] = value;
+        queueTimestamps[tail] = timestamp;
+        size++;
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void expire(long now) {
+        long limit = now - windowMillis;
+        while (size > 0 && queueTimestamps[queueHead] <= limit) {
+            removeOldest();
+        }
+    }
+
+    private void removeOldest() {
+        long value = queueValues[queueHead];
+        queueHead = (queueHead + 1) % capacity;
+        size--;
+        if (value == EMPTY) {
+            containsEmptyMarker = false;
+        } else {
+            removeAt(indexOf(value));
+        }
+    }
+
+    private int indexOf(long value) {
+        int i = slot(value);
+        while (table[i] != EMPTY) {
+            if (table[i] == value) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    // Remoção com deslocamento para trás: puxa os valores seguintes do mesmo agrupamento para não deixar buracos
+    private void removeAt(int hole) {
+        int i = hole;
+        while (true) {
+            i = (i + 1) & mask;
+            if (table[i] == EMPTY) {
+                break;
+            }
+            int home = slot(table[i]);
+            // O valor em i só pode ocupar o buraco se a posição ideal dele não estiver entre o buraco e i
+            boolean between = hole <= i ? (hole < home && home <= i) : (hole < home || home <= i);
+            if (!between) {
+                table[hole] = table[i];
+                hole = i;
+            }
+        }
+        table[hole] = EMPTY;
+    }
+
+    private int slot(long value) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,27 @@
+package com.valdir.jsonconsumer.dedup;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "payment.dedup")
+public class PaymentDedupProperties {
+
+    private boolean enabled = true;
+
+    /** Por quanto tempo um pagamento processado continua sendo reconhecido como duplicado. */
+    private Duration window = Duration.ofHours(24);
+
+    /** Quantidade máxima de ids guardados por handler; acima disso os mais antigos são descartados. */
+    private int capacity = 100_000;
+
+    /** Tópico compactado com os ids processados por cada handler, lido ao iniciar para reconstruir o estado. */
+    private String changelogTopic = "payment-dedup-changelog";
+
+    /** Tempo máximo de leitura do changelog ao iniciar; se esgotar, o handler começa com o estado parcial. */
+    private Duration rebuildTimeout = Duration.ofSeconds(10);
+}
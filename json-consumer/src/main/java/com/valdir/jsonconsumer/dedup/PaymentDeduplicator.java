@@ -0,0 +1,122 @@
+package com.valdir.jsonconsumer.dedup;
+
+import com.valdir.jsonconsumer.changelog.ChangelogReader;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.AbstractMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Descarta pagamentos já processados por um handler, como os reentregues depois de um crash ou rebalanceamento.
+ * Cada grupo de consumidores tem o seu {@link LongTimeWindowSet} de {@code Payment.id}; o handler consulta
+ * {@link #isDuplicate} antes de executar e chama {@link #markProcessed} quando termina.
+ * Cada id processado também é publicado no tópico compactado {@code payment.dedup.changelog-topic}
+ * (chave {@code grupo:id}), que é relido ao iniciar para que a proteção sobreviva a reinícios.
+ *
+ * <p>A releitura roda no início do ciclo de vida, e não na criação do bean: assim o {@code KafkaAdmin}
+ * já criou o changelog com a compactação e a retenção de {@code PaymentDedupConfig}, e os listeners,
+ * que iniciam numa fase seguinte, só recebem pagamentos depois que a janela foi reconstruída.
+ */
+@Log4j2
+@Component
+public class PaymentDeduplicator implements SmartLifecycle {
+
+    private final PaymentDedupProperties properties;
+    private final KafkaTemplate<String, Long> changelogTemplate;
+    private final ConsumerFactory<String, Long> changelogConsumerFactory;
+    private final ConcurrentMap<String, LongTimeWindowSet> processed = new ConcurrentHashMap<>();
+    private volatile boolean running;
+
+    public PaymentDeduplicator(PaymentDedupProperties properties,
+                               KafkaTemplate<String, Long> dedupChangelogTemplate,
+                               ConsumerFactory<String, Long> dedupChangelogConsumerFactory) {
+        this.properties = properties;
+        this.changelogTemplate = dedupChangelogTemplate;
+        this.changelogConsumerFactory = dedupChangelogConsumerFactory;
+    }
+
+    public boolean isDuplicate(String group, Long paymentId) {
+        if (!properties.isEnabled() || paymentId == null) {
+            return false;
+        }
+        var set = window(group);
+        synchronized (set) {
+            return set.contains(paymentId, System.currentTimeMillis());
+        }
+    }
+
+    public void markProcessed(String group, Long paymentId) {
+        if (!properties.isEnabled() || paymentId == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        var set = window(group);
+        synchronized (set) {
+            set.add(paymentId, now);
+        }
+        // Uma falha ao publicar só enfraquece a proteção após um reinício, então não deve falhar o handler
+        try {
+            changelogTemplate.send(properties.getChangelogTopic(), null, now, group + ":" + paymentId, now)
+                    .addCallback(result -> { }, e -> log.warn("Falha ao registrar pagamento {} no changelog: {}",
+                            paymentId, e.getMessage()));
+        } catch (RuntimeException e) {
+            log.warn("Falha ao registrar pagamento {} no changelog: {}", paymentId, e.getMessage());
+        }
+    }
+
+    private LongTimeWindowSet window(String group) {
+        return processed.computeIfAbsent(group,
+                g -> new LongTimeWindowSet(properties.getCapacity(), properties.getWindow().toMillis()));
+    }
+
+    @Override
+    public void start() {
+        rebuild();
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /** Inicia antes dos containers, para que nenhum pagamento seja consultado antes da reconstrução. */
+    @Override
+    public int getPhase() {
+        return AbstractMessageListenerContainer.DEFAULT_PHASE - 1;
+    }
+
+    void rebuild() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        long oldest = System.currentTimeMillis() - properties.getWindow().toMillis();
+        try {
+            int read = ChangelogReader.replay(changelogConsumerFactory, properties.getChangelogTopic(),
+                    properties.getRebuildTimeout(), record -> {
+                        int separator = record.key() == null ? -1 : record.key().lastIndexOf(':');
+                        if (separator < 0 || record.value() == null || record.value() <= oldest) {
+                            return;
+                        }
+                        var set = window(record.key().substring(0, separator));
+                        synchronized (set) {
+                            set.add(Long.parseLong(record.key().substring(separator + 1)), record.value());
+                        }
+                    });
+            log.info("Deduplicação reconstruída com {} registros do tópico {}", read, properties.getChangelogTopic());
+        } catch (RuntimeException e) {
+            log.warn("Não foi possível reconstruir a deduplicação a partir do tópico {}: {}",
+                    properties.getChangelogTopic(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.valdir.jsonconsumer.email;
+
+import com.valdir.jsonconsumer.model.Payment;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PreDestroy;
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.Transport;
+import javax.mail.internet.InternetAddress;
+import javax.mail.internet.MimeMessage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Envia os emails de confirmação de pagamento fora da thread do listener.
+ * Os pedidos vão para uma fila limitada; cada thread de envio junta até {@code batch-size} emails
+ * (ou o que chegar em {@code linger-ms}) e os envia em sequência pela mesma conexão SMTP do
+ * {@link SmtpConnectionPool}, respeitando o {@link TokenBucket}. Quando a fila passa de
+ * {@code pause-threshold} os containers configurados são pausados, e retomados quando ela esvazia.
+ */
+@Log4j2
+@Component
+public class EmailDispatcher {
+
+    private final EmailProperties properties;
+    private final KafkaListenerEndpointRegistry registry;
+    private final Session session;
+    private final SmtpConnectionPool pool;
+    private final TokenBucket rateLimiter;
+    private final BlockingQueue<PendingEmail> queue;
+    private final List<Thread> senders = new ArrayList<>();
+    private volatile boolean running = true;
+    private boolean paused;
+
+    public EmailDispatcher(EmailProperties properties, KafkaListenerEndpointRegistry registry, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.registry = registry;
+        this.session = Session.getInstance(sessionProperties(properties));
+        this.pool = new SmtpConnectionPool(session, properties);
+        this.rateLimiter = new TokenBucket(properties.getRatePerSecond(), properties.getBurst());
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        meterRegistry.gaugeCollectionSize("payment.email.queue.size", List.of(), queue);
+
+        for (int i = 0; i < properties.getPoolSize(); i++) {
+            var thread = new Thread(this::sendLoop, "email-sender-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            senders.add(thread);
+        }
+    }
+
+    /**
+     * Enfileira o email de confirmação do pagamento. O future termina quando o servidor SMTP aceita a
+     * mensagem; se a fila estiver cheia a chamada bloqueia até abrir espaço.
+     */
+    public CompletableFuture<Void> submit(Payment payment) throws InterruptedException {
+        var email = new PendingEmail(payment, new CompletableFuture<>());
+        queue.put(email);
+        if (queue.size() >= properties.getPauseThreshold()) {
+            setPaused(true);
+        }
+        return email.result;
+    }
+
+    private void sendLoop() {
+        var batch = new ArrayList<PendingEmail>(properties.getBatchSize());
+        while (running || !queue.isEmpty()) {
+            try {
+                var first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(properties.getLingerMs());
+                while (batch.size() < properties.getBatchSize()) {
+                    var next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                if (queue.size() <= properties.getResumeThreshold()) {
+                    setPaused(false);
+                }
+                send(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                batch.forEach(email -> email.result.completeExceptionally(e));
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Envia o lote pela mesma conexão. A conexão volta ao pool mesmo se a thread for interrompida no meio do lote;
+     * uma que falhou duas vezes seguidas é descartada e o email fica com o future em erro, para não ser confirmado.
+     */
+    private void send(List<PendingEmail> batch) throws InterruptedException {
+        Transport transport = null;
+        try {
+            for (var email : batch) {
+                try {
+                    if (transport == null) {
+                        transport = pool.borrow();
+                    }
+                    rateLimiter.acquire();
+                    try {
+                        deliver(transport, email);
+                    } catch (MessagingException e) {
+                        // A conexão pode ter caído no meio do lote: abre outra e tenta o email mais uma vez
+                        log.warn("Falha ao enviar email do pagamento {}, reconectando", email.payment.getId(), e);
+                        pool.invalidate(transport);
+                        transport = null;
+                        transport = pool.borrow();
+                        deliver(transport, email);
+                    }
+                    email.result.complete(null);
+                } catch (MessagingException e) {
+                    log.error("Nao foi possivel enviar o email do pagamento {} via {}:{}", email.payment.getId(),
+                            properties.getHost(), properties.getPort(), e);
+                    if (transport != null) {
+                        pool.invalidate(transport);
+                        transport = null;
+                    }
+                    email.result.completeExceptionally(e);
+                } catch (InterruptedException e) {
+                    email.result.completeExceptionally(e);
+                    throw e;
+                }
+            }
+        } finally {
+            if (transport != null) {
+                pool.release(transport);
+            }
+        }
+    }
+
+    private void deliver(Transport transport, PendingEmail email) throws MessagingException {
+        var message = compose(email.payment);
+        transport.sendMessage(message, message.getAllRecipients());
+    }
+
+    private MimeMessage compose(Payment payment) throws MessagingException {
+        var message = new MimeMessage(session);
+        message.setFrom(new InternetAddress(properties.getFrom()));
+        message.setRecipient(Message.RecipientType.TO,
+                new InternetAddress(String.format(properties.getRecipientTemplate(), payment.getIdUser())));
+        message.setSubject("Pagamento " + payment.getId() + " confirmado");
+        message.setText("Recebemos o seu pagamento " + payment.getId() + " do produto " + payment.getIdProduct() + ".");
+        return message;
+    }
+
+    private synchronized void setPaused(boolean pause) {
+        if (paused == pause) {
+            return;
+        }
+        paused = pause;
+        log.info("Fila de emails com {} mensagens, {} {}", queue.size(), pause ? "pausando" : "retomando",
+                properties.getPauseListenerIds());
+        for (var id : properties.getPauseListenerIds()) {
+            var container = registry.getListenerContainer(id);
+            if (container == null) {
+                continue;
+            }
+            if (pause) {
+                container.pause();
+            } else {
+                container.resume();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        for (var thread : senders) {
+            thread.join(TimeUnit.SECONDS.toMillis(30));
+            if (thread.isAlive()) {
+                log.warn("Emails pendentes não terminaram a tempo");
+                thread.interrupt();
+            }
+        }
+        pool.close();
+    }
+
+    private static Properties sessionProperties(EmailProperties properties) {
+        var configs = new Properties();
+        configs.put("mail.smtp.host", properties.getHost());
+        configs.put("mail.smtp.port", String.valueOf(properties.getPort()));
+        configs.put("mail.smtp.auth", String.valueOf(StringUtils.hasText(properties.getUsername())));
+        configs.put("mail.smtp.connectiontimeout", String.valueOf(properties.getConnectionTimeoutMs()));
+        configs.put("mail.smtp.timeout", String.valueOf(properties.getTimeoutMs()));
+        return configs;
+    }
+
+    private static class PendingEmail {
+
+        private final Payment payment;
+        private final CompletableFuture<Void> result;
+
+        private PendingEmail(Payment payment, CompletableFuture<Void> result) {
+            this.payment = payment;
+            this.result = result;
+        }
+    }
+}
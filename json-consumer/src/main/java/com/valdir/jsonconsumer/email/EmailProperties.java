@@ -0,0 +1,43 @@
+package com.valdir.jsonconsumer.email;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.List;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "payment.email")
+public class EmailProperties {
+
+    private String host = "localhost";
+    private int port = 1025;
+    private String username;
+    private String password;
+    private String from = "pagamentos@example.com";
+
+    /** Destinatário do email de confirmação, formatado com o {@code idUser} do pagamento. */
+    private String recipientTemplate = "cliente-%d@example.com";
+
+    /** Conexões SMTP mantidas abertas e reaproveitadas entre lotes; também é o número de threads de envio. */
+    private int poolSize = 2;
+
+    /** Emails enviados por conexão de uma vez; um lote é enviado quando enche ou quando {@code linger-ms} se esgota. */
+    private int batchSize = 50;
+    private long lingerMs = 200;
+
+    /** Limite de emails por segundo, com rajadas de até {@code burst} emails. */
+    private double ratePerSecond = 20;
+    private int burst = 20;
+
+    /** Emails aguardando envio; acima de {@code pause-threshold} os listeners de {@code pause-listener-ids} são pausados
+     *  e só voltam a consumir quando a fila cai para {@code resume-threshold}. */
+    private int queueCapacity = 1000;
+    private int pauseThreshold = 800;
+    private int resumeThreshold = 200;
+    private List<String> pauseListenerIds = List.of("send-email", "fanout");
+
+    private int connectionTimeoutMs = 5000;
+    private int timeoutMs = 10000;
+}
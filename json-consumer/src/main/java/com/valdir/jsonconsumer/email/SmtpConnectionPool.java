@@ -0,0 +1,78 @@
+package com.valdir.jsonconsumer.email;
+
+import lombok.extern.log4j.Log4j2;
+
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.Transport;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Mantém até {@code size} conexões SMTP abertas para serem reaproveitadas entre lotes,
+ * evitando o handshake (e o TLS/AUTH, quando houver) a cada email.
+ * Uma conexão devolvida que o servidor fechou por inatividade é reaberta no próximo {@link #borrow()}.
+ */
+@Log4j2
+public class SmtpConnectionPool implements AutoCloseable {
+
+    private final Session session;
+    private final EmailProperties properties;
+    private final BlockingQueue<Transport> idle = new LinkedBlockingQueue<>();
+    private final Semaphore permits;
+
+    public SmtpConnectionPool(Session session, EmailProperties properties) {
+        this.session = session;
+        this.properties = properties;
+        this.permits = new Semaphore(properties.getPoolSize());
+    }
+
+    public Transport borrow() throws MessagingException, InterruptedException {
+        permits.acquire();
+        try {
+            var transport = idle.poll();
+            // isConnected envia um NOOP, então também detecta conexões derrubadas pelo servidor
+            if (transport != null && transport.isConnected()) {
+                return transport;
+            }
+            closeQuietly(transport);
+            transport = session.getTransport("smtp");
+            transport.connect(properties.getHost(), properties.getPort(), properties.getUsername(), properties.getPassword());
+            return transport;
+        } catch (MessagingException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public void release(Transport transport) {
+        idle.add(transport);
+        permits.release();
+    }
+
+    /** Descarta uma conexão que falhou em vez de devolvê-la ao pool. */
+    public void invalidate(Transport transport) {
+        closeQuietly(transport);
+        permits.release();
+    }
+
+    @Override
+    public void close() {
+        Transport transport;
+        while ((transport = idle.poll()) != null) {
+            closeQuietly(transport);
+        }
+    }
+
+    private static void closeQuietly(Transport transport) {
+        if (transport == null) {
+            return;
+        }
+        try {
+            transport.close();
+        } catch (MessagingException e) {
+            log.debug("Erro ao fechar conexão SMTP", e);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.valdir.jsonconsumer.email;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limita a taxa de uma operação a {@code ratePerSecond}, permitindo rajadas de até {@code burst}.
+ * Cada {@link #acquire()} reserva uma ficha na hora, mesmo que o saldo fique negativo, e espera o tempo
+ * até ela ser reposta; assim as threads são atendidas na ordem em que chegaram.
+ */
+public class TokenBucket {
+
+    private final double tokensPerNano;
+    private final double capacity;
+    private double tokens;
+    private long lastRefill;
+
+    public TokenBucket(double ratePerSecond, int burst) {
+        if (ratePerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("ratePerSecond must be > 0 and burst >= 1");
+        }
+        this.tokensPerNano = ratePerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.capacity = burst;
+        this.tokens = burst;
+        this.lastRefill = System.nanoTime();
+    }
+
+    public void acquire() throws InterruptedException {
+        long wait = reserve();
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+    private synchronized long reserve() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+        tokens -= 1;
+        return tokens >= 0 ? 0 : (long) (-tokens / tokensPerNano);
+    }
+}
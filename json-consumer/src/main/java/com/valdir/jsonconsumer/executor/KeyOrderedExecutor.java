@@ -0,0 +1,54 @@
+package com.valdir.jsonconsumer.executor;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Distribui tarefas entre vários workers garantindo que tarefas com a mesma chave
+ * sejam executadas em ordem, uma de cada vez, no mesmo worker.
+ * Chaves diferentes são processadas em paralelo, então a vazão cresce com o número de workers
+ * e não com o número de partições do tópico.
+ */
+@Log4j2
+public class KeyOrderedExecutor implements AutoCloseable {
+
+    private final ExecutorService[] lanes;
+
+    public KeyOrderedExecutor(String name, int workers) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("workers must be >= 1");
+        }
+        var counter = new AtomicInteger();
+        this.lanes = new ExecutorService[workers];
+        for (int i = 0; i < workers; i++) {
+            lanes[i] = Executors.newSingleThreadExecutor(task -> {
+                var thread = new Thread(task, name + "-" + counter.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    public CompletableFuture<Void> submit(Object key, Runnable task) {
+        return CompletableFuture.runAsync(task, lanes[Math.floorMod(Objects.hashCode(key), lanes.length)]);
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        for (var lane : lanes) {
+            lane.shutdown();
+        }
+        for (var lane : lanes) {
+            if (!lane.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("Worker não terminou as tarefas pendentes a tempo");
+                lane.shutdownNow();
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.valdir.jsonconsumer.fraud;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.core.KafkaOperations;
+import org.springframework.kafka.listener.AfterRollbackProcessor;
+import org.springframework.kafka.listener.ConsumerRecordRecoverer;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.ListenerUtils;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.backoff.BackOff;
+import org.springframework.util.backoff.BackOffExecution;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link AfterRollbackProcessor} para listeners em lote transacionais. Num lote o {@code DefaultAfterRollbackProcessor}
+ * não chama o recoverer, só reposiciona o consumidor, e um pagamento que sempre falha seguraria as partições do lote.
+ * Aqui o lote abortado é reentregue depois de cada intervalo do {@link BackOff}; quando as tentativas acabam, todos os
+ * registros dele vão para o {@link ConsumerRecordRecoverer} na mesma transação que commita os offsets, então nenhum
+ * pagamento fica sem decisão e sem registro no dead letter.
+ */
+@Log4j2
+@RequiredArgsConstructor
+public class DeadLetterBatchRollbackProcessor<K, V> implements AfterRollbackProcessor<K, V> {
+
+    private final ConsumerRecordRecoverer recoverer;
+    private final KafkaOperations<?, ?> template;
+    private final BackOff backOff;
+
+    private final ThreadLocal<FailedBatch> failures = new ThreadLocal<>();
+
+    @Override
+    public void process(List<ConsumerRecord<K, V>> records, Consumer<K, V> consumer, MessageListenerContainer container,
+                        Exception exception, boolean recoverable, ContainerProperties.EOSMode eosMode) {
+        var first = new HashMap<TopicPartition, Long>();
+        var next = new HashMap<TopicPartition, OffsetAndMetadata>();
+        for (var record : records) {
+            var partition = new TopicPartition(record.topic(), record.partition());
+            first.putIfAbsent(partition, record.offset());
+            next.put(partition, new OffsetAndMetadata(record.offset() + 1));
+        }
+        // A posição do consumidor já passou do lote; ela só avança de novo depois que a recuperação for commitada
+        first.forEach(consumer::seek);
+
+        var failure = failures.get();
+        if (failure == null || !failure.sameBatch(first)) {
+            failure = new FailedBatch(first, backOff.start());
+            failures.set(failure);
+        }
+        long interval = failure.execution.nextBackOff();
+        if (interval != BackOffExecution.STOP) {
+            log.warn("Lote de {} registros abortado, nova tentativa em {}ms: {}", records.size(), interval, exception.getMessage());
+            try {
+                ListenerUtils.stoppableSleep(container, interval);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return;
+        }
+
+        failures.remove();
+        log.error("Lote de {} registros abortado após todas as tentativas, enviando ao dead letter", records.size(), exception);
+        for (var record : records) {
+            // Tombstones não carregam pagamento; basta commitar o offset
+            if (record.value() != null) {
+                recoverer.accept(record, exception);
+            }
+        }
+        template.sendOffsetsToTransaction(next, consumer.groupMetadata());
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                next.forEach((partition, offset) -> consumer.seek(partition, offset.offset()));
+            }
+        });
+    }
+
+    /** A publicação no dead letter e o commit dos offsets precisam ir na mesma transação. */
+    @Override
+    public boolean isProcessInTransaction() {
+        return true;
+    }
+
+    @Override
+    public void clearThreadState() {
+        failures.remove();
+    }
+
+    @RequiredArgsConstructor
+    private static class FailedBatch {
+
+        private final Map<TopicPartition, Long> first;
+        private final BackOffExecution execution;
+
+        // Nada do lote foi commitado, então a reentrega começa nos mesmos offsets, ainda que o poll traga outras partições
+        boolean sameBatch(Map<TopicPartition, Long> other) {
+            return first.entrySet().stream().anyMatch(entry -> entry.getValue().equals(other.get(entry.getKey())));
+        }
+    }
+}
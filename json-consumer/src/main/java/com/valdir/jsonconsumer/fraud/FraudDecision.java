@@ -0,0 +1,18 @@
+package com.valdir.jsonconsumer.fraud;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+@ToString
+@Getter
+@AllArgsConstructor
+public class FraudDecision {
+
+    private final boolean approved;
+    private final String reason;
+
+    /** Pagamentos do usuário e do cartão na janela, incluindo o avaliado. */
+    private final int userCount;
+    private final int cardCount;
+}
@@ -0,0 +1,63 @@
+package com.valdir.jsonconsumer.fraud;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "payment.fraud")
+public class FraudProperties {
+
+    /** Janela deslizante em que os pagamentos de um mesmo usuário ou cartão são contados. */
+    private Duration window = Duration.ofMinutes(1);
+
+    /** Intervalos em que a janela é dividida; a janela avança de um intervalo por vez. */
+    private int buckets = 6;
+
+    /** Pagamentos aceitos por usuário dentro da janela; acima disso o pagamento é recusado. */
+    private int maxPaymentsPerUser = 5;
+
+    /** Pagamentos aceitos por cartão dentro da janela; acima disso o pagamento é recusado. */
+    private int maxPaymentsPerCard = 3;
+
+    private String approvedTopic = "approved-payment";
+
+    private String rejectedTopic = "rejected-payment";
+
+    /** Tópico compactado com os pagamentos avaliados, relido ao iniciar para reconstruir os contadores. */
+    private String changelogTopic = "payment-fraud-changelog";
+
+    /** Tempo máximo de leitura do changelog ao iniciar; se esgotar, os contadores começam com o estado parcial. */
+    private Duration rebuildTimeout = Duration.ofSeconds(10);
+
+    /** Etapa exactly-once do antifraude; ativa, ela substitui o handler de antifraude do modo de listener. */
+    private TransactionalStage transactional = new TransactionalStage();
+
+    @Getter
+    @Setter
+    public static class TransactionalStage {
+
+        private boolean enabled;
+
+        /**
+         * Pagamentos por transação: cada lote de um poll vai numa transação só, com os offsets. Com pouco tráfego
+         * o broker espera até {@code fetch-max-wait} por {@code fetch-min-bytes} para não abrir uma transação por pagamento.
+         */
+        private int maxPollRecords = 500;
+        private int fetchMinBytes = 16384;
+        private Duration fetchMaxWait = Duration.ofMillis(100);
+
+        /** Prefixo dos {@code transactional.id}; a identidade da instância é acrescentada para que instâncias não se bloqueiem. */
+        private String transactionIdPrefix = "payment-fraud-tx-";
+
+        /** Novas tentativas do lote depois de uma transação abortada, antes de enviá-lo ao {@code dead-letter-topic}. */
+        private Duration retryInterval = Duration.ofSeconds(1);
+        private long maxRetries = 2;
+
+        /** Recebe os pagamentos dos lotes que esgotaram as tentativas, no mesmo formato do {@code payment-topic}. */
+        private String deadLetterTopic = "payment-topic.DLT";
+    }
+}
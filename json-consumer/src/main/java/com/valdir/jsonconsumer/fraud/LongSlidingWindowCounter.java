@@ -0,0 +1,177 @@
+package com.valdir.jsonconsumer.fraud;
+
+/**
+ * Contadores por chave {@code long} em uma janela deslizante, sem boxing.
+ * A janela é dividida em {@code buckets} intervalos iguais; cada chave guarda a contagem de cada intervalo
+ * e a janela avança de um intervalo por vez, então a precisão é de {@code window / buckets}.
+ * As chaves ficam em uma tabela de endereçamento aberto; quando ela enche, as chaves sem eventos na janela
+ * são descartadas antes de crescer, então a memória acompanha o número de chaves ativas.
+ * Não é thread-safe.
+ */
+public class LongSlidingWindowCounter {
+
+    private static final int MIN_TABLE_SIZE = 16;
+
+    private final int buckets;
+    private final long bucketMillis;
+
+    private long[] keys;
+    private boolean[] used;
+    // Para a chave na posição i, os intervalos ficam em [i * buckets, (i + 1) * buckets)
+    private long[] epochs;
+    private int[] counts;
+    private int mask;
+    private int size;
+
+    public LongSlidingWindowCounter(long windowMillis, int buckets) {
+        if (buckets < 1 || windowMillis < buckets) {
+            throw new IllegalArgumentException("window must be >= buckets >= 1");
+        }
+        this.buckets = buckets;
+        this.bucketMillis = windowMillis / buckets;
+        allocate(MIN_TABLE_SIZE);
+    }
+
+    /**
+     * Registra um evento da chave no instante {@code timestamp} e devolve o total da chave na janela
+     * que termina nesse instante, já incluindo o evento.
+     */
+    public int increment(long key, long timestamp) {
+        long epoch = timestamp / bucketMillis;
+        int i = indexOf(key);
+        if (i < 0) {
+            if ((size + 1) * 2 > keys.length) {
+                rehash(epoch);
+            }
+            i = insert(key);
+        }
+        int slot = i * buckets + (int) Math.floorMod(epoch, (long) buckets);
+        if (epochs[slot] < epoch) {
+            epochs[slot] = epoch;
+            counts[slot] = 0;
+        }
+        // Um evento mais antigo que o intervalo guardado já saiu da janela e é ignorado
+        if (epochs[slot] == epoch) {
+            counts[slot]++;
+        }
+        return sum(i, epoch);
+    }
+
+    /**
+     * Desfaz um {@link #increment} feito no instante {@code timestamp}. Se o intervalo desse instante já saiu da
+     * janela ou foi reaproveitado, o evento não conta mais e não há o que desfazer.
+     */
+    public void decrement(long key, long timestamp) {
+        long epoch = timestamp / bucketMillis;
+        int i = indexOf(key);
+        if (i < 0) {
+            return;
+        }
+        int slot = i * buckets + (int) Math.floorMod(epoch, (long) buckets);
+        if (epochs[slot] == epoch && counts[slot] > 0) {
+            counts[slot]--;
+        }
+    }
+
+    /**
+     * Total da chave na janela que termina em {@code now}.
+     */
+    public int count(long key, long now) {
+        int i = indexOf(key);
+        return i < 0 ? 0 : sum(i, now / bucketMillis);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int sum(int i, long epoch) {
+        int total = 0;
+        for (int slot = i * buckets, end = slot + buckets; slot < end; slot++) {
+            if (epochs[slot] > epoch - buckets && epochs[slot] <= epoch) {
+                total += counts[slot];
+            }
+        }
+        return total;
+    }
+
+    private boolean active(int i, long epoch) {
+        for (int slot = i * buckets, end = slot + buckets; slot < end; slot++) {
+            if (epochs[slot] > epoch - buckets && counts[slot] > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int indexOf(long key) {
+        int i = slot(key);
+        while (used[i]) {
+            if (keys[i] == key) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    private int insert(long key) {
+        int i = slot(key);
+        while (used[i]) {
+            i = (i + 1) & mask;
+        }
+        used[i] = true;
+        keys[i] = key;
+        for (int slot = i * buckets, end = slot + buckets; slot < end; slot++) {
+            epochs[slot] = Long.MIN_VALUE;
+            counts[slot] = 0;
+        }
+        size++;
+        return i;
+    }
+
+    // Copia só as chaves com eventos na janela; cresce se elas ainda ocuparem mais de um quarto da tabela
+    private void rehash(long epoch) {
+        var oldKeys = keys;
+        var oldUsed = used;
+        var oldEpochs = epochs;
+        var oldCounts = counts;
+
+        // active lê os arrays atuais, então as chaves vivas são marcadas antes de realocar
+        var live = new boolean[oldKeys.length];
+        int liveCount = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            live[i] = oldUsed[i] && active(i, epoch);
+            if (live[i]) {
+                liveCount++;
+            }
+        }
+        int tableSize = MIN_TABLE_SIZE;
+        while (tableSize < (liveCount + 1) * 4) {
+            tableSize <<= 1;
+        }
+
+        allocate(tableSize);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (live[i]) {
+                int j = insert(oldKeys[i]);
+                System.arraycopy(oldEpochs, i * buckets, epochs, j * buckets, buckets);
+                System.arraycopy(oldCounts, i * buckets, counts, j * buckets, buckets);
+            }
+        }
+    }
+
+    private void allocate(int tableSize) {
+        keys = new long[tableSize];
+        used = new boolean[tableSize];
+        epochs = new long[tableSize * buckets];
+        counts = new int[tableSize * buckets];
+        mask = tableSize - 1;
+        size = 0;
+    }
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,205 @@
+package com.valdir.jsonconsumer.fraud;
+
+import com.valdir.jsonconsumer.changelog.ChangelogReader;
+import com.valdir.jsonconsumer.model.Payment;
+import lombok.extern.log4j.Log4j2;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.AbstractMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Antifraude por velocidade: recusa o pagamento quando o usuário ou o cartão passam do limite de pagamentos
+ * em {@code payment.fraud.window}. Os contadores ficam em memória, em {@link LongSlidingWindowCounter}s
+ * indexados pelo {@code idUser} e por um hash de 64 bits do número do cartão, então cada avaliação custa
+ * alguns microssegundos.
+ * Cada pagamento avaliado é gravado no tópico compactado {@code payment.fraud.changelog-topic}, relido ao
+ * iniciar para que reinícios e rebalanceamentos não recomecem com os contadores zerados, e a decisão é
+ * publicada em {@code payment.fraud.approved-topic} ou {@code payment.fraud.rejected-topic}.
+ *
+ * <p>Como no {@code PaymentDeduplicator}, a releitura roda no início do ciclo de vida, depois que o
+ * {@code KafkaAdmin} criou o changelog e antes dos listeners começarem a avaliar pagamentos.
+ */
+@Log4j2
+@Component
+public class VelocityFraudEngine implements SmartLifecycle {
+
+    public static final String REASON_HEADER = "fraud-reason";
+
+    // Layout do valor no changelog: presença (bit 0 = idUser, bit 1 = cartão), idUser, hash do cartão, timestamp
+    private static final int CHANGELOG_RECORD_SIZE = 1 + 3 * Long.BYTES;
+
+    private final FraudProperties properties;
+    private final KafkaTemplate<String, Object> decisionTemplate;
+    private final KafkaTemplate<Long, byte[]> changelogTemplate;
+    private final ConsumerFactory<Long, byte[]> changelogConsumerFactory;
+
+    private final LongSlidingWindowCounter byUser;
+    private final LongSlidingWindowCounter byCard;
+    private volatile boolean running;
+
+    public VelocityFraudEngine(FraudProperties properties,
+                               KafkaTemplate<String, Object> fraudDecisionTemplate,
+                               KafkaTemplate<Long, byte[]> fraudChangelogTemplate,
+                               ConsumerFactory<Long, byte[]> fraudChangelogConsumerFactory) {
+        this.properties = properties;
+        this.decisionTemplate = fraudDecisionTemplate;
+        this.changelogTemplate = fraudChangelogTemplate;
+        this.changelogConsumerFactory = fraudChangelogConsumerFactory;
+        this.byUser = new LongSlidingWindowCounter(properties.getWindow().toMillis(), properties.getBuckets());
+        this.byCard = new LongSlidingWindowCounter(properties.getWindow().toMillis(), properties.getBuckets());
+    }
+
+    /**
+     * Avalia o pagamento, grava-o no changelog e publica a decisão.
+     */
+    public FraudDecision evaluate(Payment payment) {
+        var decision = decide(payment);
+        decisionTemplate.send(decisionRecord(payment, decision))
+                .addCallback(result -> { }, e -> log.error("Falha ao publicar a decisão do pagamento {}", payment.getId(), e));
+        return decision;
+    }
+
+    /**
+     * Avalia o pagamento e grava-o no changelog, sem publicar a decisão.
+     */
+    public FraudDecision decide(Payment payment) {
+        long now = System.currentTimeMillis();
+        var decision = score(payment, now);
+
+        if (payment.getId() != null) {
+            changelogTemplate.send(changelogRecord(payment, now))
+                    .addCallback(result -> { }, e -> log.warn("Falha ao gravar pagamento {} no changelog do antifraude: {}",
+                            payment.getId(), e.getMessage()));
+        }
+        return decision;
+    }
+
+    /** Registro do pagamento no changelog, contado no instante {@code timestamp}; o pagamento precisa ter id. */
+    public ProducerRecord<Long, byte[]> changelogRecord(Payment payment, long timestamp) {
+        return new ProducerRecord<>(properties.getChangelogTopic(), null, timestamp, payment.getId(),
+                encode(payment.getIdUser(), cardKey(payment.getCardNumber()), timestamp));
+    }
+
+    /** Decisão para o tópico de aprovados ou de recusados, pela chave do usuário e com o motivo da recusa no cabeçalho. */
+    public ProducerRecord<String, Object> decisionRecord(Payment payment, FraudDecision decision) {
+        var topic = decision.isApproved() ? properties.getApprovedTopic() : properties.getRejectedTopic();
+        var key = payment.getIdUser() == null ? null : payment.getIdUser().toString();
+        var record = new ProducerRecord<String, Object>(topic, key, payment);
+        if (!decision.isApproved()) {
+            record.headers().add(REASON_HEADER, decision.getReason().getBytes(StandardCharsets.UTF_8));
+        }
+        return record;
+    }
+
+    /**
+     * Conta o pagamento no instante {@code timestamp} e decide com base nos totais da janela.
+     */
+    public synchronized FraudDecision score(Payment payment, long timestamp) {
+        Long cardKey = cardKey(payment.getCardNumber());
+        int userCount = payment.getIdUser() == null ? 0 : byUser.increment(payment.getIdUser(), timestamp);
+        int cardCount = cardKey == null ? 0 : byCard.increment(cardKey, timestamp);
+
+        if (userCount > properties.getMaxPaymentsPerUser()) {
+            return new FraudDecision(false, "user-velocity", userCount, cardCount);
+        }
+        if (cardCount > properties.getMaxPaymentsPerCard()) {
+            return new FraudDecision(false, "card-velocity", userCount, cardCount);
+        }
+        return new FraudDecision(true, "ok", userCount, cardCount);
+    }
+
+    /**
+     * Desfaz a contagem feita por {@link #score} no mesmo instante; usado quando a transação do lote é abortada.
+     */
+    public synchronized void uncount(Payment payment, long timestamp) {
+        Long cardKey = cardKey(payment.getCardNumber());
+        if (payment.getIdUser() != null) {
+            byUser.decrement(payment.getIdUser(), timestamp);
+        }
+        if (cardKey != null) {
+            byCard.decrement(cardKey, timestamp);
+        }
+    }
+
+    @Override
+    public void start() {
+        rebuild();
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return AbstractMessageListenerContainer.DEFAULT_PHASE - 1;
+    }
+
+    void rebuild() {
+        long oldest = System.currentTimeMillis() - properties.getWindow().toMillis();
+        try {
+            int read = ChangelogReader.replay(changelogConsumerFactory, properties.getChangelogTopic(),
+                    properties.getRebuildTimeout(), record -> {
+                        if (record.value() == null || record.value().length != CHANGELOG_RECORD_SIZE) {
+                            return;
+                        }
+                        var buffer = ByteBuffer.wrap(record.value());
+                        byte present = buffer.get();
+                        long idUser = buffer.getLong();
+                        long cardKey = buffer.getLong();
+                        long timestamp = buffer.getLong();
+                        if (timestamp <= oldest) {
+                            return;
+                        }
+                        synchronized (this) {
+                            if ((present & 1) != 0) {
+                                byUser.increment(idUser, timestamp);
+                            }
+                            if ((present & 2) != 0) {
+                                byCard.increment(cardKey, timestamp);
+                            }
+                        }
+                    });
+            log.info("Antifraude reconstruído com {} registros do tópico {}", read, properties.getChangelogTopic());
+        } catch (RuntimeException e) {
+            log.warn("Não foi possível reconstruir o antifraude a partir do tópico {}: {}",
+                    properties.getChangelogTopic(), e.getMessage());
+        }
+    }
+
+    private static byte[] encode(Long idUser, Long cardKey, long timestamp) {
+        byte present = (byte) ((idUser != null ? 1 : 0) | (cardKey != null ? 2 : 0));
+        return ByteBuffer.allocate(CHANGELOG_RECORD_SIZE)
+                .put(present)
+                .putLong(idUser != null ? idUser : 0L)
+                .putLong(cardKey != null ? cardKey : 0L)
+                .putLong(timestamp)
+                .array();
+    }
+
+    // FNV-1a de 64 bits; o número do cartão não precisa ser guardado e colisões são desprezíveis
+    private static Long cardKey(String cardNumber) {
+        if (cardNumber == null || cardNumber.isEmpty()) {
+            return null;
+        }
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < cardNumber.length(); i++) {
+            hash ^= cardNumber.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,80 @@
+package com.valdir.jsonconsumer.listener;
+
+import com.valdir.jsonconsumer.model.Payment;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import static com.valdir.jsonconsumer.listener.PaymentHandlers.ANTI_FRAUD;
+import static com.valdir.jsonconsumer.listener.PaymentHandlers.EMAIL;
+import static com.valdir.jsonconsumer.listener.PaymentHandlers.PDF;
+
+/**
+ * Variantes em lote dos handlers de {@link JsonListener}, ativas com {@code payment.listener.mode=batch}.
+ * Cada chamada recebe todos os pagamentos de um poll, paga as etapas fixas uma vez por lote
+ * e commita os offsets uma vez por lote. Pagamentos já processados pelo handler são pulados dentro do lote.
+ */
+@Log4j2
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "payment.listener.mode", havingValue = "batch")
+public class JsonBatchListener {
+
+    private final PaymentHandlers handlers;
+
+    // Com a etapa transacional ativa, o antifraude roda só no TransactionalFraudListener
+    @KafkaListener(id = "anti-fraud", topics = "payment-topic", groupId = "create-group", containerFactory = "jsonBatchContainerFactory",
+            autoStartup = "#{!${payment.fraud.transactional.enabled:false}}")
+    public void antiFraud(@Payload List<Payment> payments) {
+        log.info("Recebi {} pagamentos", payments.size());
+        forEach(ANTI_FRAUD, payments, handlers::antiFraud);
+    }
+
+    @KafkaListener(id = "pdf-generator", topics = "payment-topic", groupId = "pdf-group", containerFactory = "jsonBatchContainerFactory")
+    public void pdfGenerator(@Payload List<Payment> payments) {
+        // Todos os recibos do lote são enviados ao pool de uma vez e aguardados em ordem
+        var receipts = new IdentityHashMap<Payment, CompletableFuture<Path>>();
+        for (var payment : payments) {
+            if (!handlers.isDuplicate(PDF, payment)) {
+                receipts.put(payment, handlers.generateReceipt(payment));
+            }
+        }
+        forEach(PDF, payments, payment -> handlers.receiptGenerated(payment, receipts.get(payment).join()));
+    }
+
+    @KafkaListener(id = "send-email", topics = "payment-topic", groupId = "email-group", containerFactory = "jsonBatchContainerFactory")
+    public void sendEmail(@Payload List<Payment> payments) {
+        // O lote inteiro vai para o dispatcher, que o envia em poucas conexões SMTP; a confirmação segue em ordem
+        var emails = new IdentityHashMap<Payment, CompletableFuture<Void>>();
+        for (var payment : payments) {
+            if (!handlers.isDuplicate(EMAIL, payment)) {
+                emails.put(payment, handlers.sendEmailAsync(payment));
+            }
+        }
+        forEach(EMAIL, payments, payment -> emails.get(payment).join());
+    }
+
+    /**
+     * Processa os pagamentos em ordem; se um deles falhar, informa o índice ao error handler
+     * para que só ele e os seguintes sejam reentregues. Os já processados pelo grupo são pulados.
+     */
+    private void forEach(String group, List<Payment> payments, Consumer<Payment> handler) {
+        for (int i = 0; i < payments.size(); i++) {
+            try {
+                handlers.handle(group, payments.get(i), handler);
+            } catch (RuntimeException e) {
+                throw new BatchListenerFailedException("Falha no pagamento " + i + " do lote", e, i);
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.valdir.jsonconsumer.listener;
+
+import com.valdir.jsonconsumer.executor.KeyOrderedExecutor;
+import com.valdir.jsonconsumer.model.Payment;
+import com.valdir.jsonconsumer.rebalance.InFlightRecords;
+import com.valdir.jsonconsumer.rebalance.StalledPartitions;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.adapter.ConsumerRecordMetadata;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import static com.valdir.jsonconsumer.listener.PaymentHandlers.ANTI_FRAUD;
+import static com.valdir.jsonconsumer.listener.PaymentHandlers.EMAIL;
+import static com.valdir.jsonconsumer.listener.PaymentHandlers.PDF;
+
+/**
+ * Variante dos handlers de {@link JsonListener} para quando eles rodam juntos no mesmo processo,
+ * ativa com {@code payment.listener.mode=fanout}.
+ * Em vez de três grupos de consumidores buscando e desserializando cada pagamento três vezes,
+ * um único consumidor lê o pagamento uma vez e o entrega a todos os handlers em paralelo.
+ * Cada handler tem os seus próprios workers (pagamentos da mesma chave seguem em ordem dentro dele)
+ * e o offset, compartilhado, só é confirmado quando todos os handlers processaram o pagamento com sucesso.
+ * Um handler que falha tenta de novo pelo {@link StalledPartitions}; os que já terminaram não repetem
+ * o pagamento quando ele é reentregue, porque a deduplicação é feita pelo grupo de cada handler.
+ */
+@Log4j2
+@Component
+@ConditionalOnProperty(name = "payment.listener.mode", havingValue = "fanout")
+public class JsonFanOutListener {
+
+    private static final String GROUP = "fanout-group";
+
+    private final PaymentHandlers handlers;
+    private final InFlightRecords inFlight;
+    private final StalledPartitions stalled;
+    private final Map<String, Consumer<Payment>> handlersByGroup = new LinkedHashMap<>();
+    private final Map<String, KeyOrderedExecutor> workers = new LinkedHashMap<>();
+
+    public JsonFanOutListener(@Value("${payment.listener.fanout.workers:16}") int workersPerHandler,
+                              @Value("${payment.fraud.transactional.enabled:false}") boolean transactionalFraud,
+                              PaymentHandlers handlers,
+                              InFlightRecords inFlight,
+                              StalledPartitions stalled) {
+        this.handlers = handlers;
+        this.inFlight = inFlight;
+        this.stalled = stalled;
+        // Com a etapa transacional ativa, o antifraude roda só no TransactionalFraudListener
+        if (!transactionalFraud) {
+            register(ANTI_FRAUD, handlers::antiFraud, workersPerHandler);
+        }
+        register(PDF, handlers::pdfGenerator, workersPerHandler);
+        register(EMAIL, handlers::sendEmail, workersPerHandler);
+    }
+
+    @KafkaListener(id = "fanout", topics = "payment-topic", groupId = GROUP, containerFactory = "jsonFanOutContainerFactory")
+    public void dispatch(@Payload Payment payment,
+                         @Header(name = KafkaHeaders.RECEIVED_MESSAGE_KEY, required = false) String key,
+                         Acknowledgment ack, ConsumerRecordMetadata record) {
+        Object orderingKey = key != null ? key : payment.getIdUser();
+        var done = inFlight.begin(GROUP, record);
+        var pending = new ArrayList<CompletableFuture<Boolean>>(handlersByGroup.size());
+        handlersByGroup.forEach((group, handler) -> {
+            var handled = new CompletableFuture<Boolean>();
+            workers.get(group).submit(orderingKey, () -> handled.complete(
+                            stalled.run("fanout", GROUP, record, () -> handlers.handle(group, payment, handler)).join()))
+                    .whenComplete((result, error) -> {
+                        if (error != null) {
+                            log.error("Erro ao processar pagamento {} no {}", payment.getId(), group, error);
+                            handled.complete(false);
+                        }
+                    });
+            pending.add(handled);
+        });
+
+        CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new))
+                .whenComplete((result, error) -> {
+                    if (pending.stream().allMatch(CompletableFuture::join)) {
+                        ack.acknowledge();
+                    }
+                    done.run();
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        for (var executor : workers.values()) {
+            executor.close();
+        }
+    }
+
+    private void register(String group, Consumer<Payment> handler, int workersPerHandler) {
+        handlersByGroup.put(group, handler);
+        workers.put(group, new KeyOrderedExecutor(group.replace("-group", ""), workersPerHandler));
+    }
+}
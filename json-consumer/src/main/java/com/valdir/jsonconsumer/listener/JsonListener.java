@@ -1,42 +1,69 @@
 package com.valdir.jsonconsumer.listener;
 
+import com.valdir.jsonconsumer.dedup.PaymentDeduplicator;
+import com.valdir.jsonconsumer.email.EmailDispatcher;
 import com.valdir.jsonconsumer.model.Payment;
-import lombok.SneakyThrows;
+import com.valdir.jsonconsumer.rebalance.InFlightRecords;
+import com.valdir.jsonconsumer.rebalance.StalledPartitions;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.adapter.ConsumerRecordMetadata;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Component;
 
-import static java.lang.Thread.sleep;
+import static com.valdir.jsonconsumer.listener.PaymentHandlers.ANTI_FRAUD;
+import static com.valdir.jsonconsumer.listener.PaymentHandlers.EMAIL;
+import static com.valdir.jsonconsumer.listener.PaymentHandlers.PDF;
 
+/**
+ * Pagamentos que um handler já processou (reentregues após crash ou rebalanceamento) são
+ * descartados pelo {@link PaymentDeduplicator} antes de executar o handler novamente.
+ */
 @Log4j2
 @Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "payment.listener.mode", havingValue = "record", matchIfMissing = true)
 public class JsonListener {
 
-    @SneakyThrows
-    @KafkaListener(topics = "payment-topic", groupId = "create-group", containerFactory = "jsonContainerFactory")
-    public void antiFraud(@Payload Payment payment) {
-        log.info("Recebi o pagamento {}", payment.toString());
-        sleep(2000);
-        log.info("Validando fraude...");
-        sleep(2000);
+    private final PaymentHandlers handlers;
+    private final InFlightRecords inFlight;
+    private final StalledPartitions stalled;
 
-        log.info("Compra aprovada...");
-        sleep(2000);
+    // Com a etapa transacional ativa, o antifraude roda só no TransactionalFraudListener
+    @KafkaListener(id = "anti-fraud", topics = "payment-topic", groupId = "create-group", containerFactory = "jsonContainerFactory",
+            autoStartup = "#{!${payment.fraud.transactional.enabled:false}}")
+    public void antiFraud(@Payload Payment payment) {
+        handlers.handle(ANTI_FRAUD, payment, handlers::antiFraud);
     }
 
-    @SneakyThrows
-    @KafkaListener(topics = "payment-topic", groupId = "pdf-group", containerFactory = "jsonContainerFactory")
+    @KafkaListener(id = "pdf-generator", topics = "payment-topic", groupId = "pdf-group", containerFactory = "jsonContainerFactory")
     public void pdfGenerator(@Payload Payment payment) {
-        sleep(3000);
-        log.info("Gerando PDF do produto de id {}...", payment.getId());
-        sleep(3000);
+        handlers.handle(PDF, payment, handlers::pdfGenerator);
     }
 
-    @SneakyThrows
-    @KafkaListener(topics = "payment-topic", groupId = "email-group", containerFactory = "jsonContainerFactory")
-    public void sendEmail() {
-        sleep(3000);
-        log.info("Enviando email de confirmacao...");
+    /**
+     * O email é só enfileirado no {@link EmailDispatcher}; o offset é confirmado quando o servidor SMTP
+     * aceita a mensagem, sem segurar o consumidor durante o envio. Se o envio falhar, o pagamento não é
+     * confirmado: o {@link StalledPartitions} pausa a partição e reenvia o email até ele ser aceito.
+     * Numa revogação, o rebalanceamento espera os emails em andamento da partição antes de commitar.
+     */
+    @KafkaListener(id = "send-email", topics = "payment-topic", groupId = "email-group", containerFactory = "jsonEmailContainerFactory")
+    public void sendEmail(@Payload Payment payment, Acknowledgment ack, ConsumerRecordMetadata record) {
+        if (handlers.isDuplicate(EMAIL, payment)) {
+            ack.acknowledge();
+            return;
+        }
+        var done = inFlight.begin(EMAIL, record);
+        stalled.run("send-email", EMAIL, record,
+                        () -> handlers.sendEmailAsync(payment).thenRun(() -> handlers.markProcessed(EMAIL, payment)))
+                .whenComplete((handled, error) -> {
+                    if (Boolean.TRUE.equals(handled)) {
+                        ack.acknowledge();
+                    }
+                    done.run();
+                });
     }
 }
@@ -0,0 +1,110 @@
+package com.valdir.jsonconsumer.listener;
+
+import com.valdir.jsonconsumer.executor.KeyOrderedExecutor;
+import com.valdir.jsonconsumer.model.Payment;
+import com.valdir.jsonconsumer.rebalance.InFlightRecords;
+import com.valdir.jsonconsumer.rebalance.StalledPartitions;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.adapter.ConsumerRecordMetadata;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.function.Consumer;
+
+import static com.valdir.jsonconsumer.listener.PaymentHandlers.ANTI_FRAUD;
+import static com.valdir.jsonconsumer.listener.PaymentHandlers.EMAIL;
+import static com.valdir.jsonconsumer.listener.PaymentHandlers.PDF;
+
+/**
+ * Variantes paralelas dos handlers de {@link JsonListener}, ativas com {@code payment.listener.mode=parallel}.
+ * O thread do consumidor só distribui os pagamentos entre os workers: pagamentos com a mesma chave
+ * (a chave da mensagem ou, na falta dela, o {@code idUser}) são processados em ordem, e os demais em paralelo.
+ */
+@Log4j2
+@Component
+@ConditionalOnProperty(name = "payment.listener.mode", havingValue = "parallel")
+public class JsonParallelListener {
+
+    private final KeyOrderedExecutor antiFraudWorkers;
+    private final KeyOrderedExecutor pdfWorkers;
+    private final KeyOrderedExecutor emailWorkers;
+    private final PaymentHandlers handlers;
+    private final InFlightRecords inFlight;
+    private final StalledPartitions stalled;
+
+    public JsonParallelListener(@Value("${payment.listener.parallel.workers:16}") int workers,
+                                PaymentHandlers handlers,
+                                InFlightRecords inFlight,
+                                StalledPartitions stalled) {
+        this.handlers = handlers;
+        this.inFlight = inFlight;
+        this.stalled = stalled;
+        this.antiFraudWorkers = new KeyOrderedExecutor("anti-fraud", workers);
+        this.pdfWorkers = new KeyOrderedExecutor("pdf", workers);
+        this.emailWorkers = new KeyOrderedExecutor("email", workers);
+    }
+
+    // Com a etapa transacional ativa, o antifraude roda só no TransactionalFraudListener
+    @KafkaListener(id = "anti-fraud", topics = "payment-topic", groupId = "create-group", containerFactory = "jsonParallelContainerFactory",
+            autoStartup = "#{!${payment.fraud.transactional.enabled:false}}")
+    public void antiFraud(@Payload Payment payment,
+                          @Header(name = KafkaHeaders.RECEIVED_MESSAGE_KEY, required = false) String key,
+                          Acknowledgment ack, ConsumerRecordMetadata record) {
+        dispatch(antiFraudWorkers, "anti-fraud", ANTI_FRAUD, payment, orderingKey(key, payment), ack, record, handlers::antiFraud);
+    }
+
+    @KafkaListener(id = "pdf-generator", topics = "payment-topic", groupId = "pdf-group", containerFactory = "jsonParallelContainerFactory")
+    public void pdfGenerator(@Payload Payment payment,
+                             @Header(name = KafkaHeaders.RECEIVED_MESSAGE_KEY, required = false) String key,
+                             Acknowledgment ack, ConsumerRecordMetadata record) {
+        dispatch(pdfWorkers, "pdf-generator", PDF, payment, orderingKey(key, payment), ack, record, handlers::pdfGenerator);
+    }
+
+    @KafkaListener(id = "send-email", topics = "payment-topic", groupId = "email-group", containerFactory = "jsonParallelContainerFactory")
+    public void sendEmail(@Payload Payment payment,
+                          @Header(name = KafkaHeaders.RECEIVED_MESSAGE_KEY, required = false) String key,
+                          Acknowledgment ack, ConsumerRecordMetadata record) {
+        dispatch(emailWorkers, "send-email", EMAIL, payment, orderingKey(key, payment), ack, record, handlers::sendEmail);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        antiFraudWorkers.close();
+        pdfWorkers.close();
+        emailWorkers.close();
+    }
+
+    private Object orderingKey(String key, Payment payment) {
+        return key != null ? key : payment.getIdUser();
+    }
+
+    /**
+     * Executa o handler no worker da chave e confirma o offset quando ele termina. A verificação de duplicado
+     * é feita no worker, depois dos pagamentos anteriores da mesma chave. Um pagamento que falhou não é confirmado:
+     * o worker o tenta de novo pelo {@link StalledPartitions}, com a partição pausada, e os seguintes da mesma chave
+     * esperam por ele. Até a confirmação o pagamento conta como em andamento no {@link InFlightRecords}, que a
+     * revogação da partição espera zerar.
+     */
+    private void dispatch(KeyOrderedExecutor workers, String listenerId, String group, Payment payment, Object key,
+                          Acknowledgment ack, ConsumerRecordMetadata record, Consumer<Payment> handler) {
+        var done = inFlight.begin(group, record);
+        workers.submit(key, () -> {
+            boolean handled = stalled.run(listenerId, group, record, () -> handlers.handle(group, payment, handler)).join();
+            if (handled) {
+                ack.acknowledge();
+            }
+        }).whenComplete((result, error) -> {
+            if (error != null) {
+                log.error("Erro ao processar pagamento {} no {}", payment.getId(), group, error);
+            }
+            done.run();
+        });
+    }
+}
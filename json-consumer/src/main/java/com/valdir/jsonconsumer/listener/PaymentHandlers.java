@@ -0,0 +1,109 @@
+package com.valdir.jsonconsumer.listener;
+
+import com.valdir.jsonconsumer.dedup.PaymentDeduplicator;
+import com.valdir.jsonconsumer.email.EmailDispatcher;
+import com.valdir.jsonconsumer.fraud.VelocityFraudEngine;
+import com.valdir.jsonconsumer.model.Payment;
+import com.valdir.jsonconsumer.receipt.ReceiptService;
+import com.valdir.jsonconsumer.status.PaymentStatusPublisher;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * O que cada handler faz com um pagamento, compartilhado por todos os modos de listener. Os modos só mudam
+ * como os pagamentos chegam aos handlers e quando os offsets são confirmados. Os nomes dos grupos originais
+ * identificam cada handler na deduplicação, inclusive no modo fan-out, que consome com outro grupo.
+ */
+@Log4j2
+@Component
+@RequiredArgsConstructor
+public class PaymentHandlers {
+
+    public static final String ANTI_FRAUD = "create-group";
+    public static final String PDF = "pdf-group";
+    public static final String EMAIL = "email-group";
+
+    private final PaymentDeduplicator deduplicator;
+    private final VelocityFraudEngine fraudEngine;
+    private final ReceiptService receiptService;
+    private final EmailDispatcher emailDispatcher;
+    private final PaymentStatusPublisher statusPublisher;
+    private final MeterRegistry meterRegistry;
+
+    public void antiFraud(Payment payment) {
+        log.info("Recebi o pagamento {}", payment.toString());
+        var decision = fraudEngine.evaluate(payment);
+        log.info("Compra {} {} ({})", payment.getId(), decision.isApproved() ? "aprovada" : "recusada", decision.getReason());
+    }
+
+    public void pdfGenerator(Payment payment) {
+        receiptGenerated(payment, generateReceipt(payment).join());
+    }
+
+    public CompletableFuture<Path> generateReceipt(Payment payment) {
+        log.info("Gerando PDF do produto de id {}...", payment.getId());
+        return receiptService.generate(payment);
+    }
+
+    public void receiptGenerated(Payment payment, Path receipt) {
+        log.info("Recibo do produto de id {} gravado em {}", payment.getId(), receipt);
+    }
+
+    public void sendEmail(Payment payment) {
+        sendEmailAsync(payment).join();
+    }
+
+    /** O future termina quando o servidor SMTP aceita a mensagem. */
+    @SneakyThrows
+    public CompletableFuture<Void> sendEmailAsync(Payment payment) {
+        log.info("Enviando email de confirmacao do pagamento {}...", payment.getId());
+        return emailDispatcher.submit(payment)
+                .thenRun(() -> log.info("Email de confirmacao do pagamento {} enviado", payment.getId()));
+    }
+
+    public boolean isDuplicate(String group, Payment payment) {
+        if (deduplicator.isDuplicate(group, payment.getId())) {
+            log.info("Pagamento {} ja processado pelo {}, ignorando", payment.getId(), group);
+            return true;
+        }
+        return false;
+    }
+
+    /** Marca o pagamento na deduplicação e publica a etapa concluída para a visão de status. */
+    public void markProcessed(String group, Payment payment) {
+        deduplicator.markProcessed(group, payment.getId());
+        if (PDF.equals(group)) {
+            statusPublisher.receipted(payment);
+        } else if (EMAIL.equals(group)) {
+            statusPublisher.emailed(payment);
+        }
+    }
+
+    /**
+     * Executa o handler se o grupo ainda não processou o pagamento e o marca como processado quando ele termina.
+     * Falhas chegam a quem chamou. O tempo do handler vai para o timer {@code payment.handler.processing}, que nos
+     * modos assíncronos é a única medida dele, já que o container só mede o despacho.
+     */
+    public void handle(String group, Payment payment, Consumer<Payment> handler) {
+        if (isDuplicate(group, payment)) {
+            return;
+        }
+        var sample = Timer.start(meterRegistry);
+        var result = "failure";
+        try {
+            handler.accept(payment);
+            result = "success";
+        } finally {
+            sample.stop(meterRegistry.timer("payment.handler.processing", "handler", group, "result", result));
+        }
+        markProcessed(group, payment);
+    }
+}
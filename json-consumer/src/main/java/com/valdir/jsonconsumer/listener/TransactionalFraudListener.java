@@ -0,0 +1,74 @@
+package com.valdir.jsonconsumer.listener;
+
+import com.valdir.jsonconsumer.fraud.VelocityFraudEngine;
+import com.valdir.jsonconsumer.model.Payment;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Etapa exactly-once do antifraude, ativa com {@code payment.fraud.transactional.enabled=true} no lugar do
+ * handler de antifraude do modo de listener. O container abre uma transação por lote: as decisões publicadas em
+ * {@code approved-payment} e {@code rejected-payment}, os registros do changelog e os offsets do lote são
+ * commitados juntos, ou nada é.
+ * Por isso não passa pelo {@code PaymentDeduplicator}, cuja marcação não seria desfeita num abort.
+ * Quem lê as decisões e o changelog deve usar {@code isolation.level=read_committed} para não ver lotes abortados.
+ * Os contadores do antifraude ficam em memória e são atualizados durante o lote, para que os pagamentos seguintes
+ * já os vejam; se a transação não for commitada a contagem do lote é desfeita, então um lote reprocessado
+ * não conta os mesmos pagamentos duas vezes.
+ */
+@Log4j2
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "payment.fraud.transactional.enabled", havingValue = "true")
+public class TransactionalFraudListener {
+
+    private final VelocityFraudEngine fraudEngine;
+    private final KafkaTemplate<Object, Object> fraudTransactionalTemplate;
+
+    @KafkaListener(id = "anti-fraud-tx", topics = "payment-topic", groupId = "create-group",
+            containerFactory = "fraudTransactionalContainerFactory")
+    public void antiFraud(@Payload List<Payment> payments) {
+        long now = System.currentTimeMillis();
+        var counted = new ArrayList<Payment>(payments.size());
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    counted.forEach(payment -> fraudEngine.uncount(payment, now));
+                }
+            }
+        });
+
+        int approved = 0;
+        for (var payment : payments) {
+            var decision = fraudEngine.score(payment, now);
+            counted.add(payment);
+            // Os envios só ficam visíveis no commit da transação, que falha se algum deles falhar
+            send(fraudEngine.decisionRecord(payment, decision));
+            if (payment.getId() != null) {
+                send(fraudEngine.changelogRecord(payment, now));
+            }
+            if (decision.isApproved()) {
+                approved++;
+            }
+        }
+        log.info("Lote de {} pagamentos: {} aprovados, {} recusados", payments.size(), approved, payments.size() - approved);
+    }
+
+    // O produtor transacional escolhe os serializadores pelo tópico, então aceita as chaves e valores dos dois registros
+    @SuppressWarnings("unchecked")
+    private void send(ProducerRecord<?, ?> record) {
+        fraudTransactionalTemplate.send((ProducerRecord<Object, Object>) record);
+    }
+}
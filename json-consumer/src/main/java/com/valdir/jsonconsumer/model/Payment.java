@@ -1,12 +1,16 @@
 package com.valdir.jsonconsumer.model;
 
+import lombok.AllArgsConstructor;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.ToString;
 
 import java.io.Serializable;
 
 @ToString
 @Getter
+@NoArgsConstructor
+@AllArgsConstructor
 public class Payment implements Serializable {
 
     private Long id;
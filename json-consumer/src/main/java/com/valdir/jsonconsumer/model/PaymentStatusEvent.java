@@ -0,0 +1,26 @@
+package com.valdir.jsonconsumer.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Etapa concluída de um pagamento, publicada no {@code payment.status.topic} para a visão de status do
+ * payment-service. {@code at} é o instante (ms) em que o handler terminou.
+ */
+@ToString
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentStatusEvent {
+
+    private Long id;
+    private Stage stage;
+    private long at;
+
+    public enum Stage {
+        RECEIPT,
+        EMAIL
+    }
+}
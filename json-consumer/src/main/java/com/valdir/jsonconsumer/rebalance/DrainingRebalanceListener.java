@@ -0,0 +1,96 @@
+package com.valdir.jsonconsumer.rebalance;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Na revogação, espera os registros em andamento das partições revogadas serem confirmados (até
+ * {@code drain-timeout}) antes de o container commitar os offsets. Pagamentos que estavam esperando uma nova
+ * tentativa no {@link StalledPartitions} são liberados antes, sem confirmação, para o novo dono reprocessá-los.
+ * Registra por grupo:
+ * <ul>
+ *     <li>{@code kafka.consumer.rebalance.pause}: da revogação até a próxima atribuição do consumidor, com
+ *     {@code scope=all} quando ele perdeu todas as partições (como sempre acontece na eager) e {@code partial}
+ *     quando seguiu consumindo as que manteve;</li>
+ *     <li>{@code kafka.consumer.rebalance.drain}: quanto dessa pausa foi a espera pelos registros em andamento.</li>
+ * </ul>
+ */
+@Log4j2
+public class DrainingRebalanceListener implements ConsumerAwareRebalanceListener {
+
+    private final InFlightRecords inFlight;
+    private final StalledPartitions stalled;
+    private final Duration drainTimeout;
+    private final MeterRegistry registry;
+    // Consumidores fechados no meio de um rebalanceamento não voltam a receber partições; saem do mapa com o GC
+    private final Map<Consumer<?, ?>, Revocation> revocations = Collections.synchronizedMap(new WeakHashMap<>());
+
+    public DrainingRebalanceListener(InFlightRecords inFlight, StalledPartitions stalled, Duration drainTimeout,
+                                     MeterRegistry registry) {
+        this.inFlight = inFlight;
+        this.stalled = stalled;
+        this.drainTimeout = drainTimeout;
+        this.registry = registry;
+    }
+
+    @Override
+    public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        if (partitions.isEmpty()) {
+            return;
+        }
+        var group = consumer.groupMetadata().groupId();
+        stalled.release(group, partitions);
+        long start = System.nanoTime();
+        revocations.put(consumer, new Revocation(start, partitions.containsAll(consumer.assignment()) ? "all" : "partial"));
+        try {
+            if (!inFlight.await(group, partitions, drainTimeout)) {
+                log.warn("{} registros de {} ainda em andamento após {}; serão reprocessados pelo novo dono",
+                        inFlight.count(group, partitions), partitions, drainTimeout);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Timer.builder("kafka.consumer.rebalance.drain")
+                .description("Espera pelos registros em andamento das partições revogadas")
+                .tag("group", group)
+                .register(registry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /** Partições perdidas já têm outro dono: não há o que commitar, só a pausa é medida. */
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        stalled.release(consumer.groupMetadata().groupId(), partitions);
+        revocations.put(consumer, new Revocation(System.nanoTime(), "all"));
+    }
+
+    @Override
+    public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        var revocation = revocations.remove(consumer);
+        if (revocation != null) {
+            Timer.builder("kafka.consumer.rebalance.pause")
+                    .description("Tempo entre a revogação de partições e a próxima atribuição do consumidor")
+                    .tags("group", consumer.groupMetadata().groupId(), "scope", revocation.scope)
+                    .register(registry)
+                    .record(System.nanoTime() - revocation.start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class Revocation {
+        private final long start;
+        private final String scope;
+    }
+}
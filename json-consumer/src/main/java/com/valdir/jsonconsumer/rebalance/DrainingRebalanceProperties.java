@@ -0,0 +1,19 @@
+package com.valdir.jsonconsumer.rebalance;
+
+import com.wsj.kafka.support.rebalance.RebalanceProperties;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Duration;
+
+/**
+ * Propriedades de rebalanceamento compartilhadas com o str-consumer, mais o tempo de espera do
+ * {@link DrainingRebalanceListener}, em {@code payment.listener.rebalance.*}.
+ */
+@Getter
+@Setter
+public class DrainingRebalanceProperties extends RebalanceProperties {
+
+    /** Tempo máximo que a revogação espera os pagamentos em andamento das partições revogadas serem confirmados. */
+    private Duration drainTimeout = Duration.ofSeconds(20);
+}
@@ -0,0 +1,58 @@
+package com.valdir.jsonconsumer.rebalance;
+
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.listener.adapter.ConsumerRecordMetadata;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Registros entregues aos workers e ainda não confirmados, por grupo e partição. Os listeners com confirmação
+ * assíncrona registram cada registro ao despachá-lo e o liberam depois do {@code acknowledge()}; na revogação,
+ * o {@link DrainingRebalanceListener} espera as partições revogadas zerarem antes do container commitar, para
+ * que o novo dono não refaça o que já estava quase pronto.
+ */
+@Component
+public class InFlightRecords {
+
+    private final Map<String, Map<TopicPartition, Integer>> pending = new HashMap<>();
+
+    /** Registra o registro como em andamento; a ação devolvida deve ser chamada uma vez, depois da confirmação. */
+    public Runnable begin(String group, ConsumerRecordMetadata record) {
+        var partition = new TopicPartition(record.topic(), record.partition());
+        synchronized (this) {
+            pending.computeIfAbsent(group, g -> new HashMap<>()).merge(partition, 1, Integer::sum);
+        }
+        return () -> finish(group, partition);
+    }
+
+    /** Espera não haver registros em andamento nas partições; {@code false} se o tempo acabou antes. */
+    public synchronized boolean await(String group, Collection<TopicPartition> partitions, Duration timeout)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (count(group, partitions) > 0) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            wait(Math.max(1, remaining / 1_000_000));
+        }
+        return true;
+    }
+
+    public synchronized int count(String group, Collection<TopicPartition> partitions) {
+        var partitionsOfGroup = pending.get(group);
+        if (partitionsOfGroup == null) {
+            return 0;
+        }
+        return partitions.stream().mapToInt(partition -> partitionsOfGroup.getOrDefault(partition, 0)).sum();
+    }
+
+    private synchronized void finish(String group, TopicPartition partition) {
+        pending.get(group).computeIfPresent(partition, (p, count) -> count > 1 ? count - 1 : null);
+        notifyAll();
+    }
+}
@@ -0,0 +1,176 @@
+package com.valdir.jsonconsumer.rebalance;
+
+import lombok.extern.log4j.Log4j2;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.adapter.ConsumerRecordMetadata;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Falhas dos listeners com confirmação assíncrona. Um pagamento que falhou não pode ser confirmado: com
+ * {@code asyncAcks} o container commitaria os offsets seguintes e ele nunca seria reentregue. Em vez disso a
+ * partição dele é pausada, para o consumidor não seguir acumulando confirmações atrás da lacuna, e o pagamento é
+ * tentado de novo a cada {@code retry-interval} até dar certo, quando é confirmado e a partição retomada.
+ * Se a partição for revogada antes, as tentativas param sem confirmar e o novo dono o recebe de novo.
+ */
+@Log4j2
+@Component
+public class StalledPartitions {
+
+    private final KafkaListenerEndpointRegistry registry;
+    private final Duration retryInterval;
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, Map<TopicPartition, Stall>> stalls = new HashMap<>();
+
+    public StalledPartitions(KafkaListenerEndpointRegistry registry,
+                             @Value("${payment.listener.retry-interval:1s}") Duration retryInterval) {
+        this.registry = registry;
+        this.retryInterval = retryInterval;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            var thread = new Thread(task, "payment-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Executa a tentativa até ela terminar sem erro. O future devolvido termina com {@code true} quando o
+     * pagamento pode ser confirmado e com {@code false} quando a partição foi revogada antes disso.
+     * A primeira tentativa roda na thread que chama, as seguintes na thread de novas tentativas.
+     */
+    public CompletableFuture<Boolean> run(String listenerId, String group, ConsumerRecordMetadata record,
+                                          Supplier<CompletableFuture<?>> attempt) {
+        var result = new CompletableFuture<Boolean>();
+        attempt(listenerId, group, new TopicPartition(record.topic(), record.partition()), record.offset(), attempt,
+                null, result);
+        return result;
+    }
+
+    /** Variante para tentativas síncronas. */
+    public CompletableFuture<Boolean> run(String listenerId, String group, ConsumerRecordMetadata record, Runnable attempt) {
+        return run(listenerId, group, record, () -> {
+            attempt.run();
+            return CompletableFuture.completedFuture(null);
+        });
+    }
+
+    /** Chamado na revogação: as tentativas das partições param e a pausa delas é desfeita. */
+    public synchronized void release(String group, Collection<TopicPartition> partitions) {
+        var partitionsOfGroup = stalls.get(group);
+        if (partitionsOfGroup == null) {
+            return;
+        }
+        for (var partition : partitions) {
+            var stall = partitionsOfGroup.remove(partition);
+            if (stall != null) {
+                stall.released = true;
+                stall.waiting.forEach(waiting -> waiting.complete(false));
+                resume(stall, partition);
+            }
+        }
+    }
+
+    public synchronized boolean isStalled(String group, TopicPartition partition) {
+        return stalls.getOrDefault(group, Map.of()).containsKey(partition);
+    }
+
+    private void attempt(String listenerId, String group, TopicPartition partition, long offset,
+                         Supplier<CompletableFuture<?>> attempt, Stall stall, CompletableFuture<Boolean> result) {
+        if (stall != null && stall.released) {
+            log.warn("Partição {} revogada antes de o offset {} ser processado; fica para o novo dono", partition, offset);
+            result.complete(false);
+            return;
+        }
+        CompletableFuture<?> running;
+        try {
+            running = attempt.get();
+        } catch (RuntimeException e) {
+            running = CompletableFuture.failedFuture(e);
+        }
+        running.whenComplete((ignored, error) -> {
+            if (error == null) {
+                if (stall != null) {
+                    finish(group, partition, stall, result);
+                }
+                result.complete(true);
+                return;
+            }
+            var current = stall != null ? stall : stall(listenerId, group, partition, result);
+            log.warn("Falha ao processar o offset {} de {} no {}, nova tentativa em {}", offset, partition, group,
+                    retryInterval, error);
+            try {
+                scheduler.schedule(() -> attempt(listenerId, group, partition, offset, attempt, current, result),
+                        retryInterval.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (RuntimeException e) {
+                // Encerrando: o pagamento fica sem confirmação e é reentregue
+                result.complete(false);
+            }
+        });
+    }
+
+    private synchronized Stall stall(String listenerId, String group, TopicPartition partition,
+                                     CompletableFuture<Boolean> result) {
+        var stall = stalls.computeIfAbsent(group, g -> new HashMap<>())
+                .computeIfAbsent(partition, p -> new Stall(listenerId));
+        stall.waiting.add(result);
+        if (stall.waiting.size() == 1) {
+            var container = registry.getListenerContainer(listenerId);
+            if (container != null) {
+                container.pausePartition(partition);
+            }
+        }
+        return stall;
+    }
+
+    private synchronized void finish(String group, TopicPartition partition, Stall stall, CompletableFuture<Boolean> result) {
+        stall.waiting.remove(result);
+        if (stall.released || !stall.waiting.isEmpty()) {
+            return;
+        }
+        stalls.get(group).remove(partition);
+        resume(stall, partition);
+    }
+
+    private void resume(Stall stall, TopicPartition partition) {
+        var container = registry.getListenerContainer(stall.listenerId);
+        if (container != null) {
+            container.resumePartition(partition);
+        }
+    }
+
+    /** Os workers que esperam uma nova tentativa são liberados sem confirmar; os pagamentos são reentregues. */
+    @PreDestroy
+    public synchronized void shutdown() {
+        scheduler.shutdownNow();
+        stalls.values().forEach(partitions -> partitions.values().forEach(stall -> {
+            stall.released = true;
+            stall.waiting.forEach(waiting -> waiting.complete(false));
+        }));
+    }
+
+    private static class Stall {
+
+        private final String listenerId;
+        // Pagamentos da partição esperando uma nova tentativa; a partição só é retomada quando todos terminam
+        private final List<CompletableFuture<Boolean>> waiting = new ArrayList<>();
+        private volatile boolean released;
+
+        private Stall(String listenerId) {
+            this.listenerId = listenerId;
+        }
+    }
+}
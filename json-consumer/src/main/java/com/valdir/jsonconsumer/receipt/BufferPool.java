@@ -0,0 +1,29 @@
+package com.valdir.jsonconsumer.receipt;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Conjunto fixo de buffers diretos reaproveitados entre documentos, para que a renderização não aloque
+ * no heap proporcionalmente ao tamanho ou à quantidade de documentos.
+ */
+public class BufferPool {
+
+    private final BlockingQueue<ByteBuffer> buffers;
+
+    public BufferPool(int count, int bufferSize) {
+        this.buffers = new ArrayBlockingQueue<>(count);
+        for (int i = 0; i < count; i++) {
+            buffers.add(ByteBuffer.allocateDirect(bufferSize));
+        }
+    }
+
+    public ByteBuffer acquire() throws InterruptedException {
+        return buffers.take().clear();
+    }
+
+    public void release(ByteBuffer buffer) {
+        buffers.add(buffer);
+    }
+}
@@ -0,0 +1,104 @@
+package com.valdir.jsonconsumer.receipt;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Escreve um documento em ASCII direto para um arquivo.
+ * O texto é acumulado em um buffer direto do {@link BufferPool}; cada vez que ele enche, é gravado no arquivo
+ * pelo {@link FileChannel}, que copia o buffer direto para o kernel sem passar pelo heap.
+ * O documento nunca fica inteiro no heap e {@link #position()} acompanha o offset de cada byte escrito,
+ * o que permite montar tabelas de offsets (como o xref do PDF) durante a escrita.
+ */
+public class DocumentWriter implements AutoCloseable {
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final boolean fsync;
+    private long flushed;
+
+    public DocumentWriter(Path file, ByteBuffer buffer, boolean fsync) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        this.buffer = buffer;
+        this.fsync = fsync;
+    }
+
+    /** Offset, a partir do início do arquivo, do próximo byte a ser escrito. */
+    public long position() {
+        return flushed + buffer.position();
+    }
+
+    /** Escreve o texto como ASCII; caracteres fora do ASCII viram {@code ?}. */
+    public DocumentWriter ascii(CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            put(text.charAt(i) < 0x80 ? (byte) text.charAt(i) : (byte) '?');
+        }
+        return this;
+    }
+
+    /** Escreve o número em decimal sem criar Strings. */
+    public DocumentWriter number(long value) {
+        return number(value, 1);
+    }
+
+    /** Escreve o número em decimal com zeros à esquerda até {@code width} dígitos. */
+    public DocumentWriter number(long value, int width) {
+        if (value < 0) {
+            put((byte) '-');
+            value = -value;
+        }
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10) {
+            digits++;
+        }
+        for (int i = digits; i < width; i++) {
+            put((byte) '0');
+        }
+        long divisor = 1;
+        for (int i = 1; i < digits; i++) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            put((byte) ('0' + (value / divisor) % 10));
+        }
+        return this;
+    }
+
+    public DocumentWriter put(byte value) {
+        if (!buffer.hasRemaining()) {
+            flush();
+        }
+        buffer.put(value);
+        return this;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+            if (fsync) {
+                channel.force(true);
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    // Com fsync, o arquivo inteiro é sincronizado uma vez só no close, antes de ser renomeado
+    private void flush() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                flushed += channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,28 @@
+package com.valdir.jsonconsumer.receipt;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "payment.receipt")
+public class ReceiptProperties {
+
+    /** Diretório onde os recibos são gravados, um arquivo {@code receipt-<id>.pdf} por pagamento. */
+    private Path directory = Path.of("receipts");
+
+    /** Recibos renderizados ao mesmo tempo; cada worker usa um buffer do pool. */
+    private int workers = 4;
+
+    /** Recibos aguardando um worker; com a fila cheia o próprio listener renderiza, o que segura o consumo. */
+    private int queueCapacity = 1000;
+
+    /** Tamanho de cada buffer do pool; documentos maiores são gravados em mais de um trecho. */
+    private int bufferSize = 16 * 1024;
+
+    /** Força a gravação em disco antes de considerar o recibo gerado. */
+    private boolean fsync = false;
+}
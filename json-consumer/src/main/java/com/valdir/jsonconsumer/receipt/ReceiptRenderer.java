@@ -0,0 +1,73 @@
+package com.valdir.jsonconsumer.receipt;
+
+import com.valdir.jsonconsumer.model.Payment;
+
+/**
+ * Renderiza o recibo de um pagamento como um PDF de uma página, escrito em sequência no
+ * {@link DocumentWriter}. O tamanho do conteúdo vai em um objeto indireto escrito depois dele,
+ * então nada precisa ser montado antes em memória; os offsets do xref vêm da posição do writer.
+ */
+public class ReceiptRenderer {
+
+    private static final int OBJECTS = 6;
+
+    public void render(Payment payment, DocumentWriter out) {
+        var offsets = new long[OBJECTS + 1];
+
+        out.ascii("%PDF-1.4\n");
+        offsets[1] = out.position();
+        out.ascii("1 0 obj\n<< /Type /Catalog /Pages 2 0 R >>\nendobj\n");
+        offsets[2] = out.position();
+        out.ascii("2 0 obj\n<< /Type /Pages /Kids [3 0 R] /Count 1 >>\nendobj\n");
+        offsets[3] = out.position();
+        out.ascii("3 0 obj\n<< /Type /Page /Parent 2 0 R /MediaBox [0 0 320 200]"
+                + " /Resources << /Font << /F1 4 0 R >> >> /Contents 5 0 R >>\nendobj\n");
+        offsets[4] = out.position();
+        out.ascii("4 0 obj\n<< /Type /Font /Subtype /Type1 /BaseFont /Helvetica >>\nendobj\n");
+
+        offsets[5] = out.position();
+        out.ascii("5 0 obj\n<< /Length 6 0 R >>\nstream\n");
+        long contentStart = out.position();
+        out.ascii("BT /F1 14 Tf 24 160 Td (Recibo de pagamento) Tj /F1 11 Tf\n");
+        line(out, "Pagamento: ", payment.getId());
+        line(out, "Cliente: ", payment.getIdUser());
+        line(out, "Produto: ", payment.getIdProduct());
+        out.ascii("0 -18 Td (Cartao: ");
+        maskedCard(out, payment.getCardNumber());
+        out.ascii(") Tj\nET");
+        long contentLength = out.position() - contentStart;
+        out.ascii("\nendstream\nendobj\n");
+
+        offsets[6] = out.position();
+        out.ascii("6 0 obj\n").number(contentLength).ascii("\nendobj\n");
+
+        long xref = out.position();
+        out.ascii("xref\n0 ").number(OBJECTS + 1).ascii("\n0000000000 65535 f \n");
+        for (int i = 1; i <= OBJECTS; i++) {
+            out.number(offsets[i], 10).ascii(" 00000 n \n");
+        }
+        out.ascii("trailer\n<< /Size ").number(OBJECTS + 1).ascii(" /Root 1 0 R >>\nstartxref\n")
+                .number(xref).ascii("\n%%EOF\n");
+    }
+
+    private static void line(DocumentWriter out, String label, Long value) {
+        out.ascii("0 -18 Td (").ascii(label);
+        if (value != null) {
+            out.number(value);
+        }
+        out.ascii(") Tj\n");
+    }
+
+    // Só os últimos 4 dígitos vão para o recibo; o restante do cartão não é gravado em disco
+    private static void maskedCard(DocumentWriter out, String cardNumber) {
+        if (cardNumber == null || cardNumber.length() < 4) {
+            out.ascii("****");
+            return;
+        }
+        out.ascii("**** ");
+        for (int i = cardNumber.length() - 4; i < cardNumber.length(); i++) {
+            char c = cardNumber.charAt(i);
+            out.put(Character.isLetterOrDigit(c) && c < 0x80 ? (byte) c : (byte) '*');
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.valdir.jsonconsumer.receipt;
+
+import com.valdir.jsonconsumer.model.Payment;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Gera os recibos em um pool limitado de workers. Cada recibo é renderizado direto para o arquivo por um
+ * {@link DocumentWriter} usando um buffer do {@link BufferPool}, então o heap não cresce com o tamanho
+ * nem com a quantidade de documentos. O arquivo é escrito com um nome temporário e renomeado ao final,
+ * para que um recibo pela metade nunca apareça com o nome definitivo.
+ */
+@Log4j2
+@Component
+public class ReceiptService {
+
+    private final ReceiptProperties properties;
+    private final BufferPool buffers;
+    private final ReceiptRenderer renderer = new ReceiptRenderer();
+    private final ThreadPoolExecutor workers;
+
+    public ReceiptService(ReceiptProperties properties) {
+        this.properties = properties;
+        this.buffers = new BufferPool(properties.getWorkers(), properties.getBufferSize());
+
+        var counter = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(properties.getWorkers(), properties.getWorkers(),
+                0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+                task -> {
+                    var thread = new Thread(task, "receipt-" + counter.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                // Com a fila cheia o listener renderiza ele mesmo e deixa de buscar novos pagamentos enquanto isso
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    public CompletableFuture<Path> generate(Payment payment) {
+        return CompletableFuture.supplyAsync(() -> write(payment), workers);
+    }
+
+    private Path write(Payment payment) {
+        var name = "receipt-" + (payment.getId() != null ? payment.getId() : "unknown-" + System.nanoTime()) + ".pdf";
+        var target = properties.getDirectory().resolve(name);
+        var temp = properties.getDirectory().resolve("." + name + ".tmp");
+        try {
+            Files.createDirectories(properties.getDirectory());
+            var buffer = buffers.acquire();
+            try (var out = new DocumentWriter(temp, buffer, properties.isFsync())) {
+                renderer.render(payment, out);
+            } finally {
+                buffers.release(buffer);
+            }
+            return Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrompido aguardando um buffer", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        workers.shutdown();
+        if (!workers.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("Recibos pendentes não terminaram a tempo");
+            workers.shutdownNow();
+        }
+    }
+}
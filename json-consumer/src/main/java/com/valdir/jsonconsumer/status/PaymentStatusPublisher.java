@@ -0,0 +1,49 @@
+package com.valdir.jsonconsumer.status;
+
+import com.valdir.jsonconsumer.model.Payment;
+import com.valdir.jsonconsumer.model.PaymentStatusEvent;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publica as etapas concluídas de cada pagamento (recibo gerado, email aceito pelo servidor SMTP) no
+ * {@code payment.status.topic}, com o id do pagamento como chave. É o contrato com a visão de status do
+ * payment-service, independente da deduplicação estar ligada e de como o antifraude roda.
+ */
+@Log4j2
+@Component
+public class PaymentStatusPublisher {
+
+    private final KafkaTemplate<String, Object> template;
+    private final String topic;
+
+    public PaymentStatusPublisher(KafkaTemplate<String, Object> paymentStatusTemplate,
+                                  @Value("${payment.status.topic:payment-status}") String topic) {
+        this.template = paymentStatusTemplate;
+        this.topic = topic;
+    }
+
+    public void receipted(Payment payment) {
+        publish(payment, PaymentStatusEvent.Stage.RECEIPT);
+    }
+
+    public void emailed(Payment payment) {
+        publish(payment, PaymentStatusEvent.Stage.EMAIL);
+    }
+
+    // Como no changelog da deduplicação, uma falha ao publicar só atrasa a visão e não deve falhar o handler
+    private void publish(Payment payment, PaymentStatusEvent.Stage stage) {
+        if (payment.getId() == null) {
+            return;
+        }
+        var event = new PaymentStatusEvent(payment.getId(), stage, System.currentTimeMillis());
+        try {
+            template.send(topic, String.valueOf(payment.getId()), event)
+                    .addCallback(result -> { }, e -> log.warn("Falha ao publicar {}: {}", event, e.getMessage()));
+        } catch (RuntimeException e) {
+            log.warn("Falha ao publicar {}: {}", event, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.valdir.jsonconsumer.codec;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PaymentBinaryDeserializerTests {
+
+    private final PaymentBinaryDeserializer deserializer = new PaymentBinaryDeserializer();
+
+    @Test
+    void readsVersionOneLayout() {
+        var card = "4111111111111111".getBytes(StandardCharsets.UTF_8);
+        var data = ByteBuffer.allocate(1 + 24 + 2 + card.length)
+                .put((byte) 0b1111)
+                .putLong(1L).putLong(2L).putLong(3L)
+                .putShort((short) card.length)
+                .put(card)
+                .array();
+
+        var payment = deserializer.deserialize("payment-topic", versionHeader(1), data);
+
+        assertThat(payment.getId()).isEqualTo(1L);
+        assertThat(payment.getIdUser()).isEqualTo(2L);
+        assertThat(payment.getIdProduct()).isEqualTo(3L);
+        assertThat(payment.getCardNumber()).isEqualTo("4111111111111111");
+    }
+
+    @Test
+    void keepsAbsentFieldsNull() {
+        var data = ByteBuffer.allocate(1 + 24 + 2)
+                .put((byte) 0b0001)
+                .putLong(7L).putLong(0L).putLong(0L)
+                .putShort((short) 0)
+                .array();
+
+        var payment = deserializer.deserialize("payment-topic", versionHeader(1), data);
+
+        assertThat(payment.getId()).isEqualTo(7L);
+        assertThat(payment.getIdUser()).isNull();
+        assertThat(payment.getIdProduct()).isNull();
+        assertThat(payment.getCardNumber()).isNull();
+    }
+
+    @Test
+    void fallsBackToJsonWithoutVersionHeader() {
+        var json = "{\"id\":1,\"idUser\":2,\"idProduct\":3,\"cardNumber\":\"123\"}".getBytes(StandardCharsets.UTF_8);
+
+        var payment = deserializer.deserialize("payment-topic", new RecordHeaders(), json);
+
+        assertThat(payment.getIdUser()).isEqualTo(2L);
+        assertThat(payment.getCardNumber()).isEqualTo("123");
+    }
+
+    @Test
+    void rejectsUnknownVersion() {
+        assertThatThrownBy(() -> deserializer.deserialize("payment-topic", versionHeader(9), new byte[27]))
+                .isInstanceOf(SerializationException.class);
+    }
+
+    private static RecordHeaders versionHeader(int version) {
+        var headers = new RecordHeaders();
+        headers.add(PaymentBinaryDeserializer.SCHEMA_VERSION_HEADER, new byte[]{(byte) version});
+        return headers;
+    }
+}
@@ -0,0 +1,55 @@
+package com.valdir.jsonconsumer.codec;
+
+import com.wsj.paymentservice.codec.PaymentBinarySerializer;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.Serializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Grava com o serializador do payment-service e lê com o desserializador deste serviço
+class PaymentCodecRoundTripTests {
+
+    private final PaymentBinaryDeserializer deserializer = new PaymentBinaryDeserializer();
+
+    @Test
+    void readsWhatTheBinarySerializerWrites() {
+        var payment = roundTrip(new PaymentBinarySerializer(),
+                new com.wsj.paymentservice.model.Payment(1L, 2L, 3L, "4111111111111111"));
+
+        assertThat(payment.getId()).isEqualTo(1L);
+        assertThat(payment.getIdUser()).isEqualTo(2L);
+        assertThat(payment.getIdProduct()).isEqualTo(3L);
+        assertThat(payment.getCardNumber()).isEqualTo("4111111111111111");
+    }
+
+    @Test
+    void keepsAbsentFieldsAndNonAsciiCardsThroughTheBinaryLayout() {
+        var payment = roundTrip(new PaymentBinarySerializer(),
+                new com.wsj.paymentservice.model.Payment(null, 0L, null, "cartão-ç"));
+
+        assertThat(payment.getId()).isNull();
+        assertThat(payment.getIdUser()).isZero();
+        assertThat(payment.getIdProduct()).isNull();
+        assertThat(payment.getCardNumber()).isEqualTo("cartão-ç");
+    }
+
+    @Test
+    void readsWhatTheJsonSerializerWrites() {
+        var payment = roundTrip(new JsonSerializer<>(),
+                new com.wsj.paymentservice.model.Payment(4L, 5L, 6L, null));
+
+        assertThat(payment.getId()).isEqualTo(4L);
+        assertThat(payment.getIdUser()).isEqualTo(5L);
+        assertThat(payment.getIdProduct()).isEqualTo(6L);
+        assertThat(payment.getCardNumber()).isNull();
+    }
+
+    private com.valdir.jsonconsumer.model.Payment roundTrip(Serializer<com.wsj.paymentservice.model.Payment> serializer,
+                                                           com.wsj.paymentservice.model.Payment payment) {
+        var headers = new RecordHeaders();
+        var data = serializer.serialize("payment-topic", headers, payment);
+        return deserializer.deserialize("payment-topic", headers, data);
+    }
+}
@@ -0,0 +1,81 @@
+package com.valdir.jsonconsumer.dedup;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LongTimeWindowSetTests {
+
+    @Test
+    void forgetsValuesOutsideTheWindow() {
+        var set = new LongTimeWindowSet(10, 1000);
+        set.add(1L, 0);
+        set.add(2L, 600);
+
+        assertThat(set.contains(1L, 999)).isTrue();
+        assertThat(set.contains(1L, 1000)).isFalse();
+        assertThat(set.contains(2L, 1000)).isTrue();
+        assertThat(set.size()).isEqualTo(1);
+    }
+
+    @Test
+    void evictsOldestWhenFull() {
+        var set = new LongTimeWindowSet(3, Long.MAX_VALUE / 2);
+        for (long id = 1; id <= 4; id++) {
+            set.add(id, 0);
+        }
+
+        assertThat(set.contains(1L, 0)).isFalse();
+        assertThat(set.contains(2L, 0)).isTrue();
+        assertThat(set.contains(4L, 0)).isTrue();
+        assertThat(set.size()).isEqualTo(3);
+    }
+
+    @Test
+    void rejectsDuplicatesIncludingEmptyMarker() {
+        var set = new LongTimeWindowSet(4, 1000);
+
+        assertThat(set.add(Long.MIN_VALUE, 0)).isTrue();
+        assertThat(set.add(Long.MIN_VALUE, 1)).isFalse();
+        assertThat(set.add(0L, 1)).isTrue();
+        assertThat(set.add(0L, 2)).isFalse();
+        assertThat(set.contains(Long.MIN_VALUE, 2)).isTrue();
+    }
+
+    @Test
+    void matchesReferenceImplementation() {
+        int capacity = 64;
+        long window = 500;
+        var set = new LongTimeWindowSet(capacity, window);
+        var expected = new HashSet<Long>();
+        var order = new ArrayDeque<long[]>();
+        var random = new Random(42);
+
+        long now = 0;
+        for (int i = 0; i < 100_000; i++) {
+            now += random.nextInt(5);
+            while (!order.isEmpty() && order.peekFirst()[1] <= now - window) {
+                expected.remove(order.pollFirst()[0]);
+            }
+            long value = random.nextInt(256) - 128;
+            if (random.nextBoolean()) {
+                boolean added = !expected.contains(value);
+                if (added) {
+                    if (expected.size() == capacity) {
+                        expected.remove(order.pollFirst()[0]);
+                    }
+                    expected.add(value);
+                    order.addLast(new long[]{value, now});
+                }
+                assertThat(set.add(value, now)).isEqualTo(added);
+            } else {
+                assertThat(set.contains(value, now)).isEqualTo(expected.contains(value));
+            }
+            assertThat(set.size()).isEqualTo(expected.size());
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.valdir.jsonconsumer.dedup;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.AbstractMessageListenerContainer;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PaymentDeduplicatorTests {
+
+    private static final String TOPIC = "payment-dedup-changelog";
+    private static final TopicPartition PARTITION = new TopicPartition(TOPIC, 0);
+
+    private final PaymentDedupProperties properties = new PaymentDedupProperties();
+    @SuppressWarnings("unchecked")
+    private final ConsumerFactory<String, Long> consumerFactory = mock(ConsumerFactory.class);
+    @SuppressWarnings("unchecked")
+    private final PaymentDeduplicator deduplicator = new PaymentDeduplicator(properties, mock(KafkaTemplate.class), consumerFactory);
+
+    @Test
+    void rebuildsFromTheChangelogWhenStartedNotWhenCreated() {
+        long now = System.currentTimeMillis();
+        var consumer = new MockConsumer<String, Long>(OffsetResetStrategy.EARLIEST);
+        consumer.updatePartitions(TOPIC, List.of(new PartitionInfo(TOPIC, 0, Node.noNode(), new Node[0], new Node[0])));
+        consumer.updateBeginningOffsets(Map.of(PARTITION, 0L));
+        consumer.updateEndOffsets(Map.of(PARTITION, 2L));
+        consumer.schedulePollTask(() -> {
+            consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, 0, "pdf-group:1", now));
+            // Fora da janela: não volta a ser reconhecido
+            consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, 1, "pdf-group:2", now - properties.getWindow().toMillis() - 1));
+        });
+        when(consumerFactory.createConsumer()).thenReturn(consumer);
+
+        verify(consumerFactory, never()).createConsumer();
+        assertThat(deduplicator.isDuplicate("pdf-group", 1L)).isFalse();
+
+        deduplicator.start();
+
+        assertThat(deduplicator.isRunning()).isTrue();
+        assertThat(deduplicator.isDuplicate("pdf-group", 1L)).isTrue();
+        assertThat(deduplicator.isDuplicate("pdf-group", 2L)).isFalse();
+        assertThat(deduplicator.isDuplicate("email-group", 1L)).isFalse();
+    }
+
+    @Test
+    void startsBeforeTheListenerContainers() {
+        assertThat(deduplicator.getPhase()).isLessThan(AbstractMessageListenerContainer.DEFAULT_PHASE);
+    }
+}
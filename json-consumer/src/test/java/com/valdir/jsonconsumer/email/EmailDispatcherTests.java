@@ -0,0 +1,127 @@
+package com.valdir.jsonconsumer.email;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.valdir.jsonconsumer.model.Payment;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+
+import javax.mail.MessagingException;
+import javax.mail.internet.InternetAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EmailDispatcherTests {
+
+    @RegisterExtension
+    static GreenMailExtension smtp = new GreenMailExtension(ServerSetupTest.SMTP.dynamicPort());
+
+    private EmailDispatcher dispatcher;
+
+    @AfterEach
+    void shutdown() throws InterruptedException {
+        dispatcher.shutdown();
+    }
+
+    @Test
+    void deliversEveryConfirmationInBatches() throws Exception {
+        var properties = properties();
+        properties.setBatchSize(10);
+        properties.setRatePerSecond(1000);
+        properties.setBurst(100);
+        dispatcher = new EmailDispatcher(properties, new KafkaListenerEndpointRegistry(), new SimpleMeterRegistry());
+
+        var sent = new ArrayList<CompletableFuture<Void>>();
+        for (long id = 1; id <= 30; id++) {
+            sent.add(dispatcher.submit(new Payment(id, 100 + id, 7L, "4111111111111111")));
+        }
+        CompletableFuture.allOf(sent.toArray(CompletableFuture[]::new)).join();
+
+        var received = smtp.getReceivedMessages();
+        assertThat(received).hasSize(30);
+        assertThat(Arrays.stream(received).map(message -> {
+            try {
+                return ((InternetAddress) message.getAllRecipients()[0]).getAddress();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        })).contains("cliente-101@example.com", "cliente-130@example.com");
+        assertThat(received[0].getSubject()).matches("Pagamento \\d+ confirmado");
+    }
+
+    @Test
+    void limitsTheSendingRate() throws Exception {
+        var properties = properties();
+        properties.setPoolSize(2);
+        properties.setRatePerSecond(20);
+        properties.setBurst(1);
+        dispatcher = new EmailDispatcher(properties, new KafkaListenerEndpointRegistry(), new SimpleMeterRegistry());
+
+        long start = System.nanoTime();
+        var sent = new ArrayList<CompletableFuture<Void>>();
+        for (long id = 1; id <= 11; id++) {
+            sent.add(dispatcher.submit(new Payment(id, id, id, null)));
+        }
+        CompletableFuture.allOf(sent.toArray(CompletableFuture[]::new)).join();
+
+        // A primeira ficha já está disponível; as outras 10 chegam a cada 50ms, mesmo com duas conexões
+        assertThat((System.nanoTime() - start) / 1_000_000).isGreaterThanOrEqualTo(450);
+        assertThat(smtp.getReceivedMessages()).hasSize(11);
+    }
+
+    @Test
+    void pausesTheListenerWhileTheQueueIsFull() throws Exception {
+        var container = mock(MessageListenerContainer.class);
+        var registry = mock(KafkaListenerEndpointRegistry.class);
+        when(registry.getListenerContainer("send-email")).thenReturn(container);
+
+        var properties = properties();
+        properties.setPoolSize(1);
+        properties.setBatchSize(1);
+        properties.setRatePerSecond(50);
+        properties.setBurst(1);
+        properties.setPauseThreshold(5);
+        properties.setResumeThreshold(1);
+        dispatcher = new EmailDispatcher(properties, registry, new SimpleMeterRegistry());
+
+        for (long id = 1; id <= 10; id++) {
+            dispatcher.submit(new Payment(id, id, id, null));
+        }
+
+        verify(container).pause();
+        verify(container, timeout(5_000)).resume();
+    }
+
+    @Test
+    void failsTheConfirmationWhenTheServerIsUnreachable() throws Exception {
+        var properties = properties();
+        properties.setPoolSize(1);
+        properties.setConnectionTimeoutMs(500);
+        dispatcher = new EmailDispatcher(properties, new KafkaListenerEndpointRegistry(), new SimpleMeterRegistry());
+        smtp.stop();
+
+        // O future em erro é o que impede o listener de confirmar o pagamento
+        assertThatThrownBy(dispatcher.submit(new Payment(1L, 1L, 1L, null))::join).hasCauseInstanceOf(MessagingException.class);
+        assertThatThrownBy(dispatcher.submit(new Payment(2L, 2L, 2L, null))::join).hasCauseInstanceOf(MessagingException.class);
+    }
+
+    private EmailProperties properties() {
+        var properties = new EmailProperties();
+        properties.setHost("localhost");
+        properties.setPort(smtp.getSmtp().getPort());
+        properties.setLingerMs(50);
+        return properties;
+    }
+}
@@ -0,0 +1,102 @@
+package com.valdir.jsonconsumer.fraud;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerGroupMetadata;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaOperations;
+import org.springframework.kafka.listener.ConsumerRecordRecoverer;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.backoff.FixedBackOff;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DeadLetterBatchRollbackProcessorTests {
+
+    private static final TopicPartition PARTITION = new TopicPartition("payment-topic", 0);
+
+    private final List<ConsumerRecord<String, Object>> batch = List.of(
+            new ConsumerRecord<>("payment-topic", 0, 10, "1", "{\"id\":1}"),
+            new ConsumerRecord<>("payment-topic", 0, 11, "2", "{\"id\":2}"));
+    private final RuntimeException failure = new IllegalStateException("falhou");
+
+    private ConsumerRecordRecoverer recoverer;
+    private KafkaOperations<Object, Object> template;
+    private Consumer<String, Object> consumer;
+    private MessageListenerContainer container;
+    private DeadLetterBatchRollbackProcessor<String, Object> processor;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        recoverer = mock(ConsumerRecordRecoverer.class);
+        template = mock(KafkaOperations.class);
+        consumer = mock(Consumer.class);
+        container = mock(MessageListenerContainer.class);
+        when(container.isRunning()).thenReturn(true);
+        when(consumer.groupMetadata()).thenReturn(new ConsumerGroupMetadata("create-group"));
+        processor = new DeadLetterBatchRollbackProcessor<>(recoverer, template, new FixedBackOff(0, 2));
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clear();
+    }
+
+    @Test
+    void retriesTheBatchBeforeSendingItToTheDeadLetter() {
+        process();
+        process();
+
+        verify(consumer, times(2)).seek(PARTITION, 10);
+        verify(recoverer, never()).accept(any(), any());
+        verify(template, never()).sendOffsetsToTransaction(any(), any(ConsumerGroupMetadata.class));
+    }
+
+    @Test
+    void deadLettersTheWholeBatchAndCommitsItsOffsetsWhenRetriesRunOut() {
+        process();
+        process();
+        process();
+
+        verify(recoverer).accept(batch.get(0), failure);
+        verify(recoverer).accept(batch.get(1), failure);
+        verify(template).sendOffsetsToTransaction(eq(Map.of(PARTITION, new OffsetAndMetadata(12))), any(ConsumerGroupMetadata.class));
+
+        // A posição só passa do lote depois do commit da transação de recuperação
+        verify(consumer, never()).seek(PARTITION, 12);
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        verify(consumer).seek(PARTITION, 12);
+    }
+
+    @Test
+    void startsOverForADifferentBatch() {
+        process();
+        process();
+        processor.process(List.of(new ConsumerRecord<>("payment-topic", 0, 12, "3", "{\"id\":3}")),
+                consumer, container, failure, false, ContainerProperties.EOSMode.V2);
+
+        verify(recoverer, never()).accept(any(), any());
+    }
+
+    private void process() {
+        processor.process(batch, consumer, container, failure, false, ContainerProperties.EOSMode.V2);
+    }
+}
@@ -0,0 +1,87 @@
+package com.valdir.jsonconsumer.fraud;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LongSlidingWindowCounterTests {
+
+    @Test
+    void countsEventsInsideTheWindow() {
+        var counter = new LongSlidingWindowCounter(60_000, 6);
+
+        assertThat(counter.increment(7L, 0)).isEqualTo(1);
+        assertThat(counter.increment(7L, 15_000)).isEqualTo(2);
+        assertThat(counter.increment(7L, 59_999)).isEqualTo(3);
+        assertThat(counter.count(8L, 59_999)).isZero();
+
+        // O intervalo [0, 10s) sai da janela quando ela chega a 60s
+        assertThat(counter.count(7L, 60_000)).isEqualTo(2);
+        assertThat(counter.count(7L, 130_000)).isZero();
+    }
+
+    @Test
+    void decrementUndoesOnlyEventsStillInTheWindow() {
+        var counter = new LongSlidingWindowCounter(60_000, 6);
+        counter.increment(7L, 0);
+        counter.increment(7L, 15_000);
+
+        counter.decrement(7L, 15_000);
+        assertThat(counter.count(7L, 15_000)).isEqualTo(1);
+
+        // O intervalo de 0s já foi reaproveitado pelo de 60s, então o evento antigo não é descontado dele
+        counter.increment(7L, 60_000);
+        counter.decrement(7L, 0);
+        assertThat(counter.count(7L, 60_000)).isEqualTo(1);
+        counter.decrement(8L, 0);
+        assertThat(counter.size()).isEqualTo(1);
+    }
+
+    @Test
+    void dropsIdleKeysInsteadOfGrowing() {
+        var counter = new LongSlidingWindowCounter(1_000, 2);
+        for (long key = 0; key < 10_000; key++) {
+            counter.increment(key, key * 10);
+        }
+
+        // Só as chaves com eventos no último segundo continuam na tabela
+        assertThat(counter.size()).isLessThan(1_000);
+        assertThat(counter.count(9_999L, 99_990)).isEqualTo(1);
+    }
+
+    @Test
+    void matchesReferenceImplementation() {
+        long window = 1_000;
+        int buckets = 4;
+        long bucketMillis = window / buckets;
+        var counter = new LongSlidingWindowCounter(window, buckets);
+        var events = new HashMap<Long, List<Long>>();
+        var random = new Random(7);
+
+        long now = 0;
+        for (int i = 0; i < 50_000; i++) {
+            now += random.nextInt(20);
+            long key = random.nextInt(300);
+            long epoch = now / bucketMillis;
+
+            int expected;
+            if (random.nextBoolean()) {
+                events.computeIfAbsent(key, k -> new ArrayList<>()).add(epoch);
+                expected = countInWindow(events.get(key), epoch, buckets);
+                assertThat(counter.increment(key, now)).isEqualTo(expected);
+            } else {
+                expected = countInWindow(events.getOrDefault(key, List.of()), epoch, buckets);
+                assertThat(counter.count(key, now)).isEqualTo(expected);
+            }
+        }
+    }
+
+    private static int countInWindow(List<Long> epochs, long epoch, int buckets) {
+        return (int) epochs.stream().filter(e -> e > epoch - buckets && e <= epoch).count();
+    }
+}
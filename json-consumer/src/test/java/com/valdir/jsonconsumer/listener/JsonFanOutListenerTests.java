@@ -0,0 +1,104 @@
+package com.valdir.jsonconsumer.listener;
+
+import com.valdir.jsonconsumer.dedup.PaymentDeduplicator;
+import com.valdir.jsonconsumer.email.EmailDispatcher;
+import com.valdir.jsonconsumer.fraud.VelocityFraudEngine;
+import com.valdir.jsonconsumer.model.Payment;
+import com.valdir.jsonconsumer.rebalance.InFlightRecords;
+import com.valdir.jsonconsumer.rebalance.StalledPartitions;
+import com.valdir.jsonconsumer.receipt.ReceiptService;
+import com.valdir.jsonconsumer.status.PaymentStatusPublisher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.listener.adapter.ConsumerRecordMetadata;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class JsonFanOutListenerTests {
+
+    private static final TopicPartition PARTITION = new TopicPartition("payment-topic", 0);
+
+    private final Payment payment = new Payment(1L, 10L, 7L, "4111111111111111");
+    private final ReceiptService receiptService = mock(ReceiptService.class);
+    private final EmailDispatcher emailDispatcher = mock(EmailDispatcher.class);
+    private final PaymentDeduplicator deduplicator = mock(PaymentDeduplicator.class);
+    private final MessageListenerContainer container = mock(MessageListenerContainer.class);
+    private final Acknowledgment ack = mock(Acknowledgment.class);
+    private final InFlightRecords inFlight = new InFlightRecords();
+
+    private StalledPartitions stalled;
+    private JsonFanOutListener listener;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        var registry = mock(KafkaListenerEndpointRegistry.class);
+        when(registry.getListenerContainer("fanout")).thenReturn(container);
+        when(emailDispatcher.submit(any())).thenReturn(CompletableFuture.completedFuture(null));
+        stalled = new StalledPartitions(registry, Duration.ofMillis(50));
+        var handlers = new PaymentHandlers(deduplicator, mock(VelocityFraudEngine.class), receiptService, emailDispatcher,
+                mock(PaymentStatusPublisher.class), new SimpleMeterRegistry());
+        listener = new JsonFanOutListener(2, true, handlers, inFlight, stalled);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        stalled.shutdown();
+        listener.shutdown();
+    }
+
+    @Test
+    void acknowledgesOnlyAfterEveryHandlerSucceeded() throws Exception {
+        when(receiptService.generate(payment))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("disco cheio")))
+                .thenReturn(CompletableFuture.completedFuture(Path.of("recibo.pdf")));
+
+        listener.dispatch(payment, null, ack, record());
+
+        // O email já foi enviado, mas o recibo falhou: a partição é pausada e o pagamento não é confirmado
+        verify(container, timeout(1_000)).pausePartition(PARTITION);
+        verify(ack, timeout(1_000)).acknowledge();
+        verify(container).resumePartition(PARTITION);
+        verify(emailDispatcher, times(1)).submit(payment);
+        verify(deduplicator).markProcessed("pdf-group", 1L);
+        assertThat(inFlight.count("fanout-group", List.of(PARTITION))).isZero();
+    }
+
+    @Test
+    void leavesTheOffsetUnacknowledgedWhenThePartitionIsRevoked() {
+        when(receiptService.generate(payment)).thenReturn(CompletableFuture.failedFuture(new IllegalStateException("disco cheio")));
+
+        listener.dispatch(payment, null, ack, record());
+        verify(container, timeout(1_000)).pausePartition(PARTITION);
+        stalled.release("fanout-group", List.of(PARTITION));
+
+        verify(ack, after(300).never()).acknowledge();
+        verify(container).resumePartition(PARTITION);
+        assertThat(inFlight.count("fanout-group", List.of(PARTITION))).isZero();
+        verify(deduplicator, never()).markProcessed("pdf-group", 1L);
+    }
+
+    private static ConsumerRecordMetadata record() {
+        return new ConsumerRecordMetadata(new RecordMetadata(PARTITION, 42, 0, 0, 0, 0), TimestampType.CREATE_TIME);
+    }
+}
@@ -0,0 +1,96 @@
+package com.valdir.jsonconsumer.listener;
+
+import com.valdir.jsonconsumer.dedup.PaymentDeduplicator;
+import com.valdir.jsonconsumer.email.EmailDispatcher;
+import com.valdir.jsonconsumer.fraud.VelocityFraudEngine;
+import com.valdir.jsonconsumer.model.Payment;
+import com.valdir.jsonconsumer.rebalance.InFlightRecords;
+import com.valdir.jsonconsumer.rebalance.StalledPartitions;
+import com.valdir.jsonconsumer.receipt.ReceiptService;
+import com.valdir.jsonconsumer.status.PaymentStatusPublisher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.listener.adapter.ConsumerRecordMetadata;
+import org.springframework.kafka.support.Acknowledgment;
+
+import javax.mail.MessagingException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class JsonListenerTests {
+
+    private static final TopicPartition PARTITION = new TopicPartition("payment-topic", 0);
+
+    private final Payment payment = new Payment(1L, 10L, 7L, null);
+    private final EmailDispatcher emailDispatcher = mock(EmailDispatcher.class);
+    private final PaymentDeduplicator deduplicator = mock(PaymentDeduplicator.class);
+    private final PaymentStatusPublisher statusPublisher = mock(PaymentStatusPublisher.class);
+    private final MessageListenerContainer container = mock(MessageListenerContainer.class);
+    private final Acknowledgment ack = mock(Acknowledgment.class);
+    private final InFlightRecords inFlight = new InFlightRecords();
+    private final StalledPartitions stalled;
+    private final JsonListener listener;
+
+    JsonListenerTests() {
+        var registry = mock(KafkaListenerEndpointRegistry.class);
+        when(registry.getListenerContainer("send-email")).thenReturn(container);
+        stalled = new StalledPartitions(registry, Duration.ofMillis(50));
+        var handlers = new PaymentHandlers(deduplicator, mock(VelocityFraudEngine.class), mock(ReceiptService.class),
+                emailDispatcher, statusPublisher, new SimpleMeterRegistry());
+        listener = new JsonListener(handlers, inFlight, stalled);
+    }
+
+    @AfterEach
+    void tearDown() {
+        stalled.shutdown();
+    }
+
+    @Test
+    void acknowledgesTheEmailOnlyAfterTheServerAcceptsIt() throws Exception {
+        when(emailDispatcher.submit(payment))
+                .thenReturn(CompletableFuture.failedFuture(new MessagingException("servidor recusou")))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        listener.sendEmail(payment, ack, record());
+
+        verify(ack, timeout(1_000)).acknowledge();
+        var order = inOrder(container, statusPublisher, ack);
+        order.verify(container).pausePartition(PARTITION);
+        order.verify(statusPublisher).emailed(payment);
+        order.verify(ack).acknowledge();
+        verify(container).resumePartition(PARTITION);
+        assertThat(inFlight.count("email-group", List.of(PARTITION))).isZero();
+    }
+
+    @Test
+    void doesNotAcknowledgeAnEmailThatKeepsFailing() throws Exception {
+        when(emailDispatcher.submit(payment)).thenReturn(CompletableFuture.failedFuture(new MessagingException("servidor recusou")));
+
+        listener.sendEmail(payment, ack, record());
+
+        verify(container, timeout(1_000)).pausePartition(PARTITION);
+        verify(ack, after(300).never()).acknowledge();
+        verify(statusPublisher, never()).emailed(payment);
+        assertThat(inFlight.count("email-group", List.of(PARTITION))).isEqualTo(1);
+    }
+
+    private static ConsumerRecordMetadata record() {
+        return new ConsumerRecordMetadata(new RecordMetadata(PARTITION, 5, 0, 0, 0, 0), TimestampType.CREATE_TIME);
+    }
+}
@@ -0,0 +1,97 @@
+package com.valdir.jsonconsumer.listener;
+
+import com.valdir.jsonconsumer.dedup.PaymentDeduplicator;
+import com.valdir.jsonconsumer.email.EmailDispatcher;
+import com.valdir.jsonconsumer.fraud.VelocityFraudEngine;
+import com.valdir.jsonconsumer.model.Payment;
+import com.valdir.jsonconsumer.rebalance.InFlightRecords;
+import com.valdir.jsonconsumer.rebalance.StalledPartitions;
+import com.valdir.jsonconsumer.receipt.ReceiptService;
+import com.valdir.jsonconsumer.status.PaymentStatusPublisher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.listener.adapter.ConsumerRecordMetadata;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class JsonParallelListenerTests {
+
+    private static final TopicPartition PARTITION = new TopicPartition("payment-topic", 0);
+
+    private final ReceiptService receiptService = mock(ReceiptService.class);
+    private final MessageListenerContainer container = mock(MessageListenerContainer.class);
+
+    private StalledPartitions stalled;
+    private JsonParallelListener listener;
+
+    @BeforeEach
+    void setUp() {
+        var registry = mock(KafkaListenerEndpointRegistry.class);
+        when(registry.getListenerContainer("pdf-generator")).thenReturn(container);
+        stalled = new StalledPartitions(registry, Duration.ofMillis(50));
+        var handlers = new PaymentHandlers(mock(PaymentDeduplicator.class), mock(VelocityFraudEngine.class), receiptService,
+                mock(EmailDispatcher.class), mock(PaymentStatusPublisher.class), new SimpleMeterRegistry());
+        listener = new JsonParallelListener(2, handlers, new InFlightRecords(), stalled);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        stalled.shutdown();
+        listener.shutdown();
+    }
+
+    @Test
+    void doesNotAcknowledgeAFailedPayment() {
+        var failed = new Payment(1L, 10L, 7L, null);
+        when(receiptService.generate(failed)).thenReturn(CompletableFuture.failedFuture(new IllegalStateException("disco cheio")));
+        var ack = mock(Acknowledgment.class);
+
+        listener.pdfGenerator(failed, "user-7", ack, record(10));
+
+        verify(container, timeout(1_000)).pausePartition(PARTITION);
+        verify(ack, after(300).never()).acknowledge();
+    }
+
+    @Test
+    void laterPaymentsOfTheSameKeyWaitForTheRetry() {
+        var first = new Payment(1L, 10L, 7L, null);
+        var second = new Payment(2L, 11L, 7L, null);
+        when(receiptService.generate(first))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("disco cheio")))
+                .thenReturn(CompletableFuture.completedFuture(Path.of("1.pdf")));
+        when(receiptService.generate(second)).thenReturn(CompletableFuture.completedFuture(Path.of("2.pdf")));
+        var firstAck = mock(Acknowledgment.class);
+        var secondAck = mock(Acknowledgment.class);
+
+        listener.pdfGenerator(first, "user-7", firstAck, record(10));
+        listener.pdfGenerator(second, "user-7", secondAck, record(11));
+
+        verify(secondAck, timeout(1_000)).acknowledge();
+        var order = inOrder(firstAck, secondAck, container);
+        order.verify(container).pausePartition(PARTITION);
+        order.verify(firstAck).acknowledge();
+        order.verify(secondAck).acknowledge();
+        verify(container).resumePartition(PARTITION);
+    }
+
+    private static ConsumerRecordMetadata record(long offset) {
+        return new ConsumerRecordMetadata(new RecordMetadata(PARTITION, offset, 0, 0, 0, 0), TimestampType.CREATE_TIME);
+    }
+}
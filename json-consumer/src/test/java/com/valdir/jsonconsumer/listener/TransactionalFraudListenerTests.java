@@ -0,0 +1,120 @@
+package com.valdir.jsonconsumer.listener;
+
+import com.valdir.jsonconsumer.fraud.FraudProperties;
+import com.valdir.jsonconsumer.fraud.VelocityFraudEngine;
+import com.valdir.jsonconsumer.model.Payment;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.common.KafkaException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.transaction.KafkaTransactionManager;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class TransactionalFraudListenerTests {
+
+    private MockProducer<Object, Object> producer;
+    private TransactionalFraudListener listener;
+    private TransactionTemplate transaction;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        var properties = new FraudProperties();
+        properties.setMaxPaymentsPerCard(2);
+
+        producer = newProducer();
+        var factory = factory();
+
+        var engine = new VelocityFraudEngine(properties, mock(KafkaTemplate.class), mock(KafkaTemplate.class), null);
+        listener = new TransactionalFraudListener(engine, new KafkaTemplate<>(factory));
+        // Mesmo arranjo do container: a transação do lote é aberta pelo KafkaTransactionManager, com sincronização
+        var transactionManager = new KafkaTransactionManager<>(factory);
+        transactionManager.setTransactionSynchronization(AbstractPlatformTransactionManager.SYNCHRONIZATION_ON_ACTUAL_TRANSACTION);
+        transaction = new TransactionTemplate(transactionManager);
+    }
+
+    @Test
+    void publishesTheWholeBatchInOneTransaction() {
+        var batch = List.of(
+                new Payment(1L, 10L, 1L, "4111111111111111"),
+                new Payment(2L, 11L, 1L, "4111111111111111"),
+                new Payment(3L, 12L, 1L, "4111111111111111"));
+
+        transaction.executeWithoutResult(status -> listener.antiFraud(batch));
+
+        assertThat(producer.transactionCommitted()).isTrue();
+        assertThat(producer.history()).extracting(record -> record.topic())
+                .containsExactly("approved-payment", "payment-fraud-changelog",
+                        "approved-payment", "payment-fraud-changelog",
+                        "rejected-payment", "payment-fraud-changelog");
+        assertThat(producer.history().get(4).headers().lastHeader(VelocityFraudEngine.REASON_HEADER)).isNotNull();
+        assertThat(producer.history().get(1).key()).isEqualTo(1L);
+    }
+
+    @Test
+    void abortedBatchIsNotCountedTwice() {
+        var batch = List.of(
+                new Payment(1L, 10L, 1L, "4111111111111111"),
+                new Payment(2L, 11L, 1L, "4111111111111111"));
+        producer.sendException = new KafkaException("broker indisponível");
+        assertThatThrownBy(() -> transaction.executeWithoutResult(status -> listener.antiFraud(batch)))
+                .isInstanceOf(KafkaException.class);
+
+        // Depois de um abort o produtor é fechado e a próxima transação usa outro
+        producer = newProducer();
+        transaction.executeWithoutResult(status -> listener.antiFraud(batch));
+
+        // Sem desfazer a contagem do lote abortado o cartão teria 4 pagamentos e os dois seriam recusados
+        assertThat(producer.history()).extracting(record -> record.topic())
+                .containsExactly("approved-payment", "payment-fraud-changelog", "approved-payment", "payment-fraud-changelog");
+    }
+
+    @Test
+    void abortsTheBatchWhenADecisionCannotBeSent() {
+        producer.sendException = new KafkaException("broker indisponível");
+
+        assertThatThrownBy(() -> transaction.executeWithoutResult(
+                status -> listener.antiFraud(List.of(new Payment(1L, 10L, 1L, "4111111111111111")))))
+                .isInstanceOf(KafkaException.class);
+
+        assertThat(producer.transactionAborted()).isTrue();
+        assertThat(producer.transactionCommitted()).isFalse();
+    }
+
+    // Os serializadores do produtor real escolhem pelo tópico; aqui só os registros enviados importam
+    private static MockProducer<Object, Object> newProducer() {
+        var producer = new MockProducer<Object, Object>(true, (topic, data) -> new byte[0], (topic, data) -> new byte[0]);
+        producer.initTransactions();
+        return producer;
+    }
+
+    private ProducerFactory<Object, Object> factory() {
+        return new ProducerFactory<>() {
+
+            @Override
+            public Producer<Object, Object> createProducer() {
+                return producer;
+            }
+
+            @Override
+            public Producer<Object, Object> createProducer(String txIdPrefix) {
+                return producer;
+            }
+
+            @Override
+            public boolean transactionCapable() {
+                return true;
+            }
+        };
+    }
+}
@@ -0,0 +1,89 @@
+package com.valdir.jsonconsumer.rebalance;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.adapter.ConsumerRecordMetadata;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InFlightRecordsTests {
+
+    private static final TopicPartition P0 = new TopicPartition("payment-topic", 0);
+    private static final TopicPartition P1 = new TopicPartition("payment-topic", 1);
+
+    private final InFlightRecords inFlight = new InFlightRecords();
+
+    @Test
+    void countsPerGroupAndPartition() {
+        var first = inFlight.begin("email-group", record(0));
+        inFlight.begin("email-group", record(0));
+        inFlight.begin("email-group", record(1));
+        inFlight.begin("pdf-group", record(0));
+
+        assertThat(inFlight.count("email-group", List.of(P0))).isEqualTo(2);
+        assertThat(inFlight.count("email-group", List.of(P0, P1))).isEqualTo(3);
+
+        first.run();
+        assertThat(inFlight.count("email-group", List.of(P0))).isEqualTo(1);
+        assertThat(inFlight.count("pdf-group", List.of(P0))).isEqualTo(1);
+        assertThat(inFlight.count("create-group", List.of(P0))).isZero();
+    }
+
+    @Test
+    void awaitReturnsWhenRevokedPartitionsDrain() throws Exception {
+        var done = inFlight.begin("email-group", record(0));
+        inFlight.begin("email-group", record(1));
+
+        var drained = CompletableFuture.supplyAsync(() -> await(List.of(P0), Duration.ofSeconds(10)));
+        CompletableFuture.delayedExecutor(100, TimeUnit.MILLISECONDS).execute(done);
+
+        // A partição 1 continua em andamento, mas não foi revogada
+        assertThat(drained.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(await(List.of(P1), Duration.ofMillis(50))).isFalse();
+    }
+
+    @Test
+    void rebalanceListenerRecordsPauseUntilNextAssignment() {
+        var registry = new SimpleMeterRegistry();
+        var listener = new DrainingRebalanceListener(inFlight,
+                new StalledPartitions(new KafkaListenerEndpointRegistry(), Duration.ofSeconds(1)), Duration.ofMillis(50), registry);
+        var consumer = new MockConsumer<String, String>(OffsetResetStrategy.EARLIEST);
+        consumer.assign(List.of(P0, P1));
+        inFlight.begin(consumer.groupMetadata().groupId(), record(1));
+
+        listener.onPartitionsRevokedBeforeCommit(consumer, List.of(P0));
+        listener.onPartitionsAssigned(consumer, List.of());
+        listener.onPartitionsRevokedBeforeCommit(consumer, List.of(P0, P1));
+        listener.onPartitionsAssigned(consumer, List.of(P0));
+
+        var group = consumer.groupMetadata().groupId();
+        assertThat(registry.get("kafka.consumer.rebalance.pause").tags("group", group, "scope", "partial").timer().count()).isEqualTo(1);
+        assertThat(registry.get("kafka.consumer.rebalance.pause").tags("group", group, "scope", "all").timer().count()).isEqualTo(1);
+        // A segunda revogação esperou o registro da partição 1 até o drain-timeout
+        assertThat(registry.get("kafka.consumer.rebalance.drain").timer().max(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(50);
+    }
+
+    private boolean await(List<TopicPartition> partitions, Duration timeout) {
+        try {
+            return inFlight.await("email-group", partitions, timeout);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static ConsumerRecordMetadata record(int partition) {
+        return new ConsumerRecordMetadata(new RecordMetadata(new TopicPartition("payment-topic", partition), 0, 0, 0, 0, 0),
+                TimestampType.CREATE_TIME);
+    }
+}
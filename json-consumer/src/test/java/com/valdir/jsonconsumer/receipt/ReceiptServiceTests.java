@@ -0,0 +1,77 @@
+package com.valdir.jsonconsumer.receipt;
+
+import com.valdir.jsonconsumer.model.Payment;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReceiptServiceTests {
+
+    @TempDir
+    Path directory;
+
+    private ReceiptService service;
+
+    @AfterEach
+    void shutdown() throws InterruptedException {
+        service.shutdown();
+    }
+
+    @Test
+    void writesValidPdfAcrossSeveralBufferFlushes() throws Exception {
+        // Buffer bem menor que o documento, para que ele seja gravado em vários trechos
+        service = new ReceiptService(properties(32));
+
+        var file = service.generate(new Payment(42L, 7L, 3L, "4111111111111234")).get();
+        var pdf = Files.readString(file, StandardCharsets.US_ASCII);
+
+        assertThat(file.getFileName().toString()).isEqualTo("receipt-42.pdf");
+        assertThat(pdf).startsWith("%PDF-1.4\n").endsWith("%%EOF\n");
+        assertThat(pdf).contains("(Pagamento: 42)", "(Cartao: **** 1234)").doesNotContain("4111111111111234");
+
+        var startxref = Pattern.compile("startxref\n(\\d+)\n").matcher(pdf);
+        assertThat(startxref.find()).isTrue();
+        int xref = Integer.parseInt(startxref.group(1));
+        assertThat(pdf.substring(xref)).startsWith("xref\n0 7\n");
+
+        var entries = Pattern.compile("(\\d{10}) 00000 n \n").matcher(pdf.substring(xref));
+        for (int object = 1; object <= 6; object++) {
+            assertThat(entries.find()).isTrue();
+            assertThat(pdf.substring(Integer.parseInt(entries.group(1)))).startsWith(object + " 0 obj\n");
+        }
+
+        int streamStart = pdf.indexOf("stream\n") + "stream\n".length();
+        int streamEnd = pdf.indexOf("\nendstream");
+        assertThat(pdf).contains("6 0 obj\n" + (streamEnd - streamStart) + "\nendobj\n");
+    }
+
+    @Test
+    void leavesNoTemporaryFiles() throws Exception {
+        service = new ReceiptService(properties(16 * 1024));
+
+        for (long id = 1; id <= 20; id++) {
+            service.generate(new Payment(id, id, id, null)).get();
+        }
+
+        try (var files = Files.list(directory)) {
+            assertThat(files.map(path -> path.getFileName().toString()))
+                    .hasSize(20)
+                    .allMatch(name -> name.startsWith("receipt-") && name.endsWith(".pdf"));
+        }
+    }
+
+    private ReceiptProperties properties(int bufferSize) {
+        var properties = new ReceiptProperties();
+        properties.setDirectory(directory);
+        properties.setWorkers(2);
+        properties.setBufferSize(bufferSize);
+        return properties;
+    }
+}
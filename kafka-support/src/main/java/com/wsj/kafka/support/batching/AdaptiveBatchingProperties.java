@@ -0,0 +1,37 @@
+package com.wsj.kafka.support.batching;
+
+import lombok.Getter; // Gera automaticamente os métodos getter para os campos
+import lombok.Setter; // Gera automaticamente os métodos setter usados pelo binding do Spring
+import org.springframework.util.unit.DataSize; // Tamanho em bytes aceitando sufixos como 64KB
+
+import java.time.Duration;
+
+// Ajuste automático do linger.ms e do batch.size do produtor a partir da carga observada
+// Desligado, o produtor usa o perfil fixo de spring.kafka.producer.*
+// Cada serviço liga estas propriedades ao seu prefixo com @ConfigurationProperties no @Bean que as cria
+@Getter
+@Setter
+public class AdaptiveBatchingProperties {
+
+    private boolean enabled = false;
+
+    // Intervalo entre as avaliações da taxa de envio e do tamanho dos registros
+    private Duration interval = Duration.ofSeconds(10);
+
+    // Faixa do linger: o mínimo é usado com pouca carga, quando esperar só atrasaria os registros
+    private Duration minLinger = Duration.ZERO;
+    private Duration maxLinger = Duration.ofMillis(50);
+
+    // Faixa do batch.size; o valor escolhido é sempre uma potência de 2 dentro dela
+    private DataSize minBatchSize = DataSize.ofKilobytes(16);
+    private DataSize maxBatchSize = DataSize.ofMegabytes(1);
+
+    // Registros por lote e partição que justificam esperar o linger
+    private int targetRecordsPerBatch = 16;
+
+    // Variação mínima (0.25 = 25%) do linger ou do lote para trocar o produtor, evitando trocas a cada oscilação
+    private double changeThreshold = 0.25;
+
+    // Tempo até fechar o produtor anterior, para que envios já iniciados nele terminem
+    private Duration retireDelay = Duration.ofSeconds(5);
+}
@@ -0,0 +1,354 @@
+package com.wsj.kafka.support.batching;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.apache.kafka.clients.consumer.ConsumerGroupMetadata;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.InterruptException;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.core.ProducerPostProcessor;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Fábrica de produtores que ajusta o {@code linger.ms} e o {@code batch.size} à carga, já que o produtor
+ * Kafka não aceita mudar essas configurações depois de criado.
+ *
+ * <p>A cada intervalo lê a taxa de envio, o tamanho médio dos registros e a latência das requisições nas
+ * métricas do produtor atual e calcula um {@link BatchingPlan}. Quando o plano muda além do limite, uma cópia
+ * da fábrica base com o novo linger e lote passa a atender os próximos envios. Antes da troca o produtor anterior
+ * é esvaziado com {@code flush()}, com os envios suspensos, para que um registro enviado depois da troca nunca
+ * chegue antes de outro da mesma chave que ainda estava no buffer do produtor anterior. O produtor anterior é
+ * fechado depois do {@code retire-delay}.
+ *
+ * <p>Os envios passam sempre pelo mesmo {@link Producer} devolvido por {@link #createProducer()}, que repassa
+ * cada chamada ao produtor atual; por isso a fábrica não atende produtores transacionais.
+ */
+@Log4j2
+public class AdaptiveProducerFactory<K, V> implements ProducerFactory<K, V>, DisposableBean {
+
+    private final DefaultKafkaProducerFactory<K, V> base;
+    private final String topic;
+    private final AdaptiveBatchingProperties properties;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+        var thread = new Thread(task, "adaptive-batching");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Envios seguram a leitura; a troca de produtor segura a escrita enquanto esvazia o anterior
+    private final ReadWriteLock switching = new ReentrantReadWriteLock();
+    private final Producer<K, V> producer = new SwitchingProducer();
+    private final long warmUpNanos;
+    private final long maxBlockMs;
+    private volatile DefaultKafkaProducerFactory<K, V> current;
+    private volatile BatchingPlan plan;
+    private volatile long switchedAt = System.nanoTime();
+
+    public AdaptiveProducerFactory(DefaultKafkaProducerFactory<K, V> base, String topic,
+                                   AdaptiveBatchingProperties properties, MeterRegistry meterRegistry) {
+        this.base = base;
+        this.topic = topic;
+        this.properties = properties;
+        this.current = base;
+        this.plan = new BatchingPlan(
+                longConfig(base, ProducerConfig.LINGER_MS_CONFIG, 0),
+                (int) longConfig(base, ProducerConfig.BATCH_SIZE_CONFIG, 16384));
+        this.maxBlockMs = longConfig(base, ProducerConfig.MAX_BLOCK_MS_CONFIG, 60_000);
+        // As taxas do cliente Kafka são médias de até metrics.num.samples janelas de metrics.sample.window.ms e
+        // ficam subestimadas enquanto o produtor não passou por elas
+        this.warmUpNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(properties.getInterval().toMillis(),
+                longConfig(base, ProducerConfig.METRICS_SAMPLE_WINDOW_MS_CONFIG, 30_000)
+                        * (longConfig(base, ProducerConfig.METRICS_NUM_SAMPLES_CONFIG, 2) - 1)));
+
+        Gauge.builder("kafka.producer.adaptive.linger", this, factory -> factory.plan.getLingerMs())
+                .description("linger.ms escolhido pelo ajuste automático")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        Gauge.builder("kafka.producer.adaptive.batch-size", this, factory -> factory.plan.getBatchSize())
+                .description("batch.size escolhido pelo ajuste automático")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+
+        long interval = properties.getInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::retune, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public BatchingPlan getPlan() {
+        return plan;
+    }
+
+    void retune() {
+        if (System.nanoTime() - switchedAt < warmUpNanos) {
+            // Produtor recém-criado: as métricas dele ainda não representam a carga
+            return;
+        }
+        try {
+            var producer = current.createProducer();
+            var metrics = producer.metrics();
+            int partitions = producer.partitionsFor(topic).size();
+            var next = BatchingPlan.of(
+                    metric(metrics, "record-send-rate"),
+                    metric(metrics, "record-size-avg"),
+                    metric(metrics, "request-latency-avg"),
+                    partitions, properties);
+            if (next.differsFrom(plan, properties.getChangeThreshold())) {
+                apply(next);
+            }
+        } catch (RuntimeException e) {
+            // Sem métricas (ex.: broker fora) o produtor atual continua como está
+            log.debug("Ajuste do produtor ignorado: {}", e.getMessage());
+        }
+    }
+
+    void apply(BatchingPlan next) {
+        var factory = copy(next);
+        var previous = current;
+        switching.writeLock().lock();
+        try {
+            // Com os envios suspensos, tudo o que foi para o produtor anterior é entregue antes do primeiro
+            // envio pelo novo, então registros da mesma chave não trocam de ordem na partição
+            previous.createProducer().flush();
+            current = factory;
+            switchedAt = System.nanoTime();
+        } finally {
+            switching.writeLock().unlock();
+        }
+        log.info("Produtor ajustado: linger.ms {} -> {}, batch.size {} -> {}",
+                plan.getLingerMs(), next.getLingerMs(), plan.getBatchSize(), next.getBatchSize());
+        plan = next;
+        scheduler.schedule(() -> retire(previous), properties.getRetireDelay().toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @SuppressWarnings("unchecked")
+    DefaultKafkaProducerFactory<K, V> copy(BatchingPlan next) {
+        return (DefaultKafkaProducerFactory<K, V>) base.copyWithConfigurationOverride(Map.of(
+                ProducerConfig.LINGER_MS_CONFIG, next.getLingerMs(),
+                ProducerConfig.BATCH_SIZE_CONFIG, next.getBatchSize()));
+    }
+
+    // A fábrica base continua sendo o modelo das cópias; só o produtor dela é fechado
+    private void retire(DefaultKafkaProducerFactory<K, V> factory) {
+        if (factory == base) {
+            base.reset();
+        } else {
+            factory.destroy();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+        current.destroy();
+        if (current != base) {
+            base.destroy();
+        }
+    }
+
+    @Override
+    public Producer<K, V> createProducer() {
+        return producer;
+    }
+
+    @Override
+    public Producer<K, V> createProducer(String txIdPrefix) {
+        throw new UnsupportedOperationException("AdaptiveProducerFactory não atende produtores transacionais");
+    }
+
+    @Override
+    public Producer<K, V> createNonTransactionalProducer() {
+        return producer;
+    }
+
+    @Override
+    public void reset() {
+        current.reset();
+    }
+
+    @Override
+    public boolean transactionCapable() {
+        return false;
+    }
+
+    @Override
+    public boolean isProducerPerThread() {
+        return base.isProducerPerThread();
+    }
+
+    @Override
+    public void closeThreadBoundProducer() {
+        current.closeThreadBoundProducer();
+    }
+
+    @Override
+    public Map<String, Object> getConfigurationProperties() {
+        return current.getConfigurationProperties();
+    }
+
+    @Override
+    public String getTransactionIdPrefix() {
+        return base.getTransactionIdPrefix();
+    }
+
+    @Override
+    public Serializer<K> getKeySerializer() {
+        return base.getKeySerializer();
+    }
+
+    @Override
+    public Serializer<V> getValueSerializer() {
+        return base.getValueSerializer();
+    }
+
+    @Override
+    public Supplier<Serializer<K>> getKeySerializerSupplier() {
+        return base.getKeySerializerSupplier();
+    }
+
+    @Override
+    public Supplier<Serializer<V>> getValueSerializerSupplier() {
+        return base.getValueSerializerSupplier();
+    }
+
+    @Override
+    public Duration getPhysicalCloseTimeout() {
+        return base.getPhysicalCloseTimeout();
+    }
+
+    @Override
+    public List<Listener<K, V>> getListeners() {
+        return base.getListeners();
+    }
+
+    @Override
+    public List<ProducerPostProcessor<K, V>> getPostProcessors() {
+        return base.getPostProcessors();
+    }
+
+    /**
+     * Repassa cada chamada ao produtor da fábrica atual. O {@code close} é ignorado, como no produtor compartilhado
+     * do {@link DefaultKafkaProducerFactory}: quem fecha os produtores é a própria fábrica.
+     */
+    private class SwitchingProducer implements Producer<K, V> {
+
+        @Override
+        public Future<RecordMetadata> send(ProducerRecord<K, V> record) {
+            return whileNotSwitching(() -> current.createProducer().send(record));
+        }
+
+        @Override
+        public Future<RecordMetadata> send(ProducerRecord<K, V> record, Callback callback) {
+            return whileNotSwitching(() -> current.createProducer().send(record, callback));
+        }
+
+        // Com o broker fora o flush da troca pode demorar; o envio desiste depois de max.block.ms, como o próprio
+        // produtor faz quando o buffer está cheio
+        private <T> T whileNotSwitching(Supplier<T> send) {
+            try {
+                if (!switching.readLock().tryLock(maxBlockMs, TimeUnit.MILLISECONDS)) {
+                    throw new TimeoutException("Troca de produtor não terminou em " + maxBlockMs + " ms");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptException(e);
+            }
+            try {
+                return send.get();
+            } finally {
+                switching.readLock().unlock();
+            }
+        }
+
+        @Override
+        public void flush() {
+            current.createProducer().flush();
+        }
+
+        @Override
+        public List<PartitionInfo> partitionsFor(String topic) {
+            return current.createProducer().partitionsFor(topic);
+        }
+
+        @Override
+        public Map<MetricName, ? extends Metric> metrics() {
+            return current.createProducer().metrics();
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public void close(Duration timeout) {
+        }
+
+        @Override
+        public void initTransactions() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void beginTransaction() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        @SuppressWarnings("deprecation")
+        public void sendOffsetsToTransaction(Map<TopicPartition, OffsetAndMetadata> offsets, String consumerGroupId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void sendOffsetsToTransaction(Map<TopicPartition, OffsetAndMetadata> offsets, ConsumerGroupMetadata groupMetadata) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void commitTransaction() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void abortTransaction() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static double metric(Map<?, ? extends Metric> metrics, String name) {
+        for (var entry : metrics.entrySet()) {
+            var metric = entry.getValue();
+            if (metric.metricName().name().equals(name) && metric.metricName().group().equals("producer-metrics")) {
+                var value = metric.metricValue();
+                return value instanceof Number number && !Double.isNaN(number.doubleValue()) ? number.doubleValue() : 0;
+            }
+        }
+        return 0;
+    }
+
+    private static long longConfig(DefaultKafkaProducerFactory<?, ?> factory, String name, long defaultValue) {
+        var value = factory.getConfigurationProperties().get(name);
+        return value != null ? Long.parseLong(value.toString()) : defaultValue;
+    }
+}
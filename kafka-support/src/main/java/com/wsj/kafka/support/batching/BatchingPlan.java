@@ -0,0 +1,47 @@
+package com.wsj.kafka.support.batching;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Linger e tamanho de lote escolhidos para a carga observada no produtor.
+ *
+ * <p>O linger é o tempo para chegarem {@code target-records-per-batch} registros em uma partição.
+ * Se esse tempo passa do linger máximo a carga é baixa demais para formar lotes e o linger mínimo é
+ * usado, priorizando a latência. O lote precisa caber, com folga de 2x, o que chega à partição durante o
+ * linger ou enquanto a requisição anterior está em voo; no pico ele chega ao máximo, priorizando a vazão.
+ */
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class BatchingPlan {
+
+    private final long lingerMs;
+    private final int batchSize;
+
+    public static BatchingPlan of(double recordsPerSecond, double recordSize, double requestLatencyMs, int partitions,
+                                  AdaptiveBatchingProperties properties) {
+        long minLinger = properties.getMinLinger().toMillis();
+        long maxLinger = properties.getMaxLinger().toMillis();
+        double perPartition = Math.max(0, recordsPerSecond) / Math.max(1, partitions);
+
+        double gatherMs = perPartition > 0 ? properties.getTargetRecordsPerBatch() * 1000.0 / perPartition : Double.POSITIVE_INFINITY;
+        long linger = gatherMs > maxLinger ? minLinger : Math.max(minLinger, (long) Math.ceil(gatherMs));
+
+        double window = Math.max(linger, Math.max(0, requestLatencyMs)) / 1000.0;
+        double bytes = 2 * Math.max(0, recordSize) * perPartition * window;
+        long batch = Long.highestOneBit(Math.max(1, (long) Math.ceil(bytes)) - 1) << 1;
+        batch = Math.min(Math.max(batch, properties.getMinBatchSize().toBytes()), properties.getMaxBatchSize().toBytes());
+        return new BatchingPlan(linger, (int) batch);
+    }
+
+    /** Se a mudança de linger ou de lote passa do limite, relativo ao maior dos dois valores. */
+    public boolean differsFrom(BatchingPlan other, double threshold) {
+        return change(lingerMs, other.lingerMs) > threshold || change(batchSize, other.batchSize) > threshold;
+    }
+
+    private static double change(long a, long b) {
+        return a == b ? 0 : (double) Math.abs(a - b) / Math.max(a, b);
+    }
+}
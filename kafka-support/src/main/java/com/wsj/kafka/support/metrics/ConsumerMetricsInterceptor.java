@@ -0,0 +1,98 @@
+package com.wsj.kafka.support.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.listener.BatchInterceptor;
+import org.springframework.kafka.listener.RecordInterceptor;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Chamado pelo container logo antes do listener, registra por grupo:
+ * <ul>
+ *     <li>{@code kafka.consumer.end-to-end.latency}: do envio (cabeçalho {@value #PRODUCED_AT_HEADER}, ou o
+ *     timestamp do registro na falta dele) até o início do handler, por tópico;</li>
+ *     <li>{@code kafka.consumer.lag}: registros ainda não lidos de cada partição, calculado pelo cliente
+ *     a partir do último fetch, sem chamadas extras ao broker.</li>
+ * </ul>
+ * Nos tópicos de retentativa a latência inclui o atraso da retentativa, já que o cabeçalho original é copiado
+ * na republicação. O tempo de cada listener é registrado pelo próprio container no timer {@code spring.kafka.listener}.
+ * Os medidores de cada grupo, tópico e partição são criados uma vez e reaproveitados.
+ */
+public class ConsumerMetricsInterceptor<K, V> implements RecordInterceptor<K, V>, BatchInterceptor<K, V> {
+
+    public static final String PRODUCED_AT_HEADER = "produced-at";
+
+    private final MeterRegistry registry;
+    private final ConcurrentMap<Tags, Timer> latencies = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Tags, AtomicLong> lags = new ConcurrentHashMap<>();
+
+    public ConsumerMetricsInterceptor(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public ConsumerRecord<K, V> intercept(ConsumerRecord<K, V> record) {
+        return record;
+    }
+
+    @Override
+    public ConsumerRecord<K, V> intercept(ConsumerRecord<K, V> record, Consumer<K, V> consumer) {
+        var group = consumer.groupMetadata().groupId();
+        record(group, record, System.currentTimeMillis());
+        updateLag(group, new TopicPartition(record.topic(), record.partition()), consumer);
+        return record;
+    }
+
+    @Override
+    public ConsumerRecords<K, V> intercept(ConsumerRecords<K, V> records, Consumer<K, V> consumer) {
+        var group = consumer.groupMetadata().groupId();
+        long now = System.currentTimeMillis();
+        for (var record : records) {
+            record(group, record, now);
+        }
+        for (var partition : records.partitions()) {
+            updateLag(group, partition, consumer);
+        }
+        return records;
+    }
+
+    private void record(String group, ConsumerRecord<K, V> record, long now) {
+        var header = record.headers().lastHeader(PRODUCED_AT_HEADER);
+        long producedAt = header != null && header.value().length == Long.BYTES
+                ? ByteBuffer.wrap(header.value()).getLong()
+                : record.timestamp();
+        if (producedAt <= 0) {
+            return;
+        }
+        latencies.computeIfAbsent(Tags.of("group", group, "topic", record.topic()),
+                        tags -> Timer.builder("kafka.consumer.end-to-end.latency")
+                                .description("Tempo entre o envio do registro e o início do handler")
+                                .tags(tags)
+                                .register(registry))
+                .record(Math.max(0, now - producedAt), TimeUnit.MILLISECONDS);
+    }
+
+    private void updateLag(String group, TopicPartition partition, Consumer<K, V> consumer) {
+        consumer.currentLag(partition).ifPresent(lag -> lags.computeIfAbsent(
+                Tags.of("group", group, "topic", partition.topic(), "partition", String.valueOf(partition.partition())),
+                tags -> {
+                    var value = new AtomicLong();
+                    Gauge.builder("kafka.consumer.lag", value, AtomicLong::get)
+                            .description("Registros da partição ainda não lidos pelo grupo")
+                            .tags(tags)
+                            .register(registry);
+                    return value;
+                }).set(lag));
+    }
+}
@@ -0,0 +1,93 @@
+package com.wsj.kafka.support.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.producer.ProducerInterceptor;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Interceptor do produtor que registra, por tópico, o timer {@code kafka.producer.send.ack} (envio até a
+ * confirmação do broker) e o contador {@code kafka.producer.send.failures}, e grava em cada registro o cabeçalho
+ * {@value #PRODUCED_AT_HEADER}, usado pelos consumidores para medir a latência de ponta a ponta.
+ *
+ * <p>O instante do envio é lido em {@link #onSend} e vira o timestamp do registro, que o broker devolve na
+ * confirmação; sem isso o produtor só atribuiria o timestamp depois de esperar pelos metadados do tópico, e essa
+ * espera ficaria fora da medida. Registros que já chegam com timestamp são medidos a partir dele.
+ *
+ * <p>O cliente Kafka instancia o interceptor pelo nome da classe, então ele publica no
+ * {@link Metrics#globalRegistry}, ao qual o Spring Boot acrescenta o registro da aplicação
+ * ({@code management.metrics.use-global-registry}, ligado por padrão).
+ */
+public class ProducerLatencyInterceptor implements ProducerInterceptor<Object, Object> {
+
+    // Instante do envio em epoch millis, 8 bytes big-endian
+    public static final String PRODUCED_AT_HEADER = "produced-at";
+
+    private final MeterRegistry registry;
+    private final ConcurrentMap<String, Timer> acks = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Counter> failures = new ConcurrentHashMap<>();
+
+    public ProducerLatencyInterceptor() {
+        this(Metrics.globalRegistry);
+    }
+
+    public ProducerLatencyInterceptor(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs) {
+    }
+
+    @Override
+    public ProducerRecord<Object, Object> onSend(ProducerRecord<Object, Object> record) {
+        long now = System.currentTimeMillis();
+        // Preserva o instante original quando o registro é republicado
+        if (record.headers().lastHeader(PRODUCED_AT_HEADER) == null) {
+            record.headers().add(PRODUCED_AT_HEADER, ByteBuffer.allocate(Long.BYTES).putLong(now).array());
+        }
+        if (record.timestamp() != null) {
+            return record;
+        }
+        return new ProducerRecord<>(record.topic(), record.partition(), now, record.key(), record.value(), record.headers());
+    }
+
+    /**
+     * Executado na thread de I/O do produtor. Numa falha o cliente não devolve o timestamp do registro,
+     * então ela só é contada.
+     */
+    @Override
+    public void onAcknowledgement(RecordMetadata metadata, Exception exception) {
+        if (metadata == null) {
+            return;
+        }
+        if (exception != null) {
+            failures.computeIfAbsent(metadata.topic(), topic -> Counter.builder("kafka.producer.send.failures")
+                    .description("Registros cujo envio falhou")
+                    .tag("topic", topic)
+                    .register(registry)).increment();
+            return;
+        }
+        if (metadata.timestamp() < 0) {
+            return;
+        }
+        acks.computeIfAbsent(metadata.topic(), topic -> Timer.builder("kafka.producer.send.ack")
+                        .description("Tempo entre o envio do registro e a confirmação do broker")
+                        .tag("topic", topic)
+                        .register(registry))
+                .record(Math.max(0, System.currentTimeMillis() - metadata.timestamp()), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,32 @@
+package com.wsj.kafka.support.partitions;
+
+import lombok.Getter; // Gera automaticamente os métodos getter para os campos
+import lombok.Setter; // Gera automaticamente os métodos setter usados pelo binding do Spring
+
+import java.time.Duration;
+
+// Ajuste automático da concorrência dos listeners pelo lag
+// Desligado por padrão: cada mudança para e reinicia o container, o que rebalanceia o grupo
+// Cada serviço liga estas propriedades ao seu prefixo com @ConfigurationProperties no @Bean que as cria
+@Getter
+@Setter
+public class AutoscalingProperties {
+
+    private boolean enabled = false;
+
+    // Intervalo entre as avaliações do lag de cada container
+    private Duration interval = Duration.ofSeconds(15);
+
+    // Menor concorrência de um container; o máximo é o número de partições, limitado a concurrency.max
+    private int min = 1;
+
+    // Acima desse tempo para consumir o lag atual no ritmo atual o container ganha consumidores
+    private Duration targetDrainTime = Duration.ofSeconds(30);
+
+    // Lag até o qual o container é considerado ocioso; após scale-down-after avaliações assim a concorrência cai pela metade
+    private long idleLag = 10;
+    private int scaleDownAfter = 4;
+
+    // Espera depois de cada mudança (e do início do container), já que cada mudança rebalanceia o grupo
+    private Duration cooldown = Duration.ofSeconds(60);
+}
@@ -0,0 +1,160 @@
+package com.wsj.kafka.support.partitions;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.AbstractMessageListenerContainer;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+
+/**
+ * Ajusta em execução a concorrência dos containers ao lag: um pico é consumido com mais consumidores,
+ * até um por partição, e o container volta a encolher quando fica ocioso, sem reiniciar a aplicação.
+ * O lag e a taxa vêm das métricas {@code records-lag} e {@code records-consumed-rate} dos próprios consumidores,
+ * sem chamadas extras ao broker.
+ *
+ * <p>Como a concorrência só vale na partida, cada mudança para o container (commitando os offsets), troca a
+ * concorrência e o inicia de novo, o que rebalanceia o grupo. Por isso o ajuste vem desligado e cada serviço
+ * só cria o bean com {@code enabled=true}. Depois da troca o {@link Resize} recebido é chamado, para que o
+ * serviço remova do grupo os membros estáticos que deixaram de existir. Containers pausados ou parados não
+ * são alterados.
+ */
+@Log4j2
+public class LagAutoscaler implements SmartLifecycle {
+
+    private static final String FETCH_METRICS = "consumer-fetch-manager-metrics";
+
+    private final KafkaListenerEndpointRegistry registry;
+    private final ToIntFunction<List<String>> partitionLimit;
+    private final AutoscalingProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Resize onResize;
+    private final Map<String, ScalingPolicy> policies = new ConcurrentHashMap<>();
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param partitionLimit maior concorrência útil para os tópicos do container (as partições, até um máximo);
+     *                       0 quando não se sabe, e o container não é alterado
+     */
+    public LagAutoscaler(KafkaListenerEndpointRegistry registry, ToIntFunction<List<String>> partitionLimit,
+                         AutoscalingProperties properties, MeterRegistry meterRegistry, Resize onResize) {
+        this.registry = registry;
+        this.partitionLimit = partitionLimit;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.onResize = onResize;
+    }
+
+    @Override
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            var thread = new Thread(task, "listener-autoscaling");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = properties.getInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::evaluate, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /** Para antes dos containers, para que nenhum seja reiniciado durante o desligamento. */
+    @Override
+    public void stop() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        scheduler = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return scheduler != null;
+    }
+
+    @Override
+    public int getPhase() {
+        return AbstractMessageListenerContainer.DEFAULT_PHASE + 1;
+    }
+
+    private void evaluate() {
+        for (var container : registry.getListenerContainers()) {
+            try {
+                if (container instanceof ConcurrentMessageListenerContainer<?, ?> concurrent
+                        && container.isRunning() && !container.isPauseRequested()) {
+                    evaluate(concurrent);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Falha ao ajustar a concorrência do listener {}: {}", container.getListenerId(), e.getMessage());
+            }
+        }
+    }
+
+    private void evaluate(ConcurrentMessageListenerContainer<?, ?> container) {
+        var topics = container.getContainerProperties().getTopics();
+        int limit = topics != null ? partitionLimit.applyAsInt(Arrays.asList(topics)) : 0;
+        if (limit <= 0) {
+            return;
+        }
+        var policy = policies.computeIfAbsent(container.getListenerId(), id -> register(container));
+
+        long lag = 0;
+        double rate = 0;
+        for (var metrics : container.metrics().values()) {
+            for (Map.Entry<MetricName, ? extends Metric> metric : metrics.entrySet()) {
+                var name = metric.getKey();
+                if (!FETCH_METRICS.equals(name.group())) {
+                    continue;
+                }
+                if ("records-lag".equals(name.name()) && name.tags().containsKey("partition")) {
+                    lag += (long) value(metric.getValue());
+                } else if ("records-consumed-rate".equals(name.name()) && !name.tags().containsKey("topic")) {
+                    rate += value(metric.getValue());
+                }
+            }
+        }
+
+        int current = container.getConcurrency();
+        int next = policy.next(current, limit, lag, rate, System.currentTimeMillis());
+        if (next != current) {
+            log.info("Listener {}: concorrência {} -> {} (lag {}, {} registros/s)",
+                    container.getListenerId(), current, next, lag, Math.round(rate));
+            container.stop();
+            container.setConcurrency(next);
+            container.start();
+            onResize.resized(container, current, next);
+        }
+    }
+
+    private ScalingPolicy register(ConcurrentMessageListenerContainer<?, ?> container) {
+        Gauge.builder("kafka.listener.concurrency", container, ConcurrentMessageListenerContainer::getConcurrency)
+                .description("Consumidores do container, ajustados pelo lag")
+                .tag("listener", container.getListenerId())
+                .register(meterRegistry);
+        return new ScalingPolicy(properties, System.currentTimeMillis());
+    }
+
+    private static double value(Metric metric) {
+        return metric.metricValue() instanceof Double value && !value.isNaN() ? value : 0;
+    }
+
+    /** Chamado depois que o container reiniciou com a nova concorrência. */
+    @FunctionalInterface
+    public interface Resize {
+
+        void resized(ConcurrentMessageListenerContainer<?, ?> container, int previous, int next);
+    }
+}
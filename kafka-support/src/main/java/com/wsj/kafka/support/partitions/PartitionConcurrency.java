@@ -0,0 +1,92 @@
+package com.wsj.kafka.support.partitions;
+
+import lombok.extern.log4j.Log4j2;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.springframework.kafka.config.ContainerCustomizer;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.ToIntFunction;
+
+/**
+ * Ajusta a concorrência de cada container ao número de partições dos seus tópicos, consultado no broker
+ * quando o container é criado: um consumidor por partição, até {@code max}. Consumidores além do número
+ * de partições ficariam ociosos, e menos do que isso deixam partições esperando.
+ * Se o tópico ainda não existir ou o broker não responder a tempo, o container mantém a concorrência configurada.
+ * Cada tópico é consultado uma vez só; o {@link LagAutoscaler} usa o mesmo limite.
+ */
+@Log4j2
+public class PartitionConcurrency {
+
+    private final PartitionConcurrencyProperties properties;
+    private final ToIntFunction<String> partitionCount;
+    private final Map<String, Integer> partitions = new ConcurrentHashMap<>();
+
+    public PartitionConcurrency(List<String> bootstrapServers, PartitionConcurrencyProperties properties) {
+        this(properties, new BrokerPartitionCount(bootstrapServers, properties));
+    }
+
+    /** @param partitionCount partições de um tópico; 0 se não foi possível consultar */
+    PartitionConcurrency(PartitionConcurrencyProperties properties, ToIntFunction<String> partitionCount) {
+        this.properties = properties;
+        this.partitionCount = partitionCount;
+    }
+
+    public <K, V> ContainerCustomizer<K, V, ConcurrentMessageListenerContainer<K, V>> customizer() {
+        return container -> {
+            var topics = container.getContainerProperties().getTopics();
+            if (!properties.isMatchPartitions() || topics == null) {
+                return;
+            }
+            int concurrency = concurrencyFor(Arrays.asList(topics));
+            if (concurrency > 0) {
+                log.info("Listener {} com concorrência {} para {}", container.getListenerId(), concurrency, Arrays.toString(topics));
+                container.setConcurrency(concurrency);
+            }
+        };
+    }
+
+    /** Maior número de partições entre os tópicos, limitado a {@code max}; 0 se não foi possível consultar. */
+    public int concurrencyFor(List<String> topics) {
+        int count = topics.stream().mapToInt(topic -> partitions.computeIfAbsent(topic, partitionCount::applyAsInt)).max().orElse(0);
+        return Math.min(count, properties.getMax());
+    }
+
+    private static class BrokerPartitionCount implements ToIntFunction<String> {
+
+        private final Map<String, Object> adminConfigs = new HashMap<>();
+        private volatile boolean brokerUnavailable;
+
+        BrokerPartitionCount(List<String> bootstrapServers, PartitionConcurrencyProperties properties) {
+            int timeout = (int) properties.getDescribeTimeout().toMillis();
+            adminConfigs.put(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+            adminConfigs.put(AdminClientConfig.DEFAULT_API_TIMEOUT_MS_CONFIG, timeout);
+            adminConfigs.put(AdminClientConfig.REQUEST_TIMEOUT_MS_CONFIG, timeout);
+        }
+
+        @Override
+        public int applyAsInt(String topic) {
+            if (brokerUnavailable) {
+                return 0;
+            }
+            try (var admin = AdminClient.create(adminConfigs)) {
+                return admin.describeTopics(List.of(topic)).all().get().get(topic).partitions().size();
+            } catch (ExecutionException e) {
+                // Sem resposta do broker os demais tópicos também não seriam consultados a tempo
+                brokerUnavailable = e.getCause() instanceof TimeoutException;
+                log.warn("Não foi possível consultar as partições de {}: {}", topic, e.getCause().getMessage());
+                return 0;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return 0;
+            }
+        }
+    }
+}
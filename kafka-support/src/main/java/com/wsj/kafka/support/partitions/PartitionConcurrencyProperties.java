@@ -0,0 +1,22 @@
+package com.wsj.kafka.support.partitions;
+
+import lombok.Getter; // Gera automaticamente os métodos getter para os campos
+import lombok.Setter; // Gera automaticamente os métodos setter usados pelo binding do Spring
+
+import java.time.Duration;
+
+// Concorrência dos listeners pelo número de partições dos tópicos
+// Cada serviço liga estas propriedades ao seu prefixo com @ConfigurationProperties no @Bean que as cria
+@Getter
+@Setter
+public class PartitionConcurrencyProperties {
+
+    // Um consumidor por partição do tópico, consultado no broker ao criar cada container
+    private boolean matchPartitions = true;
+
+    // Limite de consumidores por container
+    private int max = 12;
+
+    // Tempo máximo da consulta; sem resposta o container mantém a concorrência configurada
+    private Duration describeTimeout = Duration.ofSeconds(5);
+}
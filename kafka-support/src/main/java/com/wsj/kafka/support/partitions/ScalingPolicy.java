@@ -0,0 +1,49 @@
+package com.wsj.kafka.support.partitions;
+
+/**
+ * Decide a concorrência de um container a partir do lag e da taxa de consumo medidos pelos consumidores.
+ * Sobe quando o lag levaria mais que {@code target-drain-time} para ser consumido no ritmo atual, na proporção
+ * do excesso e até o limite de partições; desce pela metade depois de {@code scale-down-after} avaliações
+ * seguidas sem lag. Uma instância por container, já que guarda o histórico recente dele.
+ */
+class ScalingPolicy {
+
+    private final AutoscalingProperties properties;
+    private long lastChange;
+    private int idleSamples;
+
+    ScalingPolicy(AutoscalingProperties properties, long now) {
+        this.properties = properties;
+        this.lastChange = now;
+    }
+
+    /**
+     * @param lag  registros ainda não lidos, somados entre as partições do container
+     * @param rate registros consumidos por segundo, somados entre os consumidores do container
+     */
+    int next(int current, int limit, long lag, double rate, long now) {
+        if (now - lastChange < properties.getCooldown().toMillis()) {
+            return current;
+        }
+        int min = Math.min(Math.max(1, properties.getMin()), limit);
+        int next = current;
+        if (lag > properties.getIdleLag()) {
+            idleSamples = 0;
+            double target = properties.getTargetDrainTime().toMillis() / 1000.0;
+            // Sem consumo medido não dá para estimar o tempo: o container acabou de reiniciar ou está pausado,
+            // e mais consumidores não resolveriam uma pausa por backpressure
+            double factor = rate > 0 ? lag / rate / target : 0;
+            if (factor > 1) {
+                next = Math.min(limit, Math.max(current + 1, (int) Math.ceil(current * factor)));
+            }
+        } else if (++idleSamples >= properties.getScaleDownAfter()) {
+            idleSamples = 0;
+            next = Math.max(min, current / 2);
+        }
+        next = Math.max(next, min);
+        if (next != current) {
+            lastChange = now;
+        }
+        return next;
+    }
+}
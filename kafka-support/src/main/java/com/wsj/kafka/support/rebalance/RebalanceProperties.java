@@ -0,0 +1,26 @@
+package com.wsj.kafka.support.rebalance;
+
+import lombok.Getter; // Gera automaticamente os métodos getter para os campos
+import lombok.Setter; // Gera automaticamente os métodos setter usados pelo binding do Spring
+import org.apache.kafka.clients.consumer.CooperativeStickyAssignor;
+
+import java.time.Duration;
+import java.util.List;
+
+// Rebalanceamento dos grupos dos listeners
+// Cada serviço liga estas propriedades ao seu prefixo com @ConfigurationProperties no @Bean que as cria
+@Getter
+@Setter
+public class RebalanceProperties {
+
+    // Estratégias de atribuição de partições, em ordem de preferência; com a cooperativa só as partições
+    // que mudam de dono são revogadas. Para migrar um grupo que já roda com a eager, faça antes um deploy
+    // com RangeAssignor depois da cooperativa e, com todos os membros atualizados, remova-o
+    private List<String> assignors = List.of(CooperativeStickyAssignor.class.getName());
+
+    // Identidade estável desta instância (o nome do pod, por exemplo); vazia, os membros são dinâmicos.
+    // Com ela cada consumidor entra no grupo como membro estático, <instance-id>-<listener>-<n>,
+    // e um restart dentro do session-timeout não rebalanceia o grupo
+    private String instanceId;
+    private Duration sessionTimeout = Duration.ofSeconds(60);
+}
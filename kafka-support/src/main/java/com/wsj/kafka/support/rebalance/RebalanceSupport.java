@@ -0,0 +1,103 @@
+package com.wsj.kafka.support.rebalance;
+
+import lombok.extern.log4j.Log4j2;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.MemberToRemove;
+import org.apache.kafka.clients.admin.RemoveMembersFromConsumerGroupOptions;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Deixa os grupos dos listeners tolerantes a deploys e mudanças de escala: atribuição cooperativa nas
+ * fábricas de consumidores, membros estáticos por container e o listener de rebalanceamento de cada serviço.
+ * Se o listener segura a revogação (esperando registros em andamento, por exemplo), o serviço informa quanto
+ * em {@code extraShutdownTimeout}, somado à margem padrão do {@code stop()} do container.
+ */
+@Log4j2
+public class RebalanceSupport {
+
+    private final RebalanceProperties properties;
+    private final ConsumerAwareRebalanceListener rebalanceListener;
+    private final Duration extraShutdownTimeout;
+
+    // Configurações do cliente administrativo usado para remover membros estáticos
+    private final Map<String, Object> adminConfigs;
+
+    public RebalanceSupport(List<String> bootstrapServers, RebalanceProperties properties,
+                            ConsumerAwareRebalanceListener rebalanceListener, Duration extraShutdownTimeout) {
+        this.properties = properties;
+        this.rebalanceListener = rebalanceListener;
+        this.extraShutdownTimeout = extraShutdownTimeout;
+        this.adminConfigs = Map.of(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+    }
+
+    /** Configurações de rebalanceamento das fábricas de consumidores dos listeners. */
+    public void configure(Map<String, Object> consumerConfigs) {
+        consumerConfigs.put(ConsumerConfig.PARTITION_ASSIGNMENT_STRATEGY_CONFIG, properties.getAssignors());
+        if (isStatic()) {
+            consumerConfigs.put(ConsumerConfig.SESSION_TIMEOUT_MS_CONFIG, (int) properties.getSessionTimeout().toMillis());
+        }
+    }
+
+    /**
+     * O id de membro estático precisa ser único no grupo, e containers diferentes podem estar no mesmo grupo,
+     * então ele leva o id do listener; o container acrescenta {@code -n} para cada consumidor.
+     * As propriedades da fábrica são compartilhadas entre os containers, por isso cada um recebe uma cópia.
+     * O {@code stop()} do container espera a revogação terminar; antes disso um restart (como o do autoscaling)
+     * entraria no grupo com o mesmo id estático de um consumidor ainda fechando.
+     */
+    public void configure(ConcurrentMessageListenerContainer<?, ?> container) {
+        var containerProperties = container.getContainerProperties();
+        containerProperties.setConsumerRebalanceListener(rebalanceListener);
+        containerProperties.setShutdownTimeout(extraShutdownTimeout.toMillis() + ContainerProperties.DEFAULT_SHUTDOWN_TIMEOUT);
+        if (isStatic()) {
+            var consumerProperties = new Properties();
+            consumerProperties.putAll(containerProperties.getKafkaConsumerProperties());
+            consumerProperties.setProperty(ConsumerConfig.GROUP_INSTANCE_ID_CONFIG, instanceId(container));
+            containerProperties.setKafkaConsumerProperties(consumerProperties);
+        }
+    }
+
+    /**
+     * Membros estáticos não saem do grupo ao fechar, então as partições dos consumidores {@code from..to-1}
+     * que deixaram de existir (numa redução da concorrência) ficariam sem dono até {@code session-timeout}.
+     */
+    public void removeMembers(ConcurrentMessageListenerContainer<?, ?> container, int from, int to) {
+        if (!isStatic() || from >= to) {
+            return;
+        }
+        var instanceIds = IntStream.range(from, to)
+                .mapToObj(n -> instanceId(container) + "-" + n)
+                .collect(Collectors.toList());
+        var members = instanceIds.stream().map(MemberToRemove::new).collect(Collectors.toList());
+        try (var admin = AdminClient.create(adminConfigs)) {
+            admin.removeMembersFromConsumerGroup(container.getGroupId(), new RemoveMembersFromConsumerGroupOptions(members))
+                    .all().get();
+        } catch (ExecutionException e) {
+            log.warn("Não foi possível remover os membros {} do grupo {}: {}", instanceIds, container.getGroupId(),
+                    e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean isStatic() {
+        return StringUtils.hasText(properties.getInstanceId());
+    }
+
+    private String instanceId(ConcurrentMessageListenerContainer<?, ?> container) {
+        return properties.getInstanceId() + "-" + container.getListenerId();
+    }
+}
@@ -0,0 +1,45 @@
+package com.wsj.kafka.support.topics;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.kafka.config.TopicBuilder;
+
+/**
+ * Calcula quantas partições um tópico precisa a partir da vazão configurada.
+ * Cada partição é lida por no máximo um consumidor do grupo, então são necessárias pelo menos
+ * {@code targetThroughput / consumerThroughput} partições para que os consumidores acompanhem o pico.
+ * O {@link org.springframework.kafka.core.KafkaAdmin} cria o tópico com esse número e, se ele já existir
+ * com menos partições, aumenta as partições na inicialização; um tópico com mais partições não é reduzido.
+ * Ao aumentar as partições a mesma chave passa a cair em outra partição, então a ordem por chave
+ * só é garantida entre registros enviados depois do aumento.
+ */
+@Log4j2
+@RequiredArgsConstructor
+public class TopicProvisioner {
+
+    private final TopicProvisioningProperties properties;
+
+    public NewTopic plan() {
+        int partitions = partitionsFor(properties.getTargetThroughput(), properties.getConsumerThroughput(),
+                properties.getPartitionThroughput(), properties.getMinPartitions(), properties.getMaxPartitions());
+        log.info("Tópico {}: {} registros/s, {} por consumidor -> {} partições", properties.getName(),
+                properties.getTargetThroughput(), properties.getConsumerThroughput(), partitions);
+        return TopicBuilder.name(properties.getName())
+                .partitions(partitions)
+                .replicas(properties.getReplicas())
+                .build();
+    }
+
+    static int partitionsFor(double targetThroughput, double consumerThroughput, double partitionThroughput,
+                             int minPartitions, int maxPartitions) {
+        if (targetThroughput <= 0 || consumerThroughput <= 0) {
+            throw new IllegalArgumentException("targetThroughput e consumerThroughput devem ser maiores que zero");
+        }
+        double needed = targetThroughput / consumerThroughput;
+        if (partitionThroughput > 0) {
+            needed = Math.max(needed, targetThroughput / partitionThroughput);
+        }
+        return (int) Math.max(minPartitions, Math.min(maxPartitions, Math.ceil(needed)));
+    }
+}
@@ -0,0 +1,30 @@
+package com.wsj.kafka.support.topics;
+
+import lombok.Getter; // Gera automaticamente os métodos getter para os campos
+import lombok.Setter; // Gera automaticamente os métodos setter usados pelo binding do Spring
+
+// Vazão esperada de um tópico, usada para calcular quantas partições ele precisa
+// Cada serviço liga estas propriedades ao seu prefixo com @ConfigurationProperties no @Bean que as cria
+@Getter
+@Setter
+public class TopicProvisioningProperties {
+
+    // Nome do tópico provisionado
+    private String name;
+
+    // Registros por segundo que o tópico precisa suportar no pico
+    private double targetThroughput = 100;
+
+    // Registros por segundo que um único consumidor processa (o handler mais lento define o limite)
+    private double consumerThroughput = 50;
+
+    // Registros por segundo que o produtor consegue gravar em uma partição; 0 ignora esse limite
+    private double partitionThroughput = 0;
+
+    // Limites para o número calculado de partições
+    private int minPartitions = 1;
+    private int maxPartitions = 64;
+
+    // Réplicas de cada partição
+    private short replicas = 1;
+}
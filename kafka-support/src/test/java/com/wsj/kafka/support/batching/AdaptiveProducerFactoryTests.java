@@ -0,0 +1,117 @@
+package com.wsj.kafka.support.batching;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveProducerFactoryTests {
+
+    // O produtor anterior não completa nada sozinho: só o flush da troca entrega o que está no buffer dele
+    private final MockProducer<String, String> previous = new MockProducer<>(false, new StringSerializer(), new StringSerializer());
+    private final AtomicBoolean overtaken = new AtomicBoolean();
+    private final MockProducer<String, String> next = new MockProducer<>(true, new StringSerializer(), new StringSerializer()) {
+
+        @Override
+        public synchronized Future<RecordMetadata> send(ProducerRecord<String, String> record, Callback callback) {
+            if (!previous.flushed()) {
+                overtaken.set(true);
+            }
+            return super.send(record, callback);
+        }
+    };
+
+    private final AtomicInteger copies = new AtomicInteger();
+    private AdaptiveProducerFactory<String, String> factory;
+
+    @AfterEach
+    void destroy() {
+        factory.destroy();
+    }
+
+    @Test
+    void keepsTheOrderOfAKeyAcrossAProducerSwitch() throws Exception {
+        factory = adaptive();
+
+        var sent = new AtomicInteger();
+        var sender = new Thread(() -> {
+            var producer = factory.createProducer();
+            for (int i = 0; i < 2000; i++) {
+                producer.send(new ProducerRecord<>("str-topic", "user-1", String.valueOf(i)));
+                sent.incrementAndGet();
+            }
+        });
+        sender.start();
+        while (sent.get() < 500) {
+            Thread.onSpinWait();
+        }
+        factory.apply(new BatchingPlan(20, 64 * 1024));
+        sender.join();
+
+        assertThat(overtaken).isFalse();
+        assertThat(previous.history()).isNotEmpty();
+        assertThat(next.history()).isNotEmpty();
+        var values = Stream.concat(previous.history().stream(), next.history().stream())
+                .map(ProducerRecord::value)
+                .collect(Collectors.toList());
+        var expected = new ArrayList<String>();
+        for (int i = 0; i < 2000; i++) {
+            expected.add(String.valueOf(i));
+        }
+        assertThat(values).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void waitsForTheNewProducerMetricsBeforeRetuning() {
+        factory = adaptive();
+        factory.apply(new BatchingPlan(20, 64 * 1024));
+
+        // O produtor novo ainda não tem taxa de envio; avaliá-lo agora voltaria ao linger mínimo
+        factory.retune();
+
+        assertThat(copies).hasValue(1);
+        assertThat(factory.getPlan().getLingerMs()).isEqualTo(20);
+    }
+
+    private AdaptiveProducerFactory<String, String> adaptive() {
+        var properties = new AdaptiveBatchingProperties();
+        properties.setInterval(Duration.ofHours(1));
+        return new AdaptiveProducerFactory<>(factory(previous), "str-topic", properties, new SimpleMeterRegistry()) {
+
+            @Override
+            DefaultKafkaProducerFactory<String, String> copy(BatchingPlan plan) {
+                copies.incrementAndGet();
+                return AdaptiveProducerFactoryTests.factory(next);
+            }
+        };
+    }
+
+    private static DefaultKafkaProducerFactory<String, String> factory(Producer<String, String> producer) {
+        return new DefaultKafkaProducerFactory<>(Map.of(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092",
+                ProducerConfig.LINGER_MS_CONFIG, 0), new StringSerializer(), new StringSerializer()) {
+
+            @Override
+            protected Producer<String, String> createRawProducer(Map<String, Object> configs) {
+                return producer;
+            }
+        };
+    }
+}
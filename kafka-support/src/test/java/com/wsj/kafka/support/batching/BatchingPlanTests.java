@@ -0,0 +1,50 @@
+package com.wsj.kafka.support.batching;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BatchingPlanTests {
+
+    private final AdaptiveBatchingProperties properties = new AdaptiveBatchingProperties();
+
+    @Test
+    void keepsTheMinimumLingerAndBatchWhenTheLoadIsTooLowToBatch() {
+        // 10 registros/s em 4 partições: juntar 16 por partição levaria 6,4s
+        var plan = BatchingPlan.of(10, 120, 2, 4, properties);
+
+        assertThat(plan.getLingerMs()).isZero();
+        assertThat(plan.getBatchSize()).isEqualTo(16 * 1024);
+    }
+
+    @Test
+    void waitsJustLongEnoughToGatherTheTargetBatchUnderModerateLoad() {
+        // 2000/s em 4 partições = 500/s por partição: 16 registros em 32ms
+        var plan = BatchingPlan.of(2000, 120, 2, 4, properties);
+
+        assertThat(plan.getLingerMs()).isEqualTo(32);
+        assertThat(plan.getBatchSize()).isEqualTo(16 * 1024);
+    }
+
+    @Test
+    void growsTheBatchUpToTheMaximumAtPeak() {
+        // 400 mil/s de 1KB em 4 partições com requisições de 20ms: 2MB por partição durante cada requisição
+        var plan = BatchingPlan.of(400_000, 1024, 20, 4, properties);
+
+        // O lote enche antes do linger: esperar mais não ajudaria
+        assertThat(plan.getLingerMs()).isLessThanOrEqualTo(1);
+        assertThat(plan.getBatchSize()).isEqualTo(1024 * 1024);
+
+        var moderate = BatchingPlan.of(40_000, 1024, 20, 4, properties);
+        assertThat(moderate.getBatchSize()).isEqualTo(512 * 1024);
+    }
+
+    @Test
+    void ignoresSmallChanges() {
+        var plan = new BatchingPlan(32, 64 * 1024);
+
+        assertThat(plan.differsFrom(new BatchingPlan(30, 64 * 1024), 0.25)).isFalse();
+        assertThat(plan.differsFrom(new BatchingPlan(20, 64 * 1024), 0.25)).isTrue();
+        assertThat(plan.differsFrom(new BatchingPlan(32, 128 * 1024), 0.25)).isTrue();
+    }
+}
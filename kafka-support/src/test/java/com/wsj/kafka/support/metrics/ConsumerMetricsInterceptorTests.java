@@ -0,0 +1,78 @@
+package com.wsj.kafka.support.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerGroupMetadata;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ConsumerMetricsInterceptorTests {
+
+    private static final TopicPartition PARTITION = new TopicPartition("payment-topic", 3);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ConsumerMetricsInterceptor<String, String> interceptor = new ConsumerMetricsInterceptor<>(registry);
+
+    @SuppressWarnings("unchecked")
+    private final Consumer<String, String> consumer = mock(Consumer.class);
+
+    @BeforeEach
+    void setUp() {
+        when(consumer.groupMetadata()).thenReturn(new ConsumerGroupMetadata("pdf-group"));
+        when(consumer.currentLag(PARTITION)).thenReturn(OptionalLong.of(42));
+    }
+
+    @Test
+    void measuresFromTheProducedAtHeaderAndPublishesTheLag() {
+        var record = record(System.currentTimeMillis() - 5_000);
+        record.headers().add(ConsumerMetricsInterceptor.PRODUCED_AT_HEADER,
+                ByteBuffer.allocate(Long.BYTES).putLong(System.currentTimeMillis() - 200).array());
+
+        interceptor.intercept(record, consumer);
+
+        var timer = registry.get("kafka.consumer.end-to-end.latency").tags("group", "pdf-group", "topic", "payment-topic").timer();
+        assertThat(timer.count()).isEqualTo(1);
+        assertThat(timer.max(TimeUnit.MILLISECONDS)).isBetween(200.0, 4_000.0);
+        assertThat(registry.get("kafka.consumer.lag").tags("group", "pdf-group", "partition", "3").gauge().value()).isEqualTo(42);
+    }
+
+    @Test
+    void fallsBackToTheRecordTimestamp() {
+        interceptor.intercept(record(System.currentTimeMillis() - 1_000), consumer);
+
+        var timer = registry.get("kafka.consumer.end-to-end.latency").timer();
+        assertThat(timer.max(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(1_000);
+    }
+
+    @Test
+    void reusesTheMetersAcrossRecordsAndBatches() {
+        interceptor.intercept(record(System.currentTimeMillis()), consumer);
+        interceptor.intercept(new ConsumerRecords<>(Map.of(PARTITION, List.of(record(System.currentTimeMillis()),
+                record(System.currentTimeMillis())))), consumer);
+
+        assertThat(registry.get("kafka.consumer.end-to-end.latency").timer().count()).isEqualTo(3);
+        assertThat(registry.getMeters()).hasSize(2);
+    }
+
+    private static ConsumerRecord<String, String> record(long timestamp) {
+        return new ConsumerRecord<>(PARTITION.topic(), PARTITION.partition(), 10, timestamp,
+                TimestampType.CREATE_TIME, 1, 9, "7", "pagamento",
+                new RecordHeaders(), Optional.empty());
+    }
+}
@@ -0,0 +1,76 @@
+package com.wsj.kafka.support.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.apache.kafka.common.record.RecordBatch;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProducerLatencyInterceptorTests {
+
+    private static final TopicPartition PARTITION = new TopicPartition("payment-topic", 0);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ProducerLatencyInterceptor interceptor = new ProducerLatencyInterceptor(registry);
+
+    @Test
+    void stampsTheSendInstantAsTimestampAndHeader() {
+        long before = System.currentTimeMillis();
+
+        var sent = interceptor.onSend(new ProducerRecord<>("payment-topic", "7", "pagamento"));
+
+        assertThat(sent.timestamp()).isBetween(before, System.currentTimeMillis());
+        assertThat(producedAt(sent)).isEqualTo(sent.timestamp());
+        assertThat(sent.key()).isEqualTo("7");
+        assertThat(sent.value()).isEqualTo("pagamento");
+    }
+
+    @Test
+    void keepsTheOriginalHeaderAndTimestampOfARepublishedRecord() {
+        var record = new ProducerRecord<Object, Object>("payment-topic", null, 1_000L, "7", "pagamento");
+        record.headers().add(ProducerLatencyInterceptor.PRODUCED_AT_HEADER, ByteBuffer.allocate(Long.BYTES).putLong(500).array());
+
+        var sent = interceptor.onSend(record);
+
+        assertThat(sent.timestamp()).isEqualTo(1_000L);
+        assertThat(producedAt(sent)).isEqualTo(500);
+    }
+
+    @Test
+    void recordsTheTimeFromSendToAcknowledgement() {
+        var sent = interceptor.onSend(new ProducerRecord<>("payment-topic", "7", "pagamento"));
+
+        interceptor.onAcknowledgement(metadata(sent.timestamp() - 40), null);
+        interceptor.onAcknowledgement(metadata(sent.timestamp()), null);
+
+        var timer = registry.get("kafka.producer.send.ack").tag("topic", "payment-topic").timer();
+        assertThat(timer.count()).isEqualTo(2);
+        assertThat(timer.max(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(40);
+        assertThat(registry.getMeters()).hasSize(1);
+    }
+
+    @Test
+    void countsFailuresEvenWithoutATimestamp() {
+        // Numa falha o cliente devolve os metadados sem timestamp nem offset
+        interceptor.onAcknowledgement(metadata(RecordBatch.NO_TIMESTAMP), new TimeoutException("sem broker"));
+        interceptor.onAcknowledgement(metadata(RecordBatch.NO_TIMESTAMP), new TimeoutException("sem broker"));
+
+        assertThat(registry.get("kafka.producer.send.failures").tag("topic", "payment-topic").counter().count()).isEqualTo(2);
+        assertThat(registry.find("kafka.producer.send.ack").timer()).isNull();
+    }
+
+    private static RecordMetadata metadata(long timestamp) {
+        return new RecordMetadata(PARTITION, timestamp < 0 ? -1 : 10, 0, timestamp, 1, 9);
+    }
+
+    private static long producedAt(ProducerRecord<Object, Object> record) {
+        return ByteBuffer.wrap(record.headers().lastHeader(ProducerLatencyInterceptor.PRODUCED_AT_HEADER).value()).getLong();
+    }
+}
@@ -0,0 +1,76 @@
+package com.wsj.kafka.support.partitions;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.ContainerProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class PartitionConcurrencyTests {
+
+    private final PartitionConcurrencyProperties properties = new PartitionConcurrencyProperties();
+    private final Map<String, Integer> topics = Map.of("str-topic", 6, "str-topic-retry-1000", 2, "payment-topic", 40);
+    private final List<String> described = new ArrayList<>();
+
+    private final PartitionConcurrency concurrency = new PartitionConcurrency(properties, topic -> {
+        described.add(topic);
+        return topics.getOrDefault(topic, 0);
+    });
+
+    @Test
+    void matchesTheLargestTopicOfTheContainerUpToMax() {
+        assertThat(concurrency.concurrencyFor(List.of("str-topic-retry-1000", "str-topic"))).isEqualTo(6);
+        assertThat(concurrency.concurrencyFor(List.of("payment-topic"))).isEqualTo(12);
+    }
+
+    @Test
+    void describesEachTopicOnlyOnce() {
+        concurrency.concurrencyFor(List.of("str-topic"));
+        concurrency.concurrencyFor(List.of("str-topic", "str-topic-retry-1000"));
+
+        assertThat(described).containsExactly("str-topic", "str-topic-retry-1000");
+    }
+
+    @Test
+    void setsTheContainerConcurrencyToThePartitions() {
+        var container = container("str-topic");
+
+        concurrency.<String, String>customizer().configure(container);
+
+        assertThat(container.getConcurrency()).isEqualTo(6);
+    }
+
+    @Test
+    void keepsTheConfiguredConcurrencyWhenThePartitionsAreUnknown() {
+        var container = container("missing-topic");
+        container.setConcurrency(3);
+
+        concurrency.<String, String>customizer().configure(container);
+
+        assertThat(container.getConcurrency()).isEqualTo(3);
+    }
+
+    @Test
+    void leavesContainersAloneWhenDisabled() {
+        properties.setMatchPartitions(false);
+        var container = container("str-topic");
+
+        concurrency.<String, String>customizer().configure(container);
+
+        assertThat(container.getConcurrency()).isEqualTo(1);
+        assertThat(described).isEmpty();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ConcurrentMessageListenerContainer<String, String> container(String topic) {
+        var container = new ConcurrentMessageListenerContainer<String, String>(mock(ConsumerFactory.class), new ContainerProperties(topic));
+        container.setBeanName("listener");
+        return container;
+    }
+}
@@ -0,0 +1,94 @@
+package com.wsj.kafka.support.partitions;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ScalingPolicyTests {
+
+    private static final long COOLDOWN = 60_000;
+
+    private final AutoscalingProperties properties = properties();
+
+    @Test
+    void scalesUpInProportionToDrainTimeUpToPartitions() {
+        var policy = new ScalingPolicy(properties, 0);
+
+        // 6000 registros a 100/s levam 60s, o dobro do alvo de 30s
+        assertThat(policy.next(2, 12, 6000, 100, COOLDOWN)).isEqualTo(4);
+        assertThat(policy.next(4, 12, 600_000, 100, 2 * COOLDOWN)).isEqualTo(12);
+    }
+
+    @Test
+    void keepsConcurrencyWhileLagDrainsInTime() {
+        var policy = new ScalingPolicy(properties, 0);
+
+        assertThat(policy.next(3, 12, 2000, 100, COOLDOWN)).isEqualTo(3);
+    }
+
+    @Test
+    void waitsForCooldownAfterEachChange() {
+        var policy = new ScalingPolicy(properties, 0);
+
+        assertThat(policy.next(1, 12, 6000, 100, COOLDOWN - 1)).isEqualTo(1);
+        assertThat(policy.next(1, 12, 6000, 100, COOLDOWN)).isEqualTo(2);
+        assertThat(policy.next(2, 12, 6000, 100, COOLDOWN + 1000)).isEqualTo(2);
+    }
+
+    @Test
+    void keepsConcurrencyWithoutMeasuredConsumption() {
+        var policy = new ScalingPolicy(properties, 0);
+
+        // Recém-reiniciado ou pausado por backpressure: o lag sozinho não justifica mais consumidores
+        assertThat(policy.next(2, 12, 100_000, 0, COOLDOWN)).isEqualTo(2);
+    }
+
+    @Test
+    void neverScalesUpAPausedContainerHoweverLongTheLagWaits() {
+        var policy = new ScalingPolicy(properties, 0);
+        long now = COOLDOWN;
+
+        // Pausado, o container não consome: a cada cooldown o lag cresce, mas a taxa continua zero
+        for (long lag = 10_000; lag <= 1_000_000; lag *= 10, now += COOLDOWN) {
+            assertThat(policy.next(2, 12, lag, 0, now)).isEqualTo(2);
+        }
+
+        // Retomado, o consumo medido volta a decidir
+        assertThat(policy.next(2, 12, 6000, 100, now)).isEqualTo(4);
+    }
+
+    @Test
+    void halvesAfterConsecutiveIdleSamplesDownToMin() {
+        var policy = new ScalingPolicy(properties, 0);
+        long now = COOLDOWN;
+
+        for (int i = 1; i < properties.getScaleDownAfter(); i++) {
+            assertThat(policy.next(8, 12, 5, 50, now++)).isEqualTo(8);
+        }
+        assertThat(policy.next(8, 12, 5, 50, now)).isEqualTo(4);
+
+        // Um pico no meio zera a contagem de avaliações ociosas
+        now += COOLDOWN;
+        policy.next(4, 12, 5, 50, now++);
+        policy.next(4, 12, 500, 50, now++);
+        for (int i = 1; i < properties.getScaleDownAfter(); i++) {
+            assertThat(policy.next(4, 12, 0, 0, now++)).isEqualTo(4);
+        }
+        assertThat(policy.next(4, 12, 0, 0, now)).isEqualTo(2);
+
+        now += COOLDOWN;
+        for (int i = 0; i < 2 * properties.getScaleDownAfter(); i++) {
+            policy.next(2, 12, 0, 0, now++);
+        }
+        assertThat(policy.next(1, 12, 0, 0, now)).isEqualTo(1);
+    }
+
+    private static AutoscalingProperties properties() {
+        var properties = new AutoscalingProperties();
+        properties.setTargetDrainTime(Duration.ofSeconds(30));
+        properties.setCooldown(Duration.ofMillis(COOLDOWN));
+        return properties;
+    }
+}
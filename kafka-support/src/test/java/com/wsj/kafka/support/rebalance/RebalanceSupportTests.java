@@ -0,0 +1,77 @@
+package com.wsj.kafka.support.rebalance;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.CooperativeStickyAssignor;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.kafka.listener.ContainerProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RebalanceSupportTests {
+
+    private final RebalanceProperties properties = new RebalanceProperties();
+    private final ConsumerAwareRebalanceListener listener = new ConsumerAwareRebalanceListener() {
+    };
+
+    @Test
+    void dynamicMembersOnlyGetTheAssignorsAndTheListener() {
+        var support = new RebalanceSupport(List.of("localhost:9092"), properties, listener, Duration.ZERO);
+        var configs = new HashMap<String, Object>();
+        var container = container("str-create");
+
+        support.configure(configs);
+        support.configure(container);
+
+        assertThat(configs).containsOnly(Map.entry(ConsumerConfig.PARTITION_ASSIGNMENT_STRATEGY_CONFIG,
+                List.of(CooperativeStickyAssignor.class.getName())));
+        assertThat(container.getContainerProperties().getConsumerRebalanceListener()).isSameAs(listener);
+        assertThat(container.getContainerProperties().getShutdownTimeout()).isEqualTo(ContainerProperties.DEFAULT_SHUTDOWN_TIMEOUT);
+        assertThat(container.getContainerProperties().getKafkaConsumerProperties())
+                .doesNotContainKey(ConsumerConfig.GROUP_INSTANCE_ID_CONFIG);
+    }
+
+    @Test
+    void staticMembersGetAnIdPerContainerAndTheSessionTimeout() {
+        properties.setInstanceId("pod-0");
+        var support = new RebalanceSupport(List.of("localhost:9092"), properties, listener, Duration.ZERO);
+        var configs = new HashMap<String, Object>();
+        var create = container("str-create");
+        var log = container("str-log");
+
+        support.configure(configs);
+        support.configure(create);
+        support.configure(log);
+
+        assertThat(configs).containsEntry(ConsumerConfig.SESSION_TIMEOUT_MS_CONFIG, 60_000);
+        assertThat(create.getContainerProperties().getKafkaConsumerProperties())
+                .containsEntry(ConsumerConfig.GROUP_INSTANCE_ID_CONFIG, "pod-0-str-create");
+        assertThat(log.getContainerProperties().getKafkaConsumerProperties())
+                .containsEntry(ConsumerConfig.GROUP_INSTANCE_ID_CONFIG, "pod-0-str-log");
+    }
+
+    @Test
+    void stopWaitsForTheListenerOnTopOfTheDefaultMargin() {
+        var support = new RebalanceSupport(List.of("localhost:9092"), properties, listener, Duration.ofSeconds(20));
+        var container = container("payment-pdf");
+
+        support.configure(container);
+
+        assertThat(container.getContainerProperties().getShutdownTimeout())
+                .isEqualTo(20_000 + ContainerProperties.DEFAULT_SHUTDOWN_TIMEOUT);
+    }
+
+    private static ConcurrentMessageListenerContainer<String, String> container(String listenerId) {
+        var container = new ConcurrentMessageListenerContainer<>(new DefaultKafkaConsumerFactory<String, String>(Map.of()),
+                new ContainerProperties("topic"));
+        container.setBeanName(listenerId);
+        return container;
+    }
+}
@@ -0,0 +1,50 @@
+package com.wsj.kafka.support.topics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class TopicProvisionerTests {
+
+    @Test
+    void roundsUpToEnoughPartitionsForTheConsumers() {
+        // 250/s com consumidores de 100/s: 2 partições deixariam 50/s sem consumidor
+        assertThat(TopicProvisioner.partitionsFor(250, 100, 0, 1, 64)).isEqualTo(3);
+        assertThat(TopicProvisioner.partitionsFor(200, 100, 0, 1, 64)).isEqualTo(2);
+    }
+
+    @Test
+    void usesThePartitionWriteLimitWhenItIsTheBottleneck() {
+        // Consumidores dão conta com 2 partições, mas o produtor grava só 25/s em cada uma
+        assertThat(TopicProvisioner.partitionsFor(200, 100, 25, 1, 64)).isEqualTo(8);
+        assertThat(TopicProvisioner.partitionsFor(200, 10, 100, 1, 64)).isEqualTo(20);
+    }
+
+    @Test
+    void staysWithinTheConfiguredLimits() {
+        assertThat(TopicProvisioner.partitionsFor(10, 100, 0, 2, 64)).isEqualTo(2);
+        assertThat(TopicProvisioner.partitionsFor(100_000, 10, 0, 1, 64)).isEqualTo(64);
+    }
+
+    @Test
+    void rejectsThroughputsThatAreNotPositive() {
+        assertThatIllegalArgumentException().isThrownBy(() -> TopicProvisioner.partitionsFor(0, 50, 0, 1, 64));
+        assertThatIllegalArgumentException().isThrownBy(() -> TopicProvisioner.partitionsFor(100, 0, 0, 1, 64));
+    }
+
+    @Test
+    void plansTheTopicWithTheComputedPartitionsAndReplicas() {
+        var properties = new TopicProvisioningProperties();
+        properties.setName("payment-topic");
+        properties.setTargetThroughput(300);
+        properties.setConsumerThroughput(50);
+        properties.setReplicas((short) 3);
+
+        var topic = new TopicProvisioner(properties).plan();
+
+        assertThat(topic.name()).isEqualTo("payment-topic");
+        assertThat(topic.numPartitions()).isEqualTo(6);
+        assertThat(topic.replicationFactor()).isEqualTo((short) 3);
+    }
+}
@@ -0,0 +1,177 @@
+package com.wsj.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.valdir.jsonconsumer.model.Payment;
+import lombok.extern.log4j.Log4j2;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.springframework.kafka.listener.BatchInterceptor;
+import org.springframework.kafka.listener.RecordInterceptor;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Mede o tempo entre o instante em que o gerador deveria ter enviado cada pagamento e o término
+ * de cada handler do JsonListener, por grupo de consumidores.
+ *
+ * <p>É instalado nos containers do json-consumer pelo {@link ListenerProbeInstaller}, ao lado do
+ * interceptor de métricas. Nos containers síncronos o término é o retorno do método do listener
+ * ({@code success}). Nos que confirmam o offset fora do listener (o send-email, que retorna ao enfileirar
+ * o email, e os modos paralelo e fan-out) o término é a confirmação, recebida em {@link #acknowledged}.
+ */
+@Log4j2
+public class ListenerLatencyProbe implements RecordInterceptor<String, Object>, BatchInterceptor<String, Object> {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final String topic;
+    private final List<String> groups;
+    private final int allGroups;
+    private final ConcurrentMap<Long, Pending> pending = new ConcurrentHashMap<>();
+    private volatile Map<String, Histogram> latencies;
+
+    public ListenerLatencyProbe(String topic, List<String> groups) {
+        if (groups.size() > Integer.SIZE) {
+            throw new IllegalArgumentException("No máximo " + Integer.SIZE + " grupos");
+        }
+        this.topic = topic;
+        this.groups = List.copyOf(groups);
+        this.allGroups = groups.size() == Integer.SIZE ? -1 : (1 << groups.size()) - 1;
+        reset();
+    }
+
+    /** Registra o pagamento antes do envio, já que o listener pode terminar antes da resposta HTTP chegar. */
+    public void expect(long id, long intendedNanos, boolean measured) {
+        pending.put(id, new Pending(intendedNanos, measured));
+    }
+
+    /** Descarta um pagamento rejeitado pelo payment-service, que nunca chegará ao tópico. */
+    public void forget(long id) {
+        pending.remove(id);
+    }
+
+    /** Começa um novo cenário com histogramas vazios. */
+    public void reset() {
+        pending.clear();
+        var fresh = new LinkedHashMap<String, Histogram>();
+        groups.forEach(group -> fresh.put(group, new ConcurrentHistogram(TimeUnit.HOURS.toMicros(1), 3)));
+        latencies = fresh;
+    }
+
+    /** Espera todos os pagamentos medidos passarem por todos os grupos; retorna false se o tempo acabar. */
+    public boolean awaitCompletion(long timeoutNanos) throws InterruptedException {
+        long deadline = System.nanoTime() + timeoutNanos;
+        while (pending.values().stream().anyMatch(p -> p.measured)) {
+            if (System.nanoTime() >= deadline) {
+                return false;
+            }
+            TimeUnit.MILLISECONDS.sleep(50);
+        }
+        return true;
+    }
+
+    public Map<String, Histogram> latencies() {
+        return latencies;
+    }
+
+    /** Pagamentos medidos que ainda não passaram pelo grupo. */
+    public long incomplete(String group) {
+        int bit = 1 << groups.indexOf(group);
+        return pending.values().stream().filter(p -> p.measured && (p.done.get() & bit) == 0).count();
+    }
+
+    @Override
+    public ConsumerRecord<String, Object> intercept(ConsumerRecord<String, Object> record) {
+        return record;
+    }
+
+    @Override
+    public ConsumerRecords<String, Object> intercept(ConsumerRecords<String, Object> records, Consumer<String, Object> consumer) {
+        return records;
+    }
+
+    @Override
+    public void success(ConsumerRecord<String, Object> record, Consumer<String, Object> consumer) {
+        complete(record, consumer.groupMetadata().groupId(), System.nanoTime());
+    }
+
+    @Override
+    public void success(ConsumerRecords<String, Object> records, Consumer<String, Object> consumer) {
+        var group = consumer.groupMetadata().groupId();
+        long now = System.nanoTime();
+        for (var record : records) {
+            complete(record, group, now);
+        }
+    }
+
+    /** Confirmação do offset de um registro, nos containers em que ela acontece depois do retorno do listener. */
+    public void acknowledged(ConsumerRecord<String, Object> record, String group) {
+        complete(record, group, System.nanoTime());
+    }
+
+    private void complete(ConsumerRecord<String, Object> record, String group, long now) {
+        int index = groups.indexOf(group);
+        if (index < 0 || !topic.equals(record.topic())) {
+            return;
+        }
+        var id = idOf(record.value());
+        var payment = id != null ? pending.get(id) : null;
+        if (payment == null) {
+            return;
+        }
+        int bit = 1 << index;
+        int done = payment.done.getAndUpdate(value -> value | bit);
+        if ((done & bit) != 0) {
+            // Reentrega de um pagamento que o grupo já processou
+            return;
+        }
+        if (payment.measured) {
+            latencies.get(group).recordValue(Math.max(0, TimeUnit.NANOSECONDS.toMicros(now - payment.intendedNanos)));
+        }
+        if ((done | bit) == allGroups) {
+            pending.remove(id, payment);
+        }
+    }
+
+    // O valor chega como String no formato JSON e já como Payment no binário
+    private static Long idOf(Object value) {
+        if (value instanceof Payment payment) {
+            return payment.getId();
+        }
+        if (value instanceof String json) {
+            try {
+                var id = MAPPER.readTree(json).get("id");
+                return id != null && id.canConvertToLong() ? id.asLong() : null;
+            } catch (IOException e) {
+                log.warn("Pagamento ilegível no tópico: {}", abbreviate(json));
+            }
+        }
+        return null;
+    }
+
+    private static String abbreviate(String json) {
+        return json.length() > 100 ? json.substring(0, 100) + "..." : json;
+    }
+
+    private static final class Pending {
+
+        private final long intendedNanos;
+        private final boolean measured;
+        private final AtomicInteger done = new AtomicInteger();
+
+        private Pending(long intendedNanos, boolean measured) {
+            this.intendedNanos = intendedNanos;
+            this.measured = measured;
+        }
+    }
+}
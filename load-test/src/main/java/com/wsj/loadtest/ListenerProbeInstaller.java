@@ -0,0 +1,135 @@
+package com.wsj.loadtest;
+
+import com.wsj.kafka.support.metrics.ConsumerMetricsInterceptor;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.config.AbstractKafkaListenerContainerFactory;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.AbstractMessageListenerContainer;
+import org.springframework.kafka.listener.AcknowledgingConsumerAwareMessageListener;
+import org.springframework.kafka.listener.CompositeBatchInterceptor;
+import org.springframework.kafka.listener.CompositeRecordInterceptor;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DelegatingMessageListener;
+import org.springframework.kafka.support.Acknowledgment;
+
+/**
+ * Acrescenta o {@link ListenerLatencyProbe} às fábricas de container do json-consumer sem alterar o
+ * código do serviço: o interceptor de métricas configurado por ele continua sendo chamado antes da sonda.
+ * Nos containers com confirmação assíncrona o listener retorna antes do pagamento terminar, então a sonda
+ * não entra como interceptor: o listener do container é envolvido antes de iniciar, e cada
+ * {@link Acknowledgment} que ele recebe avisa a sonda ao confirmar o offset.
+ */
+public class ListenerProbeInstaller implements ApplicationContextInitializer<ConfigurableApplicationContext> {
+
+    private final ListenerLatencyProbe probe;
+
+    public ListenerProbeInstaller(ListenerLatencyProbe probe) {
+        this.probe = probe;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void initialize(ConfigurableApplicationContext context) {
+        var beanFactory = context.getBeanFactory();
+        beanFactory.addBeanPostProcessor(new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof AbstractKafkaListenerContainerFactory<?, ?, ?> candidate
+                        && !candidate.getContainerProperties().isAsyncAcks()) {
+                    var factory = (AbstractKafkaListenerContainerFactory<?, String, Object>) candidate;
+                    ConsumerMetricsInterceptor<String, Object> metrics = beanFactory.getBean(ConsumerMetricsInterceptor.class);
+                    if (Boolean.TRUE.equals(factory.isBatchListener())) {
+                        factory.setBatchInterceptor(new CompositeBatchInterceptor<>(metrics, probe));
+                    } else {
+                        factory.setRecordInterceptor(new CompositeRecordInterceptor<>(metrics, probe));
+                    }
+                }
+                return bean;
+            }
+        });
+        beanFactory.registerSingleton("listenerProbeAcknowledgments", new SmartLifecycle() {
+
+            private volatile boolean running;
+
+            // Os containers já foram criados pelo registry, mas só iniciam na fase dele
+            @Override
+            public void start() {
+                beanFactory.getBean(KafkaListenerEndpointRegistry.class).getListenerContainers()
+                        .forEach(container -> install(container.getContainerProperties(), container.getGroupId()));
+                running = true;
+            }
+
+            @Override
+            public void stop() {
+                running = false;
+            }
+
+            @Override
+            public boolean isRunning() {
+                return running;
+            }
+
+            @Override
+            public int getPhase() {
+                return AbstractMessageListenerContainer.DEFAULT_PHASE - 1;
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    void install(ContainerProperties properties, String group) {
+        if (properties.isAsyncAcks()
+                && properties.getMessageListener() instanceof AcknowledgingConsumerAwareMessageListener<?, ?> listener
+                && !(listener instanceof AcknowledgmentProbe)) {
+            properties.setMessageListener(new AcknowledgmentProbe(
+                    (AcknowledgingConsumerAwareMessageListener<String, Object>) listener, group, probe));
+        }
+    }
+
+    private static final class AcknowledgmentProbe
+            implements AcknowledgingConsumerAwareMessageListener<String, Object>, DelegatingMessageListener<Object> {
+
+        private final AcknowledgingConsumerAwareMessageListener<String, Object> delegate;
+        private final String group;
+        private final ListenerLatencyProbe probe;
+
+        private AcknowledgmentProbe(AcknowledgingConsumerAwareMessageListener<String, Object> delegate, String group,
+                                    ListenerLatencyProbe probe) {
+            this.delegate = delegate;
+            this.group = group;
+            this.probe = probe;
+        }
+
+        @Override
+        public void onMessage(ConsumerRecord<String, Object> record, Acknowledgment acknowledgment,
+                              Consumer<?, ?> consumer) {
+            delegate.onMessage(record, new Acknowledgment() {
+                @Override
+                public void acknowledge() {
+                    acknowledgment.acknowledge();
+                    probe.acknowledged(record, group);
+                }
+
+                @Override
+                public void nack(long sleep) {
+                    acknowledgment.nack(sleep);
+                }
+
+                @Override
+                public void nack(int index, long sleep) {
+                    acknowledgment.nack(index, sleep);
+                }
+            }, consumer);
+        }
+
+        @Override
+        public Object getDelegate() {
+            return delegate;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.wsj.loadtest;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.convert.DurationStyle;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Opções da execução, passadas como {@code chave=valor} na linha de comando,
+ * ex.: {@code rate=500 duration=2m scenarios=payments baseline=reports/1.4.0.json}.
+ * Chaves com ponto são propriedades do Spring repassadas a todos os serviços, ex.: {@code payment.codec=binary}.
+ */
+@Getter
+@Setter
+public class LoadTestOptions {
+
+    /** Requisições por segundo disparadas em cada cenário, independentemente das respostas. */
+    private int rate = 200;
+
+    /** Período inicial descartado do relatório (JIT, conexões, atribuição de partições). */
+    private Duration warmup = Duration.ofSeconds(10);
+
+    /** Período medido, depois do aquecimento. */
+    private Duration duration = Duration.ofSeconds(60);
+
+    /** Tempo máximo esperando os handlers terminarem depois da última requisição. */
+    private Duration drainTimeout = Duration.ofSeconds(30);
+
+    private List<Scenario> scenarios = new ArrayList<>(List.of(Scenario.values()));
+
+    /** Grupos do JsonListener que precisam processar cada pagamento (modo por registro). */
+    private List<String> groups = new ArrayList<>(List.of("create-group", "pdf-group", "email-group"));
+
+    /** Usuários distintos nos pagamentos gerados; poucos usuários fazem o motor de fraude recusar mais. */
+    private int users = 10_000;
+
+    private int partitions = 6;
+
+    /** Envio de emails por segundo do EmailDispatcher; o padrão de produção (20/s) limitaria o pipeline inteiro. */
+    private int emailRate = 100_000;
+
+    /** Identifica a execução no relatório, ex.: a versão testada. */
+    private String label = "local";
+
+    private Path output = Path.of("target", "load-test");
+
+    /** Relatório de uma versão anterior para comparar; sem ele o relatório só é gravado. */
+    private Path baseline;
+
+    /** Aumento máximo aceito do p99 em relação ao baseline (0.10 = 10%). */
+    private double maxP99Increase = 0.10;
+
+    /** Queda máxima aceita da vazão em relação ao baseline (0.05 = 5%). */
+    private double maxThroughputDrop = 0.05;
+
+    /** Raiz do repositório, de onde são lidos os application.yml dos serviços. */
+    private Path repository = detectRepository();
+
+    /** Propriedades do Spring repassadas a todos os serviços. */
+    private Map<String, String> properties = new LinkedHashMap<>();
+
+    public static LoadTestOptions parse(String... args) {
+        var options = new LoadTestOptions();
+        for (var arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Opção inválida, use chave=valor: " + arg);
+            }
+            options.set(arg.substring(0, separator).trim(), arg.substring(separator + 1).trim());
+        }
+        return options;
+    }
+
+    private void set(String key, String value) {
+        if (key.contains(".")) {
+            properties.put(key, value);
+            return;
+        }
+        switch (key) {
+            case "rate" -> rate = Integer.parseInt(value);
+            case "warmup" -> warmup = DurationStyle.detectAndParse(value);
+            case "duration" -> duration = DurationStyle.detectAndParse(value);
+            case "drain-timeout" -> drainTimeout = DurationStyle.detectAndParse(value);
+            case "scenarios" -> scenarios = Scenario.parseList(value);
+            case "groups" -> groups = List.of(value.split("\\s*,\\s*"));
+            case "users" -> users = Integer.parseInt(value);
+            case "partitions" -> partitions = Integer.parseInt(value);
+            case "email-rate" -> emailRate = Integer.parseInt(value);
+            case "label" -> label = value;
+            case "output" -> output = Path.of(value);
+            case "baseline" -> baseline = Path.of(value);
+            case "max-p99-increase" -> maxP99Increase = Double.parseDouble(value);
+            case "max-throughput-drop" -> maxThroughputDrop = Double.parseDouble(value);
+            case "repository" -> repository = Path.of(value);
+            default -> throw new IllegalArgumentException("Opção desconhecida: " + key);
+        }
+    }
+
+    // Funciona tanto a partir da raiz do repositório quanto de dentro de load-test/
+    private static Path detectRepository() {
+        var current = Path.of("").toAbsolutePath();
+        return Files.isDirectory(current.resolve("payment-service")) ? current : current.getParent();
+    }
+}
@@ -0,0 +1,83 @@
+package com.wsj.loadtest;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.HdrHistogram.Histogram;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Relatório gravado em {@code report.json} ao final da execução. Tem só números agregados e estáveis
+ * entre versões, para que o relatório de uma release possa ser usado como baseline da seguinte.
+ * Latências em milissegundos e vazões em operações por segundo.
+ */
+@Data
+@NoArgsConstructor
+public class LoadTestReport {
+
+    private String label;
+    private String startedAt;
+    private String javaVersion;
+    private int processors;
+    private int rate;
+    private long warmupSeconds;
+    private long durationSeconds;
+    private Map<String, ScenarioResult> scenarios = new LinkedHashMap<>();
+
+    @Data
+    @NoArgsConstructor
+    public static class ScenarioResult {
+
+        private long sent;
+        private long succeeded;
+        private double throughput;
+        private Map<String, Long> statuses = new LinkedHashMap<>();
+        /** Do instante previsto no cronograma até a resposta HTTP (corrigido para omissão coordenada). */
+        private Latency responseTime;
+        /** Do envio real até a resposta HTTP (sem correção). */
+        private Latency serviceTime;
+        /** Do instante previsto até o término de cada handler do JsonListener, por grupo. */
+        private Map<String, ListenerResult> listeners = new LinkedHashMap<>();
+    }
+
+    @Data
+    @NoArgsConstructor
+    public static class ListenerResult {
+
+        private long completed;
+        private long incomplete;
+        private double throughput;
+        private Latency latency;
+    }
+
+    @Data
+    @NoArgsConstructor
+    public static class Latency {
+
+        private long count;
+        private double mean;
+        private double p50;
+        private double p90;
+        private double p99;
+        private double p999;
+        private double max;
+
+        /** Resume um histograma registrado em microssegundos. */
+        public static Latency of(Histogram histogram) {
+            var latency = new Latency();
+            latency.count = histogram.getTotalCount();
+            latency.mean = millis(histogram.getMean());
+            latency.p50 = millis(histogram.getValueAtPercentile(50));
+            latency.p90 = millis(histogram.getValueAtPercentile(90));
+            latency.p99 = millis(histogram.getValueAtPercentile(99));
+            latency.p999 = millis(histogram.getValueAtPercentile(99.9));
+            latency.max = millis(histogram.getMaxValue());
+            return latency;
+        }
+
+        private static double millis(double micros) {
+            return Math.round(micros) / 1000.0;
+        }
+    }
+}
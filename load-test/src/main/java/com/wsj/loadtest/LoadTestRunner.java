@@ -0,0 +1,185 @@
+package com.wsj.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.wsj.loadtest.LoadTestReport.Latency;
+import com.wsj.loadtest.LoadTestReport.ListenerResult;
+import com.wsj.loadtest.LoadTestReport.ScenarioResult;
+import lombok.extern.log4j.Log4j2;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Locale;
+
+/**
+ * Executa os cenários contra o pipeline em memória e grava em {@code target/load-test}:
+ * <ul>
+ *     <li>{@code report.json}: vazão e percentis de cada cenário, comparável entre versões;</li>
+ *     <li>{@code <cenário>-*.hgrm}: distribuição completa de cada histograma, no formato do HdrHistogram.</li>
+ * </ul>
+ * Com {@code baseline=<report.json anterior>} compara os dois e termina com código 1 se houver regressão
+ * de vazão ou de p99 acima dos limites.
+ */
+@Log4j2
+public class LoadTestRunner {
+
+    private static final String PAYMENT_TOPIC = "payment-topic";
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private final LoadTestOptions options;
+
+    public LoadTestRunner(LoadTestOptions options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        var options = LoadTestOptions.parse(args);
+        var report = new LoadTestRunner(options).run();
+
+        int status = 0;
+        if (options.getBaseline() != null) {
+            var baseline = MAPPER.readValue(options.getBaseline().toFile(), LoadTestReport.class);
+            var comparison = new ReportComparison(options.getMaxP99Increase(), options.getMaxThroughputDrop())
+                    .compare(baseline, report);
+            comparison.getLines().forEach(System.out::println);
+            comparison.getRegressions().forEach(regression -> System.out.println("REGRESSÃO " + regression));
+            status = comparison.getRegressions().isEmpty() ? 0 : 1;
+        }
+        // Threads dos serviços (ex.: a JVM do broker) não impedem o fim do processo
+        System.exit(status);
+    }
+
+    public LoadTestReport run() throws InterruptedException, IOException {
+        Files.createDirectories(options.getOutput());
+        var report = new LoadTestReport();
+        report.setLabel(options.getLabel());
+        report.setStartedAt(Instant.now().toString());
+        report.setJavaVersion(Runtime.version().toString());
+        report.setProcessors(Runtime.getRuntime().availableProcessors());
+        report.setRate(options.getRate());
+        report.setWarmupSeconds(options.getWarmup().toSeconds());
+        report.setDurationSeconds(options.getDuration().toSeconds());
+
+        var probe = new ListenerLatencyProbe(PAYMENT_TOPIC, options.getGroups());
+        try (var pipeline = new Pipeline(options); var generator = new OpenLoopGenerator()) {
+            pipeline.start(probe);
+            for (var scenario : options.getScenarios()) {
+                log.info("Cenário {}: {} req/s por {} (+{} de aquecimento)", scenario.key(), options.getRate(),
+                        options.getDuration(), options.getWarmup());
+                var result = switch (scenario) {
+                    case PAYMENTS -> payments(pipeline.paymentsUri(), generator, probe);
+                    case PRODUCER -> producer(pipeline.producerUri(), generator);
+                };
+                report.getScenarios().put(scenario.key(), result);
+                print(scenario, result);
+            }
+        }
+
+        MAPPER.writeValue(options.getOutput().resolve("report.json").toFile(), report);
+        log.info("Relatório gravado em {}", options.getOutput().resolve("report.json").toAbsolutePath());
+        return report;
+    }
+
+    private ScenarioResult payments(URI uri, OpenLoopGenerator generator, ListenerLatencyProbe probe)
+            throws InterruptedException, IOException {
+        probe.reset();
+        var result = generator.run(options.getRate(), options.getWarmup(), options.getDuration(),
+                id -> HttpRequest.newBuilder(uri)
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(payment(id))),
+                new OpenLoopGenerator.Listener() {
+                    @Override
+                    public void beforeSend(long id, long intendedNanos, boolean measured) {
+                        probe.expect(id, intendedNanos, measured);
+                    }
+
+                    @Override
+                    public void onResponse(long id, boolean success) {
+                        if (!success) {
+                            probe.forget(id);
+                        }
+                    }
+                });
+
+        if (!probe.awaitCompletion(options.getDrainTimeout().toNanos())) {
+            log.warn("Alguns pagamentos não passaram por todos os handlers em {}", options.getDrainTimeout());
+        }
+
+        var scenario = summarize(Scenario.PAYMENTS, result);
+        for (var entry : probe.latencies().entrySet()) {
+            var histogram = entry.getValue();
+            var listener = new ListenerResult();
+            listener.setCompleted(histogram.getTotalCount());
+            listener.setIncomplete(probe.incomplete(entry.getKey()));
+            listener.setThroughput(perSecond(histogram.getTotalCount()));
+            listener.setLatency(Latency.of(histogram));
+            scenario.getListeners().put(entry.getKey(), listener);
+            write(Scenario.PAYMENTS.key() + "-" + entry.getKey() + ".hgrm", histogram);
+        }
+        return scenario;
+    }
+
+    private ScenarioResult producer(URI uri, OpenLoopGenerator generator) throws InterruptedException, IOException {
+        var result = generator.run(options.getRate(), options.getWarmup(), options.getDuration(),
+                id -> HttpRequest.newBuilder(uri)
+                        .header("Content-Type", "text/plain")
+                        .POST(HttpRequest.BodyPublishers.ofString("load-test " + id)),
+                new OpenLoopGenerator.Listener() {
+                    @Override
+                    public void beforeSend(long id, long intendedNanos, boolean measured) {
+                    }
+
+                    @Override
+                    public void onResponse(long id, boolean success) {
+                    }
+                });
+        return summarize(Scenario.PRODUCER, result);
+    }
+
+    private ScenarioResult summarize(Scenario scenario, OpenLoopGenerator.Result result) throws IOException {
+        var summary = new ScenarioResult();
+        summary.setSent(result.getSent());
+        summary.setSucceeded(result.getSucceeded());
+        summary.setThroughput(perSecond(result.getSucceeded()));
+        summary.setStatuses(result.getStatuses());
+        summary.setResponseTime(Latency.of(result.getResponseTime()));
+        summary.setServiceTime(Latency.of(result.getServiceTime()));
+        write(scenario.key() + "-http.hgrm", result.getResponseTime());
+        write(scenario.key() + "-http-uncorrected.hgrm", result.getServiceTime());
+        return summary;
+    }
+
+    // Ids distintos espalham os pagamentos entre usuários e cartões, como em produção
+    private String payment(long id) {
+        return String.format(Locale.ROOT, "{\"id\":%d,\"idUser\":%d,\"idProduct\":%d,\"cardNumber\":\"4%015d\"}",
+                id, 1 + id % options.getUsers(), 1 + id % 100, id);
+    }
+
+    private double perSecond(long count) {
+        return Math.round(count * 1000.0 / options.getDuration().toMillis() * 10) / 10.0;
+    }
+
+    // Valores em microssegundos, gravados em milissegundos
+    private void write(String name, Histogram histogram) throws IOException {
+        try (var out = new PrintStream(Files.newOutputStream(options.getOutput().resolve(name)), false, StandardCharsets.UTF_8)) {
+            histogram.outputPercentileDistribution(out, 1000.0);
+        }
+    }
+
+    private static void print(Scenario scenario, ScenarioResult result) {
+        var http = result.getResponseTime();
+        log.info("{}: {}/{} ok, {} req/s, http p50={} p99={} p99.9={} max={} ms, status {}", scenario.key(),
+                result.getSucceeded(), result.getSent(), result.getThroughput(), http.getP50(), http.getP99(),
+                http.getP999(), http.getMax(), result.getStatuses());
+        result.getListeners().forEach((group, listener) -> log.info("  {}: {} concluídos, {} pendentes, p50={} p99={} max={} ms",
+                group, listener.getCompleted(), listener.getIncomplete(), listener.getLatency().getP50(),
+                listener.getLatency().getP99(), listener.getLatency().getMax()));
+    }
+}
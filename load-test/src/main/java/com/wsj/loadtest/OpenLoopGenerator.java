@@ -0,0 +1,173 @@
+package com.wsj.loadtest;
+
+import lombok.extern.log4j.Log4j2;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Dispara requisições em uma taxa fixa, sem esperar as respostas anteriores (carga em malha aberta).
+ *
+ * <p>A latência de cada requisição é medida a partir do instante em que ela deveria ter sido enviada
+ * pelo cronograma, e não de quando foi de fato enviada. Assim, quando o serviço (ou o próprio gerador)
+ * atrasa, as requisições que ficaram esperando contam o atraso inteiro, corrigindo a omissão coordenada
+ * de um gerador em malha fechada. O tempo desde o envio real também é registrado, para comparação.
+ */
+@Log4j2
+public class OpenLoopGenerator implements AutoCloseable {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(
+            Math.max(4, Runtime.getRuntime().availableProcessors()), runnable -> {
+                var thread = new Thread(runnable, "load-test-http");
+                thread.setDaemon(true);
+                return thread;
+            });
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .executor(executor)
+            .build();
+    private final AtomicLong ids = new AtomicLong();
+
+    /** Chamado antes de cada envio e ao receber cada resposta, ex.: para acompanhar o pagamento até o consumidor. */
+    public interface Listener {
+
+        void beforeSend(long id, long intendedNanos, boolean measured);
+
+        void onResponse(long id, boolean success);
+    }
+
+    /** Monta a requisição de um id; os ids são únicos em todos os cenários da execução. */
+    public interface RequestFactory {
+
+        HttpRequest.Builder create(long id);
+    }
+
+    public Result run(int rate, Duration warmup, Duration duration, RequestFactory requests, Listener listener)
+            throws InterruptedException {
+        var result = new Result(rate, duration);
+        var outstanding = new Phaser(1);
+
+        long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(10);
+        long measuredFrom = start + warmup.toNanos();
+        long end = measuredFrom + duration.toNanos();
+
+        for (long i = 0; ; i++) {
+            // Calculado a partir do início, e não somando intervalos, para não acumular erro de arredondamento
+            long intended = start + i * TimeUnit.SECONDS.toNanos(1) / rate;
+            if (intended >= end) {
+                break;
+            }
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            boolean measured = intended >= measuredFrom;
+            long id = ids.incrementAndGet();
+            listener.beforeSend(id, intended, measured);
+            outstanding.register();
+            long sentAt = System.nanoTime();
+            client.sendAsync(requests.create(id).timeout(REQUEST_TIMEOUT).build(), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        long now = System.nanoTime();
+                        boolean success = error == null && response.statusCode() / 100 == 2;
+                        if (measured) {
+                            result.record(intended, sentAt, now, error == null ? String.valueOf(response.statusCode())
+                                    : error.getClass().getSimpleName(), success);
+                        }
+                        listener.onResponse(id, success);
+                        outstanding.arriveAndDeregister();
+                    });
+        }
+
+        try {
+            outstanding.awaitAdvanceInterruptibly(outstanding.arrive(), REQUEST_TIMEOUT.toSeconds() + 5, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Respostas pendentes não chegaram a tempo");
+        }
+        return result;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /** Resultado do período medido de um cenário. */
+    public static class Result {
+
+        private final int rate;
+        private final Duration duration;
+        private final Histogram responseTime = new ConcurrentHistogram(TimeUnit.HOURS.toMicros(1), 3);
+        private final Histogram serviceTime = new ConcurrentHistogram(TimeUnit.HOURS.toMicros(1), 3);
+        private final ConcurrentMap<String, LongAdder> statuses = new ConcurrentHashMap<>();
+        private final LongAdder sent = new LongAdder();
+        private final LongAdder succeeded = new LongAdder();
+
+        private Result(int rate, Duration duration) {
+            this.rate = rate;
+            this.duration = duration;
+        }
+
+        private void record(long intended, long sentAt, long now, String status, boolean success) {
+            sent.increment();
+            statuses.computeIfAbsent(status, key -> new LongAdder()).increment();
+            if (success) {
+                succeeded.increment();
+                responseTime.recordValue(TimeUnit.NANOSECONDS.toMicros(now - intended));
+                serviceTime.recordValue(TimeUnit.NANOSECONDS.toMicros(now - sentAt));
+            }
+        }
+
+        public int getRate() {
+            return rate;
+        }
+
+        public Duration getDuration() {
+            return duration;
+        }
+
+        /** Do instante previsto no cronograma até a resposta (corrigido). */
+        public Histogram getResponseTime() {
+            return responseTime;
+        }
+
+        /** Do envio real até a resposta (sem correção), só para comparação. */
+        public Histogram getServiceTime() {
+            return serviceTime;
+        }
+
+        public long getSent() {
+            return sent.sum();
+        }
+
+        public long getSucceeded() {
+            return succeeded.sum();
+        }
+
+        public Map<String, Long> getStatuses() {
+            var counts = new TreeMap<String, Long>();
+            statuses.forEach((status, count) -> counts.put(status, count.sum()));
+            return counts;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.wsj.loadtest;
+
+import com.icegreen.greenmail.configuration.GreenMailConfiguration;
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.valdir.jsonconsumer.JsonConsumerApplication;
+import com.wsj.paymentservice.PaymentServiceApplication;
+import com.wsj.str_consumer.StrConsumerApplication;
+import com.wsj.str_producer.StrProducerApplication;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sobe o pipeline completo em um único processo: um broker Kafka e um servidor SMTP em memória e os quatro
+ * serviços, cada um no seu contexto Spring com o próprio {@code application.yml}. Só os endereços do broker
+ * e do SMTP, as portas HTTP (aleatórias) e os diretórios de trabalho são sobrescritos.
+ */
+@Log4j2
+public class Pipeline implements AutoCloseable {
+
+    private final LoadTestOptions options;
+    private final EmbeddedKafkaBroker broker;
+    // Aceita o login configurado no application.yml do json-consumer, seja ele qual for
+    private final GreenMail smtp = new GreenMail(ServerSetupTest.SMTP.dynamicPort())
+            .withConfiguration(GreenMailConfiguration.aConfig().withDisabledAuthentication());
+    private final List<ConfigurableApplicationContext> services = new ArrayList<>();
+    private ConfigurableApplicationContext paymentService;
+    private ConfigurableApplicationContext strProducer;
+
+    public Pipeline(LoadTestOptions options) {
+        this.options = options;
+        this.broker = new EmbeddedKafkaBroker(1, false, options.getPartitions())
+                .brokerProperty("group.initial.rebalance.delay.ms", 0)
+                // Um único broker: o log de transações do antifraude exactly-once não pode pedir 3 réplicas
+                .brokerProperty("transaction.state.log.replication.factor", (short) 1)
+                .brokerProperty("transaction.state.log.min.isr", 1);
+    }
+
+    public void start(ListenerLatencyProbe probe) throws InterruptedException {
+        broker.afterPropertiesSet();
+        smtp.start();
+        log.info("Broker em {}, SMTP na porta {}", broker.getBrokersAsString(), smtp.getSmtp().getPort());
+
+        // Os produtores sobem antes para criar os tópicos com as partições configuradas
+        paymentService = start(PaymentServiceApplication.class, "payment-service", null,
+                "--payment.topic.min-partitions=" + options.getPartitions(),
+                "--payment.journal.directory=" + options.getOutput().resolve("journal").toAbsolutePath(),
+                "--payment.status.enabled=true",
+                "--payment.status.directory=" + options.getOutput().resolve("status").toAbsolutePath());
+        var blobs = options.getOutput().resolve("blobs").toAbsolutePath();
+        strProducer = start(StrProducerApplication.class, "str-producer", null,
+                "--producer.topic.min-partitions=" + options.getPartitions(),
+                "--producer.claim-check.enabled=true",
+                "--producer.claim-check.directory=" + blobs);
+        var jsonConsumer = start(JsonConsumerApplication.class, "json-consumer", new ListenerProbeInstaller(probe),
+                "--payment.receipt.directory=" + options.getOutput().resolve("receipts").toAbsolutePath(),
+                "--payment.email.host=" + smtp.getSmtp().getBindTo(),
+                "--payment.email.port=" + smtp.getSmtp().getPort(),
+                "--payment.email.rate-per-second=" + options.getEmailRate(),
+                "--payment.email.burst=" + options.getEmailRate());
+        var strConsumer = start(StrConsumerApplication.class, "str-consumer", null,
+                "--str-consumer.claim-check.directory=" + blobs);
+
+        awaitAssignment(jsonConsumer);
+        awaitAssignment(strConsumer);
+    }
+
+    public URI paymentsUri() {
+        return uri(paymentService, "/payments");
+    }
+
+    public URI producerUri() {
+        return uri(strProducer, "/producer");
+    }
+
+    @Override
+    public void close() {
+        // Consumidores primeiro, na ordem inversa da subida, e o broker por último
+        for (int i = services.size() - 1; i >= 0; i--) {
+            try {
+                services.get(i).close();
+            } catch (RuntimeException e) {
+                log.warn("Erro ao encerrar o serviço", e);
+            }
+        }
+        smtp.stop();
+        broker.destroy();
+    }
+
+    private ConfigurableApplicationContext start(Class<?> application, String module,
+                                                 ApplicationContextInitializer<ConfigurableApplicationContext> initializer,
+                                                 String... extra) {
+        var brokers = broker.getBrokersAsString();
+        var args = new ArrayList<>(List.of(
+                "--spring.config.location=file:" + options.getRepository().resolve(module).resolve("src/main/resources/application.yml"),
+                "--spring.kafka.bootstrap-servers=" + brokers,
+                "--spring.kafka.producer.bootstrap-servers=" + brokers,
+                "--spring.kafka.consumer.bootstrap-servers=" + brokers,
+                "--server.port=0",
+                "--spring.main.banner-mode=off",
+                "--spring.main.log-startup-info=false"));
+        args.addAll(List.of(extra));
+        for (Map.Entry<String, String> property : options.getProperties().entrySet()) {
+            args.add("--" + property.getKey() + "=" + property.getValue());
+        }
+
+        var builder = new SpringApplicationBuilder(application);
+        if (initializer != null) {
+            builder.initializers(initializer);
+        }
+        long started = System.nanoTime();
+        var context = builder.run(args.toArray(String[]::new));
+        services.add(context);
+        log.info("{} no ar em {} ms", module, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        return context;
+    }
+
+    // Evita medir o tempo de atribuição das partições no início do primeiro cenário
+    private static void awaitAssignment(ConfigurableApplicationContext context) throws InterruptedException {
+        var registry = context.getBean(KafkaListenerEndpointRegistry.class);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (!registry.getListenerContainers().stream().allMatch(Pipeline::assigned)) {
+            if (System.nanoTime() >= deadline) {
+                log.warn("Nem todos os listeners receberam partições a tempo");
+                return;
+            }
+            TimeUnit.MILLISECONDS.sleep(100);
+        }
+    }
+
+    private static boolean assigned(MessageListenerContainer container) {
+        var partitions = container.getAssignedPartitions();
+        return !container.isRunning() || (partitions != null && !partitions.isEmpty());
+    }
+
+    private static URI uri(ConfigurableApplicationContext context, String path) {
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        return URI.create("http://localhost:" + port + path);
+    }
+}
@@ -0,0 +1,80 @@
+package com.wsj.loadtest;
+
+import com.wsj.loadtest.LoadTestReport.Latency;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Compara um relatório com o baseline: a vazão e o p99 de cada cenário e de cada grupo do JsonListener.
+ * Uma regressão é uma queda de vazão ou um aumento de p99 acima do limite configurado.
+ */
+public class ReportComparison {
+
+    private final double maxP99Increase;
+    private final double maxThroughputDrop;
+    private final List<String> lines = new ArrayList<>();
+    private final List<String> regressions = new ArrayList<>();
+
+    public ReportComparison(double maxP99Increase, double maxThroughputDrop) {
+        this.maxP99Increase = maxP99Increase;
+        this.maxThroughputDrop = maxThroughputDrop;
+    }
+
+    public ReportComparison compare(LoadTestReport baseline, LoadTestReport current) {
+        if (baseline.getRate() != current.getRate()) {
+            lines.add(String.format(Locale.ROOT, "Atenção: taxas diferentes (%d x %d req/s), os números não são comparáveis",
+                    baseline.getRate(), current.getRate()));
+        }
+        lines.add(String.format(Locale.ROOT, "%-36s %12s %12s %9s", "", baseline.getLabel(), current.getLabel(), "delta"));
+        current.getScenarios().forEach((name, scenario) -> {
+            var previous = baseline.getScenarios().get(name);
+            if (previous == null) {
+                lines.add(name + ": sem baseline");
+                return;
+            }
+            throughput(name, previous.getThroughput(), scenario.getThroughput());
+            p99(name + " http", previous.getResponseTime(), scenario.getResponseTime());
+            scenario.getListeners().forEach((group, listener) -> {
+                var before = previous.getListeners().get(group);
+                if (before != null) {
+                    throughput(name + " " + group, before.getThroughput(), listener.getThroughput());
+                    p99(name + " " + group, before.getLatency(), listener.getLatency());
+                }
+            });
+        });
+        return this;
+    }
+
+    public List<String> getLines() {
+        return lines;
+    }
+
+    public List<String> getRegressions() {
+        return regressions;
+    }
+
+    private void throughput(String name, double before, double after) {
+        double delta = before > 0 ? (after - before) / before : 0;
+        line(name + " throughput", before, after, delta);
+        if (delta < -maxThroughputDrop) {
+            regressions.add(String.format(Locale.ROOT, "%s: vazão caiu %.1f%% (%.1f -> %.1f/s)", name, -delta * 100, before, after));
+        }
+    }
+
+    private void p99(String name, Latency before, Latency after) {
+        if (before == null || after == null) {
+            return;
+        }
+        double delta = before.getP99() > 0 ? (after.getP99() - before.getP99()) / before.getP99() : 0;
+        line(name + " p99 (ms)", before.getP99(), after.getP99(), delta);
+        if (delta > maxP99Increase) {
+            regressions.add(String.format(Locale.ROOT, "%s: p99 subiu %.1f%% (%.3f -> %.3f ms)", name, delta * 100, before.getP99(), after.getP99()));
+        }
+    }
+
+    private void line(String name, double before, double after, double delta) {
+        lines.add(String.format(Locale.ROOT, "%-36s %12.3f %12.3f %+8.1f%%", name, before, after, delta * 100));
+    }
+}
@@ -0,0 +1,27 @@
+package com.wsj.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/** Endpoints exercitados pelo teste de carga. */
+public enum Scenario {
+
+    /** {@code POST /payments} do payment-service, acompanhado até os handlers do JsonListener. */
+    PAYMENTS,
+
+    /** {@code POST /producer} do str-producer; só a latência HTTP é medida. */
+    PRODUCER;
+
+    public String key() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    static List<Scenario> parseList(String value) {
+        var scenarios = new ArrayList<Scenario>();
+        for (var name : value.split("\\s*,\\s*")) {
+            scenarios.add(valueOf(name.toUpperCase(Locale.ROOT)));
+        }
+        return scenarios;
+    }
+}
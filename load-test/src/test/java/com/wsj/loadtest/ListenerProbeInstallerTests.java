@@ -0,0 +1,58 @@
+package com.wsj.loadtest;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.listener.AcknowledgingConsumerAwareMessageListener;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ListenerProbeInstallerTests {
+
+    private final ListenerLatencyProbe probe = new ListenerLatencyProbe("payment-topic", List.of("email-group"));
+    private final ListenerProbeInstaller installer = new ListenerProbeInstaller(probe);
+
+    // Guarda a confirmação para chamá-la depois do retorno, como o send-email faz quando o SMTP aceita o email
+    private final AtomicReference<Acknowledgment> pendingAck = new AtomicReference<>();
+    private final AcknowledgingConsumerAwareMessageListener<String, Object> listener =
+            (record, acknowledgment, consumer) -> pendingAck.set(acknowledgment);
+
+    @Test
+    void measuresAsyncAckContainersWhenTheOffsetIsAcknowledged() {
+        var properties = new ContainerProperties("payment-topic");
+        properties.setAckMode(ContainerProperties.AckMode.MANUAL);
+        properties.setAsyncAcks(true);
+        properties.setMessageListener(listener);
+        var acks = new AtomicInteger();
+
+        installer.install(properties, "email-group");
+        probe.expect(1L, System.nanoTime(), true);
+        @SuppressWarnings("unchecked")
+        var installed = (AcknowledgingConsumerAwareMessageListener<String, Object>) properties.getMessageListener();
+        installed.onMessage(new ConsumerRecord<>("payment-topic", 0, 0, null, "{\"id\":1}"), acks::incrementAndGet, null);
+
+        assertThat(probe.incomplete("email-group")).isEqualTo(1);
+        assertThat(probe.latencies().get("email-group").getTotalCount()).isZero();
+
+        pendingAck.get().acknowledge();
+
+        assertThat(acks).hasValue(1);
+        assertThat(probe.incomplete("email-group")).isZero();
+        assertThat(probe.latencies().get("email-group").getTotalCount()).isEqualTo(1);
+    }
+
+    @Test
+    void leavesSynchronousContainersToTheRecordInterceptor() {
+        var properties = new ContainerProperties("payment-topic");
+        properties.setMessageListener(listener);
+
+        installer.install(properties, "email-group");
+
+        assertThat(properties.getMessageListener()).isSameAs(listener);
+    }
+}
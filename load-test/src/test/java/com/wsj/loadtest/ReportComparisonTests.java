@@ -0,0 +1,75 @@
+package com.wsj.loadtest;
+
+import com.wsj.loadtest.LoadTestReport.Latency;
+import com.wsj.loadtest.LoadTestReport.ListenerResult;
+import com.wsj.loadtest.LoadTestReport.ScenarioResult;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+class ReportComparisonTests {
+
+    @Test
+    void acceptsChangesWithinTheLimits() {
+        var baseline = report("1.0", 200, 10, 20);
+        var current = report("1.1", 195, 10.9, 21);
+
+        var comparison = new ReportComparison(0.10, 0.05).compare(baseline, current);
+
+        assertThat(comparison.getRegressions()).isEmpty();
+        assertThat(comparison.getLines()).anyMatch(line -> line.startsWith("payments http p99 (ms)"));
+    }
+
+    @Test
+    void flagsThroughputDropsAndP99IncreasesPerScenarioAndListener() {
+        var baseline = report("1.0", 200, 10, 20);
+        var current = report("1.1", 180, 10, 30);
+
+        var comparison = new ReportComparison(0.10, 0.05).compare(baseline, current);
+
+        assertThat(comparison.getRegressions())
+                .hasSize(3)
+                .anyMatch(regression -> regression.startsWith("payments: vazão caiu 10.0%"))
+                .anyMatch(regression -> regression.startsWith("payments create-group: vazão caiu"))
+                .anyMatch(regression -> regression.startsWith("payments create-group: p99 subiu 50.0%"));
+    }
+
+    @Test
+    void summarizesMicrosecondHistogramsInMilliseconds() {
+        var histogram = new Histogram(3);
+        for (int value = 1; value <= 1000; value++) {
+            histogram.recordValue(value * 1000L);
+        }
+
+        var latency = Latency.of(histogram);
+
+        assertThat(latency.getCount()).isEqualTo(1000);
+        assertThat(latency.getP50()).isCloseTo(500, offset(1.0));
+        assertThat(latency.getP99()).isCloseTo(990, offset(1.0));
+        assertThat(latency.getMax()).isCloseTo(1000, offset(1.0));
+    }
+
+    private static LoadTestReport report(String label, double throughput, double httpP99, double listenerP99) {
+        var listener = new ListenerResult();
+        listener.setThroughput(throughput);
+        listener.setLatency(latency(listenerP99));
+
+        var scenario = new ScenarioResult();
+        scenario.setThroughput(throughput);
+        scenario.setResponseTime(latency(httpP99));
+        scenario.getListeners().put("create-group", listener);
+
+        var report = new LoadTestReport();
+        report.setLabel(label);
+        report.getScenarios().put("payments", scenario);
+        return report;
+    }
+
+    private static Latency latency(double p99) {
+        var latency = new Latency();
+        latency.setP99(p99);
+        return latency;
+    }
+}
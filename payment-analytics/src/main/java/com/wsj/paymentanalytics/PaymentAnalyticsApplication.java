@@ -0,0 +1,13 @@
+package com.wsj.paymentanalytics;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+@SpringBootApplication
+public class PaymentAnalyticsApplication {
+
+	public static void main(String[] args) {
+		SpringApplication.run(PaymentAnalyticsApplication.class, args);
+	}
+
+}
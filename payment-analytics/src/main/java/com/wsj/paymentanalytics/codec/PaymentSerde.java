@@ -0,0 +1,100 @@
+package com.wsj.paymentanalytics.codec;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wsj.paymentanalytics.model.Payment;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Serde dos pagamentos do payment-topic nos dois formatos do payment-service: registros com o cabeçalho
+ * {@value #SCHEMA_VERSION_HEADER} estão no layout binário do {@code PaymentBinarySerializer}, os demais em JSON.
+ * A serialização é sempre em JSON; a topologia só a usa para alimentar os testes.
+ */
+public class PaymentSerde implements Serde<Payment> {
+
+    public static final String SCHEMA_VERSION_HEADER = "payment-schema-version";
+
+    private static final int PRESENT_ID = 1;
+    private static final int PRESENT_ID_USER = 1 << 1;
+    private static final int PRESENT_ID_PRODUCT = 1 << 2;
+    private static final int PRESENT_CARD_NUMBER = 1 << 3;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    @Override
+    public Serializer<Payment> serializer() {
+        return (topic, payment) -> {
+            try {
+                return payment == null ? null : objectMapper.writeValueAsBytes(payment);
+            } catch (IOException e) {
+                throw new SerializationException("Falha ao serializar o pagamento", e);
+            }
+        };
+    }
+
+    @Override
+    public Deserializer<Payment> deserializer() {
+        return new Deserializer<>() {
+
+            @Override
+            public Payment deserialize(String topic, Headers headers, byte[] data) {
+                if (data == null) {
+                    return null;
+                }
+                var version = headers.lastHeader(SCHEMA_VERSION_HEADER);
+                if (version == null) {
+                    return fromJson(data);
+                }
+                if (version.value().length != 1 || version.value()[0] != 1) {
+                    throw new SerializationException("Versão de layout de pagamento não suportada no tópico " + topic);
+                }
+                return fromV1(data);
+            }
+
+            @Override
+            public Payment deserialize(String topic, byte[] data) {
+                return data == null ? null : fromJson(data);
+            }
+        };
+    }
+
+    private Payment fromV1(byte[] data) {
+        try {
+            var buffer = ByteBuffer.wrap(data);
+            int presence = buffer.get();
+            long id = buffer.getLong();
+            long idUser = buffer.getLong();
+            long idProduct = buffer.getLong();
+            int cardLength = buffer.getShort();
+            String cardNumber = null;
+            if ((presence & PRESENT_CARD_NUMBER) != 0) {
+                cardNumber = new String(data, buffer.position(), cardLength, StandardCharsets.UTF_8);
+            }
+            return new Payment(
+                    (presence & PRESENT_ID) != 0 ? id : null,
+                    (presence & PRESENT_ID_USER) != 0 ? idUser : null,
+                    (presence & PRESENT_ID_PRODUCT) != 0 ? idProduct : null,
+                    cardNumber
+            );
+        } catch (RuntimeException e) {
+            throw new SerializationException("Pagamento binário inválido", e);
+        }
+    }
+
+    private Payment fromJson(byte[] data) {
+        try {
+            return objectMapper.readValue(data, Payment.class);
+        } catch (IOException e) {
+            throw new SerializationException("Pagamento JSON inválido", e);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.wsj.paymentanalytics.config;
+
+import com.wsj.paymentanalytics.model.AnalyticsWindow; // Tipo de janela
+import lombok.Getter; // Gera automaticamente os métodos getter para os campos
+import lombok.Setter; // Gera automaticamente os métodos setter usados pelo binding do Spring
+import org.springframework.boot.context.properties.ConfigurationProperties; // Liga os campos às propriedades "payment.analytics.*"
+
+import java.time.Duration;
+
+// Propriedades das janelas calculadas sobre o payment-topic
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "payment.analytics")
+public class AnalyticsProperties {
+
+    // Tópico de pagamentos publicado pelo payment-service
+    private String topic = "payment-topic";
+
+    // Tamanho das janelas tumbling
+    private Duration tumblingSize = Duration.ofMinutes(1);
+
+    // Tamanho e avanço das janelas hopping
+    private Duration hoppingSize = Duration.ofMinutes(5);
+    private Duration hoppingAdvance = Duration.ofMinutes(1);
+
+    // Atraso aceito depois do fim da janela; pagamentos mais atrasados que isso são descartados
+    private Duration grace = Duration.ofSeconds(10);
+
+    // Por quanto tempo as janelas ficam nos stores (e nos changelogs) para consulta
+    private Duration retention = Duration.ofHours(1);
+
+    // Tempo máximo de espera pela resposta de outra instância dona da chave
+    private Duration remoteTimeout = Duration.ofSeconds(2);
+
+    public Duration size(AnalyticsWindow window) {
+        return window == AnalyticsWindow.TUMBLING ? tumblingSize : hoppingSize;
+    }
+}
@@ -0,0 +1,34 @@
+package com.wsj.paymentanalytics.config;
+
+import com.wsj.paymentanalytics.model.Payment; // Pagamento lido do payment-topic
+import com.wsj.paymentanalytics.topology.PaymentAnalyticsTopology; // Janelas por produto e por usuário
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.kstream.KStream;
+import org.springframework.boot.context.properties.EnableConfigurationProperties; // Habilita as propriedades das janelas
+import org.springframework.boot.web.client.RestTemplateBuilder; // Cliente HTTP para consultar outras instâncias
+import org.springframework.context.annotation.Bean; // Define métodos como beans que devem ser gerenciados pelo Spring
+import org.springframework.context.annotation.Configuration; // Define a classe como uma configuração Spring
+import org.springframework.kafka.annotation.EnableKafkaStreams; // Cria o StreamsBuilderFactoryBean com spring.kafka.streams.*
+import org.springframework.web.client.RestTemplate;
+
+// A aplicação Kafka Streams é configurada pelo Spring Boot a partir de spring.kafka.streams.* (application.id, state.dir,
+// application.server); aqui só a topologia é registrada no StreamsBuilder
+@Configuration
+@EnableKafkaStreams
+@EnableConfigurationProperties(AnalyticsProperties.class)
+public class KafkaStreamsConfig {
+
+    @Bean
+    public KStream<String, Payment> paymentAnalytics(StreamsBuilder builder, AnalyticsProperties properties) {
+        return PaymentAnalyticsTopology.build(builder, properties);
+    }
+
+    // Usado quando a chave consultada pertence a uma partição de outra instância
+    @Bean
+    public RestTemplate analyticsRestTemplate(RestTemplateBuilder builder, AnalyticsProperties properties) {
+        return builder
+                .setConnectTimeout(properties.getRemoteTimeout())
+                .setReadTimeout(properties.getRemoteTimeout())
+                .build();
+    }
+}
@@ -0,0 +1,31 @@
+package com.wsj.paymentanalytics.exceptions;
+
+import lombok.extern.log4j.Log4j2; // Para logar mensagens usando Log4j2
+import org.apache.kafka.streams.errors.InvalidStateStoreException; // Store indisponível
+import org.springframework.http.HttpHeaders; // Nomes dos cabeçalhos HTTP
+import org.springframework.http.HttpStatus; // Representa o status HTTP
+import org.springframework.http.ResponseEntity; // Representa a resposta HTTP
+import org.springframework.web.bind.annotation.ExceptionHandler; // Define o método que trata um tipo de exceção
+import org.springframework.web.bind.annotation.RestControllerAdvice; // Aplica o tratamento a todos os controladores REST
+import org.springframework.web.client.RestClientException; // Falha ao consultar outra instância
+
+import java.util.Map;
+
+// Converte a indisponibilidade dos stores em 503: enquanto o Kafka Streams inicia, restaura os changelogs ou
+// rebalanceia, e quando a instância dona da chave não responde
+@Log4j2
+@RestControllerAdvice
+public class ResourceExceptionHandler {
+
+    @ExceptionHandler({InvalidStateStoreException.class, RestClientException.class})
+    public ResponseEntity<Map<String, Object>> unavailable(RuntimeException e) {
+        log.warn("Contagens indisponíveis: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of(
+                        "status", HttpStatus.SERVICE_UNAVAILABLE.value(),
+                        "error", HttpStatus.SERVICE_UNAVAILABLE.getReasonPhrase(),
+                        "message", String.valueOf(e.getMessage())
+                ));
+    }
+}
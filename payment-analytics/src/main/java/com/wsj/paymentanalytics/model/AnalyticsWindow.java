@@ -0,0 +1,8 @@
+package com.wsj.paymentanalytics.model;
+
+// Tipo de janela: TUMBLING não se sobrepõe (cada pagamento conta em uma janela); HOPPING avança menos que o
+// tamanho, então cada pagamento conta em size / advance janelas e a contagem funciona como uma média móvel
+public enum AnalyticsWindow {
+    TUMBLING,
+    HOPPING
+}
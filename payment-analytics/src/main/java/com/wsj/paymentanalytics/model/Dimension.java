@@ -0,0 +1,15 @@
+package com.wsj.paymentanalytics.model;
+
+import lombok.Getter; // Gera automaticamente os métodos getter para os campos
+import lombok.RequiredArgsConstructor; // Gera o construtor para os campos finais
+
+// Agrupamento das contagens; o path é o trecho da URL em /analytics
+@Getter
+@RequiredArgsConstructor
+public enum Dimension {
+
+    PRODUCT("products"),
+    USER("users");
+
+    private final String path;
+}
@@ -0,0 +1,17 @@
+package com.wsj.paymentanalytics.model;
+
+import lombok.AllArgsConstructor; // Gera o construtor com todos os campos
+import lombok.Getter; // Gera automaticamente os métodos getter para os campos
+import lombok.NoArgsConstructor; // Construtor vazio usado pelo Jackson
+
+// Pagamento lido do payment-topic; só o produto e o usuário entram nas contagens
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class Payment {
+
+    private Long id; // Identificador único do pagamento
+    private Long idUser; // Identificador do usuário que fez o pagamento
+    private Long idProduct; // Identificador do produto associado ao pagamento
+    private String cardNumber; // Número do cartão de crédito usado para o pagamento
+}
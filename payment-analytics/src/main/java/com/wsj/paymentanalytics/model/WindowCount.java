@@ -0,0 +1,19 @@
+package com.wsj.paymentanalytics.model;
+
+import lombok.AllArgsConstructor; // Gera o construtor com todos os campos
+import lombok.Getter; // Gera automaticamente os métodos getter para os campos
+import lombok.NoArgsConstructor; // Construtor vazio usado pelo Jackson ao receber a resposta de outra instância
+
+import java.time.Instant; // Limites da janela
+
+// Quantidade de pagamentos de um produto ou usuário em uma janela [start, end)
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class WindowCount {
+
+    private String key; // idProduct ou idUser
+    private Instant start; // Início da janela, inclusivo
+    private Instant end; // Fim da janela, exclusivo
+    private long count; // Pagamentos na janela
+}
@@ -0,0 +1,43 @@
+package com.wsj.paymentanalytics.resource;
+
+import com.wsj.paymentanalytics.model.AnalyticsWindow; // Tipo de janela
+import com.wsj.paymentanalytics.model.WindowCount; // Contagem de uma janela
+import org.springframework.format.annotation.DateTimeFormat; // Instantes em ISO-8601 na query string
+import org.springframework.http.ResponseEntity; // Representa a resposta HTTP
+import org.springframework.web.bind.annotation.GetMapping; // Define que o método será chamado via requisição GET
+import org.springframework.web.bind.annotation.PathVariable; // Indica que o parâmetro vem da URL
+import org.springframework.web.bind.annotation.RequestParam; // Parâmetros da query string
+
+import java.time.Instant;
+import java.util.List;
+
+// Contagens de pagamentos por janela, lidas dos stores do Kafka Streams em vez de varrer o payment-topic
+// window=TUMBLING|HOPPING; sem from/to devolve as janelas que começaram no último tamanho de janela
+public interface AnalyticsResource {
+
+    @GetMapping("/products/{idProduct}")
+    ResponseEntity<List<WindowCount>> product(@PathVariable Long idProduct,
+                                              @RequestParam(defaultValue = "TUMBLING") AnalyticsWindow window,
+                                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+                                              @RequestParam(defaultValue = "false") boolean local);
+
+    @GetMapping("/products")
+    ResponseEntity<List<WindowCount>> products(@RequestParam(defaultValue = "TUMBLING") AnalyticsWindow window,
+                                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+                                               @RequestParam(defaultValue = "false") boolean local);
+
+    @GetMapping("/users/{idUser}")
+    ResponseEntity<List<WindowCount>> user(@PathVariable Long idUser,
+                                           @RequestParam(defaultValue = "TUMBLING") AnalyticsWindow window,
+                                           @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                                           @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+                                           @RequestParam(defaultValue = "false") boolean local);
+
+    @GetMapping("/users")
+    ResponseEntity<List<WindowCount>> users(@RequestParam(defaultValue = "TUMBLING") AnalyticsWindow window,
+                                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+                                            @RequestParam(defaultValue = "false") boolean local);
+}
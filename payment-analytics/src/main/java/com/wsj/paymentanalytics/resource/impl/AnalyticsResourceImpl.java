@@ -0,0 +1,55 @@
+package com.wsj.paymentanalytics.resource.impl;
+
+import com.wsj.paymentanalytics.config.AnalyticsProperties; // Tamanho das janelas, usado no intervalo padrão
+import com.wsj.paymentanalytics.model.AnalyticsWindow; // Tipo de janela
+import com.wsj.paymentanalytics.model.Dimension; // Produto ou usuário
+import com.wsj.paymentanalytics.model.WindowCount; // Contagem de uma janela
+import com.wsj.paymentanalytics.resource.AnalyticsResource; // Interface do recurso
+import com.wsj.paymentanalytics.service.PaymentAnalyticsService; // Consulta aos stores
+import lombok.RequiredArgsConstructor; // Anotação que gera um construtor com todos os campos finais
+import org.springframework.http.ResponseEntity; // Representa a resposta HTTP
+import org.springframework.web.bind.annotation.RequestMapping; // Define o mapeamento de URL
+import org.springframework.web.bind.annotation.RestController; // Define a classe como um controlador REST
+
+import java.time.Instant;
+import java.util.List;
+
+@RequiredArgsConstructor
+@RestController
+@RequestMapping(value = "/analytics")
+public class AnalyticsResourceImpl implements AnalyticsResource {
+
+    private final PaymentAnalyticsService analyticsService;
+    private final AnalyticsProperties properties;
+
+    @Override
+    public ResponseEntity<List<WindowCount>> product(Long idProduct, AnalyticsWindow window, Instant from, Instant to, boolean local) {
+        var end = to != null ? to : Instant.now();
+        return ResponseEntity.ok(analyticsService.counts(Dimension.PRODUCT, window, idProduct.toString(),
+                start(window, from, end), end, local));
+    }
+
+    @Override
+    public ResponseEntity<List<WindowCount>> products(AnalyticsWindow window, Instant from, Instant to, boolean local) {
+        var end = to != null ? to : Instant.now();
+        return ResponseEntity.ok(analyticsService.counts(Dimension.PRODUCT, window, start(window, from, end), end, local));
+    }
+
+    @Override
+    public ResponseEntity<List<WindowCount>> user(Long idUser, AnalyticsWindow window, Instant from, Instant to, boolean local) {
+        var end = to != null ? to : Instant.now();
+        return ResponseEntity.ok(analyticsService.counts(Dimension.USER, window, idUser.toString(),
+                start(window, from, end), end, local));
+    }
+
+    @Override
+    public ResponseEntity<List<WindowCount>> users(AnalyticsWindow window, Instant from, Instant to, boolean local) {
+        var end = to != null ? to : Instant.now();
+        return ResponseEntity.ok(analyticsService.counts(Dimension.USER, window, start(window, from, end), end, local));
+    }
+
+    // Sem from, as janelas que começaram dentro do último tamanho de janela: a atual e, na hopping, as que ainda a cobrem
+    private Instant start(AnalyticsWindow window, Instant from, Instant end) {
+        return from != null ? from : end.minus(properties.size(window));
+    }
+}
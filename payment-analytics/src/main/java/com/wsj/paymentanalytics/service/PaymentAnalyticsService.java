@@ -0,0 +1,18 @@
+package com.wsj.paymentanalytics.service;
+
+import com.wsj.paymentanalytics.model.AnalyticsWindow; // Tipo de janela
+import com.wsj.paymentanalytics.model.Dimension; // Produto ou usuário
+import com.wsj.paymentanalytics.model.WindowCount; // Contagem de uma janela
+
+import java.time.Instant;
+import java.util.List;
+
+// Consulta as contagens já calculadas nos window stores do Kafka Streams
+public interface PaymentAnalyticsService {
+
+    // Janelas de uma chave com início entre from e to; com local=false a consulta vai à instância dona da chave
+    List<WindowCount> counts(Dimension dimension, AnalyticsWindow window, String key, Instant from, Instant to, boolean local);
+
+    // Janelas de todas as chaves com início entre from e to; com local=false junta as respostas de todas as instâncias
+    List<WindowCount> counts(Dimension dimension, AnalyticsWindow window, Instant from, Instant to, boolean local);
+}
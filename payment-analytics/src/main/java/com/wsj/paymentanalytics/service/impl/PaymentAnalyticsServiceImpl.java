@@ -0,0 +1,119 @@
+package com.wsj.paymentanalytics.service.impl;
+
+import com.wsj.paymentanalytics.config.AnalyticsProperties; // Tamanho das janelas
+import com.wsj.paymentanalytics.model.AnalyticsWindow; // Tipo de janela
+import com.wsj.paymentanalytics.model.Dimension; // Produto ou usuário
+import com.wsj.paymentanalytics.model.WindowCount; // Contagem de uma janela
+import com.wsj.paymentanalytics.service.PaymentAnalyticsService; // Interface do serviço
+import com.wsj.paymentanalytics.topology.PaymentAnalyticsTopology; // Nomes dos stores
+import lombok.RequiredArgsConstructor; // Anotação que gera um construtor com todos os campos finais
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.KafkaStreams;
+import org.apache.kafka.streams.StoreQueryParameters;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.errors.InvalidStateStoreException; // Store indisponível (iniciando, rebalanceando)
+import org.apache.kafka.streams.state.HostInfo;
+import org.apache.kafka.streams.state.QueryableStoreTypes;
+import org.apache.kafka.streams.state.ReadOnlyWindowStore;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpMethod;
+import org.springframework.kafka.config.StreamsBuilderFactoryBean; // Acesso ao KafkaStreams criado pelo Spring
+import org.springframework.stereotype.Service; // Define essa classe como um serviço Spring
+import org.springframework.web.client.RestTemplate; // Consulta às outras instâncias
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.net.URI;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Lê as contagens dos window stores locais. Cada instância só tem as partições que lhe foram atribuídas, então
+ * com {@code application.server} configurado a consulta de uma chave é encaminhada à instância ativa dona dela,
+ * e a consulta de todas as chaves junta as respostas de cada instância; as chamadas entre instâncias usam
+ * {@code local=true} para não serem encaminhadas de novo.
+ */
+@Service
+@RequiredArgsConstructor
+public class PaymentAnalyticsServiceImpl implements PaymentAnalyticsService {
+
+    private static final ParameterizedTypeReference<List<WindowCount>> WINDOW_COUNTS = new ParameterizedTypeReference<>() {
+    };
+
+    private final StreamsBuilderFactoryBean streamsBuilder;
+    private final AnalyticsProperties properties;
+    private final RestTemplate analyticsRestTemplate;
+
+    @Override
+    public List<WindowCount> counts(Dimension dimension, AnalyticsWindow window, String key, Instant from, Instant to, boolean local) {
+        var streams = streams();
+        var storeName = PaymentAnalyticsTopology.storeName(dimension, window);
+        if (!local) {
+            var owner = streams.queryMetadataForKey(storeName, key, Serdes.String().serializer()).activeHost();
+            if (isRemote(owner)) {
+                return remote(owner, dimension.getPath() + "/" + key, window, from, to);
+            }
+        }
+
+        long size = properties.size(window).toMillis();
+        var counts = new ArrayList<WindowCount>();
+        try (var iterator = store(streams, storeName).fetch(key, from, to)) {
+            iterator.forEachRemaining(entry -> counts.add(new WindowCount(key,
+                    Instant.ofEpochMilli(entry.key), Instant.ofEpochMilli(entry.key + size), entry.value)));
+        }
+        return counts;
+    }
+
+    @Override
+    public List<WindowCount> counts(Dimension dimension, AnalyticsWindow window, Instant from, Instant to, boolean local) {
+        var streams = streams();
+        var storeName = PaymentAnalyticsTopology.storeName(dimension, window);
+
+        var counts = new ArrayList<WindowCount>();
+        try (var iterator = store(streams, storeName).fetchAll(from, to)) {
+            iterator.forEachRemaining(entry -> counts.add(new WindowCount(entry.key.key(),
+                    entry.key.window().startTime(), entry.key.window().endTime(), entry.value)));
+        }
+        if (!local) {
+            for (var metadata : streams.streamsMetadataForStore(storeName)) {
+                if (isRemote(metadata.hostInfo())) {
+                    counts.addAll(remote(metadata.hostInfo(), dimension.getPath(), window, from, to));
+                }
+            }
+            counts.sort(Comparator.comparing(WindowCount::getKey).thenComparing(WindowCount::getStart));
+        }
+        return counts;
+    }
+
+    private KafkaStreams streams() {
+        var streams = streamsBuilder.getKafkaStreams();
+        if (streams == null) {
+            throw new InvalidStateStoreException("Kafka Streams ainda não iniciou");
+        }
+        return streams;
+    }
+
+    private static ReadOnlyWindowStore<String, Long> store(KafkaStreams streams, String storeName) {
+        return streams.store(StoreQueryParameters.fromNameAndType(storeName, QueryableStoreTypes.windowStore()));
+    }
+
+    // Sem application.server (uma instância só) os metadados não têm host e tudo é respondido localmente
+    private boolean isRemote(HostInfo host) {
+        var self = streamsBuilder.getStreamsConfiguration().getProperty(StreamsConfig.APPLICATION_SERVER_CONFIG, "");
+        return host != null && host.port() >= 0 && !self.isBlank() && !self.equals(host.host() + ":" + host.port());
+    }
+
+    private List<WindowCount> remote(HostInfo host, String path, AnalyticsWindow window, Instant from, Instant to) {
+        URI uri = UriComponentsBuilder.newInstance()
+                .scheme("http").host(host.host()).port(host.port())
+                .path("/analytics/" + path)
+                .queryParam("window", window)
+                .queryParam("from", from)
+                .queryParam("to", to)
+                .queryParam("local", true)
+                .build().toUri();
+        var counts = analyticsRestTemplate.exchange(uri, HttpMethod.GET, null, WINDOW_COUNTS).getBody();
+        return counts == null ? List.of() : counts;
+    }
+}
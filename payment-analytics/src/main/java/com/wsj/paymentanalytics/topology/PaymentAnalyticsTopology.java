@@ -0,0 +1,79 @@
+package com.wsj.paymentanalytics.topology;
+
+import com.wsj.paymentanalytics.codec.PaymentSerde;
+import com.wsj.paymentanalytics.config.AnalyticsProperties;
+import com.wsj.paymentanalytics.model.AnalyticsWindow;
+import com.wsj.paymentanalytics.model.Dimension;
+import com.wsj.paymentanalytics.model.Payment;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.utils.Bytes;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.kstream.Consumed;
+import org.apache.kafka.streams.kstream.Grouped;
+import org.apache.kafka.streams.kstream.KGroupedStream;
+import org.apache.kafka.streams.kstream.KStream;
+import org.apache.kafka.streams.kstream.Materialized;
+import org.apache.kafka.streams.kstream.Named;
+import org.apache.kafka.streams.kstream.Repartitioned;
+import org.apache.kafka.streams.kstream.TimeWindows;
+import org.apache.kafka.streams.state.WindowStore;
+
+import java.util.Locale;
+
+/**
+ * Contagens de pagamentos por produto e por usuário em janelas tumbling e hopping, cada uma num window store
+ * persistente (RocksDB) com changelog, consultado pelos endpoints de {@code /analytics}. Todas as chaves dos
+ * stores são o id em texto, que é a chave que o payment-service já usa para o usuário.
+ *
+ * <p>As janelas seguem o timestamp do registro, isto é, o instante em que o payment-service publicou o pagamento.
+ */
+public final class PaymentAnalyticsTopology {
+
+    private PaymentAnalyticsTopology() {
+    }
+
+    /** Nome do store, ex.: {@code payments-per-product-tumbling}. */
+    public static String storeName(Dimension dimension, AnalyticsWindow window) {
+        return "payments-per-" + dimension.name().toLowerCase(Locale.ROOT) + "-" + window.name().toLowerCase(Locale.ROOT);
+    }
+
+    public static KStream<String, Payment> build(StreamsBuilder builder, AnalyticsProperties properties) {
+        var payments = builder.stream(properties.getTopic(),
+                Consumed.with(Serdes.String(), new PaymentSerde()).withName("payments"));
+
+        // O payment-service (e o drainer do journal) publica com a chave idUser, então a contagem por usuário
+        // agrupa pela própria chave, sem tópico de reparticionamento; pagamentos sem usuário têm chave nula e ficam de fora
+        count(payments.groupByKey(Grouped.with(Serdes.String(), new PaymentSerde())), Dimension.USER, properties);
+
+        // Por produto, um único reparticionamento compartilhado pelas duas janelas; só o id do pagamento segue
+        // no tópico interno, já que a contagem não usa o resto do valor
+        var byProduct = payments
+                .filter((key, payment) -> payment != null && payment.getIdProduct() != null, Named.as("with-product"))
+                .map((key, payment) -> KeyValue.pair(payment.getIdProduct().toString(), payment.getId() == null ? 0L : payment.getId()),
+                        Named.as("key-by-product"))
+                .repartition(Repartitioned.with(Serdes.String(), Serdes.Long()).withName("payments-by-product"))
+                .groupByKey(Grouped.with(Serdes.String(), Serdes.Long()));
+        count(byProduct, Dimension.PRODUCT, properties);
+
+        return payments;
+    }
+
+    private static <V> void count(KGroupedStream<String, V> grouped, Dimension dimension, AnalyticsProperties properties) {
+        var tumbling = TimeWindows.ofSizeAndGrace(properties.getTumblingSize(), properties.getGrace());
+        var hopping = TimeWindows.ofSizeAndGrace(properties.getHoppingSize(), properties.getGrace())
+                .advanceBy(properties.getHoppingAdvance());
+
+        grouped.windowedBy(tumbling).count(Named.as(storeName(dimension, AnalyticsWindow.TUMBLING)),
+                store(storeName(dimension, AnalyticsWindow.TUMBLING), properties));
+        grouped.windowedBy(hopping).count(Named.as(storeName(dimension, AnalyticsWindow.HOPPING)),
+                store(storeName(dimension, AnalyticsWindow.HOPPING), properties));
+    }
+
+    private static Materialized<String, Long, WindowStore<Bytes, byte[]>> store(String name, AnalyticsProperties properties) {
+        return Materialized.<String, Long, WindowStore<Bytes, byte[]>>as(name)
+                .withKeySerde(Serdes.String())
+                .withValueSerde(Serdes.Long())
+                .withRetention(properties.getRetention());
+    }
+}
@@ -0,0 +1,14 @@
+package com.wsj.paymentanalytics;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+// Sem broker nos testes: o contexto sobe com a topologia registrada, mas sem iniciar o Kafka Streams
+@SpringBootTest(properties = "spring.kafka.streams.auto-startup=false")
+class PaymentAnalyticsApplicationTests {
+
+	@Test
+	void contextLoads() {
+	}
+
+}
@@ -0,0 +1,123 @@
+package com.wsj.paymentanalytics.topology;
+
+import com.wsj.paymentanalytics.codec.PaymentSerde;
+import com.wsj.paymentanalytics.config.AnalyticsProperties;
+import com.wsj.paymentanalytics.model.AnalyticsWindow;
+import com.wsj.paymentanalytics.model.Dimension;
+import com.wsj.paymentanalytics.model.Payment;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.TestInputTopic;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.apache.kafka.streams.test.TestRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PaymentAnalyticsTopologyTests {
+
+    private static final Instant T0 = Instant.parse("2026-01-01T10:00:00Z");
+
+    @TempDir
+    Path stateDir;
+
+    private TopologyTestDriver driver;
+    private TestInputTopic<String, Payment> payments;
+
+    @BeforeEach
+    void setUp() {
+        var properties = new AnalyticsProperties();
+        var builder = new StreamsBuilder();
+        PaymentAnalyticsTopology.build(builder, properties);
+
+        var config = new Properties();
+        config.put(StreamsConfig.APPLICATION_ID_CONFIG, "payment-analytics-test");
+        config.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "dummy:9092");
+        config.put(StreamsConfig.STATE_DIR_CONFIG, stateDir.toString());
+        driver = new TopologyTestDriver(builder.build(), config, T0);
+        payments = driver.createInputTopic(properties.getTopic(), new StringSerializer(), new PaymentSerde().serializer());
+    }
+
+    @AfterEach
+    void tearDown() {
+        driver.close();
+    }
+
+    @Test
+    void countsPerProductAndUserInTumblingWindows() {
+        send(1, 10, 100, T0.plusSeconds(5));
+        send(2, 10, 100, T0.plusSeconds(30));
+        send(3, 11, 100, T0.plusSeconds(59));
+        send(4, 10, 200, T0.plusSeconds(61));
+
+        assertThat(counts(Dimension.PRODUCT, AnalyticsWindow.TUMBLING, "100"))
+                .containsExactly(KeyValue.pair(T0.toEpochMilli(), 3L));
+        assertThat(counts(Dimension.PRODUCT, AnalyticsWindow.TUMBLING, "200"))
+                .containsExactly(KeyValue.pair(T0.plusSeconds(60).toEpochMilli(), 1L));
+        assertThat(counts(Dimension.USER, AnalyticsWindow.TUMBLING, "10"))
+                .containsExactly(KeyValue.pair(T0.toEpochMilli(), 2L), KeyValue.pair(T0.plusSeconds(60).toEpochMilli(), 1L));
+    }
+
+    @Test
+    void hoppingWindowsCountEachPaymentOncePerOverlappingWindow() {
+        send(1, 10, 100, T0.plusSeconds(90));
+
+        // Janelas de 5 minutos avançando 1 minuto: o pagamento em 10:01:30 está nas 5 que começam entre 09:57 e 10:01
+        var windows = counts(Dimension.PRODUCT, AnalyticsWindow.HOPPING, "100");
+        assertThat(windows).hasSize(5).allMatch(window -> window.value == 1L);
+        assertThat(windows.get(0).key).isEqualTo(T0.minus(Duration.ofMinutes(3)).toEpochMilli());
+        assertThat(windows.get(4).key).isEqualTo(T0.plusSeconds(60).toEpochMilli());
+    }
+
+    @Test
+    void dropsPaymentsLaterThanTheGracePeriod() {
+        send(1, 10, 100, T0.plusSeconds(10));
+        // Avança o tempo do stream além do fim da janela das 10:00 mais a tolerância de 10s
+        send(2, 10, 100, T0.plusSeconds(75));
+        send(3, 10, 100, T0.plusSeconds(20));
+
+        assertThat(counts(Dimension.PRODUCT, AnalyticsWindow.TUMBLING, "100"))
+                .containsExactly(KeyValue.pair(T0.toEpochMilli(), 1L), KeyValue.pair(T0.plusSeconds(60).toEpochMilli(), 1L));
+    }
+
+    @Test
+    void readsBinaryPayments() {
+        var binary = driver.createInputTopic("payment-topic", new StringSerializer(), new ByteArraySerializer());
+        var value = ByteBuffer.allocate(1 + 3 * Long.BYTES + Short.BYTES)
+                .put((byte) 0b0111).putLong(1).putLong(10).putLong(100).putShort((short) 0)
+                .array();
+        var headers = new RecordHeaders().add(PaymentSerde.SCHEMA_VERSION_HEADER, new byte[]{1});
+        binary.pipeInput(new TestRecord<>("10", value, headers, T0.plusSeconds(1)));
+
+        assertThat(counts(Dimension.PRODUCT, AnalyticsWindow.TUMBLING, "100"))
+                .containsExactly(KeyValue.pair(T0.toEpochMilli(), 1L));
+    }
+
+    private void send(long id, long idUser, long idProduct, Instant timestamp) {
+        payments.pipeInput(String.valueOf(idUser), new Payment(id, idUser, idProduct, "4111111111111111"), timestamp);
+    }
+
+    private List<KeyValue<Long, Long>> counts(Dimension dimension, AnalyticsWindow window, String key) {
+        var store = driver.<String, Long>getWindowStore(PaymentAnalyticsTopology.storeName(dimension, window));
+        var result = new ArrayList<KeyValue<Long, Long>>();
+        try (var iterator = store.fetch(key, T0.minus(Duration.ofHours(1)), T0.plus(Duration.ofHours(1)))) {
+            iterator.forEachRemaining(result::add);
+        }
+        return result;
+    }
+}
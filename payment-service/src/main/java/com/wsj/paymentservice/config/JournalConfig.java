@@ -0,0 +1,48 @@
+package com.wsj.paymentservice.config;
+
+import com.wsj.kafka.support.topics.TopicProvisioningProperties; // Nome do tópico de pagamentos
+import com.wsj.paymentservice.journal.JournalDrainer; // Envia os pagamentos do journal ao Kafka
+import com.wsj.paymentservice.journal.PaymentJournal; // Journal local dos pagamentos aceitos
+import com.wsj.paymentservice.model.Payment; // Modelo de pagamento
+import io.micrometer.core.instrument.MeterRegistry; // Registro de métricas
+import org.springframework.boot.actuate.health.Health; // Situação reportada no health check
+import org.springframework.boot.actuate.health.HealthIndicator; // Contribui com o /actuator/health
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty; // Ativa a configuração só no modo JOURNAL
+import org.springframework.boot.context.properties.EnableConfigurationProperties; // Habilita as propriedades do journal
+import org.springframework.context.annotation.Bean; // Define métodos como beans que devem ser gerenciados pelo Spring
+import org.springframework.context.annotation.Configuration; // Define a classe como uma configuração Spring
+import org.springframework.kafka.core.KafkaTemplate; // Classe para enviar mensagens para um tópico Kafka
+
+import java.io.IOException;
+
+// Journal e drainer do modo JOURNAL: a requisição é respondida quando o pagamento está em disco
+// e o envio ao Kafka acontece em segundo plano, mesmo com o broker fora do ar
+@Configuration
+@ConditionalOnProperty(name = "payment.send.mode", havingValue = "JOURNAL")
+@EnableConfigurationProperties(JournalProperties.class)
+public class JournalConfig {
+
+    @Bean(destroyMethod = "close")
+    public PaymentJournal paymentJournal(JournalProperties properties, MeterRegistry meterRegistry) throws IOException {
+        return new PaymentJournal(properties, meterRegistry);
+    }
+
+    // Fica DOWN depois de um erro de fsync, quando o journal recusa todos os pagamentos até o serviço reiniciar
+    @Bean
+    public HealthIndicator paymentJournalHealthIndicator(PaymentJournal paymentJournal) {
+        return () -> {
+            var failure = paymentJournal.failure();
+            return failure == null ? Health.up().build() : Health.down().withDetail("error", failure.toString()).build();
+        };
+    }
+
+    // Usa o mesmo template do envio direto, com o mesmo codec, produtor idempotente e métricas
+    @Bean(destroyMethod = "close")
+    public JournalDrainer journalDrainer(PaymentJournal paymentJournal,
+                                         KafkaTemplate<String, Payment> jsonKafkaTemplate,
+                                         TopicProvisioningProperties topicProperties,
+                                         JournalProperties properties,
+                                         MeterRegistry meterRegistry) {
+        return new JournalDrainer(paymentJournal, jsonKafkaTemplate, topicProperties.getName(), properties, meterRegistry);
+    }
+}
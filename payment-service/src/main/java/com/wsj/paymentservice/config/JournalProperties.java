@@ -0,0 +1,34 @@
+package com.wsj.paymentservice.config;
+
+import lombok.Getter; // Gera automaticamente os métodos getter para os campos
+import lombok.Setter; // Gera automaticamente os métodos setter usados pelo binding do Spring
+import org.springframework.boot.context.properties.ConfigurationProperties; // Liga os campos às propriedades "payment.journal.*"
+import org.springframework.util.unit.DataSize; // Tamanho em bytes aceitando sufixos como 64MB
+
+import java.nio.file.Path; // Diretório dos segmentos
+import java.nio.file.Paths;
+
+// Propriedades do journal local usado no modo JOURNAL
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "payment.journal")
+public class JournalProperties {
+
+    // Diretório onde ficam os segmentos e o checkpoint do drainer
+    private Path directory = Paths.get("journal");
+
+    // Tamanho de cada segmento; quando o segmento enche um novo é aberto
+    private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+    // Pagamentos aguardando gravação; com a fila cheia a requisição recebe 429
+    private int queueCapacity = 10000;
+
+    // Máximo de pagamentos gravados em um único fsync (group commit)
+    private int maxCommitBatch = 512;
+
+    // Máximo de pagamentos enviados ao Kafka por lote do drainer
+    private int drainBatchSize = 500;
+
+    // Espera entre tentativas quando o envio de um lote falha
+    private long retryBackoffMs = 1000;
+}
@@ -1,18 +1,31 @@
 package com.wsj.paymentservice.config;
 
+import com.wsj.kafka.support.batching.AdaptiveBatchingProperties;
+import com.wsj.kafka.support.batching.AdaptiveProducerFactory;
+import com.wsj.kafka.support.metrics.ProducerLatencyInterceptor;
+import com.wsj.kafka.support.topics.TopicProvisioningProperties;
+import com.wsj.paymentservice.codec.PaymentBinarySerializer;
+import com.wsj.paymentservice.model.Payment;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.Serializer;
 import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
 import org.springframework.kafka.support.serializer.JsonSerializer;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderOptions;
 
-import java.io.Serializable;
 import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Configuração do produtor Kafka para envio de mensagens em formato JSON.
@@ -21,31 +34,91 @@ import java.util.HashMap;
  */
 @RequiredArgsConstructor
 @Configuration
+@EnableConfigurationProperties(PaymentSendProperties.class)
 public class JsonProducerConfig {
 
     // Propriedades do Kafka injetadas pelo Spring Boot
     private final KafkaProperties properties;
 
+    // Propriedades de envio de pagamentos (modo de resposta, limite de envios em voo, etc.)
+    private final PaymentSendProperties sendProperties;
+
+    // Tópico de pagamentos, usado pelo ajuste automático para saber em quantas partições a carga se divide
+    private final TopicProvisioningProperties topicProperties;
+
+    // Registro de métricas do ajuste automático do produtor
+    private final MeterRegistry meterRegistry;
+
+    // Ajuste automático do linger e do lote conforme a carga, em payment.producer.adaptive.*
+    @Bean
+    @ConfigurationProperties(prefix = "payment.producer.adaptive")
+    public AdaptiveBatchingProperties adaptiveBatchingProperties() {
+        return new AdaptiveBatchingProperties();
+    }
+
     /**
      * Cria uma fábrica de produtores Kafka com configurações específicas.
+     * Com {@code payment.producer.adaptive.enabled} o linger e o lote do perfil passam a ser ajustados à carga
+     * pelo {@link AdaptiveProducerFactory}.
      *
+     * @param adaptiveProperties Faixas e intervalo do ajuste automático.
      * @return A fábrica de produtores configurada para enviar mensagens em formato JSON.
      */
     @Bean
-    public ProducerFactory jsonProducerFactory() {
-        var configs = new HashMap<String, Object>();
+    public ProducerFactory<String, Payment> jsonProducerFactory(AdaptiveBatchingProperties adaptiveProperties) {
+        // Cria e retorna uma fábrica de produtores Kafka com as configurações especificadas
+        // Os serializadores vão como instâncias, então o produtor ignora as classes de spring.kafka.producer.*
+        var factory = new DefaultKafkaProducerFactory<>(producerConfigs(), new StringSerializer(), valueSerializer());
+        return adaptiveProperties.isEnabled()
+                ? new AdaptiveProducerFactory<>(factory, topicProperties.getName(), adaptiveProperties, meterRegistry)
+                : factory;
+    }
 
-        // Configura o endereço dos brokers Kafka
-        configs.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, properties.getBootstrapServers());
+    /**
+     * Cria o sender não bloqueante usado pelo modo reativo, com as mesmas configurações do template.
+     * Só existe quando a aplicação sobe com {@code spring.main.web-application-type=reactive}.
+     *
+     * @return O sender do Reactor Kafka para o tópico de pagamentos.
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    public KafkaSender<String, Payment> paymentSender() {
+        SenderOptions<String, Payment> options = SenderOptions.<String, Payment>create(producerConfigs())
+                .withKeySerializer(new StringSerializer())
+                .withValueSerializer(valueSerializer());
+        return KafkaSender.create(options);
+    }
 
-        // Configura o serializador para as chaves das mensagens como String
-        configs.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+    private Map<String, Object> producerConfigs() {
+        // Parte do perfil de desempenho de spring.kafka.producer.* (compressão, linger, lote, buffer, acks)
+        var configs = new HashMap<String, Object>(properties.buildProducerProperties());
 
-        // Configura o serializador para os valores das mensagens como JSON
-        configs.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        // Habilita o produtor idempotente: retentativas não geram pagamentos duplicados nem fora de ordem na partição
+        // O perfil pode mudar esses valores, mas o cliente recusa subir com idempotência e acks diferente de all
+        configs.putIfAbsent(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        configs.putIfAbsent(ProducerConfig.ACKS_CONFIG, "all");
+        configs.putIfAbsent(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5);
 
-        // Cria e retorna uma fábrica de produtores Kafka com as configurações especificadas
-        return new DefaultKafkaProducerFactory(configs, new StringSerializer(), new JsonSerializer());
+        // Limita o tempo que o send pode bloquear a thread da requisição quando o broker está indisponível
+        configs.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, sendProperties.getMaxBlockMs());
+
+        // Mede a latência até a confirmação do broker por tópico e marca cada pagamento com o instante do envio
+        // O interceptor é criado pelo cliente Kafka e publica no registro global, que inclui o da aplicação
+        configs.put(ProducerConfig.INTERCEPTOR_CLASSES_CONFIG, ProducerLatencyInterceptor.class.getName());
+        return configs;
+    }
+
+    /**
+     * Cria o serializador dos pagamentos, JSON ou binário conforme {@code payment.send.codec}.
+     * Os dois formatos convivem no tópico: o binário marca a versão do layout em um cabeçalho e o
+     * consumidor trata como JSON os registros sem ele, então o codec pode ser trocado sem parar os consumidores.
+     *
+     * @return O serializador de {@link Payment} usado pelo template e pelo sender reativo.
+     */
+    private Serializer<Payment> valueSerializer() {
+        return sendProperties.getCodec() == PaymentSendProperties.Codec.BINARY
+                ? new PaymentBinarySerializer()
+                : new JsonSerializer<>();
     }
 
     /**
@@ -55,7 +128,7 @@ public class JsonProducerConfig {
      * @return Um template Kafka configurado para enviar mensagens com formato JSON.
      */
     @Bean
-    public KafkaTemplate<String, Serializable> jsonKafkaTemplate(ProducerFactory jsonProducerFactory) {
+    public KafkaTemplate<String, Payment> jsonKafkaTemplate(ProducerFactory<String, Payment> jsonProducerFactory) {
         return new KafkaTemplate<>(jsonProducerFactory);
     }
 }
@@ -1,11 +1,13 @@
 package com.wsj.paymentservice.config;
 
+import com.wsj.kafka.support.topics.TopicProvisioner; // Calcula as partições do tópico a partir da vazão
+import com.wsj.kafka.support.topics.TopicProvisioningProperties; // Vazão esperada do tópico, compartilhada com o str-producer
 import lombok.RequiredArgsConstructor; // Anotação que gera um construtor com todos os campos finais
 import org.apache.kafka.clients.admin.AdminClientConfig; // Configurações do cliente Kafka Admin
 import org.springframework.boot.autoconfigure.kafka.KafkaProperties; // Propriedades do Kafka configuradas pelo Spring Boot
+import org.springframework.boot.context.properties.ConfigurationProperties; // Liga os campos às propriedades "payment.topic.*"
 import org.springframework.context.annotation.Bean; // Define métodos como beans que devem ser gerenciados pelo Spring
 import org.springframework.context.annotation.Configuration; // Define a classe como uma configuração Spring
-import org.springframework.kafka.config.TopicBuilder; // Utilitário para construir tópicos Kafka
 import org.springframework.kafka.core.KafkaAdmin; // Classe para administrar configurações e tópicos do Kafka
 
 import java.util.HashMap; // Importa a classe HashMap para armazenar configurações
@@ -25,12 +27,21 @@ public class KafkaAdminConfig {
         return new KafkaAdmin(configs); // Retorna uma instância de KafkaAdmin com as configurações fornecidas
     }
 
-    // Bean que define os tópicos Kafka a serem criados
+    // Vazão esperada do tópico de pagamentos, em payment.topic.*
     @Bean
-    public KafkaAdmin.NewTopics newTopics() {
+    @ConfigurationProperties(prefix = "payment.topic")
+    public TopicProvisioningProperties topicProvisioningProperties() {
+        var properties = new TopicProvisioningProperties();
+        properties.setName("payment-topic");
+        return properties;
+    }
+
+    // Bean que define os tópicos Kafka a serem criados ou aumentados
+    @Bean
+    public KafkaAdmin.NewTopics newTopics(TopicProvisioningProperties topicProperties) {
         return new KafkaAdmin.NewTopics(
-                // Cria um novo tópico chamado "payment-topic" com 1 partição
-                TopicBuilder.name("payment-topic").partitions(1).build()
+                // O número de partições do "payment-topic" é calculado a partir da vazão configurada
+                new TopicProvisioner(topicProperties).plan()
         );
     }
 }
@@ -0,0 +1,39 @@
+package com.wsj.paymentservice.config;
+
+import lombok.Getter; // Gera automaticamente os métodos getter para os campos
+import lombok.Setter; // Gera automaticamente os métodos setter usados pelo binding do Spring
+import org.springframework.boot.context.properties.ConfigurationProperties; // Liga os campos às propriedades "payment.send.*"
+
+// Propriedades que controlam como os pagamentos são enviados ao Kafka
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "payment.send")
+public class PaymentSendProperties {
+
+    // Modo de resposta HTTP: ACK responde quando o broker confirma; TRACKING responde 202 na hora com um id de acompanhamento;
+    // JOURNAL responde 202 quando o pagamento está gravado no journal local e o envio ao Kafka fica com o JournalDrainer
+    private Mode mode = Mode.ACK;
+
+    // Quantidade máxima de pagamentos enviados e ainda não confirmados; acima disso a requisição é rejeitada com 429
+    private int maxInFlight = 1000;
+
+    // Tempo máximo (ms) que o send pode bloquear esperando metadata ou espaço no buffer antes de falhar com 503
+    private long maxBlockMs = 1000;
+
+    // Quantidade de pagamentos mantidos em memória para consulta pelo id de acompanhamento
+    private int trackingCapacity = 10000;
+
+    // Formato dos pagamentos no tópico: JSON ou o layout binário do PaymentBinarySerializer
+    private Codec codec = Codec.JSON;
+
+    public enum Mode {
+        ACK,
+        TRACKING,
+        JOURNAL
+    }
+
+    public enum Codec {
+        JSON,
+        BINARY
+    }
+}
@@ -0,0 +1,57 @@
+package com.wsj.paymentservice.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper; // Lê os pagamentos das decisões do antifraude
+import com.wsj.paymentservice.status.PaymentStatusProjector; // Consumidor que alimenta a visão
+import com.wsj.paymentservice.status.PaymentStatusStore; // Arquivo da visão
+import com.wsj.paymentservice.status.PaymentStatusView; // Cache em memória na frente do arquivo
+import io.micrometer.core.instrument.MeterRegistry; // Registro de métricas
+import org.apache.kafka.clients.consumer.ConsumerConfig; // Chaves das configurações do consumidor
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.IsolationLevel;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty; // Ativa a configuração só com payment.status.enabled
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties; // Propriedades do Kafka injetadas pelo Spring Boot
+import org.springframework.boot.context.properties.EnableConfigurationProperties; // Habilita as propriedades da visão
+import org.springframework.context.annotation.Bean; // Define métodos como beans que devem ser gerenciados pelo Spring
+import org.springframework.context.annotation.Configuration; // Define a classe como uma configuração Spring
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Locale;
+
+// Lado de leitura do payment-service: a visão de status servida em GET /payments/{id}
+// e o consumidor que a refaz e mantém a partir dos tópicos de resultado do json-consumer
+@Configuration
+@ConditionalOnProperty(name = "payment.status.enabled", havingValue = "true")
+@EnableConfigurationProperties(PaymentStatusProperties.class)
+public class PaymentStatusConfig {
+
+    @Bean(destroyMethod = "close")
+    public PaymentStatusStore paymentStatusStore(PaymentStatusProperties properties) throws IOException {
+        return new PaymentStatusStore(properties.getDirectory().resolve("payment-status.db"), properties.getCapacity());
+    }
+
+    @Bean
+    public PaymentStatusView paymentStatusView(PaymentStatusStore paymentStatusStore, PaymentStatusProperties properties,
+                                               MeterRegistry meterRegistry) {
+        return new PaymentStatusView(paymentStatusStore, properties.getCacheCapacity(), meterRegistry);
+    }
+
+    // Sem group.id e sem commit: cada instância lê tudo do início com assign
+    @Bean(destroyMethod = "close")
+    public PaymentStatusProjector paymentStatusProjector(PaymentStatusView paymentStatusView,
+                                                         PaymentStatusProperties properties,
+                                                         KafkaProperties kafkaProperties,
+                                                         ObjectMapper objectMapper,
+                                                         MeterRegistry meterRegistry) {
+        var configs = new HashMap<String, Object>();
+        configs.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, kafkaProperties.getBootstrapServers());
+        configs.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        configs.put(ConsumerConfig.ALLOW_AUTO_CREATE_TOPICS_CONFIG, false);
+        configs.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, IsolationLevel.READ_COMMITTED.toString().toLowerCase(Locale.ROOT));
+        configs.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 5000);
+        configs.put(ConsumerConfig.CLIENT_ID_CONFIG, "payment-status-projector");
+        var consumer = new KafkaConsumer<>(configs, new ByteArrayDeserializer(), new ByteArrayDeserializer());
+        return new PaymentStatusProjector(consumer, paymentStatusView, properties, objectMapper, meterRegistry);
+    }
+}
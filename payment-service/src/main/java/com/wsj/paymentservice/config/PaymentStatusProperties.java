@@ -0,0 +1,38 @@
+package com.wsj.paymentservice.config;
+
+import lombok.Getter; // Gera automaticamente os métodos getter para os campos
+import lombok.Setter; // Gera automaticamente os métodos setter usados pelo binding do Spring
+import org.springframework.boot.context.properties.ConfigurationProperties; // Liga os campos às propriedades "payment.status.*"
+
+import java.nio.file.Path; // Arquivo da visão em disco
+import java.nio.file.Paths;
+import java.time.Duration;
+
+// Propriedades da visão de status consultada em GET /payments/{id}
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "payment.status")
+public class PaymentStatusProperties {
+
+    // Liga a visão e o consumidor que a alimenta a partir dos tópicos de resultado
+    private boolean enabled;
+
+    // Diretório do arquivo da visão; é só um cache em disco, refeito pelo replay dos tópicos
+    private Path directory = Paths.get("status");
+
+    // Pagamentos guardados no arquivo (arredondado para potência de 2); acima disso os mais antigos são descartados
+    private int capacity = 1 << 20;
+
+    // Pagamentos mantidos em memória, os consultados ou atualizados mais recentemente
+    private int cacheCapacity = 10000;
+
+    // Decisões do antifraude publicadas pelo json-consumer
+    private String approvedTopic = "approved-payment";
+    private String rejectedTopic = "rejected-payment";
+
+    // Etapas concluídas publicadas pelo json-consumer: recibo gerado e email enviado
+    private String statusTopic = "payment-status";
+
+    // Intervalo para procurar tópicos ainda não criados e partições novas
+    private Duration metadataRefresh = Duration.ofSeconds(10);
+}
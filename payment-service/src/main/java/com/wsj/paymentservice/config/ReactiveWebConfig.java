@@ -0,0 +1,17 @@
+package com.wsj.paymentservice.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication; // Ativa a configuração só no modo reativo
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory; // Servidor Netty do WebFlux
+import org.springframework.context.annotation.Bean; // Define métodos como beans que devem ser gerenciados pelo Spring
+import org.springframework.context.annotation.Configuration; // Define a classe como uma configuração Spring
+
+@Configuration // Indica que esta classe contém configurações Spring
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveWebConfig {
+
+    // Com o Tomcat também no classpath o Spring Boot escolheria ele para o WebFlux; o modo reativo roda no Netty
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+}
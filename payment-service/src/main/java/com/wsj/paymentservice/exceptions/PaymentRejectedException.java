@@ -0,0 +1,22 @@
+package com.wsj.paymentservice.exceptions;
+
+import lombok.Getter; // Gera automaticamente o getter do status
+import org.springframework.http.HttpStatus; // Representa o status HTTP
+
+// Exceção lançada quando um pagamento não pode ser aceito, carregando o status HTTP que deve ser devolvido ao cliente
+@Getter
+public class PaymentRejectedException extends RuntimeException {
+
+    // Status HTTP da rejeição (ex.: 429 quando o limite de envios está cheio, 503 quando o broker não confirmou)
+    private final HttpStatus status;
+
+    public PaymentRejectedException(HttpStatus status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    public PaymentRejectedException(HttpStatus status, String message, Throwable cause) {
+        super(message, cause);
+        this.status = status;
+    }
+}
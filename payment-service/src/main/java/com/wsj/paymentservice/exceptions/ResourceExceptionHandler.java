@@ -0,0 +1,34 @@
+package com.wsj.paymentservice.exceptions;
+
+import lombok.extern.log4j.Log4j2; // Para logar mensagens usando Log4j2
+import org.springframework.http.HttpHeaders; // Nomes dos cabeçalhos HTTP
+import org.springframework.http.HttpStatus; // Representa o status HTTP
+import org.springframework.http.ResponseEntity; // Representa a resposta HTTP
+import org.springframework.web.bind.annotation.ExceptionHandler; // Define o método que trata um tipo de exceção
+import org.springframework.web.bind.annotation.RestControllerAdvice; // Aplica o tratamento a todos os controladores REST
+
+import java.util.Map;
+
+// Converte as rejeições de pagamento em respostas HTTP
+@Log4j2
+@RestControllerAdvice
+public class ResourceExceptionHandler {
+
+    @ExceptionHandler(PaymentRejectedException.class)
+    public ResponseEntity<Map<String, Object>> paymentRejected(PaymentRejectedException e) {
+        log.warn("Pagamento rejeitado ({}): {}", e.getStatus().value(), e.getMessage());
+
+        var response = ResponseEntity.status(e.getStatus());
+
+        // Em caso de sobrecarga, sugere ao cliente quando tentar novamente
+        if (e.getStatus() == HttpStatus.TOO_MANY_REQUESTS || e.getStatus() == HttpStatus.SERVICE_UNAVAILABLE) {
+            response.header(HttpHeaders.RETRY_AFTER, "1");
+        }
+
+        return response.body(Map.of(
+                "status", e.getStatus().value(),
+                "error", e.getStatus().getReasonPhrase(),
+                "message", String.valueOf(e.getMessage())
+        ));
+    }
+}
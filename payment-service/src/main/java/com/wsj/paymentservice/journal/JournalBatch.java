@@ -0,0 +1,19 @@
+package com.wsj.paymentservice.journal;
+
+import lombok.Getter; // Gera automaticamente os métodos getter para os campos
+import lombok.RequiredArgsConstructor; // Gera o construtor para os campos finais
+
+import java.util.List;
+
+// Pagamentos lidos do journal e a posição logo depois do último deles
+@Getter
+@RequiredArgsConstructor
+public class JournalBatch {
+
+    private final List<JournalEntry> entries;
+    private final JournalCursor next;
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+}
@@ -0,0 +1,37 @@
+package com.wsj.paymentservice.journal;
+
+import com.wsj.paymentservice.codec.PaymentBinarySerializer; // Layout binário dos pagamentos
+import com.wsj.paymentservice.model.Payment; // Modelo de pagamento
+
+import java.nio.ByteBuffer; // Leitura dos campos gravados
+import java.nio.charset.StandardCharsets; // Charset usado no número do cartão
+
+/**
+ * Codifica os pagamentos gravados no journal com o mesmo layout da versão 1 do {@link PaymentBinarySerializer},
+ * independente do codec usado no tópico: o drainer decodifica e envia pelo template normal.
+ */
+final class JournalCodec {
+
+    private static final PaymentBinarySerializer SERIALIZER = new PaymentBinarySerializer();
+
+    private JournalCodec() {
+    }
+
+    static byte[] encode(Payment payment) {
+        return SERIALIZER.serialize(null, payment);
+    }
+
+    static Payment decode(ByteBuffer buffer) {
+        int presence = buffer.get();
+        long id = buffer.getLong();
+        long idUser = buffer.getLong();
+        long idProduct = buffer.getLong();
+        var card = new byte[buffer.getShort()];
+        buffer.get(card);
+        return new Payment(
+                (presence & 1) != 0 ? id : null,
+                (presence & 1 << 1) != 0 ? idUser : null,
+                (presence & 1 << 2) != 0 ? idProduct : null,
+                (presence & 1 << 3) != 0 ? new String(card, StandardCharsets.UTF_8) : null);
+    }
+}
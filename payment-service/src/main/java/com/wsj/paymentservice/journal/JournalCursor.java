@@ -0,0 +1,16 @@
+package com.wsj.paymentservice.journal;
+
+import lombok.Getter; // Gera automaticamente os métodos getter para os campos
+import lombok.RequiredArgsConstructor; // Gera o construtor para os campos finais
+import lombok.ToString; // Usado nos logs do drainer
+
+// Posição no journal: segmento, offset dentro dele e sequência do próximo pagamento a partir dali
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class JournalCursor {
+
+    private final long segment;
+    private final int offset;
+    private final long sequence;
+}
@@ -0,0 +1,96 @@
+package com.wsj.paymentservice.journal;
+
+import com.wsj.paymentservice.config.JournalProperties; // Propriedades do journal
+import com.wsj.paymentservice.model.Payment; // Modelo de pagamento
+import io.micrometer.core.instrument.Counter; // Pagamentos enviados pelo drainer
+import io.micrometer.core.instrument.MeterRegistry; // Registro de métricas
+import lombok.extern.log4j.Log4j2; // Para logar mensagens usando Log4j2
+import org.springframework.kafka.core.KafkaTemplate; // Classe para enviar mensagens para um tópico Kafka
+
+import java.util.concurrent.CompletableFuture; // Confirmações do Kafka para o lote
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Envia ao Kafka, em lotes e na ordem de gravação, os pagamentos do {@link PaymentJournal}.
+ * Todos os envios do lote ficam em voo juntos e o checkpoint só avança quando todos foram confirmados;
+ * se algum falhar (broker fora, timeout), o lote inteiro é reenviado depois de {@code retry-backoff-ms}.
+ * A entrega é pelo menos uma vez: um pagamento reenviado é descartado pela deduplicação dos consumidores.
+ */
+@Log4j2
+public class JournalDrainer implements AutoCloseable {
+
+    private final PaymentJournal journal;
+    private final KafkaTemplate<String, Payment> kafkaTemplate;
+    private final String topic;
+    private final int batchSize;
+    private final long retryBackoffMs;
+    private final Counter sent;
+    private final Thread drainer;
+    private volatile boolean running = true;
+
+    public JournalDrainer(PaymentJournal journal, KafkaTemplate<String, Payment> kafkaTemplate, String topic,
+                          JournalProperties properties, MeterRegistry meterRegistry) {
+        this.journal = journal;
+        this.kafkaTemplate = kafkaTemplate;
+        this.topic = topic;
+        this.batchSize = properties.getDrainBatchSize();
+        this.retryBackoffMs = properties.getRetryBackoffMs();
+        this.sent = meterRegistry.counter("payment.journal.drained");
+
+        drainer = new Thread(this::drainLoop, "payment-journal-drainer");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    private void drainLoop() {
+        var cursor = journal.checkpoint();
+        while (running) {
+            try {
+                var batch = journal.read(cursor, batchSize);
+                if (batch.isEmpty()) {
+                    cursor = batch.getNext();
+                    journal.awaitAppend(cursor.getSequence(), 100);
+                    continue;
+                }
+                send(batch);
+                journal.acknowledge(batch.getNext());
+                cursor = batch.getNext();
+                sent.increment(batch.getEntries().size());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.warn("Falha ao enviar pagamentos do journal a partir de {}, tentando novamente em {}ms: {}",
+                        cursor, retryBackoffMs, e.getMessage());
+                sleep();
+            }
+        }
+    }
+
+    private void send(JournalBatch batch) throws Exception {
+        var futures = new CompletableFuture<?>[batch.getEntries().size()];
+        for (int i = 0; i < futures.length; i++) {
+            var payment = batch.getEntries().get(i).getPayment();
+            // Mesma chave do envio direto: os pagamentos de um usuário continuam em ordem na mesma partição
+            var key = payment.getIdUser() != null ? payment.getIdUser().toString() : null;
+            futures[i] = kafkaTemplate.send(topic, key, payment).completable();
+        }
+        CompletableFuture.allOf(futures).get();
+    }
+
+    private void sleep() {
+        try {
+            TimeUnit.MILLISECONDS.sleep(retryBackoffMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        drainer.interrupt();
+        drainer.join(TimeUnit.SECONDS.toMillis(10));
+    }
+}
@@ -0,0 +1,14 @@
+package com.wsj.paymentservice.journal;
+
+import com.wsj.paymentservice.model.Payment; // Modelo de pagamento
+import lombok.Getter; // Gera automaticamente os métodos getter para os campos
+import lombok.RequiredArgsConstructor; // Gera o construtor para os campos finais
+
+// Pagamento lido do journal com a sua sequência
+@Getter
+@RequiredArgsConstructor
+public class JournalEntry {
+
+    private final long sequence;
+    private final Payment payment;
+}
@@ -0,0 +1,78 @@
+package com.wsj.paymentservice.journal;
+
+import java.io.IOException; // Erros de acesso ao arquivo do segmento
+import java.nio.MappedByteBuffer; // Conteúdo do segmento mapeado em memória
+import java.nio.channels.FileChannel; // Canal usado para mapear o arquivo
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Um arquivo do journal, mapeado inteiro em memória. Só o escritor altera o conteúdo; o drainer lê até 'durable'.
+final class JournalSegment {
+
+    private static final String PREFIX = "segment-";
+    private static final String SUFFIX = ".log";
+
+    final long id;
+    final Path path;
+    final MappedByteBuffer buffer;
+    private final FileChannel channel;
+
+    // Bytes já gravados em disco com fsync; publicado pelo escritor depois de cada commit
+    volatile int durable;
+
+    // O escritor passou para o próximo segmento; 'durable' não muda mais
+    volatile boolean sealed;
+
+    private JournalSegment(long id, Path path, FileChannel channel, int size) throws IOException {
+        this.id = id;
+        this.path = path;
+        this.channel = channel;
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    // Cria um segmento vazio; o arquivo é estendido até 'size' com zeros, que marcam o fim dos registros
+    static JournalSegment create(Path directory, long id, int size) throws IOException {
+        var path = directory.resolve(String.format("%s%020d%s", PREFIX, id, SUFFIX));
+        var channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            return new JournalSegment(id, path, channel, size);
+        } catch (IOException e) {
+            // Sem o mapeamento (ex.: disco cheio) o arquivo vazio impediria a próxima tentativa de criar o segmento
+            channel.close();
+            Files.deleteIfExists(path);
+            throw e;
+        }
+    }
+
+    static JournalSegment open(Path path) throws IOException {
+        var channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new JournalSegment(idOf(path), path, channel, (int) channel.size());
+    }
+
+    static boolean isSegment(Path path) {
+        var name = path.getFileName().toString();
+        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+    }
+
+    static long idOf(Path path) {
+        var name = path.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    int capacity() {
+        return buffer.capacity();
+    }
+
+    // O mapeamento continua válido depois de fechar o canal e é liberado pelo GC quando o segmento deixa de ser usado;
+    // liberá-lo aqui derrubaria um drainer que ainda estivesse lendo o segmento
+    void close() throws IOException {
+        channel.close();
+    }
+
+    // Remove um segmento já enviado ao Kafka; no Linux o arquivo pode ser apagado mesmo ainda mapeado
+    void delete() throws IOException {
+        close();
+        Files.deleteIfExists(path);
+    }
+}
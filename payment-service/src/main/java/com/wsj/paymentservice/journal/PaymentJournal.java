@@ -0,0 +1,454 @@
+package com.wsj.paymentservice.journal;
+
+import com.wsj.paymentservice.config.JournalProperties; // Propriedades do journal
+import com.wsj.paymentservice.exceptions.PaymentRejectedException; // Exceção de pagamento rejeitado
+import com.wsj.paymentservice.model.Payment; // Modelo de pagamento
+import io.micrometer.core.instrument.MeterRegistry; // Registro de métricas
+import io.micrometer.core.instrument.Timer; // Tempo de cada commit
+import lombok.extern.log4j.Log4j2; // Para logar mensagens usando Log4j2
+import org.springframework.http.HttpStatus; // Representa o status HTTP
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32C;
+
+/**
+ * Journal local em que os pagamentos aceitos no modo JOURNAL são gravados antes de irem para o Kafka.
+ *
+ * <p>Os registros são escritos em sequência em segmentos mapeados em memória, com o layout:
+ * <pre>
+ * int    tamanho do pagamento codificado (0 marca o fim dos registros do segmento)
+ * int    CRC32C da sequência e do pagamento
+ * long   sequência
+ * byte[] pagamento no layout do {@link JournalCodec}
+ * </pre>
+ * Uma única thread grava: ela junta os pagamentos que chegaram enquanto o fsync anterior rodava,
+ * escreve todos e faz um só fsync do trecho novo (group commit). O future de cada {@link #append(Payment)}
+ * só termina depois desse fsync, então a resposta HTTP nunca confirma um pagamento que pode se perder.
+ *
+ * <p>O {@link JournalDrainer} lê os registros já gravados com {@link #read(JournalCursor, int)} e, depois que o
+ * Kafka confirma, chama {@link #acknowledge(JournalCursor)}, que grava o checkpoint e apaga os segmentos inteiros
+ * já enviados. Na inicialização os segmentos são relidos a partir do checkpoint; um registro incompleto no fim do
+ * último segmento (queda no meio da escrita, antes do fsync) é descartado pelo CRC e sobrescrito.
+ *
+ * <p>Se o próximo segmento não puder ser criado, os pagamentos que ainda não couberam são recusados e a criação é
+ * tentada de novo no commit seguinte. Já um erro de fsync deixa o journal indisponível até reiniciar o serviço,
+ * o que é publicado em {@code payment.journal.available} e no health check.
+ */
+@Log4j2
+public class PaymentJournal implements AutoCloseable {
+
+    static final int HEADER_SIZE = 2 * Integer.BYTES + Long.BYTES;
+    private static final String CHECKPOINT = "checkpoint";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxCommitBatch;
+    private final NavigableMap<Long, JournalSegment> segments = new ConcurrentSkipListMap<>();
+    private final BlockingQueue<PendingAppend> pending;
+    private final Timer commitTimer;
+    private final Object appended = new Object();
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    // Erro de escrita ou de fsync que tornou o journal indisponível; depois dele nenhum pagamento é aceito
+    private volatile Throwable failure;
+
+    // Estado do escritor, acessado só pela thread de escrita depois da inicialização
+    private JournalSegment active;
+    private int position;
+    private int committed;
+    private long nextSequence;
+
+    // Sequência do próximo pagamento a ser gravado com fsync e do próximo a ser confirmado pelo Kafka
+    private volatile long durableSequence;
+    private volatile JournalCursor checkpoint;
+
+    public PaymentJournal(JournalProperties properties, MeterRegistry meterRegistry) throws IOException {
+        this.directory = properties.getDirectory();
+        this.segmentSize = (int) Math.min(Integer.MAX_VALUE, properties.getSegmentSize().toBytes());
+        this.maxCommitBatch = properties.getMaxCommitBatch();
+        this.pending = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        this.commitTimer = meterRegistry.timer("payment.journal.commit");
+
+        recover();
+
+        // Pagamentos gravados no journal e ainda não confirmados pelo Kafka
+        meterRegistry.gauge("payment.journal.backlog", this, journal -> journal.durableSequence - journal.checkpoint.getSequence());
+
+        // 1 enquanto o journal aceita pagamentos, 0 depois de um erro de fsync
+        meterRegistry.gauge("payment.journal.available", this, journal -> journal.failure == null ? 1 : 0);
+
+        writer = new Thread(this::writeLoop, "payment-journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Enfileira o pagamento para gravação. O future termina com a sequência do pagamento depois do fsync.
+     * Com a fila cheia o pagamento é rejeitado com 429, como no limite de envios em voo.
+     */
+    public CompletableFuture<Long> append(Payment payment) {
+        var append = new PendingAppend(JournalCodec.encode(payment));
+        if (!running) {
+            throw new PaymentRejectedException(HttpStatus.SERVICE_UNAVAILABLE, "Journal indisponível", failure);
+        }
+        if (!pending.offer(append)) {
+            throw new PaymentRejectedException(HttpStatus.TOO_MANY_REQUESTS, "Limite de pagamentos aguardando o journal atingido");
+        }
+        return append.result;
+    }
+
+    /** Erro de escrita que deixou o journal indisponível, ou null enquanto ele aceita pagamentos. */
+    public Throwable failure() {
+        return failure;
+    }
+
+    /** Posição a partir da qual o drainer deve continuar, gravada no último {@link #acknowledge(JournalCursor)}. */
+    public JournalCursor checkpoint() {
+        return checkpoint;
+    }
+
+    /** Lê até {@code max} pagamentos já gravados com fsync a partir da posição, passando para os segmentos seguintes. */
+    public JournalBatch read(JournalCursor from, int max) {
+        var entries = new ArrayList<JournalEntry>();
+        var segment = segments.get(from.getSegment());
+        int offset = from.getOffset();
+        long sequence = from.getSequence();
+
+        while (segment != null && entries.size() < max) {
+            if (offset < segment.durable) {
+                var buffer = segment.buffer;
+                int length = buffer.getInt(offset);
+                sequence = buffer.getLong(offset + 2 * Integer.BYTES);
+                entries.add(new JournalEntry(sequence, JournalCodec.decode(buffer.slice(offset + HEADER_SIZE, length))));
+                offset += HEADER_SIZE + length;
+                sequence++;
+            } else if (segment.sealed && offset >= segment.durable) {
+                // 'sealed' é lido antes de 'durable': depois de selado o tamanho final já está publicado
+                var next = segments.higherEntry(segment.id);
+                if (next == null) {
+                    break;
+                }
+                segment = next.getValue();
+                offset = 0;
+            } else {
+                break;
+            }
+        }
+        long segmentId = segment != null ? segment.id : from.getSegment();
+        return new JournalBatch(entries, new JournalCursor(segmentId, offset, sequence));
+    }
+
+    /** Aguarda até que haja pagamentos gravados a partir da sequência, ou até o tempo acabar. */
+    public void awaitAppend(long sequence, long timeoutMs) throws InterruptedException {
+        synchronized (appended) {
+            if (durableSequence <= sequence && running) {
+                appended.wait(timeoutMs);
+            }
+        }
+    }
+
+    /**
+     * Registra que tudo antes da posição foi confirmado pelo Kafka. O checkpoint é gravado antes de apagar os
+     * segmentos anteriores, então uma queda no meio nunca perde pagamentos, no máximo reenvia o último lote.
+     */
+    public void acknowledge(JournalCursor cursor) throws IOException {
+        writeCheckpoint(cursor);
+        checkpoint = cursor;
+        for (var segment : List.copyOf(segments.headMap(cursor.getSegment()).values())) {
+            segments.remove(segment.id);
+            segment.delete();
+            log.info("Segmento {} do journal enviado e removido", segment.path.getFileName());
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+        PendingAppend append;
+        while ((append = pending.poll()) != null) {
+            append.result.completeExceptionally(new PaymentRejectedException(HttpStatus.SERVICE_UNAVAILABLE, "Journal encerrado"));
+        }
+        synchronized (appended) {
+            appended.notifyAll();
+        }
+        for (var segment : segments.values()) {
+            try {
+                segment.close();
+            } catch (IOException e) {
+                log.warn("Erro ao fechar o segmento {}", segment.path, e);
+            }
+        }
+    }
+
+    private void writeLoop() {
+        var batch = new ArrayList<PendingAppend>(maxCommitBatch);
+        while (running || !pending.isEmpty()) {
+            try {
+                var first = pending.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // Tudo o que chegou durante o fsync anterior vai no mesmo commit
+                pending.drainTo(batch, maxCommitBatch - 1);
+                if (failure != null) {
+                    reject(batch, failure);
+                } else {
+                    commitTimer.record(() -> commit(batch));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                // O commit já trata as falhas de escrita e de fsync; um erro inesperado também para o journal,
+                // mas a thread continua para recusar os pagamentos que ainda estão na fila
+                fail(batch, e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void commit(List<PendingAppend> batch) {
+        // Entradas do lote confirmadas por uma rotação no meio dele e entradas escritas no segmento
+        int confirmed = 0;
+        int written = 0;
+        try {
+            for (var append : batch) {
+                int size = HEADER_SIZE + append.payload.length;
+                if (size > segmentSize) {
+                    throw new IllegalArgumentException("Pagamento maior que o segmento do journal: " + size + " bytes");
+                }
+                if (active.sealed || position + size > active.capacity()) {
+                    if (!active.sealed) {
+                        seal();
+                        // Já estão em disco e serão enviadas pelo drainer: recusá-las faria o cliente duplicar o pagamento
+                        complete(batch.subList(confirmed, written));
+                        confirmed = written;
+                    }
+                    openNext();
+                }
+                write(append);
+                written++;
+            }
+        } catch (IOException e) {
+            // A criação do próximo segmento falhou, mas tudo o que foi escrito já está em disco: só o restante
+            // do lote é recusado e a abertura é tentada de novo no próximo commit
+            log.error("Erro ao criar o próximo segmento do journal", e);
+            reject(batch.subList(confirmed, batch.size()), e);
+            return;
+        } catch (UncheckedIOException e) {
+            fail(batch.subList(confirmed, batch.size()), e);
+            return;
+        } catch (RuntimeException e) {
+            log.error("Erro ao gravar no journal", e);
+            var error = new PaymentRejectedException(HttpStatus.SERVICE_UNAVAILABLE, "Journal indisponível", e);
+            batch.subList(written, batch.size()).forEach(append -> append.result.completeExceptionally(error));
+        }
+
+        try {
+            active.buffer.force(committed, position - committed);
+        } catch (UncheckedIOException e) {
+            fail(batch.subList(confirmed, written), e);
+            return;
+        }
+        committed = position;
+        active.durable = position;
+        complete(batch.subList(confirmed, written));
+    }
+
+    // Publica como gravados com fsync os pagamentos escritos até aqui e termina os seus futures
+    private void complete(List<PendingAppend> durable) {
+        durableSequence = nextSequence;
+        durable.forEach(append -> append.result.complete(append.sequence));
+        synchronized (appended) {
+            appended.notifyAll();
+        }
+    }
+
+    // Sem o fsync não há como saber o que chegou ao disco: o lote é recusado e o journal deixa de aceitar pagamentos
+    private void fail(List<PendingAppend> batch, Throwable cause) {
+        log.error("Erro ao gravar no journal, novos pagamentos serão recusados", cause);
+        failure = cause;
+        running = false;
+        reject(batch, cause);
+        synchronized (appended) {
+            appended.notifyAll();
+        }
+    }
+
+    private static void reject(List<PendingAppend> batch, Throwable cause) {
+        var error = new PaymentRejectedException(HttpStatus.SERVICE_UNAVAILABLE, "Journal indisponível", cause);
+        batch.forEach(append -> append.result.completeExceptionally(error));
+    }
+
+    private void write(PendingAppend append) {
+        int size = HEADER_SIZE + append.payload.length;
+        long sequence = nextSequence;
+        var crc = new CRC32C();
+        crc.update(ByteBuffer.allocate(Long.BYTES).putLong(0, sequence));
+        crc.update(append.payload);
+
+        var buffer = active.buffer;
+        buffer.putInt(position + Integer.BYTES, (int) crc.getValue());
+        buffer.putLong(position + 2 * Integer.BYTES, sequence);
+        buffer.put(position + HEADER_SIZE, append.payload);
+        buffer.putInt(position, append.payload.length);
+
+        position += size;
+        nextSequence++;
+        append.sequence = sequence;
+    }
+
+    // Faz o fsync do que falta no segmento atual e o sela; 'durable' não muda mais
+    private void seal() {
+        active.buffer.force(committed, position - committed);
+        committed = position;
+        active.durable = position;
+        active.sealed = true;
+    }
+
+    // Abre o segmento seguinte ao selado. Se falhar, o segmento atual continua selado e a abertura é tentada
+    // de novo no próximo commit
+    private void openNext() throws IOException {
+        var next = JournalSegment.create(directory, active.id + 1, segmentSize);
+        syncDirectory();
+        segments.put(next.id, next);
+        active = next;
+        position = 0;
+        committed = 0;
+    }
+
+    private void recover() throws IOException {
+        Files.createDirectories(directory);
+        var checkpointFile = directory.resolve(CHECKPOINT);
+        JournalCursor saved = Files.exists(checkpointFile) ? readCheckpoint(checkpointFile) : null;
+
+        List<Path> files;
+        try (var list = Files.list(directory)) {
+            files = list.filter(JournalSegment::isSegment).sorted().collect(Collectors.toList());
+        }
+        for (var file : files) {
+            if (saved != null && JournalSegment.idOf(file) < saved.getSegment()) {
+                // Segmento já enviado, que a queda impediu de apagar
+                Files.delete(file);
+            } else {
+                var segment = JournalSegment.open(file);
+                segments.put(segment.id, segment);
+            }
+        }
+        if (segments.isEmpty()) {
+            var segment = JournalSegment.create(directory, saved != null ? saved.getSegment() : 0, segmentSize);
+            segments.put(segment.id, segment);
+        }
+
+        long first = -1;
+        long next = saved != null ? saved.getSequence() : 0;
+        for (var segment : segments.values()) {
+            int offset = 0;
+            while (true) {
+                long sequence = validSequenceAt(segment, offset);
+                if (sequence < 0 || (first >= 0 && sequence != next)) {
+                    break;
+                }
+                if (first < 0) {
+                    first = sequence;
+                }
+                next = sequence + 1;
+                offset += HEADER_SIZE + segment.buffer.getInt(offset);
+            }
+            segment.durable = offset;
+            segment.sealed = true;
+            active = segment;
+            position = offset;
+        }
+        active.sealed = false;
+        committed = position;
+        nextSequence = next;
+        durableSequence = next;
+
+        if (saved == null) {
+            var firstSegment = segments.firstEntry().getValue();
+            saved = new JournalCursor(firstSegment.id, 0, first >= 0 ? first : next);
+        }
+        checkpoint = saved;
+        log.info("Journal {} aberto: {} segmentos, {} pagamentos pendentes de envio", directory, segments.size(), next - saved.getSequence());
+    }
+
+    // Sequência do registro no offset, ou -1 se ali não há um registro completo e íntegro
+    private static long validSequenceAt(JournalSegment segment, int offset) {
+        var buffer = segment.buffer;
+        if (offset + HEADER_SIZE > buffer.capacity()) {
+            return -1;
+        }
+        int length = buffer.getInt(offset);
+        if (length <= 0 || offset + HEADER_SIZE + length > buffer.capacity()) {
+            return -1;
+        }
+        long sequence = buffer.getLong(offset + 2 * Integer.BYTES);
+        var crc = new CRC32C();
+        crc.update(buffer.slice(offset + 2 * Integer.BYTES, Long.BYTES + length));
+        return (int) crc.getValue() == buffer.getInt(offset + Integer.BYTES) ? sequence : -1;
+    }
+
+    private void writeCheckpoint(JournalCursor cursor) throws IOException {
+        var temp = directory.resolve(CHECKPOINT + ".tmp");
+        var content = ByteBuffer.allocate(Long.BYTES + Integer.BYTES + Long.BYTES)
+                .putLong(cursor.getSegment())
+                .putInt(cursor.getOffset())
+                .putLong(cursor.getSequence())
+                .flip();
+        try (var channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            while (content.hasRemaining()) {
+                channel.write(content);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, directory.resolve(CHECKPOINT), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static JournalCursor readCheckpoint(Path file) throws IOException {
+        var content = ByteBuffer.wrap(Files.readAllBytes(file));
+        return new JournalCursor(content.getLong(), content.getInt(), content.getLong());
+    }
+
+    // Garante que o arquivo do novo segmento sobrevive a uma queda, não só o seu conteúdo
+    private void syncDirectory() {
+        try (var channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException | UncheckedIOException e) {
+            // Alguns sistemas operacionais não permitem abrir diretórios; o conteúdo continua protegido pelo fsync
+            log.debug("fsync do diretório {} não suportado", directory, e);
+        }
+    }
+
+    private static class PendingAppend {
+
+        private final byte[] payload;
+        private final CompletableFuture<Long> result = new CompletableFuture<>();
+        private long sequence;
+
+        private PendingAppend(byte[] payload) {
+            this.payload = payload;
+        }
+    }
+}
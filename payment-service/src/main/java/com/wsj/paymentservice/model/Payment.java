@@ -1,10 +1,14 @@
 package com.wsj.paymentservice.model;
 
+import lombok.AllArgsConstructor; // Gera o construtor com todos os campos, usado ao ler pagamentos do journal
 import lombok.Getter; // Gera automaticamente os métodos getter para os campos
+import lombok.NoArgsConstructor; // Construtor vazio usado pelo Jackson
 import java.io.Serializable; // Interface que marca os objetos que podem ser serializados
 
 // Classe que representa um pagamento
 @Getter // Gera automaticamente os métodos getter para todos os campos
+@NoArgsConstructor
+@AllArgsConstructor
 public class Payment implements Serializable {
 
     private Long id; // Identificador único do pagamento
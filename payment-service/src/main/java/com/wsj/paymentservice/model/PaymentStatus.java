@@ -0,0 +1,25 @@
+package com.wsj.paymentservice.model;
+
+import lombok.AllArgsConstructor; // Gera o construtor com todos os campos
+import lombok.Getter; // Gera automaticamente os métodos getter para os campos
+
+import java.time.Instant; // Instantes de cada etapa, nulos enquanto a etapa não aconteceu
+
+// Situação de um pagamento depois de publicado, montada a partir dos tópicos de resultado dos consumidores
+@Getter
+@AllArgsConstructor
+public class PaymentStatus {
+
+    private final Long id; // Identificador do pagamento
+    private final Fraud fraud; // Decisão do antifraude
+    private final String fraudReason; // Motivo da decisão, quando recusado
+    private final Instant decidedAt; // Quando o antifraude decidiu
+    private final Instant receiptAt; // Quando o recibo em PDF foi gerado
+    private final Instant emailedAt; // Quando o email de confirmação foi aceito pelo servidor SMTP
+
+    public enum Fraud {
+        PENDING,
+        APPROVED,
+        REJECTED
+    }
+}
@@ -0,0 +1,21 @@
+package com.wsj.paymentservice.model;
+
+import lombok.AllArgsConstructor; // Gera o construtor com todos os campos
+import lombok.Getter; // Gera automaticamente os métodos getter para os campos
+import lombok.NoArgsConstructor; // Construtor vazio usado pelo Jackson
+
+// Etapa concluída de um pagamento, publicada pelo json-consumer no tópico payment-status
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentStatusEvent {
+
+    private Long id; // Identificador do pagamento
+    private Stage stage; // Etapa concluída
+    private long at; // Instante (ms) em que o handler terminou
+
+    public enum Stage {
+        RECEIPT,
+        EMAIL
+    }
+}
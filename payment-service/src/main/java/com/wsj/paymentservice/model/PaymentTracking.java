@@ -0,0 +1,35 @@
+package com.wsj.paymentservice.model;
+
+import lombok.Getter; // Gera automaticamente os métodos getter para os campos
+import lombok.RequiredArgsConstructor; // Gera o construtor para os campos finais
+
+// Situação de um pagamento aceito com 202, consultada pelo id de acompanhamento
+@Getter
+@RequiredArgsConstructor
+public class PaymentTracking {
+
+    private final String trackingId; // Identificador devolvido ao cliente no aceite
+    private volatile Status status = Status.PENDING; // Situação atual do envio
+    private volatile Integer partition; // Partição onde o pagamento foi gravado
+    private volatile Long offset; // Offset do pagamento na partição
+    private volatile String error; // Motivo da falha, se houver
+
+    // Marca o pagamento como gravado no Kafka
+    public void sent(int partition, long offset) {
+        this.partition = partition;
+        this.offset = offset;
+        this.status = Status.SENT;
+    }
+
+    // Marca o pagamento como não gravado
+    public void failed(String error) {
+        this.error = error;
+        this.status = Status.FAILED;
+    }
+
+    public enum Status {
+        PENDING,
+        SENT,
+        FAILED
+    }
+}
@@ -1,15 +1,30 @@
 package com.wsj.paymentservice.resource;
 
 import com.wsj.paymentservice.model.Payment; // Modelo de pagamento
+import com.wsj.paymentservice.model.PaymentStatus; // Situação de um pagamento depois de publicado
+import com.wsj.paymentservice.model.PaymentTracking; // Situação de um pagamento aceito
 import org.springframework.http.ResponseEntity; // Representa a resposta HTTP
+import org.springframework.web.bind.annotation.GetMapping; // Define que o método será chamado via requisição GET
+import org.springframework.web.bind.annotation.PathVariable; // Indica que o parâmetro vem da URL
 import org.springframework.web.bind.annotation.PostMapping; // Define que o método será chamado via requisição POST
 import org.springframework.web.bind.annotation.RequestBody; // Indica que o parâmetro será enviado no corpo da requisição
 
+import java.util.concurrent.CompletableFuture; // Resposta assíncrona, liberando a thread do Tomcat
+
 // Interface responsável por definir o contrato do recurso de pagamento
 public interface PaymentResource {
 
     // Método que processa uma requisição POST para realizar o pagamento
     // Recebe o objeto Payment enviado no corpo da requisição HTTP
+    // A resposta é completada de forma assíncrona, sem ocupar a thread da requisição enquanto o broker confirma
     @PostMapping
-    ResponseEntity<Payment> payment(@RequestBody Payment payment);
+    CompletableFuture<ResponseEntity<Payment>> payment(@RequestBody Payment payment);
+
+    // Consulta a situação de um pagamento aceito com 202 pelo id de acompanhamento
+    @GetMapping("/tracking/{trackingId}")
+    ResponseEntity<PaymentTracking> tracking(@PathVariable String trackingId);
+
+    // Consulta o que já aconteceu com o pagamento depois de publicado: decisão do antifraude, recibo e email
+    @GetMapping("/{id}")
+    ResponseEntity<PaymentStatus> status(@PathVariable Long id);
 }
@@ -0,0 +1,23 @@
+package com.wsj.paymentservice.resource;
+
+import com.wsj.paymentservice.model.Payment; // Modelo de pagamento
+import com.wsj.paymentservice.model.PaymentStatus; // Situação de um pagamento depois de publicado
+import org.springframework.http.ResponseEntity; // Representa a resposta HTTP
+import org.springframework.web.bind.annotation.GetMapping; // Define que o método será chamado via requisição GET
+import org.springframework.web.bind.annotation.PathVariable; // Indica que o parâmetro vem da URL
+import org.springframework.web.bind.annotation.PostMapping; // Define que o método será chamado via requisição POST
+import org.springframework.web.bind.annotation.RequestBody; // Indica que o parâmetro será enviado no corpo da requisição
+import reactor.core.publisher.Mono; // Resposta não bloqueante
+
+// Interface do recurso de pagamento no modo reativo (WebFlux)
+public interface ReactivePaymentResource {
+
+    // Recebe o pagamento e responde quando o broker confirma a gravação, sem ocupar uma thread enquanto isso
+    // O corpo devolve o pagamento e os cabeçalhos X-Kafka-* trazem o tópico, a partição e o offset
+    @PostMapping
+    Mono<ResponseEntity<Payment>> payment(@RequestBody Payment payment);
+
+    // Mesma consulta de situação do modo servlet; a leitura vem da memória ou do arquivo mapeado, sem bloquear em rede
+    @GetMapping("/{id}")
+    Mono<ResponseEntity<PaymentStatus>> status(@PathVariable Long id);
+}
@@ -1,32 +1,98 @@
 package com.wsj.paymentservice.resource.impl;
 
+import com.wsj.paymentservice.config.PaymentSendProperties; // Propriedades de envio de pagamentos
+import com.wsj.paymentservice.journal.PaymentJournal; // Journal local do modo JOURNAL
 import com.wsj.paymentservice.model.Payment; // Modelo de pagamento
+import com.wsj.paymentservice.model.PaymentStatus; // Situação de um pagamento depois de publicado
+import com.wsj.paymentservice.model.PaymentTracking; // Situação de um pagamento aceito
 import com.wsj.paymentservice.resource.PaymentResource; // Interface do recurso de pagamento
 import com.wsj.paymentservice.service.PaymentService; // Serviço de pagamento
+import com.wsj.paymentservice.service.PaymentTrackingService; // Serviço de acompanhamento de pagamentos
+import com.wsj.paymentservice.status.PaymentStatusView; // Visão de status, que só existe com payment.status.enabled
 import lombok.RequiredArgsConstructor; // Anotação que gera um construtor com todos os campos finais
+import org.springframework.beans.factory.ObjectProvider; // Journal, que só existe no modo JOURNAL
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication; // Ativa o recurso só no servlet (Tomcat)
+import org.springframework.http.HttpHeaders; // Cabeçalho Retry-After
 import org.springframework.http.HttpStatus; // Representa o status HTTP
 import org.springframework.http.ResponseEntity; // Representa a resposta HTTP
 import org.springframework.web.bind.annotation.RequestMapping; // Define o mapeamento de URL
 import org.springframework.web.bind.annotation.RestController; // Define a classe como um controlador REST
 
+import java.net.URI; // Endereço de consulta do pagamento aceito
+import java.util.concurrent.CompletableFuture; // Resposta assíncrona, liberando a thread do Tomcat
+
 // Gera automaticamente um construtor com todos os campos finais
 @RequiredArgsConstructor
 // Define que essa classe é um controlador REST do Spring
 @RestController
 // Define o mapeamento base para a URL /payments
 @RequestMapping(value = "/payments")
+// No modo reativo o ReactivePaymentResourceImpl atende /payments
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class PaymentResourceImpl implements PaymentResource {
 
     // Serviço de pagamento que será injetado pelo Spring
     private final PaymentService paymentService;
 
+    // Serviço que guarda a situação dos pagamentos aceitos com 202
+    private final PaymentTrackingService trackingService;
+
+    // Propriedades que definem o modo de resposta
+    private final PaymentSendProperties properties;
+
+    // Journal local usado no modo JOURNAL
+    private final ObjectProvider<PaymentJournal> journal;
+
+    // Visão materializada da situação dos pagamentos
+    private final ObjectProvider<PaymentStatusView> statusView;
+
     // Implementação do método de pagamento, que recebe um objeto Payment e retorna uma resposta HTTP
     @Override
-    public ResponseEntity<Payment> payment(Payment payment) {
-        // Chama o serviço de pagamento para processar o pagamento recebido
-        paymentService.sendPayment(payment);
+    public CompletableFuture<ResponseEntity<Payment>> payment(Payment payment) {
+        if (properties.getMode() == PaymentSendProperties.Mode.JOURNAL) {
+            // Responde 202 (ACCEPTED) assim que o pagamento está gravado em disco; o drainer o envia ao Kafka depois
+            return journal.getObject().append(payment).thenApply(sequence -> ResponseEntity
+                    .accepted()
+                    .header("X-Journal-Sequence", String.valueOf(sequence))
+                    .<Payment>build());
+        }
+
+        // Chama o serviço de pagamento para enviar o pagamento recebido, sem bloquear esperando o broker
+        var send = paymentService.sendPayment(payment);
+
+        if (properties.getMode() == PaymentSendProperties.Mode.TRACKING) {
+            // Responde 202 (ACCEPTED) na hora, com o endereço para acompanhar a confirmação do broker
+            var tracking = trackingService.track(send);
+            return CompletableFuture.completedFuture(ResponseEntity
+                    .accepted()
+                    .location(URI.create("/payments/tracking/" + tracking.getTrackingId()))
+                    .header("X-Tracking-Id", tracking.getTrackingId())
+                    .build());
+        }
 
-        // Retorna uma resposta HTTP com o status 201 (CREATED), indicando que o recurso foi criado
-        return ResponseEntity.status(HttpStatus.CREATED).build();
+        // Retorna uma resposta HTTP com o status 201 (CREATED) somente depois que o broker confirmou a gravação
+        return send.thenApply(result -> ResponseEntity.status(HttpStatus.CREATED).<Payment>build());
+    }
+
+    // Devolve a situação do pagamento, ou 404 se o id não existe (ou já foi descartado da memória)
+    @Override
+    public ResponseEntity<PaymentTracking> tracking(String trackingId) {
+        return trackingService.find(trackingId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    // Devolve a situação do pagamento; enquanto a visão ainda é refeita no início, um pagamento ausente recebe 503
+    @Override
+    public ResponseEntity<PaymentStatus> status(Long id) {
+        var view = statusView.getIfAvailable();
+        if (view == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return view.find(id)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> view.isRebuilt()
+                        ? ResponseEntity.notFound().build()
+                        : ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build());
     }
 }
@@ -0,0 +1,51 @@
+package com.wsj.paymentservice.resource.impl;
+
+import com.wsj.paymentservice.model.Payment; // Modelo de pagamento
+import com.wsj.paymentservice.model.PaymentStatus; // Situação de um pagamento depois de publicado
+import com.wsj.paymentservice.resource.ReactivePaymentResource; // Interface do recurso reativo
+import com.wsj.paymentservice.service.ReactivePaymentService; // Serviço de envio não bloqueante
+import com.wsj.paymentservice.status.PaymentStatusView; // Visão de status, que só existe com payment.status.enabled
+import org.springframework.beans.factory.ObjectProvider;
+import lombok.RequiredArgsConstructor; // Anotação que gera um construtor com todos os campos finais
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication; // Ativa o recurso só no WebFlux
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus; // Representa o status HTTP
+import org.springframework.http.ResponseEntity; // Representa a resposta HTTP
+import org.springframework.web.bind.annotation.RequestMapping; // Define o mapeamento de URL
+import org.springframework.web.bind.annotation.RestController; // Define a classe como um controlador REST
+import reactor.core.publisher.Mono; // Resposta não bloqueante
+
+// Substitui o PaymentResourceImpl quando a aplicação sobe com spring.main.web-application-type=reactive
+@RequiredArgsConstructor
+@RestController
+@RequestMapping(value = "/payments")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactivePaymentResourceImpl implements ReactivePaymentResource {
+
+    private final ReactivePaymentService paymentService;
+    private final ObjectProvider<PaymentStatusView> statusView;
+
+    @Override
+    public Mono<ResponseEntity<Payment>> payment(Payment payment) {
+        // Responde 201 (CREATED) com os metadados do registro depois que o broker confirmou a gravação
+        return paymentService.sendPayment(payment).map(metadata -> ResponseEntity
+                .status(HttpStatus.CREATED)
+                .header("X-Kafka-Topic", metadata.topic())
+                .header("X-Kafka-Partition", String.valueOf(metadata.partition()))
+                .header("X-Kafka-Offset", String.valueOf(metadata.offset()))
+                .body(payment));
+    }
+
+    @Override
+    public Mono<ResponseEntity<PaymentStatus>> status(Long id) {
+        var view = statusView.getIfAvailable();
+        if (view == null) {
+            return Mono.just(ResponseEntity.notFound().build());
+        }
+        return Mono.just(view.find(id)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> view.isRebuilt()
+                        ? ResponseEntity.notFound().build()
+                        : ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build()));
+    }
+}
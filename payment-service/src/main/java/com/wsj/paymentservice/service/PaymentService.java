@@ -1,11 +1,15 @@
 package com.wsj.paymentservice.service;
 
 import com.wsj.paymentservice.model.Payment; // Importa o modelo de pagamento
+import org.springframework.kafka.support.SendResult; // Resultado do envio com os metadados do registro gravado
+
+import java.util.concurrent.CompletableFuture; // Resultado assíncrono do envio
 
 // Interface responsável por definir o contrato do serviço de pagamento
 public interface PaymentService {
 
     // Método que deve ser implementado para enviar o pagamento
-    // Recebe um objeto do tipo Payment como parâmetro
-    void sendPayment(Payment payment);
+    // Recebe um objeto do tipo Payment como parâmetro e devolve um future completado quando o broker confirma a gravação
+    // Lança PaymentRejectedException (429) se o limite de envios em voo estiver cheio
+    CompletableFuture<SendResult<String, Payment>> sendPayment(Payment payment);
 }
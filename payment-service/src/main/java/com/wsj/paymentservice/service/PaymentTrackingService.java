@@ -0,0 +1,18 @@
+package com.wsj.paymentservice.service;
+
+import com.wsj.paymentservice.model.Payment; // Modelo de pagamento
+import com.wsj.paymentservice.model.PaymentTracking; // Situação de um pagamento aceito
+import org.springframework.kafka.support.SendResult; // Resultado do envio com os metadados do registro gravado
+
+import java.util.Optional; // Resultado opcional da consulta
+import java.util.concurrent.CompletableFuture; // Resultado assíncrono do envio
+
+// Interface responsável por acompanhar os pagamentos respondidos com 202 antes da confirmação do broker
+public interface PaymentTrackingService {
+
+    // Gera um id de acompanhamento para o envio e atualiza a situação quando o broker responder
+    PaymentTracking track(CompletableFuture<SendResult<String, Payment>> send);
+
+    // Consulta a situação de um pagamento pelo id de acompanhamento
+    Optional<PaymentTracking> find(String trackingId);
+}
@@ -0,0 +1,14 @@
+package com.wsj.paymentservice.service;
+
+import com.wsj.paymentservice.model.Payment; // Importa o modelo de pagamento
+import org.apache.kafka.clients.producer.RecordMetadata; // Tópico, partição e offset do pagamento gravado
+import reactor.core.publisher.Mono; // Resultado assíncrono e não bloqueante do envio
+
+// Interface do serviço de pagamento usado pelo modo reativo
+public interface ReactivePaymentService {
+
+    // Envia o pagamento sem bloquear a thread que atende a requisição
+    // O Mono emite os metadados do registro quando o broker confirma a gravação
+    // Falha com PaymentRejectedException (429) se o limite de envios em voo estiver cheio, ou (503) se o broker não confirmar
+    Mono<RecordMetadata> sendPayment(Payment payment);
+}
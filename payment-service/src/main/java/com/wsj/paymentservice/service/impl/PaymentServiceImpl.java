@@ -1,17 +1,19 @@
 package com.wsj.paymentservice.service.impl;
 
+import com.wsj.kafka.support.topics.TopicProvisioningProperties; // Nome do tópico de pagamentos
+import com.wsj.paymentservice.config.PaymentSendProperties; // Propriedades de envio de pagamentos
+import com.wsj.paymentservice.exceptions.PaymentRejectedException; // Exceção de pagamento rejeitado
 import com.wsj.paymentservice.model.Payment; // Modelo de pagamento
 import com.wsj.paymentservice.service.PaymentService; // Interface do serviço de pagamento
-import lombok.RequiredArgsConstructor; // Anotação que gera um construtor com todos os campos finais
-import lombok.SneakyThrows; // Permite lançar exceções sem explicitamente declará-las
 import lombok.extern.log4j.Log4j2; // Para logar mensagens usando Log4j2
+import org.springframework.http.HttpStatus; // Representa o status HTTP
 import org.springframework.kafka.core.KafkaTemplate; // Classe para enviar mensagens para um tópico Kafka
+import org.springframework.kafka.support.SendResult; // Resultado do envio com os metadados do registro gravado
 import org.springframework.stereotype.Service; // Define essa classe como um serviço Spring
 
-import java.io.Serializable; // Interface que marca os objetos que podem ser serializados
+import java.util.concurrent.CompletableFuture; // Resultado assíncrono do envio
+import java.util.concurrent.Semaphore; // Controla a quantidade de envios em voo
 
-// Gera automaticamente um construtor com todos os campos finais
-@RequiredArgsConstructor
 // Habilita o uso do Log4j2 para registrar logs
 @Log4j2
 // Define que essa classe é um serviço gerenciado pelo Spring
@@ -19,22 +21,58 @@ import java.io.Serializable; // Interface que marca os objetos que podem ser ser
 public class PaymentServiceImpl implements PaymentService {
 
     // Template do Kafka para enviar mensagens, nesse caso, serializáveis
-    private final KafkaTemplate<String, Serializable> kafkaTemplate;
+    private final KafkaTemplate<String, Payment> kafkaTemplate;
+
+    // Orçamento de pagamentos enviados e ainda não confirmados pelo broker
+    private final Semaphore inFlight;
+
+    // Tópico para onde os pagamentos são enviados
+    private final String topic;
+
+    public PaymentServiceImpl(KafkaTemplate<String, Payment> kafkaTemplate, PaymentSendProperties properties,
+                              TopicProvisioningProperties topicProperties) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.inFlight = new Semaphore(properties.getMaxInFlight());
+        this.topic = topicProperties.getName();
+    }
 
-    // Permite lançar exceções sem explicitamente declará-las no método
-    @SneakyThrows
     @Override
-    public void sendPayment(Payment payment) {
+    public CompletableFuture<SendResult<String, Payment>> sendPayment(Payment payment) {
         // Loga que o pagamento foi recebido, exibindo os detalhes do pagamento
         log.info("Recebi o pagamento {}", payment);
 
-        // Simula um atraso de 1 segundo antes de enviar o pagamento
-        Thread.sleep(1000);
+        // Rejeita na hora se o orçamento de envios em voo acabou, em vez de acumular threads esperando o broker
+        if (!inFlight.tryAcquire()) {
+            throw new PaymentRejectedException(HttpStatus.TOO_MANY_REQUESTS, "Limite de pagamentos em processamento atingido");
+        }
 
         // Loga que o pagamento está sendo enviado
         log.info("Enviando pagamento...");
 
-        // Envia a mensagem do pagamento para o tópico "payment-topic" no Kafka
-        kafkaTemplate.send("payment-topic", payment);
+        CompletableFuture<SendResult<String, Payment>> future;
+        try {
+            // Envia o pagamento sem esperar pela confirmação, usando o idUser como chave: os pagamentos de um mesmo
+            // usuário caem sempre na mesma partição e são consumidos em ordem, e os de usuários diferentes se espalham
+            future = kafkaTemplate.send(topic, key(payment), payment).completable();
+        } catch (RuntimeException e) {
+            // O send pode falhar de forma síncrona, por exemplo quando o broker não responde dentro do max.block.ms
+            inFlight.release();
+            throw new PaymentRejectedException(HttpStatus.SERVICE_UNAVAILABLE, "Kafka indisponível", e);
+        }
+
+        // Libera a vaga quando o broker responde e traduz a falha de gravação em 503
+        return future.handle((result, error) -> {
+            inFlight.release();
+            if (error != null) {
+                log.error("Erro ao enviar pagamento", error);
+                throw new PaymentRejectedException(HttpStatus.SERVICE_UNAVAILABLE, "Pagamento não confirmado pelo Kafka", error);
+            }
+            return result;
+        });
+    }
+
+    // Sem idUser o pagamento vai sem chave e o produtor escolhe a partição
+    private static String key(Payment payment) {
+        return payment.getIdUser() != null ? payment.getIdUser().toString() : null;
     }
 }
@@ -0,0 +1,55 @@
+package com.wsj.paymentservice.service.impl;
+
+import com.wsj.paymentservice.config.PaymentSendProperties; // Propriedades de envio de pagamentos
+import com.wsj.paymentservice.model.Payment; // Modelo de pagamento
+import com.wsj.paymentservice.model.PaymentTracking; // Situação de um pagamento aceito
+import com.wsj.paymentservice.service.PaymentTrackingService; // Interface do serviço de acompanhamento
+import org.springframework.kafka.support.SendResult; // Resultado do envio com os metadados do registro gravado
+import org.springframework.stereotype.Service; // Define essa classe como um serviço Spring
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture; // Resultado assíncrono do envio
+import java.util.concurrent.CompletionException;
+
+// Mantém em memória a situação dos últimos pagamentos aceitos, descartando os mais antigos quando a capacidade é atingida
+@Service
+public class PaymentTrackingServiceImpl implements PaymentTrackingService {
+
+    private final Map<String, PaymentTracking> trackings;
+
+    public PaymentTrackingServiceImpl(PaymentSendProperties properties) {
+        int capacity = properties.getTrackingCapacity();
+        this.trackings = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PaymentTracking> eldest) {
+                return size() > capacity;
+            }
+        });
+    }
+
+    @Override
+    public PaymentTracking track(CompletableFuture<SendResult<String, Payment>> send) {
+        var tracking = new PaymentTracking(UUID.randomUUID().toString());
+        trackings.put(tracking.getTrackingId(), tracking);
+
+        // Atualiza a situação quando o broker confirmar ou recusar a gravação
+        send.whenComplete((result, error) -> {
+            if (error != null) {
+                var cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                tracking.failed(String.valueOf(cause.getMessage()));
+            } else {
+                tracking.sent(result.getRecordMetadata().partition(), result.getRecordMetadata().offset());
+            }
+        });
+        return tracking;
+    }
+
+    @Override
+    public Optional<PaymentTracking> find(String trackingId) {
+        return Optional.ofNullable(trackings.get(trackingId));
+    }
+}
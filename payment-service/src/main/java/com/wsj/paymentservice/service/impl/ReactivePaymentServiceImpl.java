@@ -0,0 +1,79 @@
+package com.wsj.paymentservice.service.impl;
+
+import com.wsj.kafka.support.topics.TopicProvisioningProperties; // Nome do tópico de pagamentos
+import com.wsj.paymentservice.config.PaymentSendProperties; // Propriedades de envio de pagamentos
+import com.wsj.paymentservice.exceptions.PaymentRejectedException; // Exceção de pagamento rejeitado
+import com.wsj.paymentservice.model.Payment; // Modelo de pagamento
+import com.wsj.paymentservice.service.ReactivePaymentService; // Interface do serviço reativo
+import lombok.extern.log4j.Log4j2; // Para logar mensagens usando Log4j2
+import org.apache.kafka.clients.producer.ProducerRecord; // Registro enviado ao Kafka
+import org.apache.kafka.clients.producer.RecordMetadata; // Tópico, partição e offset do pagamento gravado
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication; // Só existe no modo reativo, junto com o KafkaSender
+import org.springframework.http.HttpStatus; // Representa o status HTTP
+import org.springframework.stereotype.Service; // Define essa classe como um serviço Spring
+import reactor.core.publisher.Mono; // Resultado assíncrono e não bloqueante do envio
+import reactor.core.scheduler.Scheduler; // Thread dedicada às chamadas ao produtor
+import reactor.core.scheduler.Schedulers;
+import reactor.kafka.sender.KafkaSender; // Sender não bloqueante do Reactor Kafka
+import reactor.kafka.sender.SenderRecord; // Registro com o dado de correlação do envio
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.Semaphore; // Controla a quantidade de envios em voo
+
+/**
+ * Envio de pagamentos do modo reativo. Nenhuma thread fica esperando o broker: a requisição é
+ * suspensa até o callback do produtor e as threads do Netty só montam o registro.
+ *
+ * <p>A pressão do produtor chega à camada HTTP em dois pontos. As chamadas ao produtor rodam em uma
+ * thread própria, então quando o buffer do produtor enche (ou falta metadata) é ela que espera, até
+ * {@code max-block-ms}, e nunca o event loop. Enquanto isso os envios se acumulam no limite de
+ * {@code max-in-flight}, e a partir dele novas requisições recebem 429 na hora, sem ocupar memória.
+ */
+@Log4j2
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactivePaymentServiceImpl implements ReactivePaymentService {
+
+    private final KafkaSender<String, Payment> sender;
+    private final Semaphore inFlight;
+    private final String topic;
+    private final Scheduler producerThread = Schedulers.newSingle("payment-producer");
+
+    public ReactivePaymentServiceImpl(KafkaSender<String, Payment> sender, PaymentSendProperties properties,
+                                      TopicProvisioningProperties topicProperties) {
+        this.sender = sender;
+        this.inFlight = new Semaphore(properties.getMaxInFlight());
+        this.topic = topicProperties.getName();
+    }
+
+    @Override
+    public Mono<RecordMetadata> sendPayment(Payment payment) {
+        return Mono.defer(() -> {
+            // Rejeita na hora se o orçamento de envios em voo acabou, em vez de acumular requisições esperando o broker
+            if (!inFlight.tryAcquire()) {
+                return Mono.error(new PaymentRejectedException(HttpStatus.TOO_MANY_REQUESTS, "Limite de pagamentos em processamento atingido"));
+            }
+
+            // Mesma chave do envio bloqueante: os pagamentos de um usuário ficam na mesma partição
+            var key = payment.getIdUser() != null ? payment.getIdUser().toString() : null;
+            var record = SenderRecord.<String, Payment, Long>create(new ProducerRecord<>(topic, key, payment), payment.getId());
+
+            return sender.send(Mono.just(record).subscribeOn(producerThread))
+                    .next()
+                    .flatMap(result -> result.exception() != null
+                            ? Mono.<RecordMetadata>error(result.exception())
+                            : Mono.just(result.recordMetadata()))
+                    .onErrorMap(error -> !(error instanceof PaymentRejectedException), error -> {
+                        log.error("Erro ao enviar pagamento {}", payment.getId(), error);
+                        return new PaymentRejectedException(HttpStatus.SERVICE_UNAVAILABLE, "Pagamento não confirmado pelo Kafka", error);
+                    })
+                    // Libera a vaga quando o broker responde, quando o envio falha ou quando o cliente desiste da requisição
+                    .doFinally(signal -> inFlight.release());
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        producerThread.dispose();
+    }
+}
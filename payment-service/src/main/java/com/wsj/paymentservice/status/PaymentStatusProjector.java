@@ -0,0 +1,181 @@
+package com.wsj.paymentservice.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper; // Lê o id do pagamento nas decisões em JSON
+import com.wsj.paymentservice.config.PaymentStatusProperties; // Propriedades da visão de status
+import com.wsj.paymentservice.model.Payment; // Modelo de pagamento
+import com.wsj.paymentservice.model.PaymentStatusEvent; // Etapas concluídas publicadas pelo json-consumer
+import io.micrometer.core.instrument.Counter; // Registros aplicados na visão
+import io.micrometer.core.instrument.MeterRegistry; // Registro de métricas
+import lombok.extern.log4j.Log4j2; // Para logar mensagens usando Log4j2
+import org.apache.kafka.clients.consumer.Consumer; // Consumidor sem grupo, com assign
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException; // Interrupção do poll no fechamento
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Alimenta a {@link PaymentStatusView} com os tópicos de resultado dos consumidores: as decisões do antifraude
+ * e o {@code payment-status}, onde o json-consumer publica cada pagamento que teve o recibo gerado e o email enviado.
+ *
+ * <p>O consumidor não tem grupo: cada instância do payment-service lê todas as partições com {@code assign},
+ * sempre do início, então a visão é refeita pelo replay a cada início e acompanha os tópicos depois disso.
+ * Lê só transações confirmadas, já que as decisões podem vir da etapa transacional do antifraude.
+ */
+@Log4j2
+public class PaymentStatusProjector implements AutoCloseable {
+
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(500);
+    private static final long RETRY_BACKOFF_MS = 1000;
+    private static final String REASON_HEADER = "fraud-reason";
+
+    private final Consumer<byte[], byte[]> consumer;
+    private final PaymentStatusView view;
+    private final PaymentStatusProperties properties;
+    private final ObjectMapper mapper;
+    private final Counter applied;
+    private final Thread projector;
+    private final Set<TopicPartition> assigned = new HashSet<>();
+    private final Map<TopicPartition, Long> replayEnd = new HashMap<>();
+    private long nextRefresh;
+    private long replayStart;
+    private long records;
+    private volatile boolean running = true;
+
+    public PaymentStatusProjector(Consumer<byte[], byte[]> consumer, PaymentStatusView view, PaymentStatusProperties properties,
+                                  ObjectMapper mapper, MeterRegistry meterRegistry) {
+        this.consumer = consumer;
+        this.view = view;
+        this.properties = properties;
+        this.mapper = mapper;
+        this.applied = meterRegistry.counter("payment.status.applied");
+
+        projector = new Thread(this::projectLoop, "payment-status-projector");
+        projector.setDaemon(true);
+        projector.start();
+    }
+
+    private void projectLoop() {
+        replayStart = System.currentTimeMillis();
+        while (running) {
+            try {
+                if (System.currentTimeMillis() >= nextRefresh) {
+                    refreshAssignment();
+                }
+                if (!view.isRebuilt() && replayed()) {
+                    view.rebuilt();
+                    log.info("Visão de status refeita com {} registros em {}ms", records, System.currentTimeMillis() - replayStart);
+                }
+                if (assigned.isEmpty()) {
+                    // Nenhum tópico de resultado foi criado ainda; a busca se repete a cada RETRY_BACKOFF_MS
+                    sleep();
+                    continue;
+                }
+                for (var record : consumer.poll(POLL_TIMEOUT)) {
+                    try {
+                        apply(record);
+                        applied.increment();
+                    } catch (IOException e) {
+                        // Um registro ilegível não pode travar a visão; o pagamento só fica sem essa etapa
+                        log.warn("Registro {}-{}@{} ignorado na visão de status: {}",
+                                record.topic(), record.partition(), record.offset(), e.getMessage());
+                    }
+                    records++;
+                }
+            } catch (WakeupException e) {
+                // close() interrompeu o poll
+            } catch (Exception e) {
+                log.warn("Falha ao atualizar a visão de status, tentando novamente em {}ms: {}", RETRY_BACKOFF_MS, e.getMessage());
+                sleep();
+            }
+        }
+        consumer.close();
+    }
+
+    // Assina as partições que surgiram desde a última consulta (tópicos criados depois, partições novas), lidas do início
+    private void refreshAssignment() {
+        var found = new HashSet<TopicPartition>();
+        for (var topic : List.of(properties.getApprovedTopic(), properties.getRejectedTopic(), properties.getStatusTopic())) {
+            var partitions = consumer.partitionsFor(topic);
+            if (partitions != null) {
+                partitions.forEach(info -> found.add(new TopicPartition(info.topic(), info.partition())));
+            }
+        }
+        found.removeAll(assigned);
+        if (!found.isEmpty()) {
+            assigned.addAll(found);
+            consumer.assign(assigned);
+            consumer.seekToBeginning(found);
+            if (!view.isRebuilt()) {
+                replayEnd.putAll(consumer.endOffsets(found));
+            }
+        }
+        nextRefresh = System.currentTimeMillis() + (assigned.isEmpty() ? RETRY_BACKOFF_MS : properties.getMetadataRefresh().toMillis());
+    }
+
+    private boolean replayed() {
+        for (var end : replayEnd.entrySet()) {
+            if (consumer.position(end.getKey()) < end.getValue()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void apply(ConsumerRecord<byte[], byte[]> record) throws IOException {
+        if (record.value() == null) {
+            return;
+        }
+        if (record.topic().equals(properties.getStatusTopic())) {
+            progress(mapper.readValue(record.value(), PaymentStatusEvent.class));
+            return;
+        }
+        var payment = mapper.readValue(record.value(), Payment.class);
+        if (payment.getId() == null) {
+            return;
+        }
+        boolean approved = record.topic().equals(properties.getApprovedTopic());
+        var reason = record.headers().lastHeader(REASON_HEADER);
+        view.decided(payment.getId(), approved,
+                reason == null ? null : new String(reason.value(), StandardCharsets.UTF_8), record.timestamp());
+    }
+
+    // Etapas que esta versão não conhece fazem a leitura falhar em apply, e o registro é só ignorado
+    private void progress(PaymentStatusEvent event) {
+        if (event.getId() == null || event.getStage() == null) {
+            return;
+        }
+        switch (event.getStage()) {
+            case RECEIPT:
+                view.receipted(event.getId(), event.getAt());
+                break;
+            case EMAIL:
+                view.emailed(event.getId(), event.getAt());
+                break;
+        }
+    }
+
+    private void sleep() {
+        try {
+            TimeUnit.MILLISECONDS.sleep(RETRY_BACKOFF_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        consumer.wakeup();
+        projector.join(TimeUnit.SECONDS.toMillis(10));
+    }
+}
@@ -0,0 +1,191 @@
+package com.wsj.paymentservice.status;
+
+import com.wsj.paymentservice.model.PaymentStatus; // Situação de um pagamento
+import lombok.extern.log4j.Log4j2; // Para logar mensagens usando Log4j2
+
+import java.io.IOException; // Erros de acesso ao arquivo
+import java.nio.MappedByteBuffer; // Tabela mapeada em memória
+import java.nio.channels.FileChannel; // Canal usado para mapear o arquivo
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Tabela hash de tamanho fixo num arquivo mapeado em memória, com um slot de {@value #SLOT_SIZE} bytes por
+ * pagamento e sondagem linear limitada a {@value #MAX_PROBES} slots. Quando todos os slots da sondagem estão
+ * ocupados por outros pagamentos, o atualizado há mais tempo é sobrescrito: o arquivo nunca cresce, e um
+ * pagamento antigo descartado volta a aparecer no próximo replay enquanto ainda estiver nos tópicos.
+ *
+ * <p>O arquivo não tem fsync nem checkpoint; é estado derivado, refeito pelo replay a cada início.
+ */
+@Log4j2
+public class PaymentStatusStore implements AutoCloseable {
+
+    static final int SLOT_SIZE = 64;
+    static final int MAX_PROBES = 16;
+    // 16M slots = 1GB, o maior arquivo que cabe num único MappedByteBuffer com slots em potência de 2
+    static final int MAX_CAPACITY = 1 << 24;
+
+    // Layout do slot: id, uso/decisão, tamanho do motivo, instantes (ms, 0 = ainda não aconteceu), motivo
+    private static final int ID = 0;
+    private static final int USED = 8;
+    private static final int FRAUD = 9;
+    private static final int REASON_LENGTH = 10;
+    private static final int DECIDED_AT = 16;
+    private static final int RECEIPT_AT = 24;
+    private static final int EMAILED_AT = 32;
+    private static final int UPDATED_AT = 40;
+    private static final int REASON = 48;
+    private static final int MAX_REASON = SLOT_SIZE - REASON;
+
+    private static final PaymentStatus.Fraud[] FRAUD_VALUES = PaymentStatus.Fraud.values();
+
+    private final FileChannel channel;
+    private final MappedByteBuffer table;
+    private final int mask;
+    private long evictions;
+
+    public PaymentStatusStore(Path file, int capacity) throws IOException {
+        if (capacity < 1 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Capacidade da visão de status fora de 1.." + MAX_CAPACITY + ": " + capacity);
+        }
+        int slots = Math.max(MAX_PROBES, Integer.highestOneBit(capacity - 1) << 1);
+        long size = (long) slots * SLOT_SIZE;
+
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        if (Files.exists(file) && Files.size(file) != size) {
+            // Outra capacidade muda o slot de cada pagamento; como o conteúdo é refeito pelo replay, basta recriar
+            log.info("Capacidade da visão de status mudou, recriando {}", file);
+            Files.delete(file);
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.table = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        this.mask = slots - 1;
+    }
+
+    public synchronized Optional<PaymentStatus> find(long id) {
+        int slot = indexOf(id);
+        return slot < 0 ? Optional.empty() : Optional.of(read(slot));
+    }
+
+    public synchronized PaymentStatus decided(long id, boolean approved, String reason, long at) {
+        int slot = claim(id, at);
+        int base = slot * SLOT_SIZE;
+        table.put(base + FRAUD, (byte) (approved ? PaymentStatus.Fraud.APPROVED : PaymentStatus.Fraud.REJECTED).ordinal());
+        table.putLong(base + DECIDED_AT, at);
+        var bytes = reason == null ? new byte[0] : reason.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, MAX_REASON);
+        table.put(base + REASON_LENGTH, (byte) length);
+        table.put(base + REASON, bytes, 0, length);
+        return read(slot);
+    }
+
+    public synchronized PaymentStatus receipted(long id, long at) {
+        return firstTime(id, RECEIPT_AT, at);
+    }
+
+    public synchronized PaymentStatus emailed(long id, long at) {
+        return firstTime(id, EMAILED_AT, at);
+    }
+
+    /** Pagamentos sobrescritos por falta de espaço desde a abertura. */
+    public synchronized long evictions() {
+        return evictions;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // Recibo e email reprocessados (reentregas, replay) mantêm o primeiro instante registrado
+    private PaymentStatus firstTime(long id, int field, long at) {
+        int slot = claim(id, at);
+        int offset = slot * SLOT_SIZE + field;
+        long current = table.getLong(offset);
+        if (current == 0 || at < current) {
+            table.putLong(offset, at);
+        }
+        return read(slot);
+    }
+
+    private int indexOf(long id) {
+        int slot = home(id);
+        for (int probe = 0; probe < MAX_PROBES; probe++, slot = (slot + 1) & mask) {
+            int base = slot * SLOT_SIZE;
+            if (table.get(base + USED) == 0) {
+                return -1;
+            }
+            if (table.getLong(base + ID) == id) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    // Slot do pagamento, ocupando um livre ou sobrescrevendo o mais antigo da sondagem se ele ainda não existe
+    private int claim(long id, long now) {
+        int slot = home(id);
+        int oldest = slot;
+        long oldestUpdate = Long.MAX_VALUE;
+        for (int probe = 0; probe < MAX_PROBES; probe++, slot = (slot + 1) & mask) {
+            int base = slot * SLOT_SIZE;
+            if (table.get(base + USED) == 0) {
+                return reset(slot, id, now);
+            }
+            if (table.getLong(base + ID) == id) {
+                table.putLong(base + UPDATED_AT, Math.max(now, table.getLong(base + UPDATED_AT)));
+                return slot;
+            }
+            long updated = table.getLong(base + UPDATED_AT);
+            if (updated < oldestUpdate) {
+                oldest = slot;
+                oldestUpdate = updated;
+            }
+        }
+        evictions++;
+        return reset(oldest, id, now);
+    }
+
+    private int reset(int slot, long id, long now) {
+        int base = slot * SLOT_SIZE;
+        for (int i = 0; i < SLOT_SIZE; i += Long.BYTES) {
+            table.putLong(base + i, 0);
+        }
+        table.putLong(base + ID, id);
+        table.put(base + USED, (byte) 1);
+        table.putLong(base + UPDATED_AT, now);
+        return slot;
+    }
+
+    private PaymentStatus read(int slot) {
+        int base = slot * SLOT_SIZE;
+        var reason = new byte[table.get(base + REASON_LENGTH)];
+        table.get(base + REASON, reason);
+        return new PaymentStatus(
+                table.getLong(base + ID),
+                FRAUD_VALUES[table.get(base + FRAUD)],
+                reason.length == 0 ? null : new String(reason, StandardCharsets.UTF_8),
+                instant(table.getLong(base + DECIDED_AT)),
+                instant(table.getLong(base + RECEIPT_AT)),
+                instant(table.getLong(base + EMAILED_AT)));
+    }
+
+    private int home(long id) {
+        // Mistura os bits do id (fmix64 do MurmurHash3), já que ids sequenciais cairiam em slots vizinhos
+        long h = id;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+
+    private static Instant instant(long millis) {
+        return millis == 0 ? null : Instant.ofEpochMilli(millis);
+    }
+}
@@ -0,0 +1,85 @@
+package com.wsj.paymentservice.status;
+
+import com.wsj.paymentservice.model.PaymentStatus; // Situação de um pagamento
+import io.micrometer.core.instrument.FunctionCounter; // Pagamentos descartados do arquivo
+import io.micrometer.core.instrument.Gauge; // Tamanho do cache
+import io.micrometer.core.instrument.MeterRegistry; // Registro de métricas
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Visão materializada da situação dos pagamentos: um cache LRU limitado em memória na frente do
+ * {@link PaymentStatusStore}. Só o {@link PaymentStatusProjector} escreve; cada atualização passa pelo arquivo
+ * e o resultado vai para o cache, já que os pagamentos recentes são os mais consultados.
+ * Leituras e escritas do arquivo e do cache acontecem sob o mesmo lock: uma consulta que não achou o pagamento
+ * no cache não pode guardar nele uma versão lida antes de uma atualização do projetor.
+ */
+public class PaymentStatusView {
+
+    private final PaymentStatusStore store;
+    private final Map<Long, PaymentStatus> cache;
+    private volatile boolean rebuilt;
+
+    public PaymentStatusView(PaymentStatusStore store, int cacheCapacity, MeterRegistry meterRegistry) {
+        this.store = store;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, PaymentStatus> eldest) {
+                return size() > cacheCapacity;
+            }
+        };
+        Gauge.builder("payment.status.cache.size", this, view -> view.cacheSize()).register(meterRegistry);
+        FunctionCounter.builder("payment.status.evicted", store, PaymentStatusStore::evictions).register(meterRegistry);
+    }
+
+    public Optional<PaymentStatus> find(long id) {
+        synchronized (cache) {
+            var cached = cache.get(id);
+            if (cached != null) {
+                return Optional.of(cached);
+            }
+            var stored = store.find(id);
+            stored.ifPresent(status -> cache.put(id, status));
+            return stored;
+        }
+    }
+
+    /** O replay dos tópicos no início já alcançou os offsets finais; antes disso um pagamento ausente pode só não ter sido lido ainda. */
+    public boolean isRebuilt() {
+        return rebuilt;
+    }
+
+    void rebuilt() {
+        this.rebuilt = true;
+    }
+
+    void decided(long id, boolean approved, String reason, long at) {
+        synchronized (cache) {
+            cache(store.decided(id, approved, reason, at));
+        }
+    }
+
+    void receipted(long id, long at) {
+        synchronized (cache) {
+            cache(store.receipted(id, at));
+        }
+    }
+
+    void emailed(long id, long at) {
+        synchronized (cache) {
+            cache(store.emailed(id, at));
+        }
+    }
+
+    private void cache(PaymentStatus status) {
+        cache.put(status.getId(), status);
+    }
+
+    private int cacheSize() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.wsj.paymentservice.journal;
+
+import com.wsj.paymentservice.config.JournalProperties;
+import com.wsj.paymentservice.exceptions.PaymentRejectedException;
+import com.wsj.paymentservice.model.Payment;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PaymentJournalTests {
+
+    // Cabeçalho + layout binário de um pagamento sem número de cartão
+    private static final int ENTRY_SIZE = PaymentJournal.HEADER_SIZE + 1 + 3 * Long.BYTES + Short.BYTES;
+
+    @TempDir
+    Path directory;
+
+    private PaymentJournal journal;
+
+    @AfterEach
+    void close() throws InterruptedException {
+        journal.close();
+    }
+
+    @Test
+    void readsBackInOrderAcrossSegmentsAndRemovesAcknowledgedOnes() throws Exception {
+        journal = open(1024);
+        var sequences = appendAll(1, 100);
+        assertThat(sequences).containsExactlyElementsOf(range(0, 100));
+        assertThat(segmentFiles()).hasSizeGreaterThan(3);
+
+        var ids = new ArrayList<Long>();
+        var cursor = journal.checkpoint();
+        JournalBatch batch;
+        while (!(batch = journal.read(cursor, 30)).isEmpty()) {
+            batch.getEntries().forEach(entry -> ids.add(entry.getPayment().getId()));
+            cursor = batch.getNext();
+            journal.acknowledge(cursor);
+        }
+
+        assertThat(ids).containsExactlyElementsOf(range(1, 101));
+        // Só o segmento em uso continua no disco
+        assertThat(segmentFiles()).hasSize(1);
+    }
+
+    @Test
+    void resumesFromTheCheckpointAfterRestart() throws Exception {
+        journal = open(1024);
+        appendAll(1, 30);
+        var batch = journal.read(journal.checkpoint(), 12);
+        journal.acknowledge(batch.getNext());
+        journal.close();
+
+        journal = open(1024);
+        assertThat(journal.checkpoint().getSequence()).isEqualTo(12);
+        assertThat(appendAll(31, 5)).containsExactly(30L, 31L, 32L, 33L, 34L);
+
+        var pending = journal.read(journal.checkpoint(), 100).getEntries();
+        assertThat(pending).extracting(entry -> entry.getPayment().getId()).containsExactlyElementsOf(range(13, 36));
+        assertThat(pending.get(0).getPayment().getCardNumber()).isEqualTo("4111111111111111");
+    }
+
+    @Test
+    void discardsATornRecordAtTheEnd() throws Exception {
+        journal = open(64 * 1024);
+        appendAll(1, 3);
+        journal.close();
+
+        // Simula uma queda no meio da escrita: cabeçalho com tamanho, mas sem o CRC e o conteúdo corretos
+        var segment = segmentFiles().get(0);
+        try (var channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            int end = 3 * (ENTRY_SIZE + "4111111111111111".length());
+            channel.write(ByteBuffer.allocate(8).putInt(0, 27).putInt(4, 0xCAFE), end);
+        }
+
+        journal = open(64 * 1024);
+        assertThat(appendAll(4, 1)).containsExactly(3L);
+        assertThat(journal.read(journal.checkpoint(), 100).getEntries())
+                .extracting(entry -> entry.getPayment().getId())
+                .containsExactly(1L, 2L, 3L, 4L);
+    }
+
+    @Test
+    void confirmsWhatIsDurableWhenTheNextSegmentCannotBeCreatedAndRetriesLater() throws Exception {
+        journal = open(1024);
+        // O próximo segmento já existe, então a rotação sela o atual e falha ao criar o seguinte
+        var blocker = Files.createFile(segmentFiles().get(0).resolveSibling(String.format("segment-%020d.log", 1)));
+
+        var futures = new ArrayList<CompletableFuture<Long>>();
+        for (long id = 1; id <= 30; id++) {
+            futures.add(journal.append(new Payment(id, 1L, 3L, "4111111111111111")));
+        }
+        var confirmed = new ArrayList<Long>();
+        int rejected = 0;
+        for (var future : futures) {
+            try {
+                confirmed.add(future.join());
+            } catch (CompletionException e) {
+                assertThat(e).hasCauseInstanceOf(PaymentRejectedException.class);
+                rejected++;
+            }
+        }
+
+        // Os pagamentos que couberam no segmento selado estão em disco e serão enviados: não podem ser recusados
+        int perSegment = 1024 / (ENTRY_SIZE + "4111111111111111".length());
+        assertThat(confirmed).containsExactlyElementsOf(range(0, perSegment));
+        assertThat(rejected).isEqualTo(30 - perSegment);
+        assertThat(journal.read(journal.checkpoint(), 100).getEntries()).hasSize(perSegment);
+        assertThat(journal.failure()).isNull();
+
+        // Resolvido o problema, a próxima gravação cria o segmento e o journal continua de onde parou
+        Files.delete(blocker);
+        assertThat(appendAll(31, 1)).containsExactly((long) perSegment);
+        assertThat(journal.read(journal.checkpoint(), 100).getEntries())
+                .extracting(entry -> entry.getPayment().getId())
+                .containsExactlyElementsOf(concat(range(1, perSegment + 1), 31L));
+    }
+
+    private PaymentJournal open(int segmentSize) throws Exception {
+        var properties = new JournalProperties();
+        properties.setDirectory(directory);
+        properties.setSegmentSize(DataSize.ofBytes(segmentSize));
+        return new PaymentJournal(properties, new SimpleMeterRegistry());
+    }
+
+    private List<Long> appendAll(long firstId, int count) {
+        var futures = new ArrayList<CompletableFuture<Long>>();
+        for (long id = firstId; id < firstId + count; id++) {
+            futures.add(journal.append(new Payment(id, id % 7, 3L, "4111111111111111")));
+        }
+        return futures.stream().map(CompletableFuture::join).collect(Collectors.toList());
+    }
+
+    private List<Path> segmentFiles() throws Exception {
+        try (var files = Files.list(directory)) {
+            return files.filter(JournalSegment::isSegment).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static List<Long> concat(List<Long> values, Long last) {
+        var all = new ArrayList<>(values);
+        all.add(last);
+        return all;
+    }
+
+    private static List<Long> range(long from, long to) {
+        var values = new ArrayList<Long>();
+        for (long value = from; value < to; value++) {
+            values.add(value);
+        }
+        return values;
+    }
+}
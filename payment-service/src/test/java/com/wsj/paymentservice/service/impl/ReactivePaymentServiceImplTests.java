@@ -0,0 +1,97 @@
+package com.wsj.paymentservice.service.impl;
+
+import com.wsj.kafka.support.topics.TopicProvisioningProperties;
+import com.wsj.paymentservice.config.PaymentSendProperties;
+import com.wsj.paymentservice.exceptions.PaymentRejectedException;
+import com.wsj.paymentservice.model.Payment;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderOptions;
+import reactor.kafka.sender.internals.ProducerFactory;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReactivePaymentServiceImplTests {
+
+    // Sem auto-complete: o teste decide quando o "broker" confirma ou falha cada envio
+    private final MockProducer<String, Payment> producer = new MockProducer<>(false, new StringSerializer(), (topic, payment) -> new byte[0]);
+
+    private KafkaSender<String, Payment> sender;
+    private ReactivePaymentServiceImpl service;
+
+    @AfterEach
+    void close() {
+        service.shutdown();
+        sender.close();
+    }
+
+    @Test
+    void rejectsWith429WhileTheInFlightBudgetIsTakenAndReleasesItOnAck() {
+        service = service(1);
+        var first = service.sendPayment(payment(1L)).toFuture();
+
+        StepVerifier.create(service.sendPayment(payment(2L)))
+                .expectErrorSatisfies(error -> assertThat(((PaymentRejectedException) error).getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS))
+                .verify();
+
+        until(() -> producer.history().size() == 1);
+        producer.completeNext();
+        assertThat(first.join().topic()).isEqualTo("payment-topic");
+        assertThat(producer.history().get(0).key()).isEqualTo("7");
+
+        // Com a vaga liberada o próximo pagamento volta a ser aceito
+        StepVerifier.create(service.sendPayment(payment(3L)))
+                .then(() -> until(() -> producer.history().size() == 2 && producer.completeNext()))
+                .expectNextCount(1)
+                .verifyComplete();
+    }
+
+    @Test
+    void mapsBrokerFailuresTo503() {
+        service = service(10);
+
+        StepVerifier.create(service.sendPayment(payment(1L)))
+                .then(() -> until(() -> producer.errorNext(new TimeoutException("broker fora"))))
+                .expectErrorSatisfies(error -> assertThat(((PaymentRejectedException) error).getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE))
+                .verify(Duration.ofSeconds(5));
+    }
+
+    private ReactivePaymentServiceImpl service(int maxInFlight) {
+        var properties = new PaymentSendProperties();
+        properties.setMaxInFlight(maxInFlight);
+        sender = KafkaSender.create(new ProducerFactory() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Producer<K, V> createProducer(SenderOptions<K, V> options) {
+                return (Producer<K, V>) producer;
+            }
+        }, SenderOptions.<String, Payment>create(Map.of()));
+        var topicProperties = new TopicProvisioningProperties();
+        topicProperties.setName("payment-topic");
+        return new ReactivePaymentServiceImpl(sender, properties, topicProperties);
+    }
+
+    // O envio acontece na thread do produtor; espera ele chegar ao MockProducer
+    private static void until(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("tempo esgotado").isLessThan(deadline);
+            Thread.onSpinWait();
+        }
+    }
+
+    private static Payment payment(Long id) {
+        return new Payment(id, 7L, 3L, "4111111111111111");
+    }
+}
@@ -0,0 +1,82 @@
+package com.wsj.paymentservice.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wsj.paymentservice.config.PaymentStatusProperties;
+import com.wsj.paymentservice.model.PaymentStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PaymentStatusProjectorTests {
+
+    @TempDir
+    Path directory;
+
+    private final MockConsumer<byte[], byte[]> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+    private final PaymentStatusProperties properties = new PaymentStatusProperties();
+    private PaymentStatusStore store;
+    private PaymentStatusProjector projector;
+
+    @AfterEach
+    void close() throws Exception {
+        projector.close();
+        store.close();
+    }
+
+    @Test
+    void appliesDecisionsAndStatusEvents() throws Exception {
+        for (var topic : List.of(properties.getApprovedTopic(), properties.getRejectedTopic(), properties.getStatusTopic())) {
+            consumer.updatePartitions(topic, List.of(new PartitionInfo(topic, 0, null, null, null)));
+            consumer.updateBeginningOffsets(Map.of(new TopicPartition(topic, 0), 0L));
+            consumer.updateEndOffsets(Map.of(new TopicPartition(topic, 0), 0L));
+        }
+        store = new PaymentStatusStore(directory.resolve("status.db"), 1024);
+        var view = new PaymentStatusView(store, 100, new SimpleMeterRegistry());
+        projector = new PaymentStatusProjector(consumer, view, properties, new ObjectMapper(), new SimpleMeterRegistry());
+        await(view::isRebuilt);
+
+        consumer.schedulePollTask(() -> {
+            consumer.addRecord(record(properties.getApprovedTopic(), 0, "{\"id\":7,\"idUser\":1}", 1_000));
+            consumer.addRecord(record(properties.getStatusTopic(), 0, "{\"id\":7,\"stage\":\"RECEIPT\",\"at\":2000}", 2_100));
+            consumer.addRecord(record(properties.getStatusTopic(), 1, "{\"id\":7,\"stage\":\"EMAIL\",\"at\":3000}", 3_100));
+        });
+        await(() -> view.find(7).map(status -> status.getEmailedAt() != null).orElse(false));
+
+        var status = view.find(7).orElseThrow();
+        assertThat(status.getFraud()).isEqualTo(PaymentStatus.Fraud.APPROVED);
+        assertThat(status.getReceiptAt()).isEqualTo(Instant.ofEpochMilli(2_000));
+        assertThat(status.getEmailedAt()).isEqualTo(Instant.ofEpochMilli(3_000));
+    }
+
+    private static ConsumerRecord<byte[], byte[]> record(String topic, long offset, String value, long timestamp) {
+        return new ConsumerRecord<>(topic, 0, offset, timestamp, TimestampType.CREATE_TIME,
+                0, 0, "7".getBytes(StandardCharsets.UTF_8), value.getBytes(StandardCharsets.UTF_8),
+                new RecordHeaders(), Optional.empty());
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("condição não atingida a tempo").isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.wsj.paymentservice.status;
+
+import com.wsj.paymentservice.model.PaymentStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PaymentStatusStoreTests {
+
+    @TempDir
+    Path directory;
+
+    private PaymentStatusStore store;
+
+    @AfterEach
+    void close() throws Exception {
+        store.close();
+    }
+
+    @Test
+    void mergesOutcomesAndSurvivesReopening() throws Exception {
+        store = new PaymentStatusStore(directory.resolve("status.db"), 1024);
+        store.receipted(42L, 2_000);
+        store.decided(42L, false, "card-velocity", 1_000);
+        // Reentrega do recibo: fica o primeiro instante
+        store.receipted(42L, 5_000);
+        store.emailed(42L, 3_000);
+        store.close();
+
+        store = new PaymentStatusStore(directory.resolve("status.db"), 1024);
+        var status = store.find(42L).orElseThrow();
+
+        assertThat(status.getFraud()).isEqualTo(PaymentStatus.Fraud.REJECTED);
+        assertThat(status.getFraudReason()).isEqualTo("card-velocity");
+        assertThat(status.getDecidedAt()).isEqualTo(Instant.ofEpochMilli(1_000));
+        assertThat(status.getReceiptAt()).isEqualTo(Instant.ofEpochMilli(2_000));
+        assertThat(status.getEmailedAt()).isEqualTo(Instant.ofEpochMilli(3_000));
+        assertThat(store.find(43L)).isEmpty();
+    }
+
+    @Test
+    void staysBoundedByEvictingTheOldestPayments() throws Exception {
+        var file = directory.resolve("status.db");
+        store = new PaymentStatusStore(file, 64);
+
+        LongStream.range(0, 10_000).forEach(id -> store.decided(id, true, null, id + 1));
+
+        assertThat(Files.size(file)).isEqualTo(64L * PaymentStatusStore.SLOT_SIZE);
+        assertThat(store.evictions()).isEqualTo(10_000 - 64);
+        // Os últimos pagamentos sempre cabem; os antigos foram sobrescritos
+        assertThat(store.find(9_999L)).hasValueSatisfying(status -> assertThat(status.getFraud()).isEqualTo(PaymentStatus.Fraud.APPROVED));
+        assertThat(LongStream.range(0, 10_000).filter(id -> store.find(id).isPresent()).count()).isEqualTo(64);
+    }
+
+    @Test
+    void recreatesTheFileWhenTheCapacityChanges() throws Exception {
+        var file = directory.resolve("status.db");
+        store = new PaymentStatusStore(file, 64);
+        store.emailed(7L, 1_000);
+        store.close();
+
+        store = new PaymentStatusStore(file, 128);
+
+        assertThat(Files.size(file)).isEqualTo(128L * PaymentStatusStore.SLOT_SIZE);
+        assertThat(store.find(7L)).isEmpty();
+    }
+}
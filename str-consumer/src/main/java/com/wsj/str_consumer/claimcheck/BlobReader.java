@@ -0,0 +1,44 @@
+package com.wsj.str_consumer.claimcheck;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.regex.Pattern;
+
+// Lê os blobs do claim check mapeando o arquivo em memória: o conteúdo é paginado pelo sistema operacional
+// conforme é lido, sem cópia para o heap, e o mapeamento é liberado pelo GC junto com o buffer
+public class BlobReader {
+
+    // SHA-256 em hexadecimal; qualquer outra coisa no cabeçalho é rejeitada antes de virar caminho de arquivo
+    private static final Pattern DIGEST = Pattern.compile("[0-9a-f]{64}");
+
+    // Nulo quando o diretório não foi configurado: o serviço sobe, e só os registros com claim check falham
+    private final Path directory;
+
+    public BlobReader(Path directory) {
+        this.directory = directory;
+    }
+
+    // Mapeia o blob somente para leitura; o tamanho precisa ser o informado no registro
+    public ByteBuffer map(String digest, long size) {
+        if (!DIGEST.matcher(digest).matches()) {
+            throw new IllegalArgumentException("Referência de claim check inválida: " + digest);
+        }
+        if (directory == null) {
+            throw new IllegalStateException("Claim check " + digest + " recebido sem str-consumer.claim-check.directory "
+                    + "(CLAIM_CHECK_DIR) configurado");
+        }
+        var path = directory.resolve(digest.substring(0, 2)).resolve(digest);
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() != size) {
+                throw new IllegalStateException("Blob " + digest + " tem " + channel.size() + " bytes, esperado " + size);
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Blob " + digest + " indisponível", e);
+        }
+    }
+}
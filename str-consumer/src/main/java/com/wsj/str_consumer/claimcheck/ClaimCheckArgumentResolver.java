@@ -0,0 +1,53 @@
+package com.wsj.str_consumer.claimcheck;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.handler.invocation.HandlerMethodArgumentResolver;
+
+import java.nio.charset.StandardCharsets;
+
+// Entrega um ClaimCheckPayload aos listeners que o declaram como parâmetro
+// Com os cabeçalhos do claim check o valor do registro é só a referência, e o payload aponta para o blob sem abri-lo
+public class ClaimCheckArgumentResolver implements HandlerMethodArgumentResolver {
+
+    // Cabeçalhos gravados pelo str-producer: SHA-256 (hexadecimal) e tamanho em bytes (decimal)
+    public static final String HEADER = "claim-check";
+    public static final String SIZE_HEADER = "claim-check-size";
+
+    private final BlobReader reader;
+
+    public ClaimCheckArgumentResolver(BlobReader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return ClaimCheckPayload.class.equals(parameter.getParameterType());
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, Message<?> message) {
+        var digest = header(message, HEADER);
+        if (digest != null) {
+            var size = header(message, SIZE_HEADER);
+            if (size == null) {
+                throw new IllegalArgumentException("Claim check " + digest + " sem o cabeçalho " + SIZE_HEADER);
+            }
+            return ClaimCheckPayload.reference(reader, digest, Long.parseLong(size));
+        }
+        var payload = message.getPayload();
+        if (payload instanceof byte[] bytes) {
+            return ClaimCheckPayload.inline(bytes);
+        }
+        return ClaimCheckPayload.inline(String.valueOf(payload));
+    }
+
+    // Os cabeçalhos sem tipo chegam como bytes pelo DefaultKafkaHeaderMapper
+    private static String header(Message<?> message, String name) {
+        var value = message.getHeaders().get(name);
+        if (value instanceof byte[] bytes) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        return value != null ? value.toString() : null;
+    }
+}
@@ -0,0 +1,78 @@
+package com.wsj.str_consumer.claimcheck;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// Mensagem do str-topic recebida pelos listeners: o próprio conteúdo, ou a referência a um blob do claim check
+// O blob só é mapeado quando o listener pede o conteúdo (text ou buffer); size e toString não o abrem
+public final class ClaimCheckPayload {
+
+    private final String text;
+    private final byte[] bytes;
+    private final BlobReader reader;
+    private final String digest;
+    private final long size;
+    private ByteBuffer mapped;
+
+    private ClaimCheckPayload(String text, byte[] bytes, BlobReader reader, String digest, long size) {
+        this.text = text;
+        this.bytes = bytes;
+        this.reader = reader;
+        this.digest = digest;
+        this.size = size;
+    }
+
+    public static ClaimCheckPayload inline(String text) {
+        return new ClaimCheckPayload(text, null, null, null, -1);
+    }
+
+    public static ClaimCheckPayload inline(byte[] bytes) {
+        return new ClaimCheckPayload(null, bytes, null, null, bytes.length);
+    }
+
+    public static ClaimCheckPayload reference(BlobReader reader, String digest, long size) {
+        return new ClaimCheckPayload(null, null, reader, digest, size);
+    }
+
+    public boolean isClaimCheck() {
+        return digest != null;
+    }
+
+    // SHA-256 do blob, ou null quando o conteúdo veio no próprio registro
+    public String getDigest() {
+        return digest;
+    }
+
+    // Tamanho do conteúdo em bytes
+    public long size() {
+        return size >= 0 ? size : text.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    // Conteúdo como bytes, somente leitura; no claim check é o próprio mapeamento do arquivo
+    public ByteBuffer buffer() {
+        if (isClaimCheck()) {
+            if (mapped == null) {
+                mapped = reader.map(digest, size);
+            }
+            return mapped.asReadOnlyBuffer();
+        }
+        return ByteBuffer.wrap(bytes != null ? bytes : text.getBytes(StandardCharsets.UTF_8)).asReadOnlyBuffer();
+    }
+
+    // Conteúdo decodificado em UTF-8; no claim check decodifica o blob inteiro a cada chamada
+    public String text() {
+        if (text != null) {
+            return text;
+        }
+        if (bytes != null) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        return StandardCharsets.UTF_8.decode(buffer()).toString();
+    }
+
+    // O conteúdo da mensagem, ou só a referência ao blob, para que logar a mensagem não a carregue
+    @Override
+    public String toString() {
+        return isClaimCheck() ? "sha256:" + digest + " (" + size + " bytes)" : text();
+    }
+}
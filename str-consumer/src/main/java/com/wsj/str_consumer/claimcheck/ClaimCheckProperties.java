@@ -0,0 +1,18 @@
+package com.wsj.str_consumer.claimcheck;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+
+// Blob store onde o str-producer grava os corpos acima do threshold (prefixo str-consumer.claim-check)
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "str-consumer.claim-check")
+public class ClaimCheckProperties {
+
+    // Mesmo diretório (ou volume compartilhado) configurado em producer.claim-check.directory, absoluto;
+    // obrigatório só se o str-producer estiver com o claim check ligado
+    private Path directory;
+}
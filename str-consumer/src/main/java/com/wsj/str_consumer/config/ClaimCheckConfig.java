@@ -0,0 +1,39 @@
+package com.wsj.str_consumer.config;
+
+import com.wsj.str_consumer.claimcheck.BlobReader;
+import com.wsj.str_consumer.claimcheck.ClaimCheckArgumentResolver;
+import com.wsj.str_consumer.claimcheck.ClaimCheckProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.annotation.KafkaListenerConfigurer;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistrar;
+
+@Configuration
+@EnableConfigurationProperties(ClaimCheckProperties.class)
+public class ClaimCheckConfig implements KafkaListenerConfigurer {
+
+    private final BlobReader blobReader;
+
+    // Sem diretório o serviço sobe normalmente e só um registro com claim check falha, ao ter o conteúdo lido.
+    // Um caminho relativo só coincidiria com o do str-producer por acaso, dependendo do diretório de trabalho
+    public ClaimCheckConfig(ClaimCheckProperties properties) {
+        if (properties.getDirectory() != null && !properties.getDirectory().isAbsolute()) {
+            throw new IllegalStateException("str-consumer.claim-check.directory (CLAIM_CHECK_DIR) precisa ser o caminho "
+                    + "absoluto do blob store do str-producer, mas é '" + properties.getDirectory() + "'");
+        }
+        this.blobReader = new BlobReader(properties.getDirectory());
+    }
+
+    // Leitor dos blobs, usado também pelas regras de conteúdo
+    @Bean
+    public BlobReader blobReader() {
+        return blobReader;
+    }
+
+    // Permite que os listeners recebam ClaimCheckPayload, resolvido só quando pedem o conteúdo
+    @Override
+    public void configureKafkaListeners(KafkaListenerEndpointRegistrar registrar) {
+        registrar.setCustomMethodArgumentResolvers(new ClaimCheckArgumentResolver(blobReader));
+    }
+}
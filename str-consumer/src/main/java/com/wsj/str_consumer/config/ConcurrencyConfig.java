@@ -0,0 +1,51 @@
+package com.wsj.str_consumer.config;
+
+import com.wsj.kafka.support.partitions.AutoscalingProperties;
+import com.wsj.kafka.support.partitions.LagAutoscaler;
+import com.wsj.kafka.support.partitions.PartitionConcurrency;
+import com.wsj.kafka.support.partitions.PartitionConcurrencyProperties;
+import com.wsj.kafka.support.rebalance.RebalanceSupport;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+
+// Concorrência dos listeners do str-topic e dos tópicos de retentativa
+// Componentes compartilhados com o json-consumer, ligados aos prefixos deste serviço
+@Configuration
+public class ConcurrencyConfig {
+
+    // Um consumidor por partição do tópico, em str-consumer.concurrency.*
+    @Bean
+    @ConfigurationProperties(prefix = "str-consumer.concurrency")
+    public PartitionConcurrencyProperties partitionConcurrencyProperties() {
+        return new PartitionConcurrencyProperties();
+    }
+
+    // Ajusta a concorrência de cada container ao número de partições, consultado no broker ao criá-lo
+    @Bean
+    public PartitionConcurrency partitionConcurrency(KafkaProperties kafkaProperties,
+                                                     PartitionConcurrencyProperties properties) {
+        return new PartitionConcurrency(kafkaProperties.getBootstrapServers(), properties);
+    }
+
+    // Ajuste pelo lag, desligado por padrão: cada mudança reinicia o container
+    @Bean
+    @ConfigurationProperties(prefix = "str-consumer.concurrency.autoscaling")
+    public AutoscalingProperties autoscalingProperties() {
+        return new AutoscalingProperties();
+    }
+
+    // Numa redução, os membros estáticos que deixaram de existir são removidos do grupo
+    @Bean
+    @ConditionalOnProperty(prefix = "str-consumer.concurrency.autoscaling", name = "enabled", havingValue = "true")
+    public LagAutoscaler lagAutoscaler(KafkaListenerEndpointRegistry registry, PartitionConcurrency partitionConcurrency,
+                                       AutoscalingProperties properties, MeterRegistry meterRegistry,
+                                       RebalanceSupport rebalanceSupport) {
+        return new LagAutoscaler(registry, partitionConcurrency::concurrencyFor, properties, meterRegistry,
+                (container, previous, next) -> rebalanceSupport.removeMembers(container, next, previous));
+    }
+}
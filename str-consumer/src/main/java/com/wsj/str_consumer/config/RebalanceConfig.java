@@ -0,0 +1,34 @@
+package com.wsj.str_consumer.config;
+
+import com.wsj.kafka.support.rebalance.RebalanceProperties;
+import com.wsj.kafka.support.rebalance.RebalanceSupport;
+import com.wsj.str_consumer.rebalance.RebalanceMetricsListener;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+// Rebalanceamento dos grupos dos listeners: atribuição cooperativa, membros estáticos e métrica de pausa
+// Componente compartilhado com o json-consumer, ligado ao prefixo deste serviço
+@Configuration
+public class RebalanceConfig {
+
+    // Estratégias de atribuição e membros estáticos, em str-consumer.rebalance.*
+    @Bean
+    @ConfigurationProperties(prefix = "str-consumer.rebalance")
+    public RebalanceProperties rebalanceProperties() {
+        return new RebalanceProperties();
+    }
+
+    // Os listeners são síncronos e a revogação não espera registros em andamento,
+    // então o stop() dos containers fica com a margem padrão
+    @Bean
+    public RebalanceSupport rebalanceSupport(KafkaProperties kafkaProperties, RebalanceProperties properties,
+                                             MeterRegistry meterRegistry) {
+        return new RebalanceSupport(kafkaProperties.getBootstrapServers(), properties,
+                new RebalanceMetricsListener(meterRegistry), Duration.ZERO);
+    }
+}
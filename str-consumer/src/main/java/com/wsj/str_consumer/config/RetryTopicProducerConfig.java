@@ -0,0 +1,44 @@
+package com.wsj.str_consumer.config;
+
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+
+import java.util.HashMap;
+
+@RequiredArgsConstructor
+@Configuration
+public class RetryTopicProducerConfig {
+
+    // Injeta automaticamente as propriedades de configuração do Kafka definidas no arquivo application.yml
+    private final KafkaProperties properties;
+
+    // Fábrica de produtores usada para republicar as mensagens que falharam nos tópicos de retentativa e no DLT
+    @Bean
+    public ProducerFactory<String, String> retryProducerFactory() {
+        var configs = new HashMap<String, Object>();
+
+        // Define o endereço do Kafka Broker
+        configs.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, properties.getBootstrapServers());
+
+        // As mensagens do str-topic são Strings, então chave e valor são republicados como String
+        configs.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        configs.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+
+        // Evita duplicar a mensagem no tópico de retentativa se o envio precisar ser repetido
+        configs.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        return new DefaultKafkaProducerFactory<>(configs);
+    }
+
+    // Template referenciado pelo @RetryableTopic dos listeners
+    @Bean
+    public KafkaTemplate<String, String> retryKafkaTemplate(ProducerFactory<String, String> retryProducerFactory) {
+        return new KafkaTemplate<>(retryProducerFactory);
+    }
+}
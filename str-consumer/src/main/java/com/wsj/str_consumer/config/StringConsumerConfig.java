@@ -1,27 +1,46 @@
 package com.wsj.str_consumer.config;
 
+import com.wsj.kafka.support.metrics.ConsumerMetricsInterceptor;
+import com.wsj.kafka.support.partitions.PartitionConcurrency;
+import com.wsj.kafka.support.rebalance.RebalanceSupport;
+import com.wsj.str_consumer.claimcheck.BlobReader;
+import com.wsj.str_consumer.matcher.ContentMatchingProperties;
+import com.wsj.str_consumer.matcher.ContentMatchingRecordInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.log4j.Log4j2;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.ContainerCustomizer;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
-import org.springframework.kafka.listener.RecordInterceptor;
+import org.springframework.kafka.listener.CompositeRecordInterceptor;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
 
 import java.util.HashMap;
 
-@Log4j2
 @RequiredArgsConstructor
 @Configuration
+@EnableConfigurationProperties(ContentMatchingProperties.class)
 public class StringConsumerConfig {
 
     // Injeta automaticamente as propriedades de configuração do Kafka definidas no arquivo application.yml
     private final KafkaProperties properties;
 
+    // Registro de métricas exposto em /actuator/prometheus
+    private final MeterRegistry meterRegistry;
+
+    // Ajusta a concorrência dos containers ao número de partições do tópico
+    private final PartitionConcurrency partitionConcurrency;
+
+    // Atribuição cooperativa, membros estáticos e métrica de pausa dos rebalanceamentos
+    private final RebalanceSupport rebalanceSupport;
+
     // Configuração do factory do consumidor Kafka
     @Bean
     public ConsumerFactory<String, String> consumerFactory() {
@@ -37,6 +56,9 @@ public class StringConsumerConfig {
         // Configura o deserializador de valor (value) como String
         configs.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
 
+        // Usa a atribuição cooperativa e, com instance-id, o tempo de sessão dos membros estáticos
+        rebalanceSupport.configure(configs);
+
         // Retorna uma fábrica de consumidores com as configurações especificadas
         return new DefaultKafkaConsumerFactory<>(configs);
     }
@@ -52,43 +74,65 @@ public class StringConsumerConfig {
         // Associa a fábrica de consumidores criada anteriormente
         factory.setConsumerFactory(consumerFactory);
 
+        // Mede a latência de ponta a ponta e o lag de cada partição antes de chamar o listener
+        // Vale também para os tópicos de retentativa, que usam esta mesma fábrica
+        factory.setRecordInterceptor(new ConsumerMetricsInterceptor<>(meterRegistry));
+
+        // Um consumidor por partição do str-topic (e dos tópicos de retentativa), com membro estático no grupo
+        factory.setContainerCustomizer(containerCustomizer());
+
         // Retorna a fábrica de listeners configurada
         return factory;
     }
 
+    // Fábrica de consumidores que entrega o valor como bytes, sem decodificar para String
+    // Usada pelo container com interceptação para que as regras de conteúdo sejam avaliadas sobre os bytes originais
+    @Bean
+    public ConsumerFactory<String, byte[]> byteArrayConsumerFactory() {
+        var configs = new HashMap<String, Object>();
+        configs.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, properties.getBootstrapServers());
+        configs.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        configs.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+        rebalanceSupport.configure(configs);
+        return new DefaultKafkaConsumerFactory<>(configs);
+    }
+
     // Configura um container com interceptação de mensagens válidas
+    // O listener continua recebendo String: o Spring converte os bytes ao chamar o método
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, String> validMessageContainerFactory(
-            ConsumerFactory<String, String> consumerFactory
+    public ConcurrentKafkaListenerContainerFactory<String, byte[]> validMessageContainerFactory(
+            ConsumerFactory<String, byte[]> byteArrayConsumerFactory,
+            ContentMatchingProperties contentMatchingProperties,
+            BlobReader blobReader
     ) {
         // Cria uma nova fábrica de listeners com interceptação de mensagens
-        var factory = new ConcurrentKafkaListenerContainerFactory<String, String>();
+        var factory = new ConcurrentKafkaListenerContainerFactory<String, byte[]>();
 
-        // Associa a fábrica de consumidores padrão
-        factory.setConsumerFactory(consumerFactory);
+        // Associa a fábrica de consumidores que entrega os bytes do valor
+        factory.setConsumerFactory(byteArrayConsumerFactory);
+
+        // Define os interceptors: primeiro as métricas, para contar também os registros descartados pelas regras,
+        // depois o que procura as palavras das regras configuradas (no blob, para os registros do claim check)
+        // e marca o registro com cabeçalhos
+        factory.setRecordInterceptor(new CompositeRecordInterceptor<>(
+                new ConsumerMetricsInterceptor<>(meterRegistry),
+                new ContentMatchingRecordInterceptor(contentMatchingProperties, blobReader)
+        ));
 
-        // Define um interceptor para validar as mensagens recebidas
-        factory.setRecordInterceptor(validMessage());
+        // Um consumidor por partição do tópico, com membro estático no grupo
+        factory.setContainerCustomizer(containerCustomizer());
 
         // Retorna a fábrica de listeners configurada com interceptor
         return factory;
     }
 
-    // Intercepta e valida as mensagens consumidas do Kafka
-    private RecordInterceptor<String, String> validMessage() {
-        return record -> {
-            // Verifica se a mensagem contém a palavra "Teste"
-            if(record.value().contains("Teste")) {
-                // Loga uma mensagem se "Teste" estiver presente
-                log.info("Possui a palavra Teste");
-
-                // Retorna o registro para continuar o processamento
-                return record;
-            }
-
-            // Se a mensagem não contiver "Teste", simplesmente retorna o registro
-            return record;
+    // Aplica a concorrência pelo número de partições e depois as configurações de rebalanceamento do container
+    private <V> ContainerCustomizer<String, V, ConcurrentMessageListenerContainer<String, V>> containerCustomizer() {
+        ContainerCustomizer<String, V, ConcurrentMessageListenerContainer<String, V>> concurrency =
+                partitionConcurrency.customizer();
+        return container -> {
+            concurrency.configure(container);
+            rebalanceSupport.configure(container);
         };
     }
-
 }
@@ -19,6 +19,11 @@ import java.lang.annotation.Target;
 @KafkaListener
 public @interface StrConsumerCustomListener {
 
+    // Mapeia o atributo "id" da anotação KafkaListener para nossa anotação customizada
+    // O id nomeia o container e aparece na tag "name" do timer spring.kafka.listener
+    @AliasFor(annotation = KafkaListener.class, attribute = "id")
+    String id() default "";
+
     // Mapeia o atributo "topics" da anotação KafkaListener para nossa anotação customizada
     // O valor padrão é "str-topic", ou seja, o tópico que será consumido por padrão
     @AliasFor(annotation = KafkaListener.class, attribute = "topics")
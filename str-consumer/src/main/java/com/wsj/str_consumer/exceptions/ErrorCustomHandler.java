@@ -6,6 +6,7 @@ import org.springframework.kafka.listener.ListenerExecutionFailedException;
 import org.springframework.messaging.Message;
 import org.springframework.stereotype.Component;
 
+// Manipulador de erros padrão do @StrConsumerCustomListener: loga a falha e descarta a mensagem
 @Log4j2  // Adiciona suporte ao logging com Log4j2
 @Component  // Marca a classe como um bean gerenciado pelo Spring
 public class ErrorCustomHandler implements KafkaListenerErrorHandler {
@@ -28,6 +29,7 @@ public class ErrorCustomHandler implements KafkaListenerErrorHandler {
         log.info("Message exception ::: {}", e.getMessage());
 
         // Retorna null, pois o tratamento de erro não deve alterar o fluxo de processamento da mensagem
+        // Os listeners com retentativa usam o RetryableErrorHandler, que relança a exceção
         return null;
     }
 
@@ -0,0 +1,22 @@
+package com.wsj.str_consumer.exceptions;
+
+import org.springframework.kafka.listener.ListenerExecutionFailedException;
+import org.springframework.messaging.Message;
+import org.springframework.stereotype.Component;
+
+// Manipulador de erros dos listeners com @RetryableTopic: loga como o ErrorCustomHandler e relança a exceção
+// para que o container envie a mensagem ao próximo tópico de retentativa (ou ao DLT), em vez de descartá-la;
+// assim a partição principal continua sendo consumida sem bloquear
+// Os demais listeners do grupo seguem com o ErrorCustomHandler, que não relança
+@Component  // Marca a classe como um bean gerenciado pelo Spring
+public class RetryableErrorHandler extends ErrorCustomHandler {
+
+    @Override
+    public Object handleError(Message<?> message, ListenerExecutionFailedException e) {
+        // Loga a mensagem e a exceção como o manipulador padrão
+        super.handleError(message, e);
+
+        // Relança para o pipeline de retentativa
+        throw e;
+    }
+}
@@ -1,20 +1,44 @@
 package com.wsj.str_consumer.listeners;
 
+import com.wsj.str_consumer.claimcheck.ClaimCheckPayload;
 import com.wsj.str_consumer.custom.StrConsumerCustomListener;
 import lombok.SneakyThrows;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.kafka.annotation.DltHandler;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.RetryableTopic;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.retry.annotation.Backoff;
 import org.springframework.stereotype.Component;
 
+import java.nio.ByteBuffer;
+
 @Log4j2
 @Component
 public class StrConsumerListener {
 
     // Método que consome mensagens do Kafka usando a anotação customizada
     // O grupo de consumidores usado aqui é "group-1"
+    // As falhas são reenviadas para tópicos de retentativa (str-topic-retry-<atraso>) com atraso exponencial
+    // e, esgotadas as tentativas, para o str-topic-dlt; o str-topic segue sendo consumido normalmente enquanto isso
+    // O retryableErrorHandler relança a falha para o pipeline; o errorCustomHandler padrão a descartaria
+    // Os listeners recebem ClaimCheckPayload: mensagens grandes chegam como referência ao blob, que só é lido
+    // quando o listener pede o conteúdo (text ou buffer); logar a mensagem grava só a referência
     @SneakyThrows
-    @StrConsumerCustomListener(groupId = "group-1")
-    public void create(String message) {
+    @RetryableTopic(
+            attempts = "${str-consumer.retry.attempts:4}",
+            backoff = @Backoff(
+                    delayExpression = "${str-consumer.retry.delay-ms:1000}",
+                    multiplierExpression = "${str-consumer.retry.multiplier:2}",
+                    maxDelayExpression = "${str-consumer.retry.max-delay-ms:30000}"
+            ),
+            numPartitions = "${str-consumer.retry.partitions:2}",
+            kafkaTemplate = "retryKafkaTemplate",
+            listenerContainerFactory = "strContainerFactory"
+    )
+    @StrConsumerCustomListener(id = "str-create", groupId = "group-1", errorHandler = "retryableErrorHandler")
+    public void create(ClaimCheckPayload message) {
         // Loga a mensagem recebida no tópico Kafka
         log.info("CREATE ::: Receive message {}", message);
 
@@ -22,18 +46,30 @@ public class StrConsumerListener {
         throw new IllegalArgumentException("EXCEPTION...");
     }
 
+    // Recebe as mensagens do str-topic-dlt que esgotaram as retentativas do método create
+    // Os cabeçalhos trazem a posição original da mensagem e a exceção que causou a última falha
+    @DltHandler
+    public void createDlt(String message,
+                          @Header(KafkaHeaders.DLT_ORIGINAL_TOPIC) String originalTopic,
+                          @Header(KafkaHeaders.DLT_ORIGINAL_PARTITION) byte[] originalPartition,
+                          @Header(KafkaHeaders.DLT_ORIGINAL_OFFSET) byte[] originalOffset,
+                          @Header(KafkaHeaders.DLT_EXCEPTION_MESSAGE) String exceptionMessage) {
+        log.error("DLT ::: Message {} from {}-{}@{} failed: {}", message, originalTopic,
+                ByteBuffer.wrap(originalPartition).getInt(), ByteBuffer.wrap(originalOffset).getLong(), exceptionMessage);
+    }
+
     // Outro método que consome mensagens do Kafka, também com o "group-1"
     // Usando a anotação customizada, ele consome mensagens do tópico padrão definido
-    @StrConsumerCustomListener(groupId = "group-1")
-    public void log(String message) {
+    @StrConsumerCustomListener(id = "str-log", groupId = "group-1")
+    public void log(ClaimCheckPayload message) {
         // Loga a mensagem recebida
         log.info("LOG ::: Receive message {}", message);
     }
 
     // Método que consome mensagens usando a anotação padrão KafkaListener
     // O grupo de consumidores é "group-2" e o containerFactory é o validMessageContainerFactory
-    @KafkaListener(groupId = "group-2", topics = "str-topic", containerFactory = "validMessageContainerFactory")
-    public void history(String message) {
+    @KafkaListener(id = "str-history", groupId = "group-2", topics = "str-topic", containerFactory = "validMessageContainerFactory")
+    public void history(ClaimCheckPayload message) {
         // Loga a mensagem recebida
         log.info("HISTORY ::: Receive message {}", message);
     }
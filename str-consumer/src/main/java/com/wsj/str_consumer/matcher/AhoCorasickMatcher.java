@@ -0,0 +1,158 @@
+package com.wsj.str_consumer.matcher;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+// Localiza várias palavras-chave de uma vez em um array de bytes (algoritmo Aho-Corasick)
+// Todas as palavras são compiladas em um único autômato determinístico: cada byte lido custa uma consulta na tabela
+// de transições, então o custo da varredura depende só do tamanho da mensagem e não da quantidade de palavras
+public class AhoCorasickMatcher {
+
+    // Quantidade de valores possíveis de um byte
+    private static final int ALPHABET = 256;
+
+    // Tabela de transições: o próximo estado de "estado" ao ler "byte" está em transitions[estado * 256 + byte]
+    private final int[] transitions;
+
+    // Regras reconhecidas ao chegar em cada estado (null quando o estado não reconhece nenhuma)
+    private final BitSet[] outputs;
+
+    // Normalização aplicada a cada byte lido (minúsculas ASCII quando ignoreCase, identidade caso contrário)
+    private final int[] fold;
+
+    // Quantidade de regras compiladas
+    private final int ruleCount;
+
+    // Compila as palavras de cada regra; a posição da regra na lista é o índice devolvido por match
+    public AhoCorasickMatcher(List<List<String>> keywordsByRule, boolean ignoreCase) {
+        this.ruleCount = keywordsByRule.size();
+        this.fold = foldTable(ignoreCase);
+
+        // Monta a trie das palavras, com as transições ainda incompletas (-1)
+        var trie = new ArrayList<int[]>();
+        var trieOutputs = new ArrayList<BitSet>();
+        trie.add(newState());
+        trieOutputs.add(null);
+
+        for (int rule = 0; rule < keywordsByRule.size(); rule++) {
+            for (var keyword : keywordsByRule.get(rule)) {
+                var bytes = keyword.getBytes(StandardCharsets.UTF_8);
+                if (bytes.length == 0) {
+                    continue;
+                }
+                int state = 0;
+                for (byte b : bytes) {
+                    int symbol = fold[b & 0xff];
+                    if (trie.get(state)[symbol] < 0) {
+                        trie.get(state)[symbol] = trie.size();
+                        trie.add(newState());
+                        trieOutputs.add(null);
+                    }
+                    state = trie.get(state)[symbol];
+                }
+                if (trieOutputs.get(state) == null) {
+                    trieOutputs.set(state, new BitSet(ruleCount));
+                }
+                trieOutputs.get(state).set(rule);
+            }
+        }
+
+        // Calcula os links de falha em largura e completa as transições, transformando a trie em um autômato
+        int states = trie.size();
+        this.transitions = new int[states * ALPHABET];
+        this.outputs = trieOutputs.toArray(new BitSet[0]);
+        var failure = new int[states];
+        var queue = new ArrayDeque<Integer>();
+
+        for (int symbol = 0; symbol < ALPHABET; symbol++) {
+            int next = trie.get(0)[symbol];
+            if (next < 0) {
+                transitions[symbol] = 0;
+            } else {
+                transitions[symbol] = next;
+                failure[next] = 0;
+                queue.add(next);
+            }
+        }
+
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+
+            // O estado também reconhece tudo o que o seu link de falha reconhece
+            var inherited = outputs[failure[state]];
+            if (inherited != null) {
+                if (outputs[state] == null) {
+                    outputs[state] = new BitSet(ruleCount);
+                }
+                outputs[state].or(inherited);
+            }
+
+            for (int symbol = 0; symbol < ALPHABET; symbol++) {
+                int next = trie.get(state)[symbol];
+                int fallback = transitions[failure[state] * ALPHABET + symbol];
+                if (next < 0) {
+                    transitions[state * ALPHABET + symbol] = fallback;
+                } else {
+                    transitions[state * ALPHABET + symbol] = next;
+                    failure[next] = fallback;
+                    queue.add(next);
+                }
+            }
+        }
+    }
+
+    // Percorre os bytes uma única vez e devolve os índices das regras com pelo menos uma palavra encontrada
+    public BitSet match(byte[] data) {
+        var matched = new BitSet(ruleCount);
+        if (data == null) {
+            return matched;
+        }
+        int state = 0;
+        for (byte b : data) {
+            state = transitions[state * ALPHABET + fold[b & 0xff]];
+            var output = outputs[state];
+            if (output != null) {
+                matched.or(output);
+            }
+        }
+        return matched;
+    }
+
+    // Mesmo que match(byte[]), lendo os bytes entre position e limit sem copiá-los (ex.: um blob mapeado em memória)
+    public BitSet match(ByteBuffer data) {
+        var matched = new BitSet(ruleCount);
+        int state = 0;
+        for (int i = data.position(), end = data.limit(); i < end; i++) {
+            state = transitions[state * ALPHABET + fold[data.get(i) & 0xff]];
+            var output = outputs[state];
+            if (output != null) {
+                matched.or(output);
+            }
+        }
+        return matched;
+    }
+
+    // Quantidade de regras compiladas
+    public int ruleCount() {
+        return ruleCount;
+    }
+
+    private static int[] newState() {
+        var state = new int[ALPHABET];
+        Arrays.fill(state, -1);
+        return state;
+    }
+
+    private static int[] foldTable(boolean ignoreCase) {
+        var table = new int[ALPHABET];
+        for (int i = 0; i < ALPHABET; i++) {
+            table[i] = ignoreCase && i >= 'A' && i <= 'Z' ? i + ('a' - 'A') : i;
+        }
+        return table;
+    }
+}
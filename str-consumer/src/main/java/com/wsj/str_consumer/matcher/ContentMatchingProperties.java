@@ -0,0 +1,38 @@
+package com.wsj.str_consumer.matcher;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Regras de conteúdo aplicadas pelo ContentMatchingRecordInterceptor, definidas em "content-matching" no application.yml
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "content-matching")
+public class ContentMatchingProperties {
+
+    // Ignora maiúsculas/minúsculas (apenas letras ASCII) ao procurar as palavras
+    private boolean ignoreCase = false;
+
+    // Regras avaliadas em cada registro
+    private List<Rule> rules = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Rule {
+
+        // Nome da regra, gravado no cabeçalho "content-match" quando alguma palavra é encontrada
+        private String name;
+
+        // Palavras procuradas; basta uma delas aparecer para a regra ser aplicada
+        private List<String> keywords = new ArrayList<>();
+
+        // Destino gravado no cabeçalho "content-route" (a primeira regra encontrada com destino vence)
+        private String route;
+
+        // Descarta o registro antes de chegar ao listener
+        private boolean drop = false;
+    }
+}
@@ -0,0 +1,96 @@
+package com.wsj.str_consumer.matcher;
+
+import com.wsj.str_consumer.claimcheck.BlobReader;
+import com.wsj.str_consumer.claimcheck.ClaimCheckArgumentResolver;
+import lombok.extern.log4j.Log4j2;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.listener.RecordInterceptor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Interceptor que procura as palavras de todas as regras diretamente nos bytes do valor, antes da conversão para String
+// Nos registros do claim check as palavras são procuradas no blob mapeado em memória, e não na referência
+// As regras encontradas são gravadas nos cabeçalhos do registro para que os listeners possam decidir o que fazer com ele
+@Log4j2
+public class ContentMatchingRecordInterceptor implements RecordInterceptor<String, byte[]> {
+
+    // Cabeçalho com o nome de cada regra encontrada (um cabeçalho por regra)
+    public static final String MATCH_HEADER = "content-match";
+
+    // Cabeçalho com o destino da primeira regra encontrada que define um destino
+    public static final String ROUTE_HEADER = "content-route";
+
+    private final AhoCorasickMatcher matcher;
+    private final BlobReader blobReader;
+    private final List<ContentMatchingProperties.Rule> rules;
+
+    // Nomes e destinos já convertidos em bytes, para não alocar a cada registro
+    private final byte[][] names;
+    private final byte[][] routes;
+
+    public ContentMatchingRecordInterceptor(ContentMatchingProperties properties, BlobReader blobReader) {
+        this.blobReader = blobReader;
+        this.rules = List.copyOf(properties.getRules());
+        this.matcher = new AhoCorasickMatcher(
+                rules.stream().map(ContentMatchingProperties.Rule::getKeywords).collect(Collectors.toList()),
+                properties.isIgnoreCase());
+        this.names = new byte[rules.size()][];
+        this.routes = new byte[rules.size()][];
+        for (int i = 0; i < rules.size(); i++) {
+            names[i] = rules.get(i).getName().getBytes(StandardCharsets.UTF_8);
+            routes[i] = rules.get(i).getRoute() == null ? null : rules.get(i).getRoute().getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    @Override
+    public ConsumerRecord<String, byte[]> intercept(ConsumerRecord<String, byte[]> record, Consumer<String, byte[]> consumer) {
+        var matched = match(record);
+        if (matched.isEmpty()) {
+            return record;
+        }
+
+        boolean routed = false;
+        for (int rule = matched.nextSetBit(0); rule >= 0; rule = matched.nextSetBit(rule + 1)) {
+            record.headers().add(MATCH_HEADER, names[rule]);
+            if (!routed && routes[rule] != null) {
+                record.headers().add(ROUTE_HEADER, routes[rule]);
+                routed = true;
+            }
+            if (rules.get(rule).isDrop()) {
+                log.info("Registro {}-{}@{} descartado pela regra {}",
+                        record.topic(), record.partition(), record.offset(), rules.get(rule).getName());
+                return null;
+            }
+        }
+
+        log.info("Possui as regras {}", matched.stream().mapToObj(i -> rules.get(i).getName()).collect(Collectors.toList()));
+        return record;
+    }
+
+    private BitSet match(ConsumerRecord<String, byte[]> record) {
+        var digest = record.headers().lastHeader(ClaimCheckArgumentResolver.HEADER);
+        var size = record.headers().lastHeader(ClaimCheckArgumentResolver.SIZE_HEADER);
+        if (digest == null || size == null || matcher.ruleCount() == 0) {
+            return matcher.match(record.value());
+        }
+        try {
+            return matcher.match(blobReader.map(new String(digest.value(), StandardCharsets.UTF_8),
+                    Long.parseLong(new String(size.value(), StandardCharsets.UTF_8))));
+        } catch (RuntimeException e) {
+            // Sem o blob o registro segue sem regras; o listener falha se precisar do conteúdo
+            log.warn("Registro {}-{}@{} sem o blob do claim check: {}",
+                    record.topic(), record.partition(), record.offset(), e.getMessage());
+            return new BitSet();
+        }
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public ConsumerRecord<String, byte[]> intercept(ConsumerRecord<String, byte[]> record) {
+        return intercept(record, null);
+    }
+}
@@ -0,0 +1,60 @@
+package com.wsj.str_consumer.rebalance;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Mede a pausa de cada consumidor num rebalanceamento (kafka.consumer.rebalance.pause, por grupo):
+// da revogação de partições até a próxima atribuição, com scope=all quando ele perdeu todas as partições
+// (como sempre acontece na eager) e scope=partial quando seguiu consumindo as que manteve.
+// Os listeners deste serviço são síncronos: a revogação só acontece entre dois registros e o container commita
+// os já processados antes dela, então não há registros em andamento para esperar.
+@RequiredArgsConstructor
+public class RebalanceMetricsListener implements ConsumerAwareRebalanceListener {
+
+    private final MeterRegistry registry;
+
+    // Consumidores fechados no meio de um rebalanceamento não voltam a receber partições; saem do mapa com o GC
+    private final Map<Consumer<?, ?>, Revocation> revocations = Collections.synchronizedMap(new WeakHashMap<>());
+
+    @Override
+    public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        if (!partitions.isEmpty()) {
+            revocations.put(consumer, new Revocation(System.nanoTime(),
+                    partitions.containsAll(consumer.assignment()) ? "all" : "partial"));
+        }
+    }
+
+    // Partições perdidas já têm outro dono: o consumidor recomeça do zero
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        revocations.put(consumer, new Revocation(System.nanoTime(), "all"));
+    }
+
+    @Override
+    public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        var revocation = revocations.remove(consumer);
+        if (revocation != null) {
+            Timer.builder("kafka.consumer.rebalance.pause")
+                    .description("Time between a partition revocation and the next assignment of the consumer")
+                    .tags("group", consumer.groupMetadata().groupId(), "scope", revocation.scope)
+                    .register(registry)
+                    .record(System.nanoTime() - revocation.start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class Revocation {
+        private final long start;
+        private final String scope;
+    }
+}
@@ -0,0 +1,76 @@
+package com.wsj.str_consumer.claimcheck;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ClaimCheckArgumentResolverTests {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void resolvesReferenceOnlyWhenTheContentIsRead() throws Exception {
+        var content = "conteúdo grande ".repeat(10_000).getBytes(StandardCharsets.UTF_8);
+        var digest = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        var resolver = new ClaimCheckArgumentResolver(new BlobReader(directory));
+
+        var payload = resolve(resolver, "sha256:" + digest, digest, content.length);
+
+        // Nada foi lido ainda: o blob pode ser gravado depois do registro ser recebido
+        assertThat(payload.isClaimCheck()).isTrue();
+        assertThat(payload.size()).isEqualTo(content.length);
+        assertThat(payload.toString()).isEqualTo("sha256:" + digest + " (" + content.length + " bytes)");
+
+        var blob = directory.resolve(digest.substring(0, 2)).resolve(digest);
+        Files.createDirectories(blob.getParent());
+        Files.write(blob, content);
+
+        assertThat(payload.text()).isEqualTo(new String(content, StandardCharsets.UTF_8));
+        assertThat(payload.buffer().isDirect()).isTrue();
+        assertThat(payload.buffer().remaining()).isEqualTo(content.length);
+    }
+
+    @Test
+    void failsOnMissingBlobOrInvalidReference() {
+        var resolver = new ClaimCheckArgumentResolver(new BlobReader(directory));
+
+        assertThatThrownBy(() -> resolve(resolver, "sha256:x", "a".repeat(64), 10).text())
+                .isInstanceOf(UncheckedIOException.class);
+        assertThatThrownBy(() -> resolve(resolver, "sha256:x", "../../etc/passwd", 10).text())
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void passesInlineMessagesThrough() {
+        var resolver = new ClaimCheckArgumentResolver(new BlobReader(directory));
+
+        var text = (ClaimCheckPayload) resolver.resolveArgument(null, MessageBuilder.withPayload("olá").build());
+        var bytes = (ClaimCheckPayload) resolver.resolveArgument(null,
+                MessageBuilder.withPayload("olá".getBytes(StandardCharsets.UTF_8)).build());
+
+        assertThat(text.isClaimCheck()).isFalse();
+        assertThat(text.toString()).isEqualTo("olá");
+        assertThat(text.size()).isEqualTo(4);
+        assertThat(bytes.text()).isEqualTo("olá");
+        assertThat(bytes.size()).isEqualTo(4);
+    }
+
+    private static ClaimCheckPayload resolve(ClaimCheckArgumentResolver resolver, String value, String digest, long size) {
+        var message = MessageBuilder.withPayload(value)
+                .setHeader(ClaimCheckArgumentResolver.HEADER, digest.getBytes(StandardCharsets.UTF_8))
+                .setHeader(ClaimCheckArgumentResolver.SIZE_HEADER, Long.toString(size).getBytes(StandardCharsets.UTF_8))
+                .build();
+        return (ClaimCheckPayload) resolver.resolveArgument(null, message);
+    }
+}
@@ -0,0 +1,32 @@
+package com.wsj.str_consumer.config;
+
+import com.wsj.str_consumer.claimcheck.BlobReader;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+class ClaimCheckConfigTests {
+
+    private final ApplicationContextRunner runner = new ApplicationContextRunner()
+            .withUserConfiguration(ClaimCheckConfig.class);
+
+    @Test
+    void rejectsARelativeDirectory() {
+        runner.withPropertyValues("str-consumer.claim-check.directory=blobs")
+                .run(context -> assertThat(context.getStartupFailure()).hasRootCauseInstanceOf(IllegalStateException.class));
+        runner.withPropertyValues("str-consumer.claim-check.directory=/var/lib/str/blobs")
+                .run(context -> assertThat(context).hasSingleBean(BlobReader.class));
+    }
+
+    @Test
+    void startsWithoutADirectoryAndFailsOnlyWhenAClaimCheckArrives() {
+        runner.run(context -> {
+            assertThat(context).hasNotFailed();
+            assertThatIllegalStateException()
+                    .isThrownBy(() -> context.getBean(BlobReader.class).map("a".repeat(64), 10))
+                    .withMessageContaining("str-consumer.claim-check.directory");
+        });
+    }
+}
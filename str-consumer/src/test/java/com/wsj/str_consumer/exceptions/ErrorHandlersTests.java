@@ -0,0 +1,41 @@
+package com.wsj.str_consumer.exceptions;
+
+import com.wsj.str_consumer.claimcheck.ClaimCheckPayload;
+import com.wsj.str_consumer.listeners.StrConsumerListener;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ListenerExecutionFailedException;
+import org.springframework.messaging.support.MessageBuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ErrorHandlersTests {
+
+    private final ListenerExecutionFailedException failure =
+            new ListenerExecutionFailedException("falhou", new IllegalArgumentException("EXCEPTION..."));
+
+    @Test
+    void defaultHandlerSwallowsTheFailure() {
+        assertThat(new ErrorCustomHandler().handleError(MessageBuilder.withPayload("mensagem").build(), failure)).isNull();
+    }
+
+    @Test
+    void retryableHandlerRethrowsToTheRetryTopics() {
+        assertThatThrownBy(() -> new RetryableErrorHandler().handleError(MessageBuilder.withPayload("mensagem").build(), failure))
+                .isSameAs(failure);
+    }
+
+    // Só o listener com @RetryableTopic relança; o 'log', do mesmo grupo, continua com o manipulador padrão
+    @Test
+    void onlyTheRetryableListenerRethrows() throws NoSuchMethodException {
+        assertThat(errorHandlerOf("create")).isEqualTo("retryableErrorHandler");
+        assertThat(errorHandlerOf("log")).isEqualTo("errorCustomHandler");
+    }
+
+    private static String errorHandlerOf(String method) throws NoSuchMethodException {
+        var listener = StrConsumerListener.class.getMethod(method, ClaimCheckPayload.class);
+        return AnnotatedElementUtils.findMergedAnnotation(listener, KafkaListener.class).errorHandler();
+    }
+}
@@ -0,0 +1,69 @@
+package com.wsj.str_consumer.matcher;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AhoCorasickMatcherTests {
+
+    @Test
+    void findsEveryRuleWithAKeywordInTheMessage() {
+        var matcher = new AhoCorasickMatcher(List.of(
+                List.of("Teste"),
+                List.of("pix", "boleto"),
+                List.of("cartao")
+        ), false);
+
+        var matched = matcher.match(bytes("Pagamento de Teste via boleto"));
+
+        assertThat(matched.stream().toArray()).containsExactly(0, 1);
+    }
+
+    @Test
+    void findsOverlappingAndSuffixKeywords() {
+        var matcher = new AhoCorasickMatcher(List.of(
+                List.of("she"),
+                List.of("he"),
+                List.of("hers"),
+                List.of("his")
+        ), false);
+
+        var matched = matcher.match(bytes("ushers"));
+
+        assertThat(matched.stream().toArray()).containsExactly(0, 1, 2);
+    }
+
+    @Test
+    void ignoresAsciiCaseWhenConfigured() {
+        var keywords = List.of(List.of("Teste"));
+
+        assertThat(new AhoCorasickMatcher(keywords, false).match(bytes("TESTE")).isEmpty()).isTrue();
+        assertThat(new AhoCorasickMatcher(keywords, true).match(bytes("TESTE")).get(0)).isTrue();
+    }
+
+    @Test
+    void matchesMultiByteUtf8Keywords() {
+        var matcher = new AhoCorasickMatcher(List.of(List.of("cartão")), false);
+
+        assertThat(matcher.match(bytes("pago no cartão de crédito")).get(0)).isTrue();
+        assertThat(matcher.match(bytes("pago no cartao")).isEmpty()).isTrue();
+    }
+
+    @Test
+    void matchesOnlyTheRemainingBytesOfABuffer() {
+        var matcher = new AhoCorasickMatcher(List.of(List.of("pix"), List.of("boleto")), false);
+        var buffer = ByteBuffer.wrap(bytes("pix e boleto"));
+
+        assertThat(matcher.match(buffer).stream().toArray()).containsExactly(0, 1);
+        assertThat(matcher.match(buffer.position(4)).stream().toArray()).containsExactly(1);
+        assertThat(buffer.position()).isEqualTo(4);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
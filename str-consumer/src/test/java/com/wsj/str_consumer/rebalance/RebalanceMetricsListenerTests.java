@@ -0,0 +1,46 @@
+package com.wsj.str_consumer.rebalance;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RebalanceMetricsListenerTests {
+
+    private static final TopicPartition P0 = new TopicPartition("str-topic", 0);
+    private static final TopicPartition P1 = new TopicPartition("str-topic", 1);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final RebalanceMetricsListener listener = new RebalanceMetricsListener(registry);
+    private final MockConsumer<String, String> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+
+    @Test
+    void recordsPauseFromRevocationToNextAssignment() {
+        consumer.assign(List.of(P0, P1));
+
+        // Cooperativa: perde só a partição 0 e recebe uma atribuição vazia na segunda rodada
+        listener.onPartitionsRevokedBeforeCommit(consumer, List.of(P0));
+        listener.onPartitionsAssigned(consumer, List.of());
+        // Eager: perde todas e recebe de volta parte delas
+        listener.onPartitionsRevokedBeforeCommit(consumer, List.of(P0, P1));
+        listener.onPartitionsAssigned(consumer, List.of(P1));
+
+        var group = consumer.groupMetadata().groupId();
+        assertThat(registry.get("kafka.consumer.rebalance.pause").tags("group", group, "scope", "partial").timer().count()).isEqualTo(1);
+        assertThat(registry.get("kafka.consumer.rebalance.pause").tags("group", group, "scope", "all").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void ignoresAssignmentsWithoutRevocation() {
+        listener.onPartitionsAssigned(consumer, List.of(P0));
+        listener.onPartitionsRevokedBeforeCommit(consumer, List.of());
+        listener.onPartitionsAssigned(consumer, List.of(P1));
+
+        assertThat(registry.find("kafka.consumer.rebalance.pause").timer()).isNull();
+    }
+}
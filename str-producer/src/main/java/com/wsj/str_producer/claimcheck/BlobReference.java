@@ -0,0 +1,24 @@
+package com.wsj.str_producer.claimcheck;
+
+import lombok.AllArgsConstructor; // Gera o construtor com todos os campos
+import lombok.Getter; // Gera automaticamente os métodos getter para os campos
+
+// Referência a um blob gravado no BlobStore, enviada no lugar do corpo da mensagem
+@Getter
+@AllArgsConstructor
+public class BlobReference {
+
+    // Cabeçalho com o SHA-256 (hexadecimal) do conteúdo, que também é o nome do blob
+    public static final String HEADER = "claim-check";
+
+    // Cabeçalho com o tamanho do conteúdo em bytes (decimal)
+    public static final String SIZE_HEADER = "claim-check-size";
+
+    private final String digest;
+    private final long size;
+
+    // Valor do registro no str-topic
+    public String reference() {
+        return "sha256:" + digest;
+    }
+}
@@ -0,0 +1,128 @@
+package com.wsj.str_producer.claimcheck;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Blob store local endereçado pelo conteúdo: cada blob fica em {@code <diretório>/<2 primeiros hex>/<sha-256>}.
+ *
+ * <p>O corpo é transferido do stream da requisição direto para o {@link FileChannel}, calculando o SHA-256 na
+ * mesma passada, sem montar um {@code String} nem um array do tamanho da mensagem. O arquivo é escrito com um
+ * nome temporário e renomeado ao final, então um blob nunca aparece pela metade; conteúdos repetidos reaproveitam
+ * o blob existente. Blobs que não recebem novas referências dentro da retenção são apagados periodicamente.
+ */
+@Log4j2
+public class BlobStore implements DisposableBean {
+
+    private final Path directory;
+    private final Duration retention;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+        var thread = new Thread(task, "blob-sweeper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public BlobStore(Path directory, Duration retention, Duration sweepInterval) {
+        this.directory = directory;
+        this.retention = retention;
+        long interval = sweepInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::sweep, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    // Grava os bytes já lidos (head) seguidos do restante do stream e devolve a referência do conteúdo
+    public BlobReference write(byte[] head, InputStream rest) throws IOException {
+        Files.createDirectories(directory);
+        var digest = sha256();
+        digest.update(head);
+
+        var temp = directory.resolve("." + UUID.randomUUID() + ".tmp");
+        long size;
+        try (var channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            var buffer = ByteBuffer.wrap(head);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.transferFrom(Channels.newChannel(new DigestInputStream(rest, digest)), head.length, Long.MAX_VALUE);
+            size = channel.size();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        var hex = HexFormat.of().formatHex(digest.digest());
+        var target = path(hex);
+        Files.createDirectories(target.getParent());
+        if (Files.exists(target)) {
+            try {
+                // Mesmo conteúdo já gravado: renova o prazo do blob existente em vez de regravá-lo
+                Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+                Files.delete(temp);
+                return new BlobReference(hex, size);
+            } catch (NoSuchFileException e) {
+                // Apagado pela limpeza neste meio tempo; segue gravando o novo
+            }
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        return new BlobReference(hex, size);
+    }
+
+    public Path path(String digest) {
+        return directory.resolve(digest.substring(0, 2)).resolve(digest);
+    }
+
+    // Apaga os blobs (e temporários abandonados) sem novas referências dentro da retenção
+    void sweep() {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        var expiry = FileTime.from(Instant.now().minus(retention));
+        try (var files = Files.walk(directory, 2)) {
+            files.filter(Files::isRegularFile).forEach(file -> {
+                try {
+                    if (Files.getLastModifiedTime(file).compareTo(expiry) < 0) {
+                        Files.deleteIfExists(file);
+                    }
+                } catch (IOException e) {
+                    log.warn("Não foi possível apagar o blob {}: {}", file, e.getMessage());
+                }
+            });
+        } catch (IOException | RuntimeException e) {
+            log.warn("Falha ao limpar o blob store {}: {}", directory, e.getMessage());
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,25 @@
+package com.wsj.str_producer.config;
+
+import com.wsj.str_producer.claimcheck.BlobStore;  // Blob store endereçado pelo conteúdo.
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;  // Cria o blob store só com o claim check ligado.
+import org.springframework.boot.context.properties.EnableConfigurationProperties;  // Habilita as propriedades do claim check.
+import org.springframework.context.annotation.Bean;  // Define que o método produzirá um bean gerenciado pelo Spring.
+import org.springframework.context.annotation.Configuration;  // Indica que esta classe é uma configuração do Spring.
+
+@Configuration  // Indica que essa classe será usada para configuração no contexto do Spring.
+@EnableConfigurationProperties(ClaimCheckProperties.class)  // Liga as propriedades "producer.claim-check.*".
+public class ClaimCheckConfig {
+
+    // Blob store usado pelo endpoint /producer para os corpos acima do threshold; só existe com o claim check ligado.
+    // O diretório precisa ser configurado explicitamente: um caminho relativo só coincidiria com o do str-consumer
+    // por acaso, dependendo do diretório de trabalho de cada processo.
+    @Bean
+    @ConditionalOnProperty(prefix = "producer.claim-check", name = "enabled", matchIfMissing = false)
+    public BlobStore blobStore(ClaimCheckProperties properties) {
+        if (properties.getDirectory() == null || !properties.getDirectory().isAbsolute()) {
+            throw new IllegalStateException("producer.claim-check.directory (CLAIM_CHECK_DIR) precisa ser um caminho "
+                    + "absoluto compartilhado com o str-consumer, mas é '" + properties.getDirectory() + "'");
+        }
+        return new BlobStore(properties.getDirectory(), properties.getRetention(), properties.getSweepInterval());
+    }
+}
@@ -0,0 +1,32 @@
+package com.wsj.str_producer.config;
+
+import lombok.Getter; // Gera automaticamente os métodos getter para os campos
+import lombok.Setter; // Gera automaticamente os métodos setter usados pelo binding do Spring
+import org.springframework.boot.context.properties.ConfigurationProperties; // Liga os campos às propriedades "producer.claim-check.*"
+import org.springframework.util.unit.DataSize; // Tamanho em bytes aceitando sufixos como 64KB
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+// Claim check do endpoint /producer: corpos maiores que o threshold são gravados no blob store e só a referência
+// vai para o str-topic, com o conteúdo lido pelo str-consumer no mesmo diretório
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "producer.claim-check")
+public class ClaimCheckProperties {
+
+    // Desligado por padrão: o blob store exige um diretório compartilhado com o str-consumer
+    private boolean enabled = false;
+
+    // Corpos com mais bytes que isso vão para o blob store; até ele, a mensagem segue inteira no registro
+    private DataSize threshold = DataSize.ofKilobytes(64);
+
+    // Diretório do blob store, compartilhado com o str-consumer; obrigatório e absoluto com o claim check ligado
+    private Path directory;
+
+    // Blobs sem novas referências há mais tempo que isso são apagados; deve cobrir a retenção do str-topic
+    private Duration retention = Duration.ofDays(7);
+
+    // Intervalo entre as limpezas dos blobs expirados
+    private Duration sweepInterval = Duration.ofHours(1);
+}
@@ -1,11 +1,13 @@
 package com.wsj.str_producer.config;
 
+import com.wsj.kafka.support.topics.TopicProvisioner;  // Calcula as partições do tópico a partir da vazão configurada.
+import com.wsj.kafka.support.topics.TopicProvisioningProperties;  // Vazão esperada do tópico, compartilhada com o payment-service.
 import lombok.RequiredArgsConstructor;  // Importa a anotação para gerar automaticamente um construtor com os campos finais.
 import org.apache.kafka.clients.admin.AdminClientConfig;  // Importa configurações específicas do cliente administrador do Kafka.
 import org.springframework.boot.autoconfigure.kafka.KafkaProperties;  // Importa as propriedades do Kafka definidas no arquivo de configuração.
+import org.springframework.boot.context.properties.ConfigurationProperties;  // Liga as propriedades "producer.topic.*" ao bean.
 import org.springframework.context.annotation.Bean;  // Define que o método produzirá um bean gerenciado pelo Spring.
 import org.springframework.context.annotation.Configuration;  // Indica que esta classe é uma configuração do Spring.
-import org.springframework.kafka.config.TopicBuilder;  // Facilita a criação e configuração de tópicos no Kafka.
 import org.springframework.kafka.core.KafkaAdmin;  // Responsável pela administração de tópicos e outras operações administrativas no Kafka.
 
 import java.util.HashMap;  // Importa a classe que permite armazenar configurações em um mapa chave-valor.
@@ -28,15 +30,20 @@ public class KafkaAdminConfig {
         return new KafkaAdmin(configs);
     }
 
-    // Define um bean que cria os tópicos no Kafka utilizando o KafkaAdmin.
+    // Vazão esperada do 'str-topic', em producer.topic.*.
     @Bean
-    public KafkaAdmin.NewTopics topics() {
-        // Cria um novo tópico chamado 'str-topic' com 2 partições e 1 réplica.
-        return new KafkaAdmin.NewTopics(
-                TopicBuilder.name("str-topic")  // Nome do tópico.
-                        .partitions(2)  // Define o número de partições para o tópico.
-                        .replicas(1)  // Define o número de réplicas do tópico (1 neste caso).
-                        .build()  // Constrói a configuração do tópico.
-        );
+    @ConfigurationProperties(prefix = "producer.topic")
+    public TopicProvisioningProperties topicProvisioningProperties() {
+        var topicProperties = new TopicProvisioningProperties();
+        topicProperties.setName("str-topic");
+        topicProperties.setMinPartitions(2);
+        return topicProperties;
+    }
+
+    // Define um bean que cria os tópicos no Kafka utilizando o KafkaAdmin, ou aumenta as partições dos que já existem.
+    @Bean
+    public KafkaAdmin.NewTopics topics(TopicProvisioningProperties topicProperties) {
+        // O número de partições do 'str-topic' é calculado pelo provisionador a partir da vazão configurada.
+        return new KafkaAdmin.NewTopics(new TopicProvisioner(topicProperties).plan());
     }
 }
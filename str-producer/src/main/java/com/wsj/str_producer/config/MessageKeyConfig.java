@@ -0,0 +1,36 @@
+package com.wsj.str_producer.config;
+
+import com.wsj.str_producer.services.MessageKeyExtractor;  // Define a chave de cada mensagem enviada.
+import org.springframework.beans.factory.annotation.Value;  // Injeta valores definidos no application.yml.
+import org.springframework.context.annotation.Bean;  // Define que o método produzirá um bean gerenciado pelo Spring.
+import org.springframework.context.annotation.Configuration;  // Indica que esta classe é uma configuração do Spring.
+
+import java.util.regex.Pattern;
+
+@Configuration  // Indica que essa classe será usada para configuração no contexto do Spring.
+public class MessageKeyConfig {
+
+    // Estratégias disponíveis para definir a chave das mensagens.
+    public enum Strategy {
+        NONE,  // Sem chave: as mensagens são distribuídas entre as partições.
+        DELIMITER,  // Trecho antes do delimitador configurado.
+        REGEX  // Primeiro grupo da expressão regular configurada.
+    }
+
+    // Cria o extrator de chave escolhido em 'producer.key.strategy'.
+    @Bean
+    public MessageKeyExtractor messageKeyExtractor(
+            @Value("${producer.key.strategy:NONE}") Strategy strategy,
+            @Value("${producer.key.delimiter::}") String delimiter,
+            @Value("${producer.key.pattern:}") String pattern
+    ) {
+        switch (strategy) {
+            case DELIMITER:
+                return MessageKeyExtractor.delimited(delimiter);
+            case REGEX:
+                return MessageKeyExtractor.pattern(Pattern.compile(pattern));
+            default:
+                return MessageKeyExtractor.none();
+        }
+    }
+}
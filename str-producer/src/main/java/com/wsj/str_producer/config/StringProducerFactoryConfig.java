@@ -1,9 +1,15 @@
 package com.wsj.str_producer.config;
 
+import com.wsj.kafka.support.batching.AdaptiveBatchingProperties;  // Faixas e intervalo do ajuste automático, compartilhadas com o payment-service.
+import com.wsj.kafka.support.batching.AdaptiveProducerFactory;  // Ajusta linger e lote do produtor à carga observada.
+import com.wsj.kafka.support.metrics.ProducerLatencyInterceptor;  // Mede a latência de envio e marca os registros com o instante do envio.
+import io.micrometer.core.instrument.MeterRegistry;  // Registro de métricas exposto pelo actuator.
 import lombok.RequiredArgsConstructor;  // Importa a anotação para gerar automaticamente um construtor com os campos finais.
 import org.apache.kafka.clients.producer.ProducerConfig;  // Importa configurações específicas do produtor Kafka.
 import org.apache.kafka.common.serialization.StringSerializer;  // Importa o serializador de strings para chave e valor.
+import org.springframework.beans.factory.annotation.Value;  // Injeta o nome do tópico configurado.
 import org.springframework.boot.autoconfigure.kafka.KafkaProperties;  // Importa propriedades do Kafka definidas no arquivo de configuração.
+import org.springframework.boot.context.properties.ConfigurationProperties;  // Liga as propriedades "producer.adaptive.*" ao bean.
 import org.springframework.context.annotation.Bean;  // Define que o método será gerenciado pelo Spring e produzirá um bean.
 import org.springframework.context.annotation.Configuration;  // Indica que essa classe contém a configuração do Kafka.
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;  // Cria uma fábrica de produtores Kafka padrão.
@@ -19,19 +25,38 @@ public class StringProducerFactoryConfig {
     // Propriedades do Kafka que são automaticamente injetadas, contendo as configurações definidas no arquivo de propriedades.
     private final KafkaProperties properties;
 
+    // Registro de métricas do ajuste automático do produtor.
+    private final MeterRegistry meterRegistry;
+
+    // Tópico das mensagens, usado pelo ajuste automático para saber em quantas partições a carga se divide.
+    @Value("${producer.topic.name:str-topic}")
+    private String topic;
+
+    // Faixas e intervalo do ajuste automático de linger e lote.
+    @Bean
+    @ConfigurationProperties(prefix = "producer.adaptive")
+    public AdaptiveBatchingProperties adaptiveBatchingProperties() {
+        return new AdaptiveBatchingProperties();
+    }
+
     // Define um bean que cria a fábrica de produtores Kafka.
     @Bean
-    public ProducerFactory<String, String> producerFactory() {
-        // Cria um HashMap para armazenar as configurações do produtor Kafka.
-        var configs = new HashMap<String, Object>();
-        // Define o endereço do servidor Kafka (Bootstrap Servers) a partir das propriedades configuradas.
-        configs.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, properties.getBootstrapServers());
+    public ProducerFactory<String, String> producerFactory(AdaptiveBatchingProperties adaptiveProperties) {
+        // Parte do perfil de desempenho de spring.kafka.producer.* (servidores, compressão, linger, lote, buffer e acks).
+        var configs = new HashMap<String, Object>(properties.buildProducerProperties());
         // Define o serializador da chave (String) para garantir que as chaves enviadas sejam convertidas para bytes.
         configs.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
         // Define o serializador do valor (String) para garantir que os valores enviados sejam convertidos para bytes.
         configs.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        // Retorna uma fábrica de produtores Kafka com as configurações especificadas.
-        return new DefaultKafkaProducerFactory<>(configs);
+        // Registra o interceptor que mede a latência até a confirmação do broker por tópico.
+        // Ele é criado pelo cliente Kafka e publica no registro global, que inclui o da aplicação.
+        configs.put(ProducerConfig.INTERCEPTOR_CLASSES_CONFIG, ProducerLatencyInterceptor.class.getName());
+        // Cria a fábrica de produtores Kafka com as configurações especificadas.
+        var factory = new DefaultKafkaProducerFactory<String, String>(configs);
+        // Com producer.adaptive.enabled o linger e o lote do perfil passam a acompanhar a taxa de envio e o tamanho das mensagens.
+        return adaptiveProperties.isEnabled()
+                ? new AdaptiveProducerFactory<>(factory, topic, adaptiveProperties, meterRegistry)
+                : factory;
     }
 
     // Define um bean que cria o KafkaTemplate, facilitando o envio de mensagens para o Kafka.
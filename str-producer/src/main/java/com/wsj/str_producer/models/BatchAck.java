@@ -0,0 +1,37 @@
+package com.wsj.str_producer.models;
+
+import lombok.Getter;  // Gera automaticamente os métodos getter para os campos.
+import lombok.RequiredArgsConstructor;  // Gera o construtor para os campos finais.
+
+import java.util.List;
+
+// Confirmação agregada devolvida pelo endpoint de lote, com o resultado de cada linha enviada.
+@Getter
+@RequiredArgsConstructor
+public class BatchAck {
+
+    // Quantidade total de registros lidos do corpo da requisição.
+    private final long total;
+
+    // Quantidade de registros confirmados pelo broker.
+    private final long succeeded;
+
+    // Quantidade de registros que falharam.
+    private final long failed;
+
+    // Motivo pelo qual o corpo deixou de ser lido antes do fim, ou NONE se todas as linhas foram lidas.
+    private final Stop stopped;
+
+    // Resultado individual (partição/offset ou erro) de cada registro, na ordem em que foram lidos.
+    private final List<BatchRecordResult> records;
+
+    // Motivos para interromper a leitura do lote.
+    public enum Stop {
+        // Todas as linhas do corpo foram lidas.
+        NONE,
+        // O corpo tem mais linhas que producer.batch.max-records; as excedentes não foram lidas.
+        MAX_RECORDS,
+        // Não havia vaga no limite de registros em voo; o último registro falhou e as linhas seguintes não foram lidas.
+        SATURATED
+    }
+}
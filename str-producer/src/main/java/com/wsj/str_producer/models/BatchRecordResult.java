@@ -0,0 +1,41 @@
+package com.wsj.str_producer.models;
+
+import lombok.Getter;  // Gera automaticamente os métodos getter para os campos.
+import lombok.RequiredArgsConstructor;  // Gera o construtor para os campos finais.
+import lombok.ToString;  // Gera o método toString para facilitar o log.
+
+// Resultado individual de uma linha enviada pelo endpoint de lote.
+// Os campos mutáveis são preenchidos pelo callback do produtor Kafka quando o broker confirma (ou rejeita) o registro.
+@ToString
+@Getter
+@RequiredArgsConstructor
+public class BatchRecordResult {
+
+    // Posição da linha dentro do corpo da requisição (começando em 0).
+    private final long index;
+
+    // Partição onde o registro foi gravado, ou null em caso de falha.
+    private Integer partition;
+
+    // Offset do registro na partição, ou null em caso de falha.
+    private Long offset;
+
+    // Mensagem de erro caso o registro não tenha sido gravado.
+    private String error;
+
+    // Marca o registro como confirmado pelo broker.
+    public void success(int partition, long offset) {
+        this.partition = partition;
+        this.offset = offset;
+    }
+
+    // Marca o registro como falho, guardando o motivo.
+    public void failure(String error) {
+        this.error = error;
+    }
+
+    // Indica se o registro foi gravado com sucesso.
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
@@ -1,14 +1,21 @@
 package com.wsj.str_producer.resources;
 
+import com.wsj.str_producer.models.BatchAck;  // Confirmação agregada do envio em lote.
 import com.wsj.str_producer.services.StringProducerService;  // Importa o serviço responsável pelo envio das mensagens para o Kafka.
 import lombok.RequiredArgsConstructor;  // Importa a anotação que gera automaticamente um construtor para os campos finais.
+import org.springframework.http.HttpHeaders;  // Cabeçalho Retry-After da resposta com o produtor saturado.
 import org.springframework.http.HttpStatus;  // Importa as constantes de status HTTP para controle de respostas.
 import org.springframework.http.ResponseEntity;  // Usado para criar a resposta HTTP com um status adequado.
 import org.springframework.web.bind.annotation.PostMapping;  // Define que o método é um endpoint para requisições HTTP POST.
-import org.springframework.web.bind.annotation.RequestBody;  // Anotação para que o corpo da requisição seja passado como parâmetro do método.
 import org.springframework.web.bind.annotation.RequestMapping;  // Define o caminho base para todos os endpoints da classe.
 import org.springframework.web.bind.annotation.RestController;  // Define que essa classe é um controlador REST, que responde a requisições HTTP.
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
 @RequiredArgsConstructor  // Gera automaticamente um construtor que injeta o `producerService` ao instanciar a classe.
 @RestController  // Indica que esta classe é um controlador REST, que manipula requisições HTTP.
 @RequestMapping(value = "/producer")  // Define a URL base "/producer" para todos os endpoints da classe.
@@ -18,11 +25,29 @@ public class StringProducerResource {
     private final StringProducerService producerService;
 
     // Endpoint que recebe mensagens via HTTP POST.
+    // O corpo é lido como stream: acima do threshold do claim check ele vai direto para o blob store.
     @PostMapping  // Indica que esse método será chamado para requisições POST no caminho "/producer".
-    public ResponseEntity<?> sendMessage(@RequestBody String message) {
+    public ResponseEntity<?> sendMessage(InputStream body) throws IOException {
         // Chama o serviço para enviar a mensagem recebida no corpo da requisição para o Kafka.
-        producerService.sendMessage(message);
+        producerService.sendMessage(body);
         // Retorna uma resposta HTTP com o status 201 (CREATED) para indicar que a mensagem foi recebida e processada com sucesso.
         return ResponseEntity.status(HttpStatus.CREATED).build();
     }
+
+    // Endpoint que recebe várias mensagens separadas por quebra de linha em uma única requisição HTTP POST.
+    // O corpo é lido como stream, linha a linha, sem ser carregado inteiro em memória.
+    @PostMapping("/batch")  // Indica que esse método será chamado para requisições POST no caminho "/producer/batch".
+    public ResponseEntity<BatchAck> sendBatch(InputStream body) throws IOException {
+        // Lê o corpo da requisição como texto UTF-8 e envia cada linha para o Kafka.
+        var ack = producerService.sendBatch(new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8)));
+        // Retorna 413 (PAYLOAD_TOO_LARGE) se o corpo passou do limite de linhas, 503 (SERVICE_UNAVAILABLE) se o produtor
+        // estava saturado, 201 (CREATED) se todos os registros foram gravados, ou 207 (MULTI_STATUS) se algum falhou.
+        return switch (ack.getStopped()) {
+            case MAX_RECORDS -> ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(ack);
+            case SATURATED -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(ack);
+            case NONE -> ResponseEntity.status(ack.getFailed() == 0 ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS).body(ack);
+        };
+    }
 }
@@ -0,0 +1,39 @@
+package com.wsj.str_producer.services;
+
+import java.util.regex.Pattern;  // Expressão regular usada para localizar a chave dentro da mensagem.
+
+// Define a chave de cada mensagem enviada ao 'str-topic'.
+// Mensagens com a mesma chave vão para a mesma partição e são consumidas na ordem em que foram enviadas;
+// uma chave nula deixa o produtor distribuir as mensagens entre as partições.
+@FunctionalInterface
+public interface MessageKeyExtractor {
+
+    // Devolve a chave da mensagem, ou null para enviá-la sem chave.
+    String keyOf(String message);
+
+    // Envia todas as mensagens sem chave, como antes.
+    static MessageKeyExtractor none() {
+        return message -> null;
+    }
+
+    // Usa o trecho antes do primeiro delimitador como chave (ex.: "cliente-7:pedido criado" -> "cliente-7").
+    // Mensagens sem o delimitador vão sem chave.
+    static MessageKeyExtractor delimited(String delimiter) {
+        return message -> {
+            int end = message.indexOf(delimiter);
+            return end > 0 ? message.substring(0, end) : null;
+        };
+    }
+
+    // Usa o primeiro grupo da expressão regular encontrado na mensagem como chave (ex.: "user=(\\w+)").
+    // Mensagens em que a expressão não é encontrada vão sem chave.
+    static MessageKeyExtractor pattern(Pattern pattern) {
+        if (pattern.matcher("").groupCount() < 1) {
+            throw new IllegalArgumentException("O padrão da chave precisa de um grupo de captura: " + pattern);
+        }
+        return message -> {
+            var matcher = pattern.matcher(message);
+            return matcher.find() ? matcher.group(1) : null;
+        };
+    }
+}
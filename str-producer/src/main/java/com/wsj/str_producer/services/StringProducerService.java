@@ -1,10 +1,28 @@
 package com.wsj.str_producer.services;
 
+import com.wsj.str_producer.claimcheck.BlobReference;  // Referência ao corpo gravado no blob store.
+import com.wsj.str_producer.claimcheck.BlobStore;  // Blob store dos corpos acima do threshold.
+import com.wsj.str_producer.config.ClaimCheckProperties;  // Propriedades do claim check.
+import com.wsj.str_producer.models.BatchAck;  // Confirmação agregada do envio em lote.
+import com.wsj.str_producer.models.BatchRecordResult;  // Resultado individual de cada registro do lote.
 import lombok.RequiredArgsConstructor;  // Importa a anotação para gerar o construtor automaticamente para os campos finais.
 import lombok.extern.log4j.Log4j2;  // Importa a anotação para o uso do Log4j2 para geração de logs.
+import org.apache.kafka.clients.producer.ProducerRecord;  // Registro com cabeçalhos, usado no claim check.
+import org.springframework.beans.factory.ObjectProvider;  // Blob store, ausente com o claim check desligado.
+import org.springframework.beans.factory.annotation.Value;  // Injeta valores definidos no application.yml.
 import org.springframework.kafka.core.KafkaTemplate;  // Importa a classe que permite interagir com o Kafka para enviar mensagens.
 import org.springframework.stereotype.Service;  // Indica que esta classe é um serviço do Spring.
 
+import javax.annotation.PostConstruct;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
 @Log4j2  // Habilita o uso do Log4j2 para geração de logs.
 @RequiredArgsConstructor  // Gera automaticamente um construtor para os campos marcados como 'final'.
 @Service  // Indica que esta classe é um serviço gerenciado pelo Spring.
@@ -13,10 +31,48 @@ public class StringProducerService {
     // Campo que será inicializado via injeção de dependência com o KafkaTemplate para enviar mensagens.
     private final KafkaTemplate<String, String> kafkaTemplate;
 
+    // Define a chave de cada mensagem, que decide a partição e a ordem de consumo.
+    private final MessageKeyExtractor keyExtractor;
+
+    // Corpos acima do threshold são gravados aqui e só a referência vai para o tópico.
+    private final ObjectProvider<BlobStore> blobStore;
+    private final ClaimCheckProperties claimCheck;
+
+    // Maior quantidade de partes de um Phaser; cada registro em voo de um lote ocupa uma, além da parte do próprio método.
+    static final int MAX_PHASER_PARTIES = 65535;
+
+    // Limite de registros enviados ao produtor e ainda não confirmados pelo broker, somando todas as requisições de lote.
+    @Value("${producer.batch.max-in-flight:10000}")
+    private int maxInFlight;
+
+    // Limite de linhas de uma requisição de lote; o resultado de cada uma fica em memória até a resposta.
+    @Value("${producer.batch.max-records:10000}")
+    private int maxRecords;
+
+    // Tempo máximo de espera por uma vaga no limite de registros em voo, depois do primeiro registro do lote.
+    @Value("${producer.batch.acquire-timeout-ms:1000}")
+    private long acquireTimeoutMs;
+
+    // Controla a quantidade de registros em voo.
+    private Semaphore inFlight;
+
+    // Cria o semáforo depois que os valores de configuração foram injetados.
+    @PostConstruct
+    void init() {
+        if (maxInFlight < 1 || maxInFlight >= MAX_PHASER_PARTIES) {
+            throw new IllegalStateException("producer.batch.max-in-flight precisa estar entre 1 e " + (MAX_PHASER_PARTIES - 1)
+                    + ": " + maxInFlight);
+        }
+        if (maxRecords < 1) {
+            throw new IllegalStateException("producer.batch.max-records precisa ser positivo: " + maxRecords);
+        }
+        inFlight = new Semaphore(maxInFlight);
+    }
+
     // Método que envia uma mensagem para o tópico 'str-topic' no Kafka.
     public void sendMessage(String message) {
-        // Envia a mensagem para o tópico 'str-topic'.
-        kafkaTemplate.send("str-topic", message).addCallback(
+        // Envia a mensagem para o tópico 'str-topic', com a chave definida pelo extrator configurado.
+        kafkaTemplate.send("str-topic", keyExtractor.keyOf(message), message).addCallback(
                 // Callback executado no sucesso do envio da mensagem.
                 success -> {
                     if(success != null) {
@@ -32,4 +88,129 @@ public class StringProducerService {
                 error -> log.error("Error send message")  // Loga um erro caso a mensagem não seja enviada.
         );
     }
+
+    // Envia o corpo lido do stream para o tópico 'str-topic'.
+    // Até o threshold do claim check a mensagem vai inteira; acima dele o corpo vai para o blob store sem ser
+    // carregado em memória, e o registro leva só a referência ("sha256:<hash>") e os cabeçalhos com hash e tamanho.
+    public void sendMessage(InputStream body) throws IOException {
+        if (!claimCheck.isEnabled()) {
+            sendMessage(new String(body.readAllBytes(), StandardCharsets.UTF_8));
+            return;
+        }
+
+        // Lê um byte além do threshold para saber se o corpo passa dele
+        int threshold = Math.toIntExact(claimCheck.getThreshold().toBytes());
+        var head = body.readNBytes(threshold + 1);
+        if (head.length <= threshold) {
+            sendMessage(new String(head, StandardCharsets.UTF_8));
+            return;
+        }
+
+        var blob = blobStore.getObject().write(head, body);
+        // A chave é extraída do início do corpo (os primeiros threshold bytes, sem cortar um caractere no meio).
+        var key = keyExtractor.keyOf(new String(head, 0, characterBoundary(head, threshold), StandardCharsets.UTF_8));
+        var record = new ProducerRecord<String, String>("str-topic", null, key, blob.reference());
+        record.headers().add(BlobReference.HEADER, blob.getDigest().getBytes(StandardCharsets.UTF_8));
+        record.headers().add(BlobReference.SIZE_HEADER, Long.toString(blob.getSize()).getBytes(StandardCharsets.UTF_8));
+        kafkaTemplate.send(record).addCallback(
+                success -> {
+                    if (success != null) {
+                        log.info("Send claim check {} ({} bytes) with success", blob.reference(), blob.getSize());
+                        log.info("Partition {}, Offset {}",
+                                success.getRecordMetadata().partition(),
+                                success.getRecordMetadata().offset());
+                    }
+                },
+                error -> log.error("Error send claim check {}", blob.reference())
+        );
+    }
+
+    // Maior posição até end que não cai no meio de um caractere UTF-8 (bytes de continuação são 10xxxxxx).
+    static int characterBoundary(byte[] bytes, int end) {
+        while (end > 0 && end < bytes.length && (bytes[end] & 0xC0) == 0x80) {
+            end--;
+        }
+        return end;
+    }
+
+    // Envia cada linha lida do reader como um registro no tópico 'str-topic'.
+    // As linhas são lidas e enviadas uma a uma, sem carregar o corpo inteiro em memória, e os envios ficam
+    // em pipeline no produtor: só esperamos pelas confirmações do broker depois de ler a última linha.
+    // O lote para de ser lido ao passar de max-records linhas ou quando não há vaga no limite de registros em voo;
+    // a confirmação indica o motivo, e o cliente reenvia a partir da primeira linha sem resultado ou com falha.
+    public BatchAck sendBatch(BufferedReader reader) throws IOException {
+        var results = new ArrayList<BatchRecordResult>();
+        var stop = BatchAck.Stop.NONE;
+
+        // Cada envio registra uma parte no phaser, que é liberada no callback; o próprio método é a parte inicial.
+        var pending = new Phaser(1);
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            // Linhas vazias são ignoradas.
+            if (line.isEmpty()) {
+                continue;
+            }
+
+            if (results.size() == maxRecords) {
+                stop = BatchAck.Stop.MAX_RECORDS;
+                break;
+            }
+
+            var result = new BatchRecordResult(results.size());
+            results.add(result);
+
+            // Sem vaga no limite de registros em voo, o registro falha sem ser enviado e o restante do corpo não é lido.
+            // O primeiro registro não espera: com o produtor saturado a requisição é recusada de imediato.
+            if (!acquire(results.size() == 1 ? 0 : acquireTimeoutMs)) {
+                result.failure("In-flight limit of " + maxInFlight + " records exceeded");
+                stop = BatchAck.Stop.SATURATED;
+                break;
+            }
+
+            pending.register();
+            try {
+                kafkaTemplate.send("str-topic", keyExtractor.keyOf(line), line).addCallback(
+                        success -> {
+                            if (success != null) {
+                                result.success(success.getRecordMetadata().partition(),
+                                        success.getRecordMetadata().offset());
+                            }
+                            release(pending);
+                        },
+                        error -> {
+                            result.failure(error.getMessage());
+                            release(pending);
+                        }
+                );
+            } catch (RuntimeException e) {
+                // Falhas síncronas do send (ex.: serialização, metadata indisponível) também viram falha do registro.
+                result.failure(e.getMessage());
+                release(pending);
+            }
+        }
+
+        // Aguarda todas as confirmações deste lote; o phaser garante a visibilidade dos resultados preenchidos nos callbacks.
+        pending.arriveAndAwaitAdvance();
+
+        long failed = results.stream().filter(r -> !r.isSuccess()).count();
+        log.info("Batch sent: {} records, {} failed, stop {}", results.size(), failed, stop);
+        return new BatchAck(results.size(), results.size() - failed, failed, stop, results);
+    }
+
+    // Tenta obter uma vaga no limite de registros em voo, esperando no máximo timeoutMs.
+    private boolean acquire(long timeoutMs) {
+        try {
+            return inFlight.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // Devolve a vaga do registro e sinaliza sua conclusão para o lote.
+    private void release(Phaser pending) {
+        inFlight.release();
+        pending.arriveAndDeregister();
+    }
 }
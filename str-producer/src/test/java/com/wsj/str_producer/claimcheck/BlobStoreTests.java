@@ -0,0 +1,79 @@
+package com.wsj.str_producer.claimcheck;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BlobStoreTests {
+
+    @TempDir
+    Path directory;
+
+    private BlobStore store;
+
+    @AfterEach
+    void shutdown() {
+        store.destroy();
+    }
+
+    @Test
+    void storesHeadAndRestUnderTheirSha256() throws Exception {
+        store = new BlobStore(directory, Duration.ofDays(1), Duration.ofHours(1));
+        var content = "x".repeat(200_000).getBytes(StandardCharsets.UTF_8);
+        var head = Arrays.copyOf(content, 1000);
+        var rest = new ByteArrayInputStream(content, 1000, content.length - 1000);
+
+        var blob = store.write(head, rest);
+
+        var expected = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        assertThat(blob.getDigest()).isEqualTo(expected);
+        assertThat(blob.getSize()).isEqualTo(content.length);
+        assertThat(blob.reference()).isEqualTo("sha256:" + expected);
+        assertThat(store.path(expected)).isEqualTo(directory.resolve(expected.substring(0, 2)).resolve(expected));
+        assertThat(Files.readAllBytes(store.path(expected))).isEqualTo(content);
+    }
+
+    @Test
+    void reusesExistingBlobAndLeavesNoTemporaryFiles() throws Exception {
+        store = new BlobStore(directory, Duration.ofDays(1), Duration.ofHours(1));
+        var content = "mesmo conteúdo".getBytes(StandardCharsets.UTF_8);
+
+        var first = store.write(content, new ByteArrayInputStream(new byte[0]));
+        Files.setLastModifiedTime(store.path(first.getDigest()), FileTime.from(Instant.now().minus(Duration.ofHours(1))));
+        var second = store.write(new byte[0], new ByteArrayInputStream(content));
+
+        assertThat(second.getDigest()).isEqualTo(first.getDigest());
+        // A nova referência renova o prazo do blob
+        assertThat(Files.getLastModifiedTime(store.path(first.getDigest())).toInstant())
+                .isAfter(Instant.now().minus(Duration.ofMinutes(1)));
+        try (var files = Files.walk(directory)) {
+            assertThat(files.filter(Files::isRegularFile)).containsExactly(store.path(first.getDigest()));
+        }
+    }
+
+    @Test
+    void sweepDeletesOnlyExpiredBlobs() throws Exception {
+        store = new BlobStore(directory, Duration.ofHours(1), Duration.ofHours(1));
+        var expired = store.write("antigo".getBytes(StandardCharsets.UTF_8), new ByteArrayInputStream(new byte[0]));
+        var recent = store.write("recente".getBytes(StandardCharsets.UTF_8), new ByteArrayInputStream(new byte[0]));
+        Files.setLastModifiedTime(store.path(expired.getDigest()), FileTime.from(Instant.now().minus(Duration.ofHours(2))));
+
+        store.sweep();
+
+        assertThat(store.path(expired.getDigest())).doesNotExist();
+        assertThat(store.path(recent.getDigest())).exists();
+    }
+}
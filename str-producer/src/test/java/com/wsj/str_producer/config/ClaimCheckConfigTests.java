@@ -0,0 +1,32 @@
+package com.wsj.str_producer.config;
+
+import com.wsj.str_producer.claimcheck.BlobStore;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClaimCheckConfigTests {
+
+    private final ApplicationContextRunner runner = new ApplicationContextRunner()
+            .withUserConfiguration(ClaimCheckConfig.class);
+
+    @Test
+    void isOffByDefault() {
+        runner.run(context -> assertThat(context).hasNotFailed().doesNotHaveBean(BlobStore.class));
+    }
+
+    @Test
+    void failsWithoutAnAbsoluteDirectoryWhenEnabled() {
+        runner.withPropertyValues("producer.claim-check.enabled=true")
+                .run(context -> assertThat(context).hasFailed());
+        runner.withPropertyValues("producer.claim-check.enabled=true", "producer.claim-check.directory=blobs")
+                .run(context -> assertThat(context.getStartupFailure()).hasRootCauseInstanceOf(IllegalStateException.class));
+    }
+
+    @Test
+    void createsTheStoreForAnAbsoluteDirectory() {
+        runner.withPropertyValues("producer.claim-check.enabled=true", "producer.claim-check.directory=/var/lib/str/blobs")
+                .run(context -> assertThat(context).hasSingleBean(BlobStore.class));
+    }
+}
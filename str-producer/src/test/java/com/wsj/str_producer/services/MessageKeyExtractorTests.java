@@ -0,0 +1,45 @@
+package com.wsj.str_producer.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class MessageKeyExtractorTests {
+
+    @Test
+    void noneSendsEveryMessageWithoutKey() {
+        assertThat(MessageKeyExtractor.none().keyOf("cliente-7:pedido criado")).isNull();
+    }
+
+    @Test
+    void delimitedUsesTheTextBeforeTheFirstDelimiter() {
+        var extractor = MessageKeyExtractor.delimited(":");
+
+        assertThat(extractor.keyOf("cliente-7:pedido criado")).isEqualTo("cliente-7");
+        assertThat(extractor.keyOf("cliente-7:pedido:criado")).isEqualTo("cliente-7");
+    }
+
+    @Test
+    void delimitedSendsWithoutKeyWhenTheKeyIsMissingOrEmpty() {
+        var extractor = MessageKeyExtractor.delimited(":");
+
+        assertThat(extractor.keyOf("pedido criado")).isNull();
+        assertThat(extractor.keyOf(":pedido criado")).isNull();
+    }
+
+    @Test
+    void patternUsesTheFirstCapturedGroup() {
+        var extractor = MessageKeyExtractor.pattern(Pattern.compile("user=(\\w+)"));
+
+        assertThat(extractor.keyOf("pedido criado user=ana total=10")).isEqualTo("ana");
+        assertThat(extractor.keyOf("pedido criado")).isNull();
+    }
+
+    @Test
+    void patternRequiresACaptureGroup() {
+        assertThatIllegalArgumentException().isThrownBy(() -> MessageKeyExtractor.pattern(Pattern.compile("user=\\w+")));
+    }
+}
@@ -0,0 +1,158 @@
+package com.wsj.str_producer.services;
+
+import com.wsj.str_producer.claimcheck.BlobStore;
+import com.wsj.str_producer.config.ClaimCheckProperties;
+import com.wsj.str_producer.models.BatchAck;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StringProducerServiceTests {
+
+    @SuppressWarnings("unchecked")
+    private final KafkaTemplate<String, String> kafkaTemplate = mock(KafkaTemplate.class);
+
+    // Envios ainda não confirmados, na ordem em que foram feitos
+    private final List<SettableListenableFuture<SendResult<String, String>>> sends = new CopyOnWriteArrayList<>();
+
+    @Test
+    void claimCheckKeyNeverSplitsAMultiByteCharacter() {
+        // "ção" ocupa 5 bytes: c3 a7 c3 a3 6f
+        var bytes = "ação".getBytes(StandardCharsets.UTF_8);
+
+        assertThat(StringProducerService.characterBoundary(bytes, 2)).isEqualTo(1);
+        assertThat(StringProducerService.characterBoundary(bytes, 3)).isEqualTo(3);
+        assertThat(StringProducerService.characterBoundary(bytes, 4)).isEqualTo(3);
+        assertThat(new String(bytes, 0, StringProducerService.characterBoundary(bytes, 4), StandardCharsets.UTF_8))
+                .isEqualTo("aç");
+    }
+
+    @Test
+    void acknowledgesEveryLineWithItsOffsetOrError() throws Exception {
+        var service = service(10, 10);
+        confirmSends();
+
+        var ack = service.sendBatch(body("a\n\nb\nc\n"));
+
+        assertThat(ack.getTotal()).isEqualTo(3);
+        assertThat(ack.getSucceeded()).isEqualTo(2);
+        assertThat(ack.getFailed()).isEqualTo(1);
+        assertThat(ack.getStopped()).isEqualTo(BatchAck.Stop.NONE);
+        assertThat(ack.getRecords().get(0).getOffset()).isEqualTo(0);
+        assertThat(ack.getRecords().get(1).getError()).isEqualTo("broker indisponível");
+        assertThat(ack.getRecords().get(2).getOffset()).isEqualTo(2);
+    }
+
+    @Test
+    void stopsReadingPastTheRecordLimit() throws Exception {
+        var service = service(10, 2);
+        confirmSends();
+
+        var ack = service.sendBatch(body("a\nb\nc\nd\n"));
+
+        assertThat(ack.getStopped()).isEqualTo(BatchAck.Stop.MAX_RECORDS);
+        assertThat(ack.getTotal()).isEqualTo(2);
+        assertThat(ack.getRecords()).hasSize(2);
+        verify(kafkaTemplate, times(2)).send(anyString(), isNull(), anyString());
+    }
+
+    @Test
+    void failsFastWhenAnotherBatchHoldsEveryInFlightSlot() throws Exception {
+        var service = service(2, 10);
+        when(kafkaTemplate.send(anyString(), isNull(), anyString())).thenAnswer(invocation -> pendingSend());
+
+        // O primeiro lote ocupa as duas vagas e espera pelo broker
+        var first = CompletableFuture.supplyAsync(() -> sendBatch(service, "a\nb\n"));
+        while (sends.size() < 2) {
+            Thread.onSpinWait();
+        }
+
+        long start = System.nanoTime();
+        var second = service.sendBatch(body("c\nd\n"));
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(500);
+        assertThat(second.getStopped()).isEqualTo(BatchAck.Stop.SATURATED);
+        assertThat(second.getRecords()).hasSize(1);
+        assertThat(second.getFailed()).isEqualTo(1);
+
+        // Confirmado, o primeiro lote devolve as vagas
+        sends.forEach(send -> send.set(result(0)));
+        assertThat(first.get(1, TimeUnit.SECONDS).getSucceeded()).isEqualTo(2);
+        confirmSends();
+        assertThat(service.sendBatch(body("a\n")).getSucceeded()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsAnInFlightLimitAPhaserCannotHold() {
+        assertThatIllegalStateException().isThrownBy(() -> service(StringProducerService.MAX_PHASER_PARTIES, 10));
+    }
+
+    private StringProducerService service(int maxInFlight, int maxRecords) {
+        @SuppressWarnings("unchecked")
+        ObjectProvider<BlobStore> blobStore = mock(ObjectProvider.class);
+        var service = new StringProducerService(kafkaTemplate, MessageKeyExtractor.none(), blobStore, new ClaimCheckProperties());
+        ReflectionTestUtils.setField(service, "maxInFlight", maxInFlight);
+        ReflectionTestUtils.setField(service, "maxRecords", maxRecords);
+        ReflectionTestUtils.setField(service, "acquireTimeoutMs", 100L);
+        service.init();
+        return service;
+    }
+
+    // Confirma cada envio na hora, com o offset igual à posição da linha no alfabeto; a linha "b" é rejeitada pelo broker.
+    private void confirmSends() {
+        when(kafkaTemplate.send(anyString(), isNull(), anyString())).thenAnswer(invocation -> {
+            var future = new SettableListenableFuture<SendResult<String, String>>();
+            String line = invocation.getArgument(2);
+            if ("b".equals(line)) {
+                future.setException(new IllegalStateException("broker indisponível"));
+            } else {
+                future.set(result(line.charAt(0) - 'a'));
+            }
+            return future;
+        });
+    }
+
+    private SettableListenableFuture<SendResult<String, String>> pendingSend() {
+        var future = new SettableListenableFuture<SendResult<String, String>>();
+        sends.add(future);
+        return future;
+    }
+
+    private static SendResult<String, String> result(long offset) {
+        return new SendResult<>(null, new RecordMetadata(new TopicPartition("str-topic", 0), offset, 0, 0, 0, 0));
+    }
+
+    private static BatchAck sendBatch(StringProducerService service, String body) {
+        try {
+            return service.sendBatch(body(body));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static BufferedReader body(String body) {
+        return new BufferedReader(new StringReader(body));
+    }
+}